@@ -0,0 +1,118 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AVLTree is a self-balancing BinarySearchTree. After every insertion and
+ * removal, the path back to the root is retraced and rotated so that the
+ * heights of the 2 subtrees of any node differ by at most 1. This keeps the
+ * height of the tree below 1.44 log(n), so all operations are worse-case
+ * O(log(n)) regardless of the order in which items are inserted.
+ *
+ * AVLTree orders items exactly like BinarySearchTree: a Comparator passed to
+ * the constructor is used if one is specified; otherwise all items must
+ * implement Comparable.
+ */
+public class AVLTree<T> extends BinarySearchTree<T> {
+	/**
+	 * Creates an empty AVLTree.
+	 */
+	public AVLTree() {
+		super();
+	}
+
+	/**
+	 * Creates an empty AVLTree that will use comparator to compare items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public AVLTree(Comparator<T> comparator) {
+		super(comparator);
+	}
+
+	/**
+	 * Creates an AVLTree initialized with data.
+	 *
+	 * @param data the items to insert in the AVLTree
+	 */
+	public AVLTree(T[] data) {
+		super(data);
+	}
+
+	/**
+	 * Creates an AVLTree initialized with data. Comparator will be used for all
+	 * comparison related to the new AVLTree.
+	 *
+	 * @param data the items to insert in the AVLTree
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public AVLTree(T[] data, Comparator<T> comparator) {
+		super(data, comparator);
+	}
+
+	/**
+	 * Creates an AVLTree initialized with data.
+	 *
+	 * @param data the items to insert in the AVLTree
+	 */
+	public AVLTree(List<T> data) {
+		super(data);
+	}
+
+	/**
+	 * Creates an AVLTree initialized with data. Comparator will be used for all
+	 * comparison related to the new AVLTree.
+	 *
+	 * @param data the items to insert in the AVLTree
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public AVLTree(List<T> data, Comparator<T> comparator) {
+		super(data, comparator);
+	}
+
+	/**
+	 * Walks from node up to the root, updating each node and rotating any node
+	 * whose subtrees' heights differ by more than 1.
+	 *
+	 * @param node the deepest node whose subtree changed; may be null
+	 */
+	@Override
+	protected void retrace(BinaryTreeNode<T> node) {
+		while(node != null) {
+			update(node);
+
+			int balance = getBalance(node);
+
+			if(balance > 1) {
+				// Left-right case: straighten the left subtree before rotating.
+				if(getBalance(node.leftChild) < 0) {
+					rotateLeft(node.leftChild);
+				}
+
+				node = rotateRight(node);
+			} else if(balance < -1) {
+				// Right-left case: straighten the right subtree before rotating.
+				if(getBalance(node.rightChild) > 0) {
+					rotateRight(node.rightChild);
+				}
+
+				node = rotateLeft(node);
+			}
+
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Returns the balance factor of node; that is, the height of its left subtree
+	 * minus the height of its right subtree.
+	 *
+	 * @param node the node of interest
+	 *
+	 * @return node's balance factor
+	 */
+	private int getBalance(BinaryTreeNode<T> node) {
+		return (height(node.leftChild) - height(node.rightChild));
+	}
+}
@@ -0,0 +1,678 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import codes.c1moore.refresher.common.Comparison;
+
+/**
+ * BPlusTree is an in-memory B+tree. Instead of one item per node, each node
+ * packs up to fanout keys into an array, so a lookup touches O(log_fanout(n))
+ * nodes and spends most of its time binary searching contiguous arrays rather
+ * than chasing one pointer (and likely one cache miss) per comparison.
+ *
+ * Items are only stored in the leaves; internal nodes hold separator keys. A
+ * child to the left of a separator holds items less than the separator and a
+ * child to its right holds items greater than or equal to it. The leaves are
+ * linked in both directions, so range scans and iteration walk the leaves
+ * directly without going back up the tree.
+ *
+ * Every node other than the root is kept at least half full. Inserting into a
+ * full node splits it; removing from a node that becomes less than half full
+ * borrows an item from a sibling or merges with it.
+ *
+ * BPlusTree is a set: inserting an item that is already stored has no effect.
+ * Items are ordered by a Comparator, if one is specified, or by their
+ * Comparable implementation otherwise.
+ */
+public class BPlusTree<T> implements SearchTree<T> {
+	/**
+	 * The fanout used unless one is passed to the constructor.
+	 */
+	public static final int DEFAULT_FANOUT = 64;
+
+	private final int fanout;			// The maximum number of items in a leaf and children of an internal node.
+	private final int minimumLeafSize;	// The minimum number of items in a leaf other than the root.
+	private final int minimumKeys;		// The minimum number of keys in an internal node other than the root.
+
+	private final Comparator<T> order;	// comparator, or the natural order if it is null.
+
+	private Node root;
+	private LeafNode firstLeaf;
+	private LeafNode lastLeaf;
+	private int size;
+	private int modificationCount;
+
+	/**
+	 * Creates an empty BPlusTree with the default fanout.
+	 */
+	public BPlusTree() {
+		this(DEFAULT_FANOUT, null);
+	}
+
+	/**
+	 * Creates an empty BPlusTree with the default fanout that will use comparator
+	 * to compare items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public BPlusTree(Comparator<T> comparator) {
+		this(DEFAULT_FANOUT, comparator);
+	}
+
+	/**
+	 * Creates an empty BPlusTree.
+	 *
+	 * @throws IllegalArgumentException if fanout is less than 3
+	 *
+	 * @param fanout the maximum number of items in a leaf and children of an
+	 *            internal node
+	 */
+	public BPlusTree(int fanout) {
+		this(fanout, null);
+	}
+
+	/**
+	 * Creates an empty BPlusTree that will use comparator to compare items.
+	 *
+	 * @throws IllegalArgumentException if fanout is less than 3
+	 *
+	 * @param fanout the maximum number of items in a leaf and children of an
+	 *            internal node
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public BPlusTree(int fanout, Comparator<T> comparator) {
+		if(fanout < 3) {
+			throw new IllegalArgumentException("Fanout must be at least 3.");
+		}
+
+		this.fanout = fanout;
+		minimumLeafSize = fanout / 2;
+		minimumKeys = (fanout + 1) / 2 - 1;
+
+		this.order = Comparison.resolve(comparator);
+
+		firstLeaf = new LeafNode();
+		lastLeaf = firstLeaf;
+		root = firstLeaf;
+		size = 0;
+	}
+
+	/**
+	 * Inserts item into this BPlusTree, if it is not already stored.
+	 *
+	 * @param item the item to insert
+	 */
+	@Override
+	public void insert(T item) {
+		int originalSize = size;
+		Split split = root.insert(item);
+
+		if(split != null) {
+			InternalNode newRoot = new InternalNode();
+			newRoot.keys[0] = split.separator;
+			newRoot.children[0] = root;
+			newRoot.children[1] = split.right;
+			newRoot.count = 1;
+
+			root = newRoot;
+		}
+
+		if(size != originalSize) {
+			modificationCount++;
+		}
+	}
+
+	/**
+	 * Returns if item is stored in this BPlusTree.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in this BPlusTree
+	 */
+	@Override
+	public boolean has(T item) {
+		LeafNode leaf = findLeaf(item);
+		int index = leaf.lowerBound(item);
+
+		return (index < leaf.count && order.compare(leaf.key(index), item) == 0);
+	}
+
+	/**
+	 * Removes item from this BPlusTree.
+	 *
+	 * @param item the item to remove
+	 */
+	@Override
+	public void remove(T item) {
+		if(!root.remove(item)) {
+			return;
+		}
+
+		// Collapse the root once it has a single child.
+		if(root instanceof BPlusTree.InternalNode && root.count == 0) {
+			root = ((InternalNode) root).children[0];
+		}
+
+		modificationCount++;
+	}
+
+	/**
+	 * Returns the minimum item in this BPlusTree.
+	 *
+	 * @return the minimum item or null if this BPlusTree is empty
+	 */
+	@Override
+	public T getMinimum() {
+		return (size == 0 ? null : firstLeaf.key(0));
+	}
+
+	/**
+	 * Returns the maximum item in this BPlusTree.
+	 *
+	 * @return the maximum item or null if this BPlusTree is empty
+	 */
+	@Override
+	public T getMaximum() {
+		return (size == 0 ? null : lastLeaf.key(lastLeaf.count - 1));
+	}
+
+	/**
+	 * Returns the number of items stored in this BPlusTree.
+	 *
+	 * @return the number of items in this BPlusTree
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the height of this BPlusTree; that is, the number of nodes on a path
+	 * from the root to a leaf.
+	 *
+	 * @return the height of this BPlusTree
+	 */
+	public int getHeight() {
+		int height = 1;
+
+		for(Node node = root; node instanceof BPlusTree.InternalNode; node = ((InternalNode) node).children[0]) {
+			height++;
+		}
+
+		return height;
+	}
+
+	/**
+	 * Returns an Iterator over the items in ascending order.
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new LeafIterator(firstLeaf, 0, null, false);
+	}
+
+	/**
+	 * Returns a lazy view of the items that are greater than or equal to lo and
+	 * less than hi, in ascending order. The first leaf is found with a single
+	 * descent, and the rest of the range is read by following the leaf links.
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (exclusive)
+	 *
+	 * @return the items in [lo, hi)
+	 */
+	public Iterable<T> range(T lo, T hi) {
+		return () -> {
+			LeafNode leaf = findLeaf(lo);
+
+			return new LeafIterator(leaf, leaf.lowerBound(lo), hi, true);
+		};
+	}
+
+	/**
+	 * Returns the leaf that would contain item.
+	 *
+	 * @param item the item of interest
+	 *
+	 * @return the leaf in which item is, or would be, stored
+	 */
+	private LeafNode findLeaf(T item) {
+		Node node = root;
+
+		while(node instanceof BPlusTree.InternalNode) {
+			InternalNode internalNode = (InternalNode) node;
+
+			node = internalNode.children[internalNode.childIndex(item)];
+		}
+
+		return (LeafNode) node;
+	}
+
+	/**
+	 * Split describes the result of splitting a node that overflowed: the new
+	 * right sibling and the separator that should be inserted in the parent.
+	 */
+	private class Split {
+		final Object separator;
+		final Node right;
+
+		Split(Object separator, Node right) {
+			this.separator = separator;
+			this.right = right;
+		}
+	}
+
+	/**
+	 * Node holds the sorted keys common to leaves and internal nodes. Each array
+	 * has room for one more key than the node may hold, so an insertion can
+	 * always be made before the overflowing node is split.
+	 */
+	private abstract class Node {
+		Object[] keys;
+		int count;	// The number of keys in use.
+
+		/**
+		 * Returns the key at index.
+		 */
+		@SuppressWarnings("unchecked")
+		T key(int index) {
+			return (T) keys[index];
+		}
+
+		/**
+		 * Returns the index of the first key that is greater than or equal to item, or
+		 * count if there is none.
+		 */
+		int lowerBound(T item) {
+			int low = 0;
+			int high = count;
+
+			while(low < high) {
+				int middle = (low + high) >>> 1;
+
+				if(order.compare(key(middle), item) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+
+			return low;
+		}
+
+		/**
+		 * Inserts item into the subtree rooted at this node.
+		 *
+		 * @return the Split if this node overflowed, or null
+		 */
+		abstract Split insert(T item);
+
+		/**
+		 * Removes item from the subtree rooted at this node. This node may be left
+		 * underfull; its parent is responsible for rebalancing it.
+		 *
+		 * @return true iff item was removed
+		 */
+		abstract boolean remove(T item);
+
+		/**
+		 * Returns true iff this node holds fewer keys than allowed for a non-root
+		 * node.
+		 */
+		abstract boolean isUnderfull();
+	}
+
+	/**
+	 * LeafNode stores items and is linked to its neighboring leaves.
+	 */
+	private class LeafNode extends Node {
+		LeafNode previous;
+		LeafNode next;
+
+		LeafNode() {
+			keys = new Object[fanout + 1];
+		}
+
+		@Override
+		Split insert(T item) {
+			int index = lowerBound(item);
+
+			if(index < count && order.compare(key(index), item) == 0) {
+				return null;
+			}
+
+			System.arraycopy(keys, index, keys, index + 1, count - index);
+			keys[index] = item;
+			count++;
+			size++;
+
+			if(count <= fanout) {
+				return null;
+			}
+
+			// Overflow: move the upper half to a new leaf that follows this one.
+			LeafNode right = new LeafNode();
+			int leftCount = count / 2;
+
+			right.count = count - leftCount;
+			System.arraycopy(keys, leftCount, right.keys, 0, right.count);
+			Arrays.fill(keys, leftCount, count, null);
+			count = leftCount;
+
+			right.next = next;
+			right.previous = this;
+
+			if(next != null) {
+				next.previous = right;
+			} else {
+				lastLeaf = right;
+			}
+
+			next = right;
+
+			return new Split(right.keys[0], right);
+		}
+
+		@Override
+		boolean remove(T item) {
+			int index = lowerBound(item);
+
+			if(index >= count || order.compare(key(index), item) != 0) {
+				return false;
+			}
+
+			removeAt(index);
+			size--;
+
+			return true;
+		}
+
+		@Override
+		boolean isUnderfull() {
+			return (count < minimumLeafSize);
+		}
+
+		/**
+		 * Removes the key at index, shifting the later keys down.
+		 */
+		void removeAt(int index) {
+			System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+			count--;
+			keys[count] = null;
+		}
+
+		/**
+		 * Appends all of right's keys to this leaf and unlinks right.
+		 */
+		void absorb(LeafNode right) {
+			System.arraycopy(right.keys, 0, keys, count, right.count);
+			count += right.count;
+
+			next = right.next;
+
+			if(next != null) {
+				next.previous = this;
+			} else {
+				lastLeaf = this;
+			}
+		}
+	}
+
+	/**
+	 * InternalNode routes searches to count + 1 children using count separator
+	 * keys.
+	 */
+	private class InternalNode extends Node {
+		Node[] children;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		InternalNode() {
+			keys = new Object[fanout];
+			children = (Node[]) new BPlusTree.Node[fanout + 1];
+		}
+
+		/**
+		 * Returns the index of the child whose subtree would contain item; that is, the
+		 * number of separators less than or equal to item.
+		 */
+		int childIndex(T item) {
+			int low = 0;
+			int high = count;
+
+			while(low < high) {
+				int middle = (low + high) >>> 1;
+
+				if(order.compare(key(middle), item) > 0) {
+					high = middle;
+				} else {
+					low = middle + 1;
+				}
+			}
+
+			return low;
+		}
+
+		@Override
+		Split insert(T item) {
+			int index = childIndex(item);
+			Split split = children[index].insert(item);
+
+			if(split == null) {
+				return null;
+			}
+
+			System.arraycopy(keys, index, keys, index + 1, count - index);
+			System.arraycopy(children, index + 1, children, index + 2, count - index);
+			keys[index] = split.separator;
+			children[index + 1] = split.right;
+			count++;
+
+			if(count < fanout) {
+				return null;
+			}
+
+			// Overflow: the middle key moves up and the keys after it move to a new node.
+			InternalNode right = new InternalNode();
+			int middle = count / 2;
+			Object separator = keys[middle];
+
+			right.count = count - middle - 1;
+			System.arraycopy(keys, middle + 1, right.keys, 0, right.count);
+			System.arraycopy(children, middle + 1, right.children, 0, right.count + 1);
+			Arrays.fill(keys, middle, count, null);
+			Arrays.fill(children, middle + 1, count + 1, null);
+			count = middle;
+
+			return new Split(separator, right);
+		}
+
+		@Override
+		boolean remove(T item) {
+			int index = childIndex(item);
+			Node child = children[index];
+
+			if(!child.remove(item)) {
+				return false;
+			}
+
+			if(child.isUnderfull()) {
+				rebalance(index);
+			}
+
+			return true;
+		}
+
+		@Override
+		boolean isUnderfull() {
+			return (count < minimumKeys);
+		}
+
+		/**
+		 * Restores the minimum size of the child at index by borrowing a key from a
+		 * sibling, if the sibling can spare one, or by merging with the sibling.
+		 */
+		void rebalance(int index) {
+			Node child = children[index];
+			Node left = (index > 0 ? children[index - 1] : null);
+			Node right = (index < count ? children[index + 1] : null);
+
+			if(child instanceof BPlusTree.LeafNode) {
+				LeafNode leaf = (LeafNode) child;
+
+				if(left != null && left.count > minimumLeafSize) {
+					LeafNode leftLeaf = (LeafNode) left;
+
+					System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.count);
+					leaf.keys[0] = leftLeaf.keys[leftLeaf.count - 1];
+					leaf.count++;
+					leftLeaf.removeAt(leftLeaf.count - 1);
+
+					keys[index - 1] = leaf.keys[0];
+				} else if(right != null && right.count > minimumLeafSize) {
+					LeafNode rightLeaf = (LeafNode) right;
+
+					leaf.keys[leaf.count++] = rightLeaf.keys[0];
+					rightLeaf.removeAt(0);
+
+					keys[index] = rightLeaf.keys[0];
+				} else if(left != null) {
+					((LeafNode) left).absorb(leaf);
+					removeChild(index);
+				} else if(right != null) {
+					leaf.absorb((LeafNode) right);
+					removeChild(index + 1);
+				}
+
+				return;
+			}
+
+			InternalNode node = (InternalNode) child;
+
+			if(left != null && left.count > minimumKeys) {
+				InternalNode leftNode = (InternalNode) left;
+
+				// Rotate right: the separator moves down and the left sibling's last key moves up.
+				System.arraycopy(node.keys, 0, node.keys, 1, node.count);
+				System.arraycopy(node.children, 0, node.children, 1, node.count + 1);
+				node.keys[0] = keys[index - 1];
+				node.children[0] = leftNode.children[leftNode.count];
+				node.count++;
+
+				keys[index - 1] = leftNode.keys[leftNode.count - 1];
+				leftNode.keys[leftNode.count - 1] = null;
+				leftNode.children[leftNode.count] = null;
+				leftNode.count--;
+			} else if(right != null && right.count > minimumKeys) {
+				InternalNode rightNode = (InternalNode) right;
+
+				// Rotate left: the separator moves down and the right sibling's first key moves up.
+				node.keys[node.count] = keys[index];
+				node.children[node.count + 1] = rightNode.children[0];
+				node.count++;
+
+				keys[index] = rightNode.keys[0];
+				System.arraycopy(rightNode.keys, 1, rightNode.keys, 0, rightNode.count - 1);
+				System.arraycopy(rightNode.children, 1, rightNode.children, 0, rightNode.count);
+				rightNode.count--;
+				rightNode.keys[rightNode.count] = null;
+				rightNode.children[rightNode.count + 1] = null;
+			} else if(left != null) {
+				merge(index - 1);
+			} else if(right != null) {
+				merge(index);
+			}
+		}
+
+		/**
+		 * Merges the child at index + 1 into the child at index, pulling down the
+		 * separator between them.
+		 */
+		void merge(int index) {
+			InternalNode left = (InternalNode) children[index];
+			InternalNode right = (InternalNode) children[index + 1];
+
+			left.keys[left.count] = keys[index];
+			System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+			System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+			left.count += right.count + 1;
+
+			removeChild(index + 1);
+		}
+
+		/**
+		 * Removes the child at index along with the separator to its left.
+		 */
+		void removeChild(int index) {
+			System.arraycopy(keys, index, keys, index - 1, count - index);
+			System.arraycopy(children, index + 1, children, index, count - index);
+			count--;
+			keys[count] = null;
+			children[count + 1] = null;
+		}
+	}
+
+	/**
+	 * LeafIterator walks the linked leaves, optionally stopping at an exclusive
+	 * upper bound.
+	 */
+	private class LeafIterator implements Iterator<T> {
+		private LeafNode leaf;
+		private int index;
+		private final T upperBound;
+		private final boolean bounded;
+		private final int expectedModificationCount;
+
+		LeafIterator(LeafNode leaf, int index, T upperBound, boolean bounded) {
+			this.leaf = leaf;
+			this.index = index;
+			this.upperBound = upperBound;
+			this.bounded = bounded;
+
+			expectedModificationCount = modificationCount;
+
+			skipExhaustedLeaves();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (leaf != null);
+		}
+
+		@Override
+		public T next() {
+			if(leaf == null) {
+				throw new NoSuchElementException();
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			T item = leaf.key(index++);
+
+			skipExhaustedLeaves();
+
+			return item;
+		}
+
+		/**
+		 * Moves to the next leaf while the current one is exhausted, and ends the
+		 * iteration at the upper bound.
+		 */
+		private void skipExhaustedLeaves() {
+			while(leaf != null && index >= leaf.count) {
+				leaf = leaf.next;
+				index = 0;
+			}
+
+			if(leaf != null && bounded && order.compare(leaf.key(index), upperBound) >= 0) {
+				leaf = null;
+			}
+		}
+	}
+}
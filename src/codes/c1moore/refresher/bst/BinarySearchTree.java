@@ -1,30 +1,95 @@
 package codes.c1moore.refresher.bst;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import codes.c1moore.refresher.common.Comparison;
+import codes.c1moore.refresher.filter.CuckooFilter;
 
 /**
  * BinarySearchTree represents a simple, unbalanced BST. All operations are
- * worse-case O(n) with expected-case of O(log(n)).
+ * worse-case O(n) with expected-case of O(log(n)). {@link AVLTree} provides the
+ * same API with guaranteed O(log(n)) operations.
+ *
+ * Every node caches the height and size of its subtree. The sizes allow order
+ * statistics (select, rank, and range counts) to be answered in a single
+ * descent instead of a walk over the whole tree.
+ *
+ * Iteration is in sorted order and uses the nodes' parent references to step
+ * from one node to the next, so no stack is needed and each step is O(1)
+ * amortized. Range views are lazy: nothing is searched until iteration starts,
+ * and only the nodes inside the range (plus the path to the first one) are
+ * visited. All iterators are fail-fast.
+ *
+ * The constructors that accept existing data detect sorted input (such as a
+ * snapshot written from another tree) and insert it middle first, so the result
+ * is height-balanced instead of degenerating into a list. Unsorted input is
+ * inserted in the order given, as before. The bulkLoad() factories build a
+ * height-balanced tree directly in O(n), sorting unsorted input first.
+ *
+ * By default, every copy of a duplicate item gets its own node, and equal items
+ * are sent left, so heavily duplicated data builds long chains. In multiset mode
+ * (see {@link #setCountingDuplicates(boolean)}) each node stores a count
+ * instead: inserting an item that is already stored increments its node's count
+ * and remove() decrements it, so the height depends only on the number of
+ * distinct items. Sizes, order statistics, and iteration still see every copy.
+ *
+ * Workloads where most lookups miss can enable a membership filter (see
+ * {@link #setMembershipFilter(ToIntFunction)}), a CuckooFilter holding one
+ * fingerprint per distinct item. has() consults it first and answers most
+ * misses in O(1) without walking the tree.
  * 
  * BinarySearchTree uses an approach for ordering similar to other standard Java
  * classes in that it accepts an optional Comparator that can be passed to the
  * constructor. If a Comparator is specified, it will be used for all
  * Comparisons. If a Comparator is not specified, all elements in the tree must
  * implement Comparable.
+ *
+ * The ordering is resolved once, when the tree is constructed, into a single
+ * Comparator (the one given, or the items' natural order), so a comparison
+ * makes one call without checking which strategy applies, and the searches use
+ * its int result directly. Items ordered by a primitive key can use the
+ * {@link #byIntKey(ToIntFunction)} and {@link #byLongKey(ToLongFunction)}
+ * factories, which compare the extracted keys as primitives without boxing.
+ *
+ * Workloads whose accesses land near the previous one (walking forward in time
+ * or merging sorted batches) can use a {@link Cursor}, which remembers the
+ * last node it reached and starts each search there instead of at the root.
  */
-public class BinarySearchTree<T> {
-	private BinaryTreeNode<T> head;
-	private Comparator<T> comparator;
+public class BinarySearchTree<T> implements SearchTree<T> {
+	protected BinaryTreeNode<T> head;
+	protected Comparator<T> comparator;
+	protected final Comparator<? super T> order;	// comparator, or the natural order if it is null.
+	protected int modificationCount;	// Incremented on every structural change so iterators can fail fast.
+
+	private boolean countingDuplicates;	// True iff copies of an item share a single node.
+
+	private static final int MINIMUM_FILTER_CAPACITY = 64;
+
+	private CuckooFilter<T> filter;	// Null unless a membership filter is enabled.
+	private ToIntFunction<? super T> filterHash;
+	private long filterRejections;	// Lookups answered by the filter alone.
+	private long filterFalsePositives;	// Lookups the filter passed for items that were not stored.
+
+	private BinaryTreeNode<T> insertionFinger;	// Where a Cursor's insert starts; replaced by the node storing the item.
 
 	/**
 	 * Creates an empty BinarySearchTree.
 	 */
 	public BinarySearchTree() {
-		head = null;
-		comparator = null;
+		this((Comparator<T>) null);
 	}
 
 	/**
@@ -33,9 +98,10 @@ public class BinarySearchTree<T> {
 	 * @param comparator a Comparator that should be used to compare items
 	 */
 	public BinarySearchTree(Comparator<T> comparator) {
-		this();
+		head = null;
 
 		this.comparator = comparator;
+		this.order = Comparison.resolve(comparator);
 	}
 
 	/**
@@ -46,9 +112,7 @@ public class BinarySearchTree<T> {
 	public BinarySearchTree(T[] data) {
 		this();
 
-		for(T item: data) {
-			this.insert(item);
-		}
+		load(Arrays.asList(data), false);
 	}
 
 	/**
@@ -61,9 +125,7 @@ public class BinarySearchTree<T> {
 	public BinarySearchTree(T[] data, Comparator<T> comparator) {
 		this(comparator);
 
-		for(T item: data) {
-			this.insert(item);
-		}
+		load(Arrays.asList(data), false);
 	}
 
 	/**
@@ -74,9 +136,7 @@ public class BinarySearchTree<T> {
 	public BinarySearchTree(List<T> data) {
 		this();
 
-		for(T item: data) {
-			this.insert(item);
-		}
+		load(data, false);
 	}
 
 	/**
@@ -89,50 +149,137 @@ public class BinarySearchTree<T> {
 	public BinarySearchTree(List<T> data, Comparator<T> comparator) {
 		this(comparator);
 
-		for(T item: data) {
-			this.insert(item);
-		}
+		load(data, false);
 	}
 
 	/**
-	 * Inserts item into this BinarySearchTree.
+	 * Creates a height-balanced BinarySearchTree from data in O(n) if data is
+	 * sorted, or O(n log(n)) if it must be sorted first.
 	 *
-	 * @param item the item to insert
+	 * @param data the items to store in the new BinarySearchTree
+	 *
+	 * @return a new, height-balanced BinarySearchTree
 	 */
-	public void insert(T item) {
-		if(head == null) {
-			head = new BinaryTreeNode<>();
-			head.item = item;
+	public static <T> BinarySearchTree<T> bulkLoad(List<T> data) {
+		return bulkLoad(data, null);
+	}
 
-			return;
-		}
+	/**
+	 * Creates a height-balanced BinarySearchTree from data in O(n) if data is
+	 * sorted, or O(n log(n)) if it must be sorted first. Comparator will be used for
+	 * all comparison related to the new BinarySearchTree.
+	 *
+	 * @param data the items to store in the new BinarySearchTree
+	 * @param comparator a Comparator that should be used to compare items
+	 *
+	 * @return a new, height-balanced BinarySearchTree
+	 */
+	public static <T> BinarySearchTree<T> bulkLoad(List<T> data, Comparator<T> comparator) {
+		BinarySearchTree<T> tree = new BinarySearchTree<>(comparator);
 
-		BinaryTreeNode<T> parentNode = head;
-		BinaryTreeNode<T> currentNode = head;
+		tree.load(data, true);
 
-		Comparison comparison;
+		return tree;
+	}
 
-		do {
-			parentNode = currentNode;
+	/**
+	 * Creates a height-balanced BinarySearchTree from data in O(n) if data is
+	 * sorted, or O(n log(n)) if it must be sorted first.
+	 *
+	 * @param data the items to store in the new BinarySearchTree
+	 *
+	 * @return a new, height-balanced BinarySearchTree
+	 */
+	public static <T> BinarySearchTree<T> bulkLoad(T[] data) {
+		return bulkLoad(Arrays.asList(data), null);
+	}
 
-			comparison = compare(item, currentNode.item);
+	/**
+	 * Creates a height-balanced BinarySearchTree from data in O(n) if data is
+	 * sorted, or O(n log(n)) if it must be sorted first. Comparator will be used for
+	 * all comparison related to the new BinarySearchTree.
+	 *
+	 * @param data the items to store in the new BinarySearchTree
+	 * @param comparator a Comparator that should be used to compare items
+	 *
+	 * @return a new, height-balanced BinarySearchTree
+	 */
+	public static <T> BinarySearchTree<T> bulkLoad(T[] data, Comparator<T> comparator) {
+		return bulkLoad(Arrays.asList(data), comparator);
+	}
 
-			if(comparison == Comparison.LESS || comparison == Comparison.EQUAL) {
-				currentNode = currentNode.leftChild;
-			} else {
-				currentNode = currentNode.rightChild;
-			}
-		} while(currentNode != null);
+	/**
+	 * Creates an empty BinarySearchTree that orders items by the int key extracted
+	 * by key. The keys are compared as primitives, without boxing.
+	 *
+	 * @param key the function that extracts an item's key
+	 *
+	 * @return a new, empty BinarySearchTree
+	 */
+	public static <T> BinarySearchTree<T> byIntKey(ToIntFunction<? super T> key) {
+		return new BinarySearchTree<>(Comparator.comparingInt(key));
+	}
 
-		BinaryTreeNode<T> node = new BinaryTreeNode<>();
-		node.parent = parentNode;
-		node.item = item;
+	/**
+	 * Creates an empty BinarySearchTree that orders items by the long key extracted
+	 * by key. The keys are compared as primitives, without boxing.
+	 *
+	 * @param key the function that extracts an item's key
+	 *
+	 * @return a new, empty BinarySearchTree
+	 */
+	public static <T> BinarySearchTree<T> byLongKey(ToLongFunction<? super T> key) {
+		return new BinarySearchTree<>(Comparator.comparingLong(key));
+	}
 
-		if(comparison == Comparison.LESS || comparison == Comparison.EQUAL) {
-			parentNode.leftChild = node;
-		} else {
-			parentNode.rightChild = node;
+	/**
+	 * Inserts item into this BinarySearchTree.
+	 *
+	 * @param item the item to insert
+	 */
+	public void insert(T item) {
+		BinaryTreeNode<T> node = insertNode(item);
+
+		modificationCount++;
+		retrace(node.parent);
+	}
+
+	/**
+	 * Sets whether this BinarySearchTree is a multiset that counts duplicates. If
+	 * it is, all copies of an item are stored in a single node along with the
+	 * number of copies; otherwise each copy is stored in its own node.
+	 *
+	 * @throws IllegalStateException if this BinarySearchTree is not empty
+	 *
+	 * @param counting true iff duplicates should be counted
+	 */
+	public void setCountingDuplicates(boolean counting) {
+		if(head != null) {
+			throw new IllegalStateException("Duplicate counting can only be changed while the tree is empty.");
 		}
+
+		countingDuplicates = counting;
+	}
+
+	/**
+	 * Returns whether this BinarySearchTree is a multiset that counts duplicates.
+	 *
+	 * @return true iff copies of an item share a single node
+	 */
+	public boolean isCountingDuplicates() {
+		return countingDuplicates;
+	}
+
+	/**
+	 * Returns the number of copies of item stored in this BinarySearchTree. This
+	 * runs in O(height) in either mode.
+	 *
+	 * @param item the item to count
+	 *
+	 * @return the number of stored items equal to item
+	 */
+	public int count(T item) {
+		return countBelow(item, true) - countBelow(item, false);
 	}
 
 	/**
@@ -143,7 +290,70 @@ public class BinarySearchTree<T> {
 	 * @return true iff item is stored in this BinarySearchTree
 	 */
 	public boolean has(T item) {
-		return (findNode(item) != null);
+		if(!passesFilter(item)) {
+			return false;
+		}
+
+		return recordLookup(findNode(item) != null);
+	}
+
+	/**
+	 * Enables a membership filter that lets has() reject most items that are not
+	 * stored without searching the tree, or disables it if hash is null. The
+	 * filter is built from the current items in O(n) and then updated by every
+	 * insert and remove, which costs an extra O(1) per update, plus an extra
+	 * search when the last copy of an item is removed if duplicates are not
+	 * counted.
+	 *
+	 * hash identifies items to the filter, so it must return the same value for
+	 * any 2 items that compare as equal (for example, hashCode() is suitable if
+	 * the ordering is consistent with equals()). If hash maps so many distinct
+	 * items to the same value that no filter can hold them, the filter is
+	 * disabled.
+	 *
+	 * @param hash the hash function of the filter, or null to disable it
+	 */
+	public void setMembershipFilter(ToIntFunction<? super T> hash) {
+		filterHash = hash;
+		filter = null;
+		filterRejections = 0;
+		filterFalsePositives = 0;
+
+		if(hash != null) {
+			rebuildFilter(Math.max(MINIMUM_FILTER_CAPACITY, size()));
+		}
+	}
+
+	/**
+	 * Returns whether a membership filter is enabled.
+	 *
+	 * @return true iff has() consults a membership filter
+	 */
+	public boolean hasMembershipFilter() {
+		return (filter != null);
+	}
+
+	/**
+	 * Returns the observed false-positive rate of the membership filter: the
+	 * fraction of lookups for items that were not stored that the filter failed
+	 * to reject, since the filter was enabled.
+	 *
+	 * @return the observed false-positive rate, or 0 if there have been no such
+	 *         lookups
+	 */
+	public double getFilterFalsePositiveRate() {
+		long misses = filterRejections + filterFalsePositives;
+
+		return (misses == 0 ? 0 : (double) filterFalsePositives / misses);
+	}
+
+	/**
+	 * Returns the number of bytes used by the membership filter's fingerprints.
+	 *
+	 * @return the memory used by the filter, or 0 if no filter is enabled
+	 */
+	public long getFilterMemoryUsage() {
+		return (filter == null ? 0 : filter.getMemoryUsage());
 	}
 
 	/**
@@ -156,13 +366,7 @@ public class BinarySearchTree<T> {
 			return null;
 		}
 
-		BinaryTreeNode<T> currentNode = head;
-
-		while(currentNode.leftChild != null) {
-			currentNode = currentNode.leftChild;
-		}
-
-		return currentNode.item;
+		return firstNode().item;
 	}
 
 	/**
@@ -175,134 +379,1601 @@ public class BinarySearchTree<T> {
 			return null;
 		}
 
-		BinaryTreeNode<T> currentNode = head;
+		return lastNode().item;
+	}
 
-		while(currentNode.rightChild != null) {
-			currentNode = currentNode.rightChild;
+	/**
+	 * Returns the greatest item in this BinarySearchTree that is less than or
+	 * equal to item.
+	 *
+	 * @param item the upper bound (inclusive)
+	 *
+	 * @return the greatest item at or below item, or null if there is none
+	 */
+	public T floor(T item) {
+		return itemOf(floorNode(item));
+	}
+
+	/**
+	 * Returns the least item in this BinarySearchTree that is greater than or equal
+	 * to item.
+	 *
+	 * @param item the lower bound (inclusive)
+	 *
+	 * @return the least item at or above item, or null if there is none
+	 */
+	public T ceiling(T item) {
+		return itemOf(ceilingNode(item));
+	}
+
+	/**
+	 * Returns the greatest item in this BinarySearchTree that is strictly less than
+	 * item.
+	 *
+	 * @param item the upper bound (exclusive)
+	 *
+	 * @return the greatest item below item, or null if there is none
+	 */
+	public T lower(T item) {
+		return itemOf(lowerNode(item));
+	}
+
+	/**
+	 * Returns the least item in this BinarySearchTree that is strictly greater than
+	 * item.
+	 *
+	 * @param item the lower bound (exclusive)
+	 *
+	 * @return the least item above item, or null if there is none
+	 */
+	public T higher(T item) {
+		return itemOf(higherNode(item));
+	}
+
+	/**
+	 * Returns the item that follows item in sorted order. Unlike
+	 * {@link #higher(Object)}, item must be stored in this BinarySearchTree. If
+	 * item is stored more than once, the item following its last copy is
+	 * returned.
+	 *
+	 * @param item an item stored in this BinarySearchTree
+	 *
+	 * @return the next item, or null if item is not stored or is the maximum
+	 */
+	public T successor(T item) {
+		BinaryTreeNode<T> node = floorNode(item);
+
+		if(node == null || order.compare(node.item, item) != 0) {
+			return null;
 		}
 
-		return currentNode.item;
+		return itemOf(nextNode(node));
 	}
 
 	/**
-	 * Removes item from this BinarySearchTree.
+	 * Returns the item that precedes item in sorted order. Unlike
+	 * {@link #lower(Object)}, item must be stored in this BinarySearchTree. If item
+	 * is stored more than once, the item preceding its first copy is returned.
 	 *
-	 * @param item the item to remove
+	 * @param item an item stored in this BinarySearchTree
+	 *
+	 * @return the previous item, or null if item is not stored or is the minimum
 	 */
-	public void remove(T item) {
-		BinaryTreeNode<T> node = findNode(item);
+	public T predecessor(T item) {
+		BinaryTreeNode<T> node = ceilingNode(item);
+
+		if(node == null || order.compare(node.item, item) != 0) {
+			return null;
+		}
+
+		return itemOf(previousNode(node));
+	}
+
+	/**
+	 * Returns the height of this BinarySearchTree. An empty tree has a height of 0
+	 * and a tree with a single item has a height of 1.
+	 *
+	 * @return the height of this BinarySearchTree
+	 */
+	public int getHeight() {
+		return height(head);
+	}
+
+	/**
+	 * Returns the number of nodes at each depth of this BinarySearchTree, where the
+	 * root has a depth of 0. The returned array has getHeight() entries. Copies of
+	 * an item that share a node (see {@link #setCountingDuplicates(boolean)}) are
+	 * counted once. This walks the whole tree, so it runs in O(n).
+	 *
+	 * @return an array whose entry d is the number of nodes at depth d
+	 */
+	public int[] getDepthHistogram() {
+		int[] histogram = new int[getHeight()];
+		BinaryTreeNode<T> node = head;
+		int depth = 0;
 
 		if(node == null) {
-			return;
+			return histogram;
 		}
 
-		BinaryTreeNode<T> replacement;
+		while(node.leftChild != null) {
+			node = node.leftChild;
+			depth++;
+		}
 
-		if(node.rightChild == null) {
-			replacement = (BinaryTreeNode<T>) node.leftChild;
-		} else if(node.leftChild == null) {
-			replacement = (BinaryTreeNode<T>) node.rightChild;
-		} else {
-			replacement = findSuccessor(node);
+		// Step through the nodes in order, tracking the depth as the walk goes down and up.
+		while(node != null) {
+			histogram[depth]++;
 
-			if(replacement == node.rightChild) {
-				replacement.leftChild = node.leftChild;
+			if(node.rightChild != null) {
+				node = node.rightChild;
+				depth++;
+
+				while(node.leftChild != null) {
+					node = node.leftChild;
+					depth++;
+				}
 			} else {
-				replacement.parent.leftChild = replacement.rightChild;
+				while(node.parent != null && node.parent.rightChild == node) {
+					node = node.parent;
+					depth--;
+				}
 
-				replacement.leftChild = node.leftChild;
-				replacement.rightChild = node.rightChild;
+				node = node.parent;
+				depth--;
 			}
 		}
 
-		if(replacement != null) {
-			replacement.parent = node.parent;
-		}
+		return histogram;
+	}
 
-		if(node == head) {
-			head = replacement;
+	/**
+	 * Returns the average depth of the nodes in this BinarySearchTree, where the
+	 * root has a depth of 0. A successful search visits 1 more node than the depth
+	 * of the node it finds, so this measures the average cost of a lookup. This
+	 * runs in O(n).
+	 *
+	 * @return the average depth of a node, or 0 if this BinarySearchTree is empty
+	 */
+	public double getAverageDepth() {
+		int[] histogram = getDepthHistogram();
+		long totalDepth = 0;
+		long nodes = 0;
 
-			return;
+		for(int depth = 0; depth < histogram.length; depth++) {
+			totalDepth += (long) depth * histogram[depth];
+			nodes += histogram[depth];
 		}
 
-		if(node.parent.leftChild == node) {
-			node.parent.leftChild = replacement;
-		} else {
-			node.parent.rightChild = replacement;
-		}
+		return (nodes == 0 ? 0 : (double) totalDepth / nodes);
 	}
 
 	/**
-	 * Searches this BinarySearchTree for the node that is storing item.
-	 *
-	 * @param item the item to find
+	 * Returns the number of items stored in this BinarySearchTree. Every copy of a
+	 * duplicate item is counted, even if duplicates share a node.
 	 *
-	 * @return the node that is storing item or null if no node is storing item
+	 * @return the number of items in this BinarySearchTree
 	 */
-	private BinaryTreeNode<T> findNode(T item) {
-		BinaryTreeNode<T> currentNode = head;
-		Comparison comparison;
+	public int size() {
+		return size(head);
+	}
 
-		while(currentNode != null && (comparison = compare(item, currentNode.item)) != Comparison.EQUAL) {
-			if(comparison == Comparison.LESS) {
-				currentNode = currentNode.leftChild;
-			} else {
-				currentNode = currentNode.rightChild;
-			}
+	/**
+	 * Returns the item at index k of this BinarySearchTree's sorted order. That is,
+	 * select(0) is the minimum and select(size() - 1) is the maximum. This runs in
+	 * O(height).
+	 *
+	 * @throws IndexOutOfBoundsException if k is negative or not less than size()
+	 *
+	 * @param k the 0-based rank of the item to return
+	 *
+	 * @return the k-th smallest item
+	 */
+	public T select(int k) {
+		if(k < 0 || k >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + size());
 		}
 
-		return currentNode;
+		return selectNode(k).item;
 	}
 
 	/**
-	 * Finds root's successor. If root has no successor, null is returned.
-	 * 
-	 * @param root the node for which a successor should be found
-	 * 
-	 * @return root's successor or null if root has no successor
+	 * Returns the number of items in this BinarySearchTree that are strictly less
+	 * than item. If item is stored in the tree, this is the index at which
+	 * {@link #select(int)} returns it. This runs in O(height).
+	 *
+	 * @param item the item of interest; it does not need to be stored in the tree
+	 *
+	 * @return the number of items less than item
 	 */
-	private BinaryTreeNode<T> findSuccessor(BinaryTreeNode<T> root) {
-		if(root.rightChild == null) {
-			return null;
-		}
+	public int rank(T item) {
+		return countBelow(item, false);
+	}
 
-		BinaryTreeNode<T> successor = root.rightChild;
-		while(successor.leftChild != null) {
-			successor = successor.leftChild;
+	/**
+	 * Returns the number of items in this BinarySearchTree that are greater than or
+	 * equal to lo and less than or equal to hi. This runs in O(height).
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (inclusive)
+	 *
+	 * @return the number of items in [lo, hi]
+	 */
+	public int countInRange(T lo, T hi) {
+		if(order.compare(lo, hi) > 0) {
+			return 0;
 		}
 
-		return successor;
+		return countBelow(hi, true) - countBelow(lo, false);
 	}
 
 	/**
-	 * Compares lfs (left-hand side operand) to rhs (right-hand side operand).
-	 * 
-	 * @throws (ClassCastException) If lhs and/or rhs cannot be compared.
+	 * Returns an Iterator over the items in this BinarySearchTree in ascending
+	 * order.
 	 *
-	 * @param lhs the operand on the left-hand side of the comparison operator
-	 * @param rhs the operand on the right-hand side of the comparison operator
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new TreeIterator(firstNode(), false, null, false);
+	}
+
+	/**
+	 * Returns a Spliterator over the items in this BinarySearchTree in ascending
+	 * order. The Spliterator splits by rank, so both halves of a split hold
+	 * exactly half of the remaining items and report their exact sizes, which
+	 * keeps the work of a parallel stream balanced even if the tree is not.
+	 * Finding where a half starts takes O(height). The Spliterator fails fast if
+	 * the tree is modified.
 	 *
-	 * @return the result of comparing lhs and rhs
+	 * Duplicate items are allowed, so the Spliterator does not report DISTINCT.
+	 *
+	 * @return an ascending Spliterator
 	 */
-	@SuppressWarnings("unchecked")
-	private Comparison compare(T lhs, T rhs) {
-		int comparison = 0;
-		boolean comparisonMade = false;
+	@Override
+	public Spliterator<T> spliterator() {
+		return new TreeSpliterator(0, size(), modificationCount);
+	}
 
-		if(comparator != null) {
-			comparison = comparator.compare(lhs, rhs);
-			comparisonMade = true;
-		}
+	/**
+	 * Returns a sequential Stream over the items in this BinarySearchTree in
+	 * ascending order. Call parallel() on the result for a parallel Stream.
+	 *
+	 * @return a Stream of the items in ascending order
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
 
-		if(!comparisonMade && lhs instanceof Comparable && rhs instanceof Comparable) {
-			comparison = ((Comparable<T>) lhs).compareTo(rhs);
-			comparisonMade = true;
-		}
+	/**
+	 * Returns an immutable, read-optimized snapshot of the items in this
+	 * BinarySearchTree, laid out in a flat array for fast searches. Creating the
+	 * snapshot takes O(n); later changes to this BinarySearchTree do not affect
+	 * it.
+	 *
+	 * @return a FrozenSearchTree storing every item in this BinarySearchTree
+	 */
+	public FrozenSearchTree<T> freeze() {
+		Object[] sorted = new Object[size()];
+		int index = 0;
 
-		if(comparisonMade) {
-			return Comparison.create(comparison);
+		for(T item: this) {
+			sorted[index++] = item;
 		}
 
-		throw new ClassCastException("Element cannot be compared.");
+		return new FrozenSearchTree<>(sorted, order);
+	}
+
+	/**
+	 * Returns a new Cursor over this BinarySearchTree. The Cursor has no position
+	 * until its first search, which starts at the root.
+	 *
+	 * @return a new Cursor
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Returns an Iterator over the items in this BinarySearchTree in descending
+	 * order.
+	 *
+	 * @return a descending Iterator
+	 */
+	public Iterator<T> descendingIterator() {
+		return new TreeIterator(lastNode(), true, null, false);
+	}
+
+	/**
+	 * Returns a lazy view of the items that are greater than or equal to lo and
+	 * less than hi, in ascending order.
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (exclusive)
+	 *
+	 * @return the items in [lo, hi)
+	 */
+	public Iterable<T> range(T lo, T hi) {
+		return () -> new TreeIterator(ceilingNode(lo), false, hi, true);
+	}
+
+	/**
+	 * Returns a lazy view of the items that are less than hi, in ascending order.
+	 *
+	 * @param hi the upper bound (exclusive)
+	 *
+	 * @return the items less than hi
+	 */
+	public Iterable<T> headSet(T hi) {
+		return () -> new TreeIterator(firstNode(), false, hi, true);
+	}
+
+	/**
+	 * Returns a lazy view of the items that are greater than or equal to lo, in
+	 * ascending order.
+	 *
+	 * @param lo the lower bound (inclusive)
+	 *
+	 * @return the items greater than or equal to lo
+	 */
+	public Iterable<T> tailSet(T lo) {
+		return () -> new TreeIterator(ceilingNode(lo), false, null, false);
+	}
+
+	/**
+	 * Removes a single copy of item from this BinarySearchTree.
+	 *
+	 * @param item the item to remove
+	 */
+	public void remove(T item) {
+		BinaryTreeNode<T> node = findNode(item);
+
+		if(node == null) {
+			return;
+		}
+
+		deleteNode(node);
+	}
+
+	/**
+	 * Counts the items that are less than item, or less than or equal to item if
+	 * inclusive is true, in a single descent from the root.
+	 *
+	 * @param item the bound
+	 * @param inclusive whether items equal to item should be counted
+	 *
+	 * @return the number of items below the bound
+	 */
+	private int countBelow(T item, boolean inclusive) {
+		BinaryTreeNode<T> currentNode = head;
+		int count = 0;
+
+		while(currentNode != null) {
+			int comparison = order.compare(currentNode.item, item);
+
+			if(comparison < 0 || (inclusive && comparison == 0)) {
+				count += size(currentNode.leftChild) + currentNode.count;
+				currentNode = currentNode.rightChild;
+			} else {
+				currentNode = currentNode.leftChild;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns false if the membership filter proves that item is not stored, and
+	 * true if item must be searched for. Subclasses that override has() call this
+	 * before searching.
+	 *
+	 * @param item the item to look up
+	 *
+	 * @return false iff item is definitely not stored
+	 */
+	protected boolean passesFilter(T item) {
+		if(filter == null || filter.mightContain(item)) {
+			return true;
+		}
+
+		filterRejections++;
+
+		return false;
+	}
+
+	/**
+	 * Records the result of a search that passed the membership filter, so the
+	 * filter's false positives can be counted.
+	 *
+	 * @param found whether the search found the item
+	 *
+	 * @return found
+	 */
+	protected boolean recordLookup(boolean found) {
+		if(!found && filter != null) {
+			filterFalsePositives++;
+		}
+
+		return found;
+	}
+
+	/**
+	 * Adds a fingerprint of item, which was just stored for the first time and is
+	 * already linked into the tree, to the membership filter. If the filter is
+	 * full, a larger one is built instead.
+	 *
+	 * @param item the new item
+	 */
+	private void addToFilter(T item) {
+		if(filter != null && !filter.add(item)) {
+			rebuildFilter(2 * filter.size());
+		}
+	}
+
+	/**
+	 * Replaces the membership filter with one built from the distinct items in
+	 * this BinarySearchTree, doubling its capacity until every item fits. If even
+	 * a filter far larger than the tree cannot hold them, the hash function
+	 * collides too often and the filter is disabled.
+	 *
+	 * @param capacity the number of items the new filter should hold at first
+	 */
+	private void rebuildFilter(int capacity) {
+		long limit = 16L * Math.max(MINIMUM_FILTER_CAPACITY, size());
+
+		for(; capacity <= limit; capacity *= 2) {
+			CuckooFilter<T> rebuilt = new CuckooFilter<>(capacity, filterHash);
+			BinaryTreeNode<T> previous = null;
+			boolean complete = true;
+
+			// Equal items are adjacent in sorted order, so each distinct item is added once.
+			for(BinaryTreeNode<T> node = firstNode(); node != null && complete; node = nextNode(node)) {
+				if(previous == null || order.compare(previous.item, node.item) != 0) {
+					complete = rebuilt.add(node.item);
+				}
+
+				previous = node;
+			}
+
+			if(complete) {
+				filter = rebuilt;
+				return;
+			}
+		}
+
+		filter = null;
+		filterHash = null;
+	}
+
+	/**
+	 * Creates an unlinked leaf storing item. Subclasses that store additional
+	 * information in their nodes override this to return their own node type.
+	 *
+	 * @param item the item to store
+	 *
+	 * @return the new node
+	 */
+	protected BinaryTreeNode<T> createNode(T item) {
+		BinaryTreeNode<T> node = new BinaryTreeNode<>();
+		node.item = item;
+		node.height = 1;
+		node.size = 1;
+		node.count = 1;
+
+		return node;
+	}
+
+	/**
+	 * Loads data into this empty BinarySearchTree. If sortUnsorted is true, data
+	 * is sorted into a copy if needed and built into a height-balanced tree.
+	 * Otherwise, sorted data is inserted middle first and unsorted data is
+	 * inserted in the order given. data itself is never modified.
+	 *
+	 * Subclasses whose insert() relies on their own fields call this from their
+	 * constructors, after those fields are initialized, instead of passing data to
+	 * a superclass constructor.
+	 *
+	 * @param data the items to load
+	 * @param sortUnsorted true iff unsorted data should be sorted and built
+	 */
+	protected void load(List<T> data, boolean sortUnsorted) {
+		List<T> items = data;
+
+		if(!isSorted(data)) {
+			if(!sortUnsorted) {
+				for(T item: data) {
+					insert(item);
+				}
+
+				return;
+			}
+
+			items = new ArrayList<>(data);
+			items.sort(order);
+		} else if(!(data instanceof RandomAccess)) {
+			items = new ArrayList<>(data);
+		}
+
+		if(!sortUnsorted) {
+			// Comparing neighbors cannot prove that a Comparator orders every pair
+			// consistently, so inserting keeps each search path identical to the path
+			// taken when the item was inserted.
+			insertMiddleFirst(items, 0, items.size());
+			return;
+		}
+
+		head = build(items, 0, items.size(), null);
+		modificationCount++;
+	}
+
+	/**
+	 * Inserts the sorted items in [start, end) by inserting the middle item and
+	 * then recursing on each half, which produces a height-balanced tree.
+	 *
+	 * @param items the sorted items
+	 * @param start the index of the first item (inclusive)
+	 * @param end the index of the last item (exclusive)
+	 */
+	private void insertMiddleFirst(List<T> items, int start, int end) {
+		if(start >= end) {
+			return;
+		}
+
+		int middle = (start + end) >>> 1;
+
+		insert(items.get(middle));
+		insertMiddleFirst(items, start, middle);
+		insertMiddleFirst(items, middle + 1, end);
+	}
+
+	/**
+	 * Returns true iff data is sorted in non-decreasing order.
+	 *
+	 * @param data the items to check
+	 *
+	 * @return true iff data is sorted
+	 */
+	private boolean isSorted(List<T> data) {
+		Iterator<T> iterator = data.iterator();
+
+		if(!iterator.hasNext()) {
+			return true;
+		}
+
+		T previous = iterator.next();
+
+		while(iterator.hasNext()) {
+			T current = iterator.next();
+
+			if(order.compare(previous, current) > 0) {
+				return false;
+			}
+
+			previous = current;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Builds a height-balanced subtree from the sorted items in [start, end) by
+	 * making the middle item the root and recursing on each half.
+	 *
+	 * @param items the sorted items
+	 * @param start the index of the first item (inclusive)
+	 * @param end the index of the last item (exclusive)
+	 * @param parent the parent of the new subtree
+	 *
+	 * @return the root of the new subtree, or null if the range is empty
+	 */
+	private BinaryTreeNode<T> build(List<T> items, int start, int end, BinaryTreeNode<T> parent) {
+		if(start >= end) {
+			return null;
+		}
+
+		int middle = (start + end) >>> 1;
+
+		BinaryTreeNode<T> node = createNode(items.get(middle));
+		node.parent = parent;
+		node.leftChild = build(items, start, middle, node);
+		node.rightChild = build(items, middle + 1, end, node);
+
+		update(node);
+
+		return node;
+	}
+
+	/**
+	 * Creates a leaf storing item and links it into its sorted position. If
+	 * duplicates are counted and item is already stored, the count of the node
+	 * storing it is incremented instead, and that node is updated and returned.
+	 * The ancestors of the returned node are not updated; call
+	 * {@link #retrace(BinaryTreeNode)} on its parent afterwards.
+	 *
+	 * @param item the item to insert
+	 *
+	 * @return the node now storing item
+	 */
+	protected BinaryTreeNode<T> insertNode(T item) {
+		if(head == null) {
+			head = createNode(item);
+			addToFilter(item);
+
+			return head;
+		}
+
+		BinaryTreeNode<T> parentNode = head;
+		BinaryTreeNode<T> currentNode = (insertionFinger != null ? insertionFinger : head);
+
+		int comparison;
+		boolean stored = false;
+
+		do {
+			parentNode = currentNode;
+
+			comparison = order.compare(item, currentNode.item);
+
+			if(comparison == 0 && countingDuplicates) {
+				currentNode.count++;
+				update(currentNode);
+
+				if(insertionFinger != null) {
+					insertionFinger = currentNode;
+				}
+
+				return currentNode;
+			}
+
+			// A copy of item is always on the path, since a search for item would follow it.
+			stored |= (comparison == 0);
+
+			if(comparison <= 0) {
+				currentNode = currentNode.leftChild;
+			} else {
+				currentNode = currentNode.rightChild;
+			}
+		} while(currentNode != null);
+
+		BinaryTreeNode<T> node = createNode(item);
+		node.parent = parentNode;
+
+		if(comparison <= 0) {
+			parentNode.leftChild = node;
+		} else {
+			parentNode.rightChild = node;
+		}
+
+		if(!stored) {
+			addToFilter(item);
+		}
+
+		if(insertionFinger != null) {
+			insertionFinger = node;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Removes a single copy of node's item from this BinarySearchTree. If node
+	 * stores more than 1 copy, its count is decremented and node itself is
+	 * returned. Otherwise node is unlinked, and if it has 2 children, its
+	 * successor is moved into its place. The ancestors of the changed nodes are not
+	 * updated; call {@link #retrace(BinaryTreeNode)} on the returned node
+	 * afterwards.
+	 *
+	 * @param node the node to remove
+	 *
+	 * @return the deepest node whose subtree changed, or null if none did
+	 */
+	protected BinaryTreeNode<T> removeNode(BinaryTreeNode<T> node) {
+		if(node.count > 1) {
+			node.count--;
+
+			return node;
+		}
+
+		BinaryTreeNode<T> replacement;
+		BinaryTreeNode<T> changedNode = node.parent;
+
+		if(node.rightChild == null) {
+			replacement = node.leftChild;
+		} else if(node.leftChild == null) {
+			replacement = node.rightChild;
+		} else {
+			replacement = findSuccessor(node);
+
+			if(replacement == node.rightChild) {
+				changedNode = replacement;
+			} else {
+				changedNode = replacement.parent;
+
+				replacement.parent.leftChild = replacement.rightChild;
+
+				if(replacement.rightChild != null) {
+					replacement.rightChild.parent = replacement.parent;
+				}
+
+				replacement.rightChild = node.rightChild;
+				replacement.rightChild.parent = replacement;
+			}
+
+			replacement.leftChild = node.leftChild;
+			replacement.leftChild.parent = replacement;
+		}
+
+		replaceChild(node.parent, node, replacement);
+
+		// Only the node with the last copy of an item is unlinked if duplicates are counted.
+		if(filter != null && (countingDuplicates || findNode(node.item) == null)) {
+			filter.remove(node.item);
+		}
+
+		return changedNode;
+	}
+
+	/**
+	 * Removes a single copy of the item stored in node, which must be in this
+	 * BinarySearchTree, retraces the path above it, and then calls
+	 * {@link #afterRemove(BinaryTreeNode)}. Both remove() and iterator removal go
+	 * through here, so a subclass that restructures after a removal sees every
+	 * one.
+	 *
+	 * @param node the node storing the copy to remove
+	 */
+	protected void deleteNode(BinaryTreeNode<T> node) {
+		BinaryTreeNode<T> changedNode = removeNode(node);
+
+		modificationCount++;
+		retrace(changedNode);
+		afterRemove(changedNode);
+	}
+
+	/**
+	 * Called after a copy has been removed and the path above it retraced.
+	 * Subclasses override this to restructure the tree; nodes must be relinked,
+	 * never copied, so that iterators stay valid. Does nothing by default.
+	 *
+	 * @param node the deepest node whose subtree changed; may be null
+	 */
+	protected void afterRemove(BinaryTreeNode<T> node) {
+	}
+
+	/**
+	 * Walks from node up to the root, updating the information cached in each
+	 * node. Self-balancing subclasses override this to restore their balance
+	 * along the way.
+	 *
+	 * @param node the deepest node whose subtree changed; may be null
+	 */
+	protected void retrace(BinaryTreeNode<T> node) {
+		while(node != null) {
+			update(node);
+
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Recomputes the information cached in node from its children.
+	 *
+	 * @param node the node to update
+	 */
+	protected void update(BinaryTreeNode<T> node) {
+		node.height = 1 + Math.max(height(node.leftChild), height(node.rightChild));
+		node.size = node.count + size(node.leftChild) + size(node.rightChild);
+	}
+
+	/**
+	 * Rotates node's right child into node's position. Both rotated nodes are
+	 * updated; their ancestors are not.
+	 *
+	 * @param node the root of the subtree to rotate
+	 *
+	 * @return the new root of the subtree
+	 */
+	protected BinaryTreeNode<T> rotateLeft(BinaryTreeNode<T> node) {
+		BinaryTreeNode<T> pivot = node.rightChild;
+
+		node.rightChild = pivot.leftChild;
+
+		if(pivot.leftChild != null) {
+			pivot.leftChild.parent = node;
+		}
+
+		replaceChild(node.parent, node, pivot);
+
+		pivot.leftChild = node;
+		node.parent = pivot;
+
+		update(node);
+		update(pivot);
+
+		return pivot;
+	}
+
+	/**
+	 * Rotates node's left child into node's position. Both rotated nodes are
+	 * updated; their ancestors are not.
+	 *
+	 * @param node the root of the subtree to rotate
+	 *
+	 * @return the new root of the subtree
+	 */
+	protected BinaryTreeNode<T> rotateRight(BinaryTreeNode<T> node) {
+		BinaryTreeNode<T> pivot = node.leftChild;
+
+		node.leftChild = pivot.rightChild;
+
+		if(pivot.rightChild != null) {
+			pivot.rightChild.parent = node;
+		}
+
+		replaceChild(node.parent, node, pivot);
+
+		pivot.rightChild = node;
+		node.parent = pivot;
+
+		update(node);
+		update(pivot);
+
+		return pivot;
+	}
+
+	/**
+	 * Replaces parent's child oldChild with newChild. If parent is null, oldChild
+	 * is the root and newChild becomes the new root.
+	 *
+	 * @param parent the parent of oldChild
+	 * @param oldChild the child being replaced
+	 * @param newChild the replacement; may be null
+	 */
+	protected void replaceChild(BinaryTreeNode<T> parent, BinaryTreeNode<T> oldChild, BinaryTreeNode<T> newChild) {
+		if(newChild != null) {
+			newChild.parent = parent;
+		}
+
+		if(parent == null) {
+			head = newChild;
+		} else if(parent.leftChild == oldChild) {
+			parent.leftChild = newChild;
+		} else {
+			parent.rightChild = newChild;
+		}
+	}
+
+	/**
+	 * Returns the height of the subtree rooted at node.
+	 *
+	 * @param node the root of the subtree; may be null
+	 *
+	 * @return the height of the subtree or 0 if node is null
+	 */
+	protected static int height(BinaryTreeNode<?> node) {
+		return (node == null ? 0 : node.height);
+	}
+
+	/**
+	 * Returns the number of items in the subtree rooted at node.
+	 *
+	 * @param node the root of the subtree; may be null
+	 *
+	 * @return the size of the subtree or 0 if node is null
+	 */
+	protected static int size(BinaryTreeNode<?> node) {
+		return (node == null ? 0 : node.size);
+	}
+
+	/**
+	 * Searches this BinarySearchTree for the node that is storing item.
+	 *
+	 * @param item the item to find
+	 *
+	 * @return the node that is storing item or null if no node is storing item
+	 */
+	protected BinaryTreeNode<T> findNode(T item) {
+		BinaryTreeNode<T> currentNode = head;
+		int comparison;
+
+		while(currentNode != null && (comparison = order.compare(item, currentNode.item)) != 0) {
+			if(comparison < 0) {
+				currentNode = currentNode.leftChild;
+			} else {
+				currentNode = currentNode.rightChild;
+			}
+		}
+
+		return currentNode;
+	}
+
+	/**
+	 * Returns the node at index k of this BinarySearchTree's sorted order.
+	 *
+	 * @param k the 0-based rank of the node to return; it must be in the range
+	 *            [0, size())
+	 *
+	 * @return the node storing the k-th smallest item (which may be one of several
+	 *         copies stored in that node)
+	 */
+	protected BinaryTreeNode<T> selectNode(int k) {
+		BinaryTreeNode<T> currentNode = head;
+
+		while(true) {
+			int leftSize = size(currentNode.leftChild);
+
+			if(k < leftSize) {
+				currentNode = currentNode.leftChild;
+			} else if(k < leftSize + currentNode.count) {
+				return currentNode;
+			} else {
+				k -= leftSize + currentNode.count;
+				currentNode = currentNode.rightChild;
+			}
+		}
+	}
+
+	/**
+	 * Finds root's successor. If root has no successor, null is returned.
+	 * 
+	 * @param root the node for which a successor should be found
+	 * 
+	 * @return root's successor or null if root has no successor
+	 */
+	protected BinaryTreeNode<T> findSuccessor(BinaryTreeNode<T> root) {
+		if(root.rightChild == null) {
+			return null;
+		}
+
+		BinaryTreeNode<T> successor = root.rightChild;
+		while(successor.leftChild != null) {
+			successor = successor.leftChild;
+		}
+
+		return successor;
+	}
+
+	/**
+	 * Finds root's predecessor within its left subtree. If root has no left
+	 * subtree, null is returned.
+	 *
+	 * @param root the node for which a predecessor should be found
+	 *
+	 * @return root's predecessor or null if root has no left subtree
+	 */
+	protected BinaryTreeNode<T> findPredecessor(BinaryTreeNode<T> root) {
+		if(root.leftChild == null) {
+			return null;
+		}
+
+		BinaryTreeNode<T> predecessor = root.leftChild;
+		while(predecessor.rightChild != null) {
+			predecessor = predecessor.rightChild;
+		}
+
+		return predecessor;
+	}
+
+	/**
+	 * Returns the node that follows node in sorted order. If node has no right
+	 * subtree, the parent references are followed up to the first ancestor of
+	 * which node is in the left subtree.
+	 *
+	 * @param node the current node
+	 *
+	 * @return the next node or null if node is the last node
+	 */
+	protected BinaryTreeNode<T> nextNode(BinaryTreeNode<T> node) {
+		if(node.rightChild != null) {
+			return findSuccessor(node);
+		}
+
+		BinaryTreeNode<T> parentNode = node.parent;
+
+		while(parentNode != null && parentNode.rightChild == node) {
+			node = parentNode;
+			parentNode = parentNode.parent;
+		}
+
+		return parentNode;
+	}
+
+	/**
+	 * Returns the node that precedes node in sorted order.
+	 *
+	 * @param node the current node
+	 *
+	 * @return the previous node or null if node is the first node
+	 */
+	protected BinaryTreeNode<T> previousNode(BinaryTreeNode<T> node) {
+		if(node.leftChild != null) {
+			return findPredecessor(node);
+		}
+
+		BinaryTreeNode<T> parentNode = node.parent;
+
+		while(parentNode != null && parentNode.leftChild == node) {
+			node = parentNode;
+			parentNode = parentNode.parent;
+		}
+
+		return parentNode;
+	}
+
+	/**
+	 * Returns the node storing the minimum item.
+	 *
+	 * @return the first node or null if this BinarySearchTree is empty
+	 */
+	protected BinaryTreeNode<T> firstNode() {
+		BinaryTreeNode<T> currentNode = head;
+
+		while(currentNode != null && currentNode.leftChild != null) {
+			currentNode = currentNode.leftChild;
+		}
+
+		return currentNode;
+	}
+
+	/**
+	 * Returns the node storing the maximum item.
+	 *
+	 * @return the last node or null if this BinarySearchTree is empty
+	 */
+	protected BinaryTreeNode<T> lastNode() {
+		BinaryTreeNode<T> currentNode = head;
+
+		while(currentNode != null && currentNode.rightChild != null) {
+			currentNode = currentNode.rightChild;
+		}
+
+		return currentNode;
+	}
+
+	/**
+	 * Returns the last node, in sorted order, whose item is less than or equal to
+	 * item.
+	 *
+	 * @param item the upper bound
+	 *
+	 * @return the last node at or below item, or null if there is none
+	 */
+	protected BinaryTreeNode<T> floorNode(T item) {
+		BinaryTreeNode<T> currentNode = head;
+		BinaryTreeNode<T> candidate = null;
+
+		while(currentNode != null) {
+			if(order.compare(currentNode.item, item) > 0) {
+				currentNode = currentNode.leftChild;
+			} else {
+				candidate = currentNode;
+				currentNode = currentNode.rightChild;
+			}
+		}
+
+		return candidate;
+	}
+
+	/**
+	 * Returns the first node, in sorted order, whose item is greater than or equal
+	 * to item.
+	 *
+	 * @param item the lower bound
+	 *
+	 * @return the first node at or above item, or null if there is none
+	 */
+	protected BinaryTreeNode<T> ceilingNode(T item) {
+		BinaryTreeNode<T> currentNode = head;
+		BinaryTreeNode<T> candidate = null;
+
+		while(currentNode != null) {
+			if(order.compare(currentNode.item, item) < 0) {
+				currentNode = currentNode.rightChild;
+			} else {
+				candidate = currentNode;
+				currentNode = currentNode.leftChild;
+			}
+		}
+
+		return candidate;
+	}
+
+	/**
+	 * Returns the last node, in sorted order, whose item is strictly less than
+	 * item.
+	 *
+	 * @param item the upper bound
+	 *
+	 * @return the last node below item, or null if there is none
+	 */
+	protected BinaryTreeNode<T> lowerNode(T item) {
+		BinaryTreeNode<T> currentNode = head;
+		BinaryTreeNode<T> candidate = null;
+
+		while(currentNode != null) {
+			if(order.compare(currentNode.item, item) < 0) {
+				candidate = currentNode;
+				currentNode = currentNode.rightChild;
+			} else {
+				currentNode = currentNode.leftChild;
+			}
+		}
+
+		return candidate;
+	}
+
+	/**
+	 * Returns the first node, in sorted order, whose item is strictly greater than
+	 * item.
+	 *
+	 * @param item the lower bound
+	 *
+	 * @return the first node above item, or null if there is none
+	 */
+	protected BinaryTreeNode<T> higherNode(T item) {
+		BinaryTreeNode<T> currentNode = head;
+		BinaryTreeNode<T> candidate = null;
+
+		while(currentNode != null) {
+			if(order.compare(currentNode.item, item) > 0) {
+				candidate = currentNode;
+				currentNode = currentNode.leftChild;
+			} else {
+				currentNode = currentNode.rightChild;
+			}
+		}
+
+		return candidate;
+	}
+
+	/**
+	 * Returns the item stored in node, or null if node is null.
+	 *
+	 * @param node the node; may be null
+	 *
+	 * @return node's item or null
+	 */
+	private T itemOf(BinaryTreeNode<T> node) {
+		return (node == null ? null : node.item);
+	}
+
+	/**
+	 * Compares lfs (left-hand side operand) to rhs (right-hand side operand).
+	 * 
+	 * @throws (ClassCastException) If lhs and/or rhs cannot be compared.
+	 *
+	 * @param lhs the operand on the left-hand side of the comparison operator
+	 * @param rhs the operand on the right-hand side of the comparison operator
+	 *
+	 * @return the result of comparing lhs and rhs
+	 */
+	protected Comparison compare(T lhs, T rhs) {
+		return Comparison.create(order.compare(lhs, rhs));
+	}
+
+	/**
+	 * Cursor is a finger into a BinarySearchTree: it remembers the last node it
+	 * reached and starts each search from there. A search first climbs the parent
+	 * references, comparing only the ancestors on the target's side, until one
+	 * bounds the target; it then descends from the subtree below that ancestor,
+	 * as a search from the root would. The cost depends on how far apart the
+	 * finger and the target are in the tree rather than on its size: a run of
+	 * nearby accesses makes few comparisons, and walking through the items in
+	 * order makes O(1) amortized comparisons per step. Targets on opposite sides
+	 * of a high node (such as the root) still climb to that node.
+	 *
+	 * Searches return the same results as the tree's own methods, except that
+	 * when duplicates are not counted, a different copy of an equal item may be
+	 * reached. A Cursor's lookups do not restructure the tree (a SplayTree is not
+	 * splayed). insert() calls the tree's insert(), so every engine still
+	 * rebalances as usual, but the cached sizes on the path to the root are still
+	 * updated, so it saves comparisons rather than steps.
+	 *
+	 * If the tree is modified other than through this Cursor, the finger may no
+	 * longer be in the tree. The next search then starts at the root, while
+	 * get(), next(), and previous() throw a ConcurrentModificationException until
+	 * a search sets a new position.
+	 */
+	public class Cursor {
+		private BinaryTreeNode<T> finger;	// Null until the first search.
+		private BinaryTreeNode<T> upperBound;	// Set by start(): the least node above item outside the start's subtree, if known.
+		private int expectedModificationCount;
+
+		private Cursor() {
+			finger = null;
+			expectedModificationCount = modificationCount;
+		}
+
+		/**
+		 * Returns if item is stored in the BinarySearchTree and moves this Cursor to
+		 * the node storing it, or to the last node visited if item is not stored.
+		 *
+		 * @param item the item to search for
+		 *
+		 * @return true iff item is stored in the BinarySearchTree
+		 */
+		public boolean has(T item) {
+			if(!passesFilter(item)) {
+				return false;
+			}
+
+			BinaryTreeNode<T> currentNode = start(item);
+			BinaryTreeNode<T> lastNode = null;
+
+			while(currentNode != null) {
+				lastNode = currentNode;
+
+				int comparison = order.compare(item, currentNode.item);
+
+				if(comparison == 0) {
+					break;
+				}
+
+				currentNode = (comparison < 0 ? currentNode.leftChild : currentNode.rightChild);
+			}
+
+			moveTo(lastNode);
+
+			return recordLookup(currentNode != null);
+		}
+
+		/**
+		 * Inserts item into the BinarySearchTree, searching for its position from
+		 * this Cursor, and moves this Cursor to the node storing it.
+		 *
+		 * @param item the item to insert
+		 */
+		public void insert(T item) {
+			insertionFinger = start(item);
+
+			try {
+				BinarySearchTree.this.insert(item);
+			} finally {
+				// The finger is null if the tree was empty, in which case the new node is the root.
+				moveTo(insertionFinger != null ? insertionFinger : head);
+
+				insertionFinger = null;
+			}
+		}
+
+		/**
+		 * Moves this Cursor to the least item that is greater than or equal to item.
+		 * If there is none, this Cursor is left without a position.
+		 *
+		 * @param item the lower bound (inclusive)
+		 *
+		 * @return the least item at or above item, or null if there is none
+		 */
+		public T seek(T item) {
+			BinaryTreeNode<T> currentNode = start(item);
+			BinaryTreeNode<T> candidate = upperBound;
+
+			while(currentNode != null) {
+				if(order.compare(currentNode.item, item) < 0) {
+					currentNode = currentNode.rightChild;
+				} else {
+					candidate = currentNode;
+					currentNode = currentNode.leftChild;
+				}
+			}
+
+			moveTo(candidate);
+
+			return itemOf(candidate);
+		}
+
+		/**
+		 * Returns the item at this Cursor's position.
+		 *
+		 * @throws ConcurrentModificationException if the BinarySearchTree was
+		 *             modified other than through this Cursor since it was positioned
+		 *
+		 * @return the current item, or null if this Cursor has no position
+		 */
+		public T get() {
+			checkPosition();
+
+			return itemOf(finger);
+		}
+
+		/**
+		 * Moves this Cursor to the next node in sorted order. In multiset mode, the
+		 * copies of an item share a node and are stepped over together.
+		 *
+		 * @throws ConcurrentModificationException if the BinarySearchTree was
+		 *             modified other than through this Cursor since it was positioned
+		 *
+		 * @return the next item, or null (without moving) if there is none or this
+		 *         Cursor has no position
+		 */
+		public T next() {
+			checkPosition();
+
+			BinaryTreeNode<T> node = (finger == null ? null : nextNode(finger));
+
+			if(node != null) {
+				finger = node;
+			}
+
+			return itemOf(node);
+		}
+
+		/**
+		 * Moves this Cursor to the previous node in sorted order. In multiset mode,
+		 * the copies of an item share a node and are stepped over together.
+		 *
+		 * @throws ConcurrentModificationException if the BinarySearchTree was
+		 *             modified other than through this Cursor since it was positioned
+		 *
+		 * @return the previous item, or null (without moving) if there is none or
+		 *         this Cursor has no position
+		 */
+		public T previous() {
+			checkPosition();
+
+			BinaryTreeNode<T> node = (finger == null ? null : previousNode(finger));
+
+			if(node != null) {
+				finger = node;
+			}
+
+			return itemOf(node);
+		}
+
+		/**
+		 * Returns the node a search for item should start at, which a search from the
+		 * root would pass through, and sets upperBound.
+		 *
+		 * If item is greater than the finger's item, the ancestors reached from the
+		 * right are less than the finger and route item toward it, so only the
+		 * ancestors reached from the left are compared. Each one that is less than
+		 * item is passed; the first one greater than item bounds it, so item's
+		 * position is in the right subtree of the last node passed (or of the
+		 * finger), and the search starts there. The opposite holds if item is less.
+		 * An equal ancestor is returned directly, so a step to the next or previous
+		 * item stays short.
+		 */
+		private BinaryTreeNode<T> start(T item) {
+			upperBound = null;
+
+			if(finger == null || expectedModificationCount != modificationCount) {
+				return head;
+			}
+
+			int comparison = order.compare(item, finger.item);
+
+			if(comparison == 0) {
+				return finger;
+			}
+
+			BinaryTreeNode<T> node = finger;
+			BinaryTreeNode<T> lastPassed = finger;
+
+			while(node.parent != null) {
+				BinaryTreeNode<T> parentNode = node.parent;
+
+				if(comparison > 0 ? parentNode.leftChild == node : parentNode.rightChild == node) {
+					int bound = order.compare(item, parentNode.item);
+
+					if(bound == 0) {
+						return parentNode;
+					}
+
+					if((bound < 0) == (comparison > 0)) {
+						upperBound = (comparison > 0 ? parentNode : null);
+
+						return lastPassed;
+					}
+
+					lastPassed = parentNode;
+				}
+
+				node = parentNode;
+			}
+
+			return lastPassed;
+		}
+
+		private void moveTo(BinaryTreeNode<T> node) {
+			finger = node;
+			expectedModificationCount = modificationCount;
+		}
+
+		private void checkPosition() {
+			if(finger != null && expectedModificationCount != modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	/**
+	 * TreeSpliterator covers the items whose ranks are in [index, end). The node
+	 * at index is found when traversal starts, after which each step moves to the
+	 * next node in O(1) amortized.
+	 */
+	private class TreeSpliterator implements Spliterator<T> {
+		private int index;
+		private final int end;
+		private BinaryTreeNode<T> nextNode;	// The node at index, or null until traversal starts.
+		private int nextCopy;	// The number of nextNode's copies that have already been returned.
+		private final int expectedModificationCount;
+
+		TreeSpliterator(int index, int end, int expectedModificationCount) {
+			this.index = index;
+			this.end = end;
+			this.expectedModificationCount = expectedModificationCount;
+
+			nextNode = null;
+			nextCopy = 0;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if(index >= end) {
+				return false;
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			if(nextNode == null) {
+				nextNode = selectNode(index);
+				nextCopy = (nextNode.count > 1 ? index - countBelow(nextNode.item, false) : 0);
+			}
+
+			T item = nextNode.item;
+
+			if(++nextCopy == nextNode.count) {
+				nextNode = nextNode(nextNode);
+				nextCopy = 0;
+			}
+
+			index++;
+
+			action.accept(item);
+
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while(tryAdvance(action)) {
+				// Each call consumes one item.
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int middle = (index + end) >>> 1;
+
+			if(middle <= index) {
+				return null;
+			}
+
+			// An ORDERED Spliterator must hand off its prefix.
+			TreeSpliterator prefix = new TreeSpliterator(index, middle, expectedModificationCount);
+			prefix.nextNode = nextNode;
+			prefix.nextCopy = nextCopy;
+
+			index = middle;
+			nextNode = null;
+
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return (end - index);
+		}
+
+		@Override
+		public int characteristics() {
+			return (Spliterator.ORDERED | Spliterator.SORTED | Spliterator.SIZED | Spliterator.SUBSIZED);
+		}
+
+		@Override
+		public Comparator<? super T> getComparator() {
+			return comparator;
+		}
+	}
+
+	/**
+	 * TreeIterator walks the nodes of this BinarySearchTree in sorted order (or
+	 * reverse sorted order), optionally stopping at an exclusive upper bound.
+	 */
+	private class TreeIterator implements Iterator<T> {
+		private BinaryTreeNode<T> nextNode;
+		private int nextCopy;	// The number of nextNode's copies that have already been returned.
+		private BinaryTreeNode<T> lastReturned;
+		private int expectedModificationCount;
+
+		private final boolean descending;
+		private final T upperBound;
+		private final boolean bounded;
+
+		/**
+		 * Creates a new TreeIterator.
+		 *
+		 * @param first the first node to return; null if there is none
+		 * @param descending true iff nodes should be returned in descending order
+		 * @param upperBound the exclusive upper bound; only used if bounded is true
+		 * @param bounded true iff iteration should stop at upperBound
+		 */
+		TreeIterator(BinaryTreeNode<T> first, boolean descending, T upperBound, boolean bounded) {
+			this.descending = descending;
+			this.upperBound = upperBound;
+			this.bounded = bounded;
+
+			nextNode = first;
+			nextCopy = 0;
+			lastReturned = null;
+			expectedModificationCount = modificationCount;
+
+			if(nextNode != null && isPastBound(nextNode)) {
+				nextNode = null;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextNode != null);
+		}
+
+		@Override
+		public T next() {
+			if(nextNode == null) {
+				throw new NoSuchElementException();
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			lastReturned = nextNode;
+
+			if(++nextCopy == nextNode.count) {
+				nextNode = (descending ? previousNode(nextNode) : nextNode(nextNode));
+				nextCopy = 0;
+
+				if(nextNode != null && isPastBound(nextNode)) {
+					nextNode = null;
+				}
+			}
+
+			return lastReturned.item;
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			// The removed copy was one of those already returned.
+			if(lastReturned == nextNode) {
+				nextCopy--;
+			}
+
+			// Nodes are relinked, never copied, on removal or restructuring, so nextNode remains valid.
+			deleteNode(lastReturned);
+
+			expectedModificationCount = modificationCount;
+			lastReturned = null;
+		}
+
+		/**
+		 * Returns true iff node is at or beyond the upper bound of this iteration.
+		 *
+		 * @param node the node to check
+		 *
+		 * @return true iff iteration should stop before node
+		 */
+		private boolean isPastBound(BinaryTreeNode<T> node) {
+			return (bounded && order.compare(node.item, upperBound) >= 0);
+		}
 	}
 }
\ No newline at end of file
@@ -12,4 +12,8 @@ class BinaryTreeNode<T> {
 
 	protected BinaryTreeNode<T> leftChild;	// The left child.
 	protected BinaryTreeNode<T> rightChild;	// The right child.
+
+	protected int height;	// The height of the subtree rooted at this node (1 for a leaf).
+	protected int size;		// The number of items in the subtree rooted at this node, counting every copy.
+	protected int count;	// The number of copies of item stored in this node (always 1 unless duplicates are counted).
 }
\ No newline at end of file
@@ -0,0 +1,370 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import codes.c1moore.refresher.common.Comparison;
+
+/**
+ * ConcurrentSearchTree is a thread-safe ordered set built as an external (leaf
+ * oriented) binary search tree. Items are only stored in leaves; internal nodes
+ * hold routing keys. Items less than an internal node's key are in its left
+ * subtree and all other items are in its right subtree.
+ *
+ * Readers never lock. Every child reference is volatile, and a writer only
+ * ever swings a single child reference, so has(), getMinimum(), getMaximum(),
+ * and iteration simply follow the references they see. Writers lock locally:
+ * insert() locks the parent of the leaf being replaced and remove() locks the
+ * grandparent and parent of the leaf being removed. Once locked, the writer
+ * validates that the nodes are still linked together (a removed node is marked
+ * so this can be detected) and retries the search if they are not.
+ *
+ * Unlike BinarySearchTree, ConcurrentSearchTree is a set: inserting an item
+ * that is already stored has no effect. The tree is not rebalanced, so
+ * operations are expected O(log(n)) for randomly ordered items and worse-case
+ * O(n). Items are ordered by a Comparator, if one is specified, or by their
+ * Comparable implementation otherwise.
+ */
+public class ConcurrentSearchTree<T> implements Iterable<T> {
+	private final Node<T> root;
+	private final Comparator<T> order;	// comparator, or the natural order if it is null.
+	private final AtomicInteger size;
+
+	/**
+	 * Creates an empty ConcurrentSearchTree.
+	 */
+	public ConcurrentSearchTree() {
+		this(null);
+	}
+
+	/**
+	 * Creates an empty ConcurrentSearchTree that will use comparator to compare
+	 * items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public ConcurrentSearchTree(Comparator<T> comparator) {
+		this.order = Comparison.resolve(comparator);
+
+		// Two sentinel leaves, which compare greater than every item, guarantee that
+		// every real leaf has both a parent and a grandparent.
+		root = new Node<>(null, Node.SECOND_SENTINEL, new Node<>(null, Node.FIRST_SENTINEL), new Node<>(null, Node.SECOND_SENTINEL));
+		size = new AtomicInteger();
+	}
+
+	/**
+	 * Inserts item into this ConcurrentSearchTree, if it is not already stored.
+	 *
+	 * @param item the item to insert
+	 *
+	 * @return true iff item was inserted
+	 */
+	public boolean insert(T item) {
+		while(true) {
+			Node<T> parent = root;
+			Node<T> leaf = parent.child(goesLeft(item, parent));
+
+			while(!leaf.isLeaf()) {
+				parent = leaf;
+				leaf = parent.child(goesLeft(item, parent));
+			}
+
+			if(leaf.sentinel == Node.NOT_SENTINEL && order.compare(item, leaf.item) == 0) {
+				return false;
+			}
+
+			boolean left = goesLeft(item, parent);
+
+			synchronized(parent) {
+				if(parent.removed || parent.child(left) != leaf) {
+					continue;
+				}
+
+				Node<T> newLeaf = new Node<>(item, Node.NOT_SENTINEL);
+				Node<T> replacement;
+
+				if(goesLeft(item, leaf)) {
+					replacement = new Node<>(leaf.item, leaf.sentinel, newLeaf, leaf);
+				} else {
+					replacement = new Node<>(item, Node.NOT_SENTINEL, leaf, newLeaf);
+				}
+
+				parent.setChild(left, replacement);
+			}
+
+			size.incrementAndGet();
+
+			return true;
+		}
+	}
+
+	/**
+	 * Returns if item is stored in this ConcurrentSearchTree. This method never
+	 * blocks.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in this ConcurrentSearchTree
+	 */
+	public boolean has(T item) {
+		Node<T> node = root;
+
+		while(!node.isLeaf()) {
+			node = node.child(goesLeft(item, node));
+		}
+
+		return (node.sentinel == Node.NOT_SENTINEL && order.compare(item, node.item) == 0);
+	}
+
+	/**
+	 * Removes item from this ConcurrentSearchTree.
+	 *
+	 * @param item the item to remove
+	 *
+	 * @return true iff item was stored and has been removed
+	 */
+	public boolean remove(T item) {
+		while(true) {
+			Node<T> grandparent = null;
+			Node<T> parent = root;
+			Node<T> leaf = parent.child(goesLeft(item, parent));
+
+			while(!leaf.isLeaf()) {
+				grandparent = parent;
+				parent = leaf;
+				leaf = parent.child(goesLeft(item, parent));
+			}
+
+			if(leaf.sentinel != Node.NOT_SENTINEL || order.compare(item, leaf.item) != 0) {
+				return false;
+			}
+
+			boolean parentIsLeft = goesLeft(item, grandparent);
+			boolean leafIsLeft = goesLeft(item, parent);
+
+			synchronized(grandparent) {
+				synchronized(parent) {
+					if(grandparent.removed || parent.removed || grandparent.child(parentIsLeft) != parent || parent.child(leafIsLeft) != leaf) {
+						continue;
+					}
+
+					// Splice the parent out; readers already on it still reach a valid leaf.
+					parent.removed = true;
+					grandparent.setChild(parentIsLeft, parent.child(!leafIsLeft));
+				}
+			}
+
+			size.decrementAndGet();
+
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the minimum item in this ConcurrentSearchTree.
+	 *
+	 * @return the minimum item or null if this ConcurrentSearchTree is empty
+	 */
+	public T getMinimum() {
+		Node<T> node = root;
+
+		while(!node.isLeaf()) {
+			node = node.left;
+		}
+
+		return (node.sentinel == Node.NOT_SENTINEL ? node.item : null);
+	}
+
+	/**
+	 * Returns the maximum item in this ConcurrentSearchTree.
+	 *
+	 * @return the maximum item or null if this ConcurrentSearchTree is empty
+	 */
+	public T getMaximum() {
+		Node<T> lastRightTurn = null;
+		Node<T> node = root;
+
+		// The maximum is the predecessor of the first sentinel leaf: the rightmost leaf
+		// in the left subtree of the last node where the path to that sentinel turns right.
+		while(!node.isLeaf()) {
+			if(node.sentinel == Node.SECOND_SENTINEL) {
+				node = node.left;
+			} else {
+				lastRightTurn = node;
+				node = node.right;
+			}
+		}
+
+		if(lastRightTurn == null) {
+			return null;
+		}
+
+		node = lastRightTurn.left;
+
+		while(!node.isLeaf()) {
+			node = node.right;
+		}
+
+		return node.item;
+	}
+
+	/**
+	 * Returns the number of items stored in this ConcurrentSearchTree. While
+	 * writers are active, this is only an estimate.
+	 *
+	 * @return the number of items in this ConcurrentSearchTree
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Returns a weakly consistent Iterator over the items in ascending order. The
+	 * Iterator never throws ConcurrentModificationException; it returns every
+	 * item that was stored for the whole iteration and may or may not return
+	 * items inserted or removed while iterating.
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * Returns true iff a search for item should go to the left child of node.
+	 *
+	 * @param item the item being searched for
+	 * @param node an internal node or a leaf
+	 *
+	 * @return true iff item is less than node's key
+	 */
+	private boolean goesLeft(T item, Node<T> node) {
+		return (node.sentinel != Node.NOT_SENTINEL || order.compare(item, node.item) < 0);
+	}
+
+	/**
+	 * Node is either an internal routing node, which always has 2 children, or a
+	 * leaf, which has none. Sentinel nodes compare greater than every item.
+	 */
+	private static class Node<T> {
+		static final int NOT_SENTINEL = 0;
+		static final int FIRST_SENTINEL = 1;
+		static final int SECOND_SENTINEL = 2;
+
+		final T item;		// The item (for leaves) or routing key (for internal nodes).
+		final int sentinel;	// Which sentinel this node's key is, if any.
+
+		volatile Node<T> left;
+		volatile Node<T> right;
+		volatile boolean removed;	// Has this internal node been spliced out of the tree?
+
+		/**
+		 * Creates a new leaf.
+		 */
+		Node(T item, int sentinel) {
+			this(item, sentinel, null, null);
+		}
+
+		/**
+		 * Creates a new internal node.
+		 */
+		Node(T item, int sentinel, Node<T> left, Node<T> right) {
+			this.item = item;
+			this.sentinel = sentinel;
+			this.left = left;
+			this.right = right;
+		}
+
+		boolean isLeaf() {
+			return (left == null);
+		}
+
+		Node<T> child(boolean left) {
+			return (left ? this.left : this.right);
+		}
+
+		void setChild(boolean left, Node<T> child) {
+			if(left) {
+				this.left = child;
+			} else {
+				this.right = child;
+			}
+		}
+	}
+
+	/**
+	 * LeafIterator performs an in-order walk over the leaves with an explicit
+	 * stack. Since nodes are never modified other than by swinging a child
+	 * reference, the walk always sees a valid (if possibly stale) subtree.
+	 */
+	private class LeafIterator implements Iterator<T> {
+		private final Deque<Node<T>> stack = new ArrayDeque<>();
+		private Node<T> nextLeaf;
+
+		LeafIterator() {
+			pushLeftSpine(root);
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextLeaf != null);
+		}
+
+		@Override
+		public T next() {
+			if(nextLeaf == null) {
+				throw new NoSuchElementException();
+			}
+
+			T item = nextLeaf.item;
+
+			advance();
+
+			return item;
+		}
+
+		/**
+		 * Moves to the next real leaf, or null once a sentinel is reached.
+		 */
+		private void advance() {
+			Node<T> leaf = stack.pop();
+
+			if(leaf.sentinel != Node.NOT_SENTINEL) {
+				nextLeaf = null;
+				stack.clear();
+
+				return;
+			}
+
+			nextLeaf = leaf;
+
+			if(!stack.isEmpty()) {
+				pushLeftSpine(stack.pop().right);
+			}
+		}
+
+		/**
+		 * Pushes node and its left descendants, ending with a leaf on top.
+		 */
+		private void pushLeftSpine(Node<T> node) {
+			while(true) {
+				Node<T> left = node.left;
+
+				if(left == null) {
+					stack.push(node);
+
+					return;
+				}
+
+				stack.push(node);
+				node = left;
+			}
+		}
+	}
+}
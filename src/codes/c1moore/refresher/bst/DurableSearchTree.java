@@ -0,0 +1,519 @@
+package codes.c1moore.refresher.bst;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import codes.c1moore.refresher.common.Codec;
+import codes.c1moore.refresher.common.Durability;
+
+/**
+ * DurableSearchTree makes the updates to an in-memory SearchTree survive a
+ * crash. Reads go straight to the wrapped tree; every insert() and remove() is
+ * also appended to a write-ahead log (WAL) in a directory.
+ *
+ * Writing to the log is cheap, but forcing it to disk (fsync) is not, so
+ * updates are committed in groups: log records are buffered and the buffer is
+ * written and forced once it holds a batch of records, or when sync() or
+ * close() is called. A batch size of 1 makes every update durable before it
+ * returns; larger batches trade the most recent updates on a crash for higher
+ * write throughput.
+ *
+ * So that the log does not grow without bound, checkpoint() writes every item
+ * in sorted order to a compact checkpoint file and then empties the log.
+ * Checkpoints are taken automatically after a configurable number of logged
+ * updates. A checkpoint is written to a temporary file, forced, and then
+ * atomically renamed over the previous one, so a crash never leaves a partial
+ * checkpoint behind.
+ *
+ * Each log record carries a sequence number and a checksum, and each
+ * checkpoint records the last sequence number it includes. Recovery (in
+ * open()) loads the latest checkpoint, replays only the log records newer than
+ * it, and stops at the first incomplete or corrupted record, which can only be
+ * the tail of a write interrupted by the crash.
+ *
+ * The wrapped tree must be empty when it is opened and must not be modified
+ * except through the DurableSearchTree. The methods are synchronized, so a
+ * DurableSearchTree may be shared between threads.
+ */
+public class DurableSearchTree<T> implements SearchTree<T>, Closeable {
+	/**
+	 * The number of log records committed together, unless
+	 * {@link #setBatchSize(int)} is called.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 64;
+
+	/**
+	 * The number of logged updates after which a checkpoint is taken, unless
+	 * {@link #setCheckpointInterval(int)} is called.
+	 */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 100000;
+
+	private static final String LOG_FILE = "wal.log";
+	private static final String CHECKPOINT_FILE = "checkpoint";
+	private static final String TEMPORARY_CHECKPOINT_FILE = "checkpoint.tmp";
+
+	private static final int CHECKPOINT_MAGIC = 0x434b5054;	// "CKPT"
+
+	private static final byte INSERT = 1;
+	private static final byte REMOVE = 2;
+
+	private final SearchTree<T> tree;
+	private final Codec<T> codec;
+	private final Path directory;
+	private final FileChannel log;
+
+	private final ByteArrayOutputStream pending;	// Log records that have not been written.
+	private int pendingCount;
+
+	private long sequence;			// The sequence number of the last logged update.
+	private int updatesSinceCheckpoint;
+
+	private int batchSize;
+	private int checkpointInterval;
+
+	/**
+	 * Creates a DurableSearchTree after recovery has loaded tree.
+	 */
+	private DurableSearchTree(SearchTree<T> tree, Codec<T> codec, Path directory, FileChannel log, long sequence, int updatesSinceCheckpoint) {
+		this.tree = tree;
+		this.codec = codec;
+		this.directory = directory;
+		this.log = log;
+		this.sequence = sequence;
+		this.updatesSinceCheckpoint = updatesSinceCheckpoint;
+
+		pending = new ByteArrayOutputStream();
+		pendingCount = 0;
+
+		batchSize = DEFAULT_BATCH_SIZE;
+		checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+	}
+
+	/**
+	 * Opens the DurableSearchTree stored in directory, creating the directory if
+	 * needed. The latest checkpoint and the log records that follow it are loaded
+	 * into tree.
+	 *
+	 * @throws IllegalArgumentException if tree is not empty
+	 * @throws IOException if the directory cannot be read or written
+	 *
+	 * @param directory the directory holding the log and checkpoints
+	 * @param tree an empty SearchTree that will hold the items
+	 * @param codec the Codec used to store items
+	 *
+	 * @return the recovered DurableSearchTree
+	 */
+	public static <T> DurableSearchTree<T> open(Path directory, SearchTree<T> tree, Codec<T> codec) throws IOException {
+		if(tree.size() != 0) {
+			throw new IllegalArgumentException("SearchTree must be empty.");
+		}
+
+		Files.createDirectories(directory);
+		Files.deleteIfExists(directory.resolve(TEMPORARY_CHECKPOINT_FILE));
+
+		long checkpointSequence = loadCheckpoint(directory.resolve(CHECKPOINT_FILE), tree, codec);
+		long sequence = checkpointSequence;
+		int replayed = 0;
+
+		Path logFile = directory.resolve(LOG_FILE);
+		boolean created = !Files.exists(logFile);
+		FileChannel log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			if(created) {
+				Durability.forceDirectory(directory);
+			}
+
+			DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log)));
+			long validLength = 0;
+
+			while(true) {
+				long recordSequence;
+				byte operation;
+				byte[] bytes;
+
+				try {
+					recordSequence = input.readLong();
+					operation = input.readByte();
+
+					// A torn record may claim any length, so check it against the file first.
+					int length = input.readInt();
+					if(length < 0 || length > log.size() - validLength) {
+						break;
+					}
+
+					bytes = new byte[length];
+					input.readFully(bytes);
+
+					if(input.readInt() != checksum(recordSequence, operation, bytes) || (operation != INSERT && operation != REMOVE)) {
+						break;
+					}
+				} catch(EOFException e) {
+					break;
+				}
+
+				validLength += Long.BYTES + 1 + Integer.BYTES + bytes.length + Integer.BYTES;
+
+				if(recordSequence > checkpointSequence) {
+					apply(tree, operation, codec.decode(bytes));
+
+					sequence = recordSequence;
+					replayed++;
+				}
+			}
+
+			// Drop any torn tail so new records are appended after the last valid one.
+			log.truncate(validLength);
+			log.position(validLength);
+			log.force(true);
+		} catch(IOException | RuntimeException e) {
+			log.close();
+
+			throw e;
+		}
+
+		return new DurableSearchTree<>(tree, codec, directory, log, sequence, replayed);
+	}
+
+	/**
+	 * Sets the number of log records that are buffered before they are written
+	 * and forced to disk together. Higher values increase write throughput, but
+	 * up to batchSize - 1 of the most recent updates may be lost on a crash
+	 * unless sync() is called.
+	 *
+	 * @throws IllegalArgumentException if batchSize is less than 1
+	 *
+	 * @param batchSize the number of log records committed together
+	 */
+	public synchronized void setBatchSize(int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1.");
+		}
+
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the number of logged updates after which a checkpoint is taken
+	 * automatically. An interval of 0 disables automatic checkpoints.
+	 *
+	 * @throws IllegalArgumentException if interval is negative
+	 *
+	 * @param interval the number of updates between checkpoints
+	 */
+	public synchronized void setCheckpointInterval(int interval) {
+		if(interval < 0) {
+			throw new IllegalArgumentException("Checkpoint interval cannot be negative.");
+		}
+
+		checkpointInterval = interval;
+	}
+
+	/**
+	 * Inserts item into the wrapped SearchTree and logs the insertion.
+	 *
+	 * @throws UncheckedIOException if the log cannot be written
+	 *
+	 * @param item the item to insert
+	 */
+	@Override
+	public synchronized void insert(T item) {
+		byte[] record = record(INSERT, item);
+
+		tree.insert(item);
+		append(record);
+	}
+
+	/**
+	 * Returns if item is stored in the wrapped SearchTree.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in the SearchTree
+	 */
+	@Override
+	public synchronized boolean has(T item) {
+		return tree.has(item);
+	}
+
+	/**
+	 * Removes item from the wrapped SearchTree and logs the removal, if item is
+	 * stored.
+	 *
+	 * @throws UncheckedIOException if the log cannot be written
+	 *
+	 * @param item the item to remove
+	 */
+	@Override
+	public synchronized void remove(T item) {
+		if(!tree.has(item)) {
+			return;
+		}
+
+		byte[] record = record(REMOVE, item);
+
+		tree.remove(item);
+		append(record);
+	}
+
+	/**
+	 * Returns the minimum item in the wrapped SearchTree.
+	 *
+	 * @return the minimum item or null if the SearchTree is empty
+	 */
+	@Override
+	public synchronized T getMinimum() {
+		return tree.getMinimum();
+	}
+
+	/**
+	 * Returns the maximum item in the wrapped SearchTree.
+	 *
+	 * @return the maximum item or null if the SearchTree is empty
+	 */
+	@Override
+	public synchronized T getMaximum() {
+		return tree.getMaximum();
+	}
+
+	/**
+	 * Returns the number of items stored in the wrapped SearchTree.
+	 *
+	 * @return the number of items in the SearchTree
+	 */
+	@Override
+	public synchronized int size() {
+		return tree.size();
+	}
+
+	/**
+	 * Returns an Iterator over the wrapped SearchTree. The Iterator is not
+	 * synchronized; updates must not be made while it is in use.
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return tree.iterator();
+	}
+
+	/**
+	 * Writes and forces every buffered log record to disk. Once sync() returns,
+	 * every earlier update survives a crash.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	public synchronized void sync() throws IOException {
+		if(pendingCount == 0) {
+			return;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+		long start = log.position();
+
+		try {
+			while(buffer.hasRemaining()) {
+				log.write(buffer);
+			}
+
+			log.force(false);
+		} catch(IOException e) {
+			// The records stay buffered, so a retry must overwrite any part that was written.
+			log.position(start);
+
+			throw e;
+		}
+
+		pending.reset();
+		pendingCount = 0;
+	}
+
+	/**
+	 * Writes every item to a new checkpoint in sorted order and empties the log.
+	 *
+	 * @throws IOException if the checkpoint or log cannot be written
+	 */
+	public synchronized void checkpoint() throws IOException {
+		sync();
+
+		Path temporary = directory.resolve(TEMPORARY_CHECKPOINT_FILE);
+
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+			output.writeInt(CHECKPOINT_MAGIC);
+			output.writeLong(sequence);
+			output.writeInt(tree.size());
+
+			for(T item: tree) {
+				byte[] bytes = codec.encode(item);
+
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+
+			output.flush();
+			channel.force(true);
+		}
+
+		// The rename must reach the disk before the log is emptied, or a crash could lose both.
+		Durability.replace(temporary, directory.resolve(CHECKPOINT_FILE));
+
+		// The records are now covered by the checkpoint, so the log can be emptied.
+		log.truncate(0);
+		log.position(0);
+		log.force(true);
+
+		updatesSinceCheckpoint = 0;
+	}
+
+	/**
+	 * Syncs the log and closes it. The wrapped SearchTree is left intact.
+	 *
+	 * @throws IOException if the log cannot be written or closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * Returns the log record for an update, numbered as the next update. The
+	 * record is built before the wrapped tree is modified, so an item that cannot
+	 * be encoded is never stored without being logged.
+	 */
+	private byte[] record(byte operation, T item) {
+		byte[] bytes = codec.encode(item);
+		ByteBuffer record = ByteBuffer.allocate(Long.BYTES + 1 + Integer.BYTES + bytes.length + Integer.BYTES);
+
+		record.putLong(sequence + 1);
+		record.put(operation);
+		record.putInt(bytes.length);
+		record.put(bytes);
+		record.putInt(checksum(sequence + 1, operation, bytes));
+
+		return record.array();
+	}
+
+	/**
+	 * Buffers a log record built by record(), committing the batch if it is full
+	 * and taking a checkpoint if one is due. A record that cannot be written stays
+	 * buffered and is written by the next sync().
+	 *
+	 * @throws UncheckedIOException if the log cannot be written
+	 */
+	private void append(byte[] record) {
+		pending.write(record, 0, record.length);
+		pendingCount++;
+		sequence++;
+
+		try {
+			if(pendingCount >= batchSize) {
+				sync();
+			}
+
+			if(checkpointInterval > 0 && ++updatesSinceCheckpoint >= checkpointInterval) {
+				checkpoint();
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Loads the checkpoint in file, if there is one, into tree.
+	 *
+	 * @return the sequence number of the last update included in the checkpoint,
+	 *         or 0 if there is no checkpoint
+	 */
+	private static <T> long loadCheckpoint(Path file, SearchTree<T> tree, Codec<T> codec) throws IOException {
+		if(!Files.exists(file)) {
+			return 0;
+		}
+
+		try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if(input.readInt() != CHECKPOINT_MAGIC) {
+				throw new IOException("File is not a checkpoint: " + file);
+			}
+
+			long sequence = input.readLong();
+			int count = input.readInt();
+			List<T> items = new ArrayList<>(count);
+
+			for(int index = 0; index < count; index++) {
+				byte[] bytes = new byte[input.readInt()];
+				input.readFully(bytes);
+
+				items.add(codec.decode(bytes));
+			}
+
+			// Inserting the sorted items middle first keeps unbalanced engines balanced.
+			insertMiddleFirst(tree, items, 0, items.size());
+
+			return sequence;
+		}
+	}
+
+	/**
+	 * Inserts the sorted items in [start, end) into tree, middle item first.
+	 */
+	private static <T> void insertMiddleFirst(SearchTree<T> tree, List<T> items, int start, int end) {
+		if(start >= end) {
+			return;
+		}
+
+		int middle = (start + end) >>> 1;
+
+		tree.insert(items.get(middle));
+		insertMiddleFirst(tree, items, start, middle);
+		insertMiddleFirst(tree, items, middle + 1, end);
+	}
+
+	/**
+	 * Applies a logged update to tree.
+	 */
+	private static <T> void apply(SearchTree<T> tree, byte operation, T item) {
+		if(operation == INSERT) {
+			tree.insert(item);
+		} else {
+			tree.remove(item);
+		}
+	}
+
+	/**
+	 * Returns the checksum stored with a log record.
+	 */
+	private static int checksum(long sequence, byte operation, byte[] bytes) {
+		CRC32 crc = new CRC32();
+
+		for(int shift = 56; shift >= 0; shift -= 8) {
+			crc.update((int) (sequence >>> shift));
+		}
+
+		crc.update(operation);
+		crc.update(bytes, 0, bytes.length);
+
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,275 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * FrozenLongSearchTree is an immutable, read-optimized snapshot of the keys in
+ * a LongBinarySearchTree, created by {@link LongBinarySearchTree#freeze()}. It
+ * is the primitive counterpart of FrozenSearchTree: the keys are stored
+ * unboxed in a long[] in Eytzinger order (the root at index 1 and the children
+ * of index k at 2k and 2k + 1), so a search touches a single array and compares
+ * primitives directly.
+ *
+ * Every search runs to the bottom of the tree, and each level only chooses
+ * whether to add 1 to the next index, which the JIT compiler can evaluate
+ * without a branch. The answer is recovered from the final index with a few bit
+ * operations. Every search is O(log(n)) and never allocates.
+ *
+ * Like LongBinarySearchTree, the lookup methods throw NoSuchElementException
+ * when there is no answer.
+ */
+public final class FrozenLongSearchTree {
+	private final long[] keys;	// Eytzinger order, starting at index 1; index 0 is unused.
+	private final int size;
+
+	/**
+	 * Creates a FrozenLongSearchTree storing sorted.
+	 *
+	 * @param sorted the keys in ascending order; the array is not retained
+	 */
+	FrozenLongSearchTree(long[] sorted) {
+		this.size = sorted.length;
+		this.keys = new long[size + 1];
+
+		layout(sorted, 0, 1);
+	}
+
+	/**
+	 * Returns if key is stored in this FrozenLongSearchTree.
+	 *
+	 * @param key the key to search for
+	 *
+	 * @return true iff key is stored in this FrozenLongSearchTree
+	 */
+	public boolean has(long key) {
+		int index = lastLeftTurn(descend(key, false));
+
+		return (index != 0 && keys[index] == key);
+	}
+
+	/**
+	 * Returns the greatest key less than or equal to key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the floor of key
+	 */
+	public long floor(long key) {
+		return keyAt(lastRightTurn(descend(key, true)));
+	}
+
+	/**
+	 * Returns the least key greater than or equal to key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the ceiling of key
+	 */
+	public long ceiling(long key) {
+		return keyAt(lastLeftTurn(descend(key, false)));
+	}
+
+	/**
+	 * Returns the greatest key strictly less than key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the greatest key below key
+	 */
+	public long lower(long key) {
+		return keyAt(lastRightTurn(descend(key, false)));
+	}
+
+	/**
+	 * Returns the least key strictly greater than key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the least key above key
+	 */
+	public long higher(long key) {
+		return keyAt(lastLeftTurn(descend(key, true)));
+	}
+
+	/**
+	 * Returns the minimum key in this FrozenLongSearchTree.
+	 *
+	 * @throws NoSuchElementException if this FrozenLongSearchTree is empty
+	 *
+	 * @return the minimum key
+	 */
+	public long getMinimum() {
+		return keyAt(first());
+	}
+
+	/**
+	 * Returns the maximum key in this FrozenLongSearchTree.
+	 *
+	 * @throws NoSuchElementException if this FrozenLongSearchTree is empty
+	 *
+	 * @return the maximum key
+	 */
+	public long getMaximum() {
+		int index = (size == 0 ? 0 : 1);
+
+		while(2 * index + 1 <= size) {
+			index = 2 * index + 1;
+		}
+
+		return keyAt(index);
+	}
+
+	/**
+	 * Returns the number of keys stored in this FrozenLongSearchTree.
+	 *
+	 * @return the number of keys in this FrozenLongSearchTree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns an Iterator over the keys in ascending order. The keys are returned
+	 * by {@link PrimitiveIterator.OfLong#nextLong()} without boxing.
+	 *
+	 * @return an ascending Iterator
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+			private int index = first();
+
+			@Override
+			public boolean hasNext() {
+				return (index != 0);
+			}
+
+			@Override
+			public long nextLong() {
+				long key = keyAt(index);
+
+				index = successor(index);
+
+				return key;
+			}
+		};
+	}
+
+	/**
+	 * Searches from the root to the bottom of the tree, moving to the right child
+	 * past every key less than key (or equal to key, if inclusive is true), and to
+	 * the left child otherwise. The bits of the returned index record the path
+	 * taken: after the leading 1 (the root), each 0 is a left turn and each 1 is a
+	 * right turn.
+	 *
+	 * @param key the key of interest
+	 * @param inclusive whether keys equal to key should be passed
+	 *
+	 * @return the index the search ended at
+	 */
+	private int descend(long key, boolean inclusive) {
+		int index = 1;
+
+		if(inclusive) {
+			while(index <= size) {
+				index = 2 * index + (keys[index] <= key ? 1 : 0);
+			}
+		} else {
+			while(index <= size) {
+				index = 2 * index + (keys[index] < key ? 1 : 0);
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the last node at which the path to index turned left, or 0 if the
+	 * path never turned left.
+	 */
+	private static int lastLeftTurn(int index) {
+		return (index >>> (Integer.numberOfTrailingZeros(~index) + 1));
+	}
+
+	/**
+	 * Returns the last node at which the path to index turned right, or 0 if the
+	 * path never turned right.
+	 */
+	private static int lastRightTurn(int index) {
+		return (index >>> (Integer.numberOfTrailingZeros(index) + 1));
+	}
+
+	/**
+	 * Returns the index of the minimum key, or 0 if this FrozenLongSearchTree is
+	 * empty.
+	 */
+	private int first() {
+		if(size == 0) {
+			return 0;
+		}
+
+		int index = 1;
+
+		while(2 * index <= size) {
+			index = 2 * index;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the index of the key that follows index in sorted order, or 0 if
+	 * index is the maximum.
+	 */
+	private int successor(int index) {
+		if(2 * index + 1 <= size) {
+			index = 2 * index + 1;
+
+			while(2 * index <= size) {
+				index = 2 * index;
+			}
+
+			return index;
+		}
+
+		// Climb past every ancestor reached from its right subtree.
+		return lastLeftTurn(index);
+	}
+
+	/**
+	 * Copies the sorted keys, starting at position, into the subtree rooted at
+	 * index by an in-order walk of the implicit tree.
+	 *
+	 * @return the position of the first sorted key that was not copied
+	 */
+	private int layout(long[] sorted, int position, int index) {
+		if(index <= size) {
+			position = layout(sorted, position, 2 * index);
+			keys[index] = sorted[position++];
+			position = layout(sorted, position, 2 * index + 1);
+		}
+
+		return position;
+	}
+
+	/**
+	 * Returns the key at index.
+	 *
+	 * @throws NoSuchElementException if index is 0
+	 */
+	private long keyAt(int index) {
+		if(index == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return keys[index];
+	}
+}
@@ -0,0 +1,277 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * FrozenSearchTree is an immutable, read-optimized snapshot of the items in a
+ * BinarySearchTree, created by {@link BinarySearchTree#freeze()}. Later changes
+ * to the source tree are not reflected in the snapshot, and the snapshot does
+ * not keep the source tree reachable.
+ *
+ * The items are stored in a single array in Eytzinger order: the array is the
+ * breadth-first layout of a complete binary search tree, with the root at
+ * index 1 and the children of index k at 2k and 2k + 1. There are no nodes to
+ * chase, so a search is a sequence of array reads whose first few levels share
+ * a handful of cache lines, and the two children of every element sit next to
+ * each other.
+ *
+ * Searches always run to the bottom of the tree instead of stopping at an equal
+ * item, so the loop has a fixed trip count and no data-dependent exit; the only
+ * choice made per level is whether to add 1 to the next index. The position of
+ * the answer is then recovered from the final index with a few bit operations.
+ * Every search is O(log(n)) and never allocates.
+ *
+ * Duplicate items are kept, like in BinarySearchTree. Items are ordered by the
+ * source tree's Comparator, if it has one, or by their Comparable
+ * implementation otherwise.
+ */
+public final class FrozenSearchTree<T> implements Iterable<T> {
+	private final Object[] items;	// Eytzinger order, starting at index 1; index 0 is unused.
+	private final int size;
+	private final Comparator<? super T> order;
+
+	/**
+	 * Creates a FrozenSearchTree storing sorted.
+	 *
+	 * @param sorted the items in sorted order; the array is not retained
+	 * @param order the resolved ordering the items are sorted by
+	 */
+	FrozenSearchTree(Object[] sorted, Comparator<? super T> order) {
+		this.size = sorted.length;
+		this.items = new Object[size + 1];
+		this.order = order;
+
+		layout(sorted, 0, 1);
+	}
+
+	/**
+	 * Returns if item is stored in this FrozenSearchTree.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in this FrozenSearchTree
+	 */
+	public boolean has(T item) {
+		int index = lastLeftTurn(descend(item, 0));
+
+		return (index != 0 && order.compare(itemAt(index), item) == 0);
+	}
+
+	/**
+	 * Returns the greatest item in this FrozenSearchTree that is less than or equal
+	 * to item.
+	 *
+	 * @param item the upper bound (inclusive)
+	 *
+	 * @return the greatest item at or below item, or null if there is none
+	 */
+	public T floor(T item) {
+		return itemAt(lastRightTurn(descend(item, 1)));
+	}
+
+	/**
+	 * Returns the least item in this FrozenSearchTree that is greater than or equal
+	 * to item.
+	 *
+	 * @param item the lower bound (inclusive)
+	 *
+	 * @return the least item at or above item, or null if there is none
+	 */
+	public T ceiling(T item) {
+		return itemAt(lastLeftTurn(descend(item, 0)));
+	}
+
+	/**
+	 * Returns the greatest item in this FrozenSearchTree that is strictly less than
+	 * item.
+	 *
+	 * @param item the upper bound (exclusive)
+	 *
+	 * @return the greatest item below item, or null if there is none
+	 */
+	public T lower(T item) {
+		return itemAt(lastRightTurn(descend(item, 0)));
+	}
+
+	/**
+	 * Returns the least item in this FrozenSearchTree that is strictly greater than
+	 * item.
+	 *
+	 * @param item the lower bound (exclusive)
+	 *
+	 * @return the least item above item, or null if there is none
+	 */
+	public T higher(T item) {
+		return itemAt(lastLeftTurn(descend(item, 1)));
+	}
+
+	/**
+	 * Returns the minimum item in this FrozenSearchTree.
+	 *
+	 * @return the item with the minimum value, or null if this FrozenSearchTree is
+	 *         empty
+	 */
+	public T getMinimum() {
+		return itemAt(first());
+	}
+
+	/**
+	 * Returns the maximum item in this FrozenSearchTree.
+	 *
+	 * @return the item with the maximum value, or null if this FrozenSearchTree is
+	 *         empty
+	 */
+	public T getMaximum() {
+		int index = (size == 0 ? 0 : 1);
+
+		while(2 * index + 1 <= size) {
+			index = 2 * index + 1;
+		}
+
+		return itemAt(index);
+	}
+
+	/**
+	 * Returns the number of items stored in this FrozenSearchTree.
+	 *
+	 * @return the number of items in this FrozenSearchTree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns an Iterator over the items in this FrozenSearchTree in ascending
+	 * order. The Iterator does not support remove().
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private int index = first();
+
+			@Override
+			public boolean hasNext() {
+				return (index != 0);
+			}
+
+			@Override
+			public T next() {
+				if(index == 0) {
+					throw new NoSuchElementException();
+				}
+
+				T item = itemAt(index);
+
+				index = successor(index);
+
+				return item;
+			}
+		};
+	}
+
+	/**
+	 * Searches from the root to the bottom of the tree, moving to the right child
+	 * past every item that compares below bias against item, and to the left child
+	 * otherwise. A bias of 0 passes the items less than item and a bias of 1 passes
+	 * the items less than or equal to item.
+	 *
+	 * The returned index is past the end of the array, but its bits record the
+	 * path taken: after the leading 1 (the root), each 0 is a left turn and each 1
+	 * is a right turn.
+	 *
+	 * @param item the item of interest
+	 * @param bias 0 or 1
+	 *
+	 * @return the index the search ended at
+	 */
+	private int descend(T item, int bias) {
+		int index = 1;
+
+		while(index <= size) {
+			index = 2 * index + (order.compare(itemAt(index), item) < bias ? 1 : 0);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the last node at which the path to index turned left, which is the
+	 * least item that was not passed, or 0 if the path never turned left.
+	 */
+	private static int lastLeftTurn(int index) {
+		return (index >>> (Integer.numberOfTrailingZeros(~index) + 1));
+	}
+
+	/**
+	 * Returns the last node at which the path to index turned right, which is the
+	 * greatest item that was passed, or 0 if the path never turned right.
+	 */
+	private static int lastRightTurn(int index) {
+		return (index >>> (Integer.numberOfTrailingZeros(index) + 1));
+	}
+
+	/**
+	 * Returns the index of the minimum item, or 0 if this FrozenSearchTree is
+	 * empty.
+	 */
+	private int first() {
+		if(size == 0) {
+			return 0;
+		}
+
+		int index = 1;
+
+		while(2 * index <= size) {
+			index = 2 * index;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the index of the item that follows index in sorted order, or 0 if
+	 * index is the maximum.
+	 */
+	private int successor(int index) {
+		if(2 * index + 1 <= size) {
+			index = 2 * index + 1;
+
+			while(2 * index <= size) {
+				index = 2 * index;
+			}
+
+			return index;
+		}
+
+		// Climb past every ancestor reached from its right subtree.
+		return lastLeftTurn(index);
+	}
+
+	/**
+	 * Copies the sorted items, starting at position, into the subtree rooted at
+	 * index by an in-order walk of the implicit tree.
+	 *
+	 * @return the position of the first sorted item that was not copied
+	 */
+	private int layout(Object[] sorted, int position, int index) {
+		if(index <= size) {
+			position = layout(sorted, position, 2 * index);
+			items[index] = sorted[position++];
+			position = layout(sorted, position, 2 * index + 1);
+		}
+
+		return position;
+	}
+
+	/**
+	 * Returns the item at index, or null if index is 0.
+	 */
+	@SuppressWarnings("unchecked")
+	private T itemAt(int index) {
+		return (T) items[index];
+	}
+}
@@ -0,0 +1,63 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Objects;
+
+/**
+ * Interval is the closed interval [start, end] stored in an IntervalTree. An
+ * Interval is immutable; whether start comes before end is checked by the
+ * IntervalTree, since only it knows how the endpoints are ordered.
+ */
+public final class Interval<K> {
+	private final K start;
+	private final K end;
+
+	/**
+	 * Creates the interval [start, end].
+	 *
+	 * @param start the first point in the interval
+	 * @param end the last point in the interval
+	 */
+	public Interval(K start, K end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Returns the first point in this Interval.
+	 *
+	 * @return the start of this Interval
+	 */
+	public K getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the last point in this Interval.
+	 *
+	 * @return the end of this Interval
+	 */
+	public K getEnd() {
+		return end;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof Interval)) {
+			return false;
+		}
+
+		Interval<?> interval = (Interval<?>) other;
+
+		return (Objects.equals(start, interval.start) && Objects.equals(end, interval.end));
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * Objects.hashCode(start) + Objects.hashCode(end));
+	}
+
+	@Override
+	public String toString() {
+		return "[" + start + ", " + end + "]";
+	}
+}
@@ -0,0 +1,278 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import codes.c1moore.refresher.common.Comparison;
+
+/**
+ * IntervalTree is an AVLTree of closed Intervals that answers overlap queries.
+ * Intervals are ordered by their start, then by their end, and every node is
+ * augmented with the maximum end of any interval in its subtree. The maximum
+ * is recomputed whenever the node's children change (including during
+ * rotations), so it costs only O(1) extra per updated node.
+ *
+ * An overlap query walks the tree in order, but skips every subtree whose
+ * maximum end is before the query, and stops at the first interval that
+ * starts after the query. Only subtrees that may contain a result are visited,
+ * so reporting k intervals costs O(min(n, (k + 1) log(n))), and the results
+ * are streamed from an Iterator rather than collected up front.
+ *
+ * Duplicate intervals are stored, like in BinarySearchTree. The endpoints are
+ * ordered by a Comparator, if one is specified, or by their Comparable
+ * implementation otherwise.
+ */
+public class IntervalTree<K> extends AVLTree<Interval<K>> {
+	private final Comparator<K> keyComparator;
+
+	/**
+	 * Creates an empty IntervalTree.
+	 */
+	public IntervalTree() {
+		this(null);
+	}
+
+	/**
+	 * Creates an empty IntervalTree that will use comparator to compare endpoints.
+	 *
+	 * @param comparator a Comparator that should be used to compare endpoints
+	 */
+	public IntervalTree(Comparator<K> comparator) {
+		super(orderByStartThenEnd(Comparison.resolve(comparator)));
+
+		keyComparator = Comparison.resolve(comparator);
+	}
+
+	/**
+	 * Inserts interval into this IntervalTree.
+	 *
+	 * @throws IllegalArgumentException if interval ends before it starts
+	 *
+	 * @param interval the interval to insert
+	 */
+	@Override
+	public void insert(Interval<K> interval) {
+		if(keyComparator.compare(interval.getStart(), interval.getEnd()) > 0) {
+			throw new IllegalArgumentException("Interval cannot end before it starts.");
+		}
+
+		super.insert(interval);
+	}
+
+	/**
+	 * Inserts the interval [start, end] into this IntervalTree.
+	 *
+	 * @throws IllegalArgumentException if end is before start
+	 *
+	 * @param start the first point in the interval
+	 * @param end the last point in the interval
+	 */
+	public void insert(K start, K end) {
+		insert(new Interval<>(start, end));
+	}
+
+	/**
+	 * Removes a single copy of the interval [start, end] from this IntervalTree, if
+	 * it is stored.
+	 *
+	 * @param start the first point in the interval
+	 * @param end the last point in the interval
+	 */
+	public void remove(K start, K end) {
+		remove(new Interval<>(start, end));
+	}
+
+	/**
+	 * Returns a lazy view of the intervals that contain point, ordered by start.
+	 *
+	 * @param point the point of interest
+	 *
+	 * @return the intervals that contain point
+	 */
+	public Iterable<Interval<K>> overlapping(K point) {
+		return overlapping(point, point);
+	}
+
+	/**
+	 * Returns a lazy view of the intervals that overlap [lo, hi], ordered by
+	 * start. An interval overlaps [lo, hi] if it starts at or before hi and ends
+	 * at or after lo.
+	 *
+	 * @throws IllegalArgumentException if hi is before lo
+	 *
+	 * @param lo the first point of the query
+	 * @param hi the last point of the query
+	 *
+	 * @return the intervals that overlap [lo, hi]
+	 */
+	public Iterable<Interval<K>> overlapping(K lo, K hi) {
+		if(keyComparator.compare(lo, hi) > 0) {
+			throw new IllegalArgumentException("Query cannot end before it starts.");
+		}
+
+		return () -> new OverlapIterator(lo, hi);
+	}
+
+	/**
+	 * Returns the maximum end of any interval in this IntervalTree.
+	 *
+	 * @return the maximum end or null if this IntervalTree is empty
+	 */
+	public K getMaximumEnd() {
+		return (head == null ? null : maxEnd(head));
+	}
+
+	/**
+	 * Creates a node that also records the maximum end in its subtree.
+	 *
+	 * @param interval the interval to store
+	 *
+	 * @return the new node
+	 */
+	@Override
+	protected BinaryTreeNode<Interval<K>> createNode(Interval<K> interval) {
+		IntervalNode<K> node = new IntervalNode<>();
+		node.item = interval;
+		node.height = 1;
+		node.size = 1;
+		node.count = 1;
+		node.maxEnd = interval.getEnd();
+
+		return node;
+	}
+
+	/**
+	 * Recomputes the information cached in node, including the maximum end in its
+	 * subtree.
+	 *
+	 * @param node the node to update
+	 */
+	@Override
+	protected void update(BinaryTreeNode<Interval<K>> node) {
+		super.update(node);
+
+		K maxEnd = node.item.getEnd();
+
+		if(node.leftChild != null && keyComparator.compare(maxEnd(node.leftChild), maxEnd) > 0) {
+			maxEnd = maxEnd(node.leftChild);
+		}
+
+		if(node.rightChild != null && keyComparator.compare(maxEnd(node.rightChild), maxEnd) > 0) {
+			maxEnd = maxEnd(node.rightChild);
+		}
+
+		((IntervalNode<K>) node).maxEnd = maxEnd;
+	}
+
+	/**
+	 * Returns the maximum end in the subtree rooted at node.
+	 */
+	private K maxEnd(BinaryTreeNode<Interval<K>> node) {
+		return ((IntervalNode<K>) node).maxEnd;
+	}
+
+	/**
+	 * Returns a Comparator that orders intervals by their start, then by their
+	 * end, using keyComparator.
+	 */
+	private static <K> Comparator<Interval<K>> orderByStartThenEnd(Comparator<K> keyComparator) {
+		return (lhs, rhs) -> {
+			int comparison = keyComparator.compare(lhs.getStart(), rhs.getStart());
+
+			return (comparison != 0 ? comparison : keyComparator.compare(lhs.getEnd(), rhs.getEnd()));
+		};
+	}
+
+	/**
+	 * IntervalNode is a BinaryTreeNode that records the maximum end of the
+	 * intervals in its subtree.
+	 */
+	private static class IntervalNode<K> extends BinaryTreeNode<Interval<K>> {
+		K maxEnd;
+	}
+
+	/**
+	 * OverlapIterator performs an in-order walk with an explicit stack, pruning
+	 * subtrees that cannot contain an overlapping interval. The stack holds the
+	 * nodes still to be visited, each below the pending nodes of its left subtree.
+	 */
+	private class OverlapIterator implements Iterator<Interval<K>> {
+		private final K lo;
+		private final K hi;
+		private final Deque<BinaryTreeNode<Interval<K>>> stack = new ArrayDeque<>();
+		private final int expectedModificationCount;
+
+		private Interval<K> next;
+
+		OverlapIterator(K lo, K hi) {
+			this.lo = lo;
+			this.hi = hi;
+
+			expectedModificationCount = modificationCount;
+
+			pushLeftSpine(head);
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (next != null);
+		}
+
+		@Override
+		public Interval<K> next() {
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			Interval<K> interval = next;
+
+			advance();
+
+			return interval;
+		}
+
+		/**
+		 * Finds the next overlapping interval, or sets next to null if there is none.
+		 */
+		private void advance() {
+			next = null;
+
+			while(!stack.isEmpty()) {
+				BinaryTreeNode<Interval<K>> node = stack.pop();
+
+				// Every later interval starts at or after this one, so none can overlap.
+				if(keyComparator.compare(node.item.getStart(), hi) > 0) {
+					stack.clear();
+					return;
+				}
+
+				pushLeftSpine(node.rightChild);
+
+				if(keyComparator.compare(node.item.getEnd(), lo) >= 0) {
+					next = node.item;
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Pushes node and its chain of left children, stopping at the first subtree
+		 * that ends entirely before lo.
+		 */
+		private void pushLeftSpine(BinaryTreeNode<Interval<K>> node) {
+			while(node != null && keyComparator.compare(maxEnd(node), lo) >= 0) {
+				stack.push(node);
+				node = node.leftChild;
+			}
+		}
+	}
+}
@@ -0,0 +1,699 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * LongBinarySearchTree is an ordered set of primitive longs. Keys are stored
+ * unboxed in a long[] and compared directly, so unlike a
+ * BinarySearchTree&lt;Long&gt; there is no boxing on insertion and no
+ * Comparator or Comparable dispatch on every step of a search.
+ *
+ * Like PooledBinarySearchTree, nodes are slots in parallel arrays (keys,
+ * children, and heights) and removed slots are reused through a free list. The
+ * tree is kept AVL balanced, so insert(), has(), remove(), floor(), and
+ * ceiling() are O(log(n)). The lookup methods never allocate.
+ *
+ * LongBinarySearchTree is a set: inserting a key that is already stored has no
+ * effect.
+ */
+public class LongBinarySearchTree {
+	/**
+	 * The number of slots allocated unless a capacity is passed to the
+	 * constructor.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	static final int NIL = -1;	// The index used for a missing child.
+
+	/*
+	 * An AVL tree with n nodes is at most about 1.44 * log2(n) tall, so 64 levels
+	 * covers every tree that fits in an int-indexed pool.
+	 */
+	private static final int MAXIMUM_HEIGHT = 64;
+
+	private long[] keys;
+	private int[] left;
+	private int[] right;
+	private int[] heights;
+	private Object[] values;	// The values of a LongOrderedMap, parallel to keys; null for a plain set.
+
+	private int root;
+	private int freeHead;		// The first slot on the free list, or NIL.
+	private int nextUnused;		// The first slot that has never been used.
+	private int size;
+	private int modificationCount;
+
+	private boolean changed;	// Set by the recursive insert and remove if the tree changed.
+	private int lastSlot;	// Set by the recursive insert to the slot storing the key.
+
+	/**
+	 * Creates an empty LongBinarySearchTree.
+	 */
+	public LongBinarySearchTree() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty LongBinarySearchTree with room for capacity keys before the
+	 * pool must grow.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 *
+	 * @param capacity the initial number of slots in the pool
+	 */
+	public LongBinarySearchTree(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * Creates an empty LongBinarySearchTree with room for capacity keys before the
+	 * pool must grow. If storeValues is true, every slot also holds a value that
+	 * moves with its key, for use by LongOrderedMap.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 *
+	 * @param capacity the initial number of slots in the pool
+	 * @param storeValues true iff a value should be stored with each key
+	 */
+	LongBinarySearchTree(int capacity, boolean storeValues) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1.");
+		}
+
+		keys = new long[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		heights = new int[capacity];
+		values = (storeValues ? new Object[capacity] : null);
+
+		root = NIL;
+		freeHead = NIL;
+		nextUnused = 0;
+		size = 0;
+	}
+
+	/**
+	 * Creates a LongBinarySearchTree containing the keys in data.
+	 *
+	 * @param data the keys to insert
+	 */
+	public LongBinarySearchTree(long[] data) {
+		this(Math.max(1, data.length));
+
+		for(long key: data) {
+			insert(key);
+		}
+	}
+
+	/**
+	 * Inserts key into this LongBinarySearchTree, if it is not already stored.
+	 *
+	 * @param key the key to insert
+	 */
+	public void insert(long key) {
+		changed = false;
+		root = insert(root, key);
+
+		if(changed) {
+			size++;
+			modificationCount++;
+		}
+	}
+
+	/**
+	 * Returns if key is stored in this LongBinarySearchTree.
+	 *
+	 * @param key the key to search for
+	 *
+	 * @return true iff key is stored in this LongBinarySearchTree
+	 */
+	public boolean has(long key) {
+		return (find(key) != NIL);
+	}
+
+	/**
+	 * Removes key from this LongBinarySearchTree, if it is stored.
+	 *
+	 * @param key the key to remove
+	 */
+	public void remove(long key) {
+		changed = false;
+		root = remove(root, key);
+
+		if(changed) {
+			size--;
+			modificationCount++;
+		}
+	}
+
+	/**
+	 * Returns the greatest key less than or equal to key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the floor of key
+	 */
+	public long floor(long key) {
+		return keyOf(floorSlot(key));
+	}
+
+	/**
+	 * Returns the least key greater than or equal to key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the ceiling of key
+	 */
+	public long ceiling(long key) {
+		return keyOf(ceilingSlot(key));
+	}
+
+	/**
+	 * Returns the slot storing the greatest key less than or equal to key.
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the floor's slot, or NIL if there is no such key
+	 */
+	int floorSlot(long key) {
+		int node = root;
+		int floor = NIL;
+
+		while(node != NIL) {
+			long nodeKey = keys[node];
+
+			if(key == nodeKey) {
+				return node;
+			}
+
+			if(nodeKey < key) {
+				floor = node;
+				node = right[node];
+			} else {
+				node = left[node];
+			}
+		}
+
+		return floor;
+	}
+
+	/**
+	 * Returns the slot storing the least key greater than or equal to key.
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the ceiling's slot, or NIL if there is no such key
+	 */
+	int ceilingSlot(long key) {
+		int node = root;
+		int ceiling = NIL;
+
+		while(node != NIL) {
+			long nodeKey = keys[node];
+
+			if(key == nodeKey) {
+				return node;
+			}
+
+			if(nodeKey > key) {
+				ceiling = node;
+				node = left[node];
+			} else {
+				node = right[node];
+			}
+		}
+
+		return ceiling;
+	}
+
+	/**
+	 * Returns the minimum key in this LongBinarySearchTree.
+	 *
+	 * @throws NoSuchElementException if this LongBinarySearchTree is empty
+	 *
+	 * @return the minimum key
+	 */
+	public long getMinimum() {
+		int node = root;
+
+		while(node != NIL && left[node] != NIL) {
+			node = left[node];
+		}
+
+		return keyOf(node);
+	}
+
+	/**
+	 * Returns the maximum key in this LongBinarySearchTree.
+	 *
+	 * @throws NoSuchElementException if this LongBinarySearchTree is empty
+	 *
+	 * @return the maximum key
+	 */
+	public long getMaximum() {
+		int node = root;
+
+		while(node != NIL && right[node] != NIL) {
+			node = right[node];
+		}
+
+		return keyOf(node);
+	}
+
+	/**
+	 * Returns the number of keys stored in this LongBinarySearchTree.
+	 *
+	 * @return the number of keys in this LongBinarySearchTree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the height of this LongBinarySearchTree. An empty tree has a height
+	 * of 0.
+	 *
+	 * @return the height of this LongBinarySearchTree
+	 */
+	public int getHeight() {
+		return height(root);
+	}
+
+	/**
+	 * Returns an Iterator over the keys in ascending order. The keys are returned
+	 * by {@link PrimitiveIterator.OfLong#nextLong()} without boxing.
+	 *
+	 * @return an ascending Iterator
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new KeyIterator();
+	}
+
+	/**
+	 * Returns an immutable, read-optimized snapshot of the keys in this
+	 * LongBinarySearchTree, laid out in a flat array for fast searches. Creating
+	 * the snapshot takes O(n); later changes to this LongBinarySearchTree do not
+	 * affect it.
+	 *
+	 * @return a FrozenLongSearchTree storing every key in this LongBinarySearchTree
+	 */
+	public FrozenLongSearchTree freeze() {
+		long[] sorted = new long[size];
+		PrimitiveIterator.OfLong iterator = iterator();
+
+		for(int index = 0; index < size; index++) {
+			sorted[index] = iterator.nextLong();
+		}
+
+		return new FrozenLongSearchTree(sorted);
+	}
+
+	/**
+	 * Returns the slot storing key.
+	 *
+	 * @param key the key to search for
+	 *
+	 * @return the key's slot, or NIL if key is not stored
+	 */
+	int find(long key) {
+		int node = root;
+
+		while(node != NIL) {
+			long nodeKey = keys[node];
+
+			if(key == nodeKey) {
+				return node;
+			}
+
+			node = (key < nodeKey ? left[node] : right[node]);
+		}
+
+		return NIL;
+	}
+
+	/**
+	 * Inserts key, if it is not already stored, and returns the slot storing it.
+	 * Slots only change on removal, when the successor's key and value move into
+	 * the removed key's slot.
+	 *
+	 * @param key the key to insert
+	 *
+	 * @return the key's slot
+	 */
+	int insertSlot(long key) {
+		insert(key);
+
+		return lastSlot;
+	}
+
+	/**
+	 * Returns the value stored in slot.
+	 */
+	Object valueOf(int slot) {
+		return values[slot];
+	}
+
+	/**
+	 * Stores value in slot.
+	 */
+	void setValue(int slot, Object value) {
+		values[slot] = value;
+	}
+
+	/**
+	 * Calls action with the slot of every key that is greater than or equal to lo
+	 * and, if bounded is true, less than hi, in ascending order of the keys. The
+	 * subtrees that are entirely out of range are skipped.
+	 *
+	 * @throws ConcurrentModificationException if action modifies the tree
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (exclusive); only used if bounded is true
+	 * @param bounded true iff the walk should stop at hi
+	 * @param action the action to call with each slot
+	 */
+	void forEachSlot(long lo, long hi, boolean bounded, IntConsumer action) {
+		int[] stack = new int[MAXIMUM_HEIGHT];
+		int depth = 0;
+		int node = root;
+		int expectedModificationCount = modificationCount;
+
+		while(true) {
+			// Push the path to the least key in range, skipping keys below lo.
+			while(node != NIL) {
+				if(keys[node] >= lo) {
+					stack[depth++] = node;
+					node = left[node];
+				} else {
+					node = right[node];
+				}
+			}
+
+			if(depth == 0) {
+				return;
+			}
+
+			node = stack[--depth];
+
+			if(bounded && keys[node] >= hi) {
+				return;
+			}
+
+			action.accept(node);
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			node = right[node];
+		}
+	}
+
+	/**
+	 * Inserts key into the subtree rooted at node.
+	 *
+	 * @param node the root of the subtree
+	 * @param key the key to insert
+	 *
+	 * @return the new root of the subtree
+	 */
+	private int insert(int node, long key) {
+		if(node == NIL) {
+			changed = true;
+			lastSlot = allocate(key);
+
+			return lastSlot;
+		}
+
+		long nodeKey = keys[node];
+
+		// The child is computed before it is stored, since allocating a slot may
+		// replace the arrays.
+		if(key < nodeKey) {
+			int child = insert(left[node], key);
+			left[node] = child;
+		} else if(key > nodeKey) {
+			int child = insert(right[node], key);
+			right[node] = child;
+		} else {
+			lastSlot = node;
+
+			return node;
+		}
+
+		return rebalance(node);
+	}
+
+	/**
+	 * Removes key from the subtree rooted at node.
+	 *
+	 * @param node the root of the subtree
+	 * @param key the key to remove
+	 *
+	 * @return the new root of the subtree
+	 */
+	private int remove(int node, long key) {
+		if(node == NIL) {
+			return NIL;
+		}
+
+		long nodeKey = keys[node];
+
+		if(key < nodeKey) {
+			left[node] = remove(left[node], key);
+		} else if(key > nodeKey) {
+			right[node] = remove(right[node], key);
+		} else if(left[node] == NIL || right[node] == NIL) {
+			int child = (left[node] == NIL ? right[node] : left[node]);
+
+			release(node);
+			changed = true;
+
+			return child;
+		} else {
+			// Take over the successor's key and remove the successor from the right subtree.
+			int successor = right[node];
+
+			while(left[successor] != NIL) {
+				successor = left[successor];
+			}
+
+			keys[node] = keys[successor];
+
+			if(values != null) {
+				values[node] = values[successor];
+			}
+
+			right[node] = remove(right[node], keys[successor]);
+		}
+
+		return rebalance(node);
+	}
+
+	/**
+	 * Updates node's height and rotates if its subtrees' heights differ by more
+	 * than 1.
+	 *
+	 * @param node the root of the subtree
+	 *
+	 * @return the new root of the subtree
+	 */
+	private int rebalance(int node) {
+		update(node);
+
+		int balance = height(left[node]) - height(right[node]);
+
+		if(balance > 1) {
+			if(height(left[left[node]]) < height(right[left[node]])) {
+				left[node] = rotateLeft(left[node]);
+			}
+
+			return rotateRight(node);
+		}
+
+		if(balance < -1) {
+			if(height(right[right[node]]) < height(left[right[node]])) {
+				right[node] = rotateRight(right[node]);
+			}
+
+			return rotateLeft(node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Rotates node's right child into node's position.
+	 *
+	 * @return the new root of the subtree
+	 */
+	private int rotateLeft(int node) {
+		int pivot = right[node];
+
+		right[node] = left[pivot];
+		left[pivot] = node;
+
+		update(node);
+		update(pivot);
+
+		return pivot;
+	}
+
+	/**
+	 * Rotates node's left child into node's position.
+	 *
+	 * @return the new root of the subtree
+	 */
+	private int rotateRight(int node) {
+		int pivot = left[node];
+
+		left[node] = right[pivot];
+		right[pivot] = node;
+
+		update(node);
+		update(pivot);
+
+		return pivot;
+	}
+
+	/**
+	 * Recomputes node's height from its children.
+	 */
+	private void update(int node) {
+		heights[node] = 1 + Math.max(height(left[node]), height(right[node]));
+	}
+
+	/**
+	 * Returns the height of the subtree rooted at node.
+	 */
+	private int height(int node) {
+		return (node == NIL ? 0 : heights[node]);
+	}
+
+	/**
+	 * Returns the key stored in node.
+	 *
+	 * @throws NoSuchElementException if node is NIL
+	 */
+	long keyOf(int node) {
+		if(node == NIL) {
+			throw new NoSuchElementException();
+		}
+
+		return keys[node];
+	}
+
+	/**
+	 * Returns a leaf slot storing key, taking it from the free list if possible and
+	 * growing the pool if it is full.
+	 *
+	 * @param key the key to store
+	 *
+	 * @return the slot's index
+	 */
+	private int allocate(long key) {
+		int slot;
+
+		if(freeHead != NIL) {
+			slot = freeHead;
+			freeHead = left[slot];
+		} else {
+			if(nextUnused == keys.length) {
+				grow();
+			}
+
+			slot = nextUnused++;
+		}
+
+		keys[slot] = key;
+		left[slot] = NIL;
+		right[slot] = NIL;
+		heights[slot] = 1;
+
+		return slot;
+	}
+
+	/**
+	 * Pushes slot onto the free list.
+	 *
+	 * @param slot the slot to free
+	 */
+	private void release(int slot) {
+		if(values != null) {
+			values[slot] = null;
+		}
+
+		left[slot] = freeHead;
+		freeHead = slot;
+	}
+
+	/**
+	 * Grows every array in the pool by half.
+	 */
+	private void grow() {
+		int capacity = keys.length + Math.max(1, keys.length >> 1);
+
+		keys = Arrays.copyOf(keys, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		heights = Arrays.copyOf(heights, capacity);
+
+		if(values != null) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	/**
+	 * KeyIterator performs an in-order walk with a fixed-size stack of slots, since
+	 * slots do not record their parents. It fails fast if the tree is modified.
+	 */
+	private class KeyIterator implements PrimitiveIterator.OfLong {
+		private final int[] stack = new int[MAXIMUM_HEIGHT];
+		private int depth;
+		private final int expectedModificationCount;
+
+		KeyIterator() {
+			depth = 0;
+			expectedModificationCount = modificationCount;
+
+			pushLeftSpine(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (depth > 0);
+		}
+
+		@Override
+		public long nextLong() {
+			if(depth == 0) {
+				throw new NoSuchElementException();
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			int node = stack[--depth];
+
+			pushLeftSpine(right[node]);
+
+			return keys[node];
+		}
+
+		private void pushLeftSpine(int node) {
+			while(node != NIL) {
+				stack[depth++] = node;
+				node = left[node];
+			}
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * LongOrderedMap maps primitive long keys to values and keeps its entries
+ * sorted by key. It is the map counterpart of LongBinarySearchTree and is built
+ * on one: the keys stay unboxed in the tree's long[] and each value is stored
+ * in a parallel array at its key's slot, so there is no boxing, no entry
+ * object, and no Comparator dispatch. put(), get(), remove(), and the
+ * navigation methods are O(log(n)).
+ *
+ * Like LongBinarySearchTree, the methods that return a key throw
+ * NoSuchElementException when there is no answer. The methods that return a
+ * value return null when the key is not mapped, like a java.util.Map.
+ */
+public class LongOrderedMap<V> {
+	/**
+	 * EntryConsumer receives the entries of a LongOrderedMap without boxing the
+	 * keys.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+		/**
+		 * Receives a single entry.
+		 *
+		 * @param key the entry's key
+		 * @param value the entry's value
+		 */
+		void accept(long key, V value);
+	}
+
+	private final LongBinarySearchTree tree;
+
+	/**
+	 * Creates an empty LongOrderedMap.
+	 */
+	public LongOrderedMap() {
+		this(LongBinarySearchTree.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty LongOrderedMap with room for capacity entries before its
+	 * pool must grow.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 *
+	 * @param capacity the initial number of slots in the pool
+	 */
+	public LongOrderedMap(int capacity) {
+		tree = new LongBinarySearchTree(capacity, true);
+	}
+
+	/**
+	 * Maps key to value, replacing the value key was mapped to, if any.
+	 *
+	 * @param key the key
+	 * @param value the value to map key to
+	 *
+	 * @return the previous value of key, or null if key was not mapped
+	 */
+	public V put(long key, V value) {
+		int slot = tree.insertSlot(key);
+		V previous = valueOf(slot);
+
+		tree.setValue(slot, value);
+
+		return previous;
+	}
+
+	/**
+	 * Returns the value key is mapped to.
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return the value of key, or null if key is not mapped
+	 */
+	public V get(long key) {
+		int slot = tree.find(key);
+
+		return (slot == LongBinarySearchTree.NIL ? null : valueOf(slot));
+	}
+
+	/**
+	 * Returns whether key is mapped to a value.
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return true iff key is mapped
+	 */
+	public boolean containsKey(long key) {
+		return tree.has(key);
+	}
+
+	/**
+	 * Removes the mapping of key, if there is one.
+	 *
+	 * @param key the key to remove
+	 *
+	 * @return the value key was mapped to, or null if key was not mapped
+	 */
+	public V remove(long key) {
+		int slot = tree.find(key);
+
+		if(slot == LongBinarySearchTree.NIL) {
+			return null;
+		}
+
+		V value = valueOf(slot);
+
+		tree.remove(key);
+
+		return value;
+	}
+
+	/**
+	 * Returns the number of keys in this LongOrderedMap.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return tree.size();
+	}
+
+	/**
+	 * Returns the least key in this LongOrderedMap.
+	 *
+	 * @throws NoSuchElementException if this LongOrderedMap is empty
+	 *
+	 * @return the first key
+	 */
+	public long firstKey() {
+		return tree.getMinimum();
+	}
+
+	/**
+	 * Returns the greatest key in this LongOrderedMap.
+	 *
+	 * @throws NoSuchElementException if this LongOrderedMap is empty
+	 *
+	 * @return the last key
+	 */
+	public long lastKey() {
+		return tree.getMaximum();
+	}
+
+	/**
+	 * Returns the greatest key less than or equal to key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the floor of key
+	 */
+	public long floorKey(long key) {
+		return tree.floor(key);
+	}
+
+	/**
+	 * Returns the least key greater than or equal to key.
+	 *
+	 * @throws NoSuchElementException if there is no such key
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the ceiling of key
+	 */
+	public long ceilingKey(long key) {
+		return tree.ceiling(key);
+	}
+
+	/**
+	 * Returns the value of the greatest key less than or equal to key.
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the floor's value, or null if there is no such key
+	 */
+	public V floorValue(long key) {
+		int slot = tree.floorSlot(key);
+
+		return (slot == LongBinarySearchTree.NIL ? null : valueOf(slot));
+	}
+
+	/**
+	 * Returns the value of the least key greater than or equal to key.
+	 *
+	 * @param key the key of interest
+	 *
+	 * @return the ceiling's value, or null if there is no such key
+	 */
+	public V ceilingValue(long key) {
+		int slot = tree.ceilingSlot(key);
+
+		return (slot == LongBinarySearchTree.NIL ? null : valueOf(slot));
+	}
+
+	/**
+	 * Returns an Iterator over the keys in ascending order. The keys are returned
+	 * by {@link PrimitiveIterator.OfLong#nextLong()} without boxing.
+	 *
+	 * @return an ascending Iterator
+	 */
+	public PrimitiveIterator.OfLong keyIterator() {
+		return tree.iterator();
+	}
+
+	/**
+	 * Calls action with every entry, in ascending order of the keys.
+	 *
+	 * @throws java.util.ConcurrentModificationException if action modifies this
+	 *             LongOrderedMap
+	 *
+	 * @param action the action to call with each entry
+	 */
+	public void forEach(EntryConsumer<? super V> action) {
+		tree.forEachSlot(Long.MIN_VALUE, 0, false, slot -> action.accept(tree.keyOf(slot), valueOf(slot)));
+	}
+
+	/**
+	 * Calls action with every entry whose key is greater than or equal to lo and
+	 * less than hi, in ascending order of the keys. Only the entries in range
+	 * (plus the path to the first one) are visited.
+	 *
+	 * @throws java.util.ConcurrentModificationException if action modifies this
+	 *             LongOrderedMap
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (exclusive)
+	 * @param action the action to call with each entry
+	 */
+	public void forEachInRange(long lo, long hi, EntryConsumer<? super V> action) {
+		tree.forEachSlot(lo, hi, true, slot -> action.accept(tree.keyOf(slot), valueOf(slot)));
+	}
+
+	/**
+	 * Returns the value stored in slot.
+	 */
+	@SuppressWarnings("unchecked")
+	private V valueOf(int slot) {
+		return (V) tree.valueOf(slot);
+	}
+}
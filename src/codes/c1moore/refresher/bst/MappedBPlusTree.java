@@ -0,0 +1,530 @@
+package codes.c1moore.refresher.bst;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import codes.c1moore.refresher.common.Durability;
+
+/**
+ * MappedBPlusTree is a read-only, disk-backed ordered set of longs. The set is
+ * written once, in sorted order, to a file of fixed-size pages laid out as a
+ * B+tree, and is then opened by memory mapping the file. Opening only reads the
+ * header page, so startup takes the same time regardless of the number of keys,
+ * and lookups and range scans read directly from the mapping. The operating
+ * system pages the file in and out on demand, so the set may be larger than
+ * RAM.
+ *
+ * The file is laid out as follows (all values little-endian):
+ *
+ * <pre>
+ * page 0                header: magic, version, page size, height, key count,
+ *                       root page, first leaf page, last leaf page
+ * pages 1..L            leaves: key count, then the keys in ascending order
+ * pages L+1..root       internal pages, one level after another: child count,
+ *                       first child page, then a separator for each child after
+ *                       the first
+ * </pre>
+ *
+ * Because the file is written bottom-up, the leaves (and the children of every
+ * internal page) occupy consecutive pages. An internal page therefore only
+ * stores its first child, and a range scan moves to the next leaf by moving to
+ * the next page.
+ *
+ * A MappedByteBuffer may address at most 2GB, so large files are mapped as
+ * several segments, each holding a whole number of pages.
+ */
+public class MappedBPlusTree implements Closeable {
+	/**
+	 * The size, in bytes, of every page in the file.
+	 */
+	public static final int PAGE_SIZE = 4096;
+
+	private static final int MAGIC = 0x42505452;	// "BPTR"
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 36;		// The bytes used in page 0.
+	private static final int PAGE_HEADER_SIZE = 8;	// Each page starts with its count and, for internal pages, its first child.
+	private static final int KEYS_PER_LEAF = (PAGE_SIZE - PAGE_HEADER_SIZE) / Long.BYTES;
+	private static final int CHILDREN_PER_PAGE = (PAGE_SIZE - PAGE_HEADER_SIZE) / Long.BYTES + 1;
+
+	private static final int PAGES_PER_SEGMENT = 1 << 18;	// 1GB per mapping.
+
+	private final FileChannel channel;
+	private MappedByteBuffer[] segments;
+
+	private final long size;
+	private final int height;
+	private final int rootPage;
+	private final int firstLeafPage;
+	private final int lastLeafPage;
+
+	/**
+	 * Maps the B+tree stored in channel after its header has been read.
+	 */
+	private MappedBPlusTree(FileChannel channel, long size, int height, int rootPage, int firstLeafPage, int lastLeafPage) throws IOException {
+		this.channel = channel;
+		this.size = size;
+		this.height = height;
+		this.rootPage = rootPage;
+		this.firstLeafPage = firstLeafPage;
+		this.lastLeafPage = lastLeafPage;
+
+		long pages = channel.size() / PAGE_SIZE;
+		segments = new MappedByteBuffer[(int) ((pages + PAGES_PER_SEGMENT - 1) / PAGES_PER_SEGMENT)];
+
+		for(int segment = 0; segment < segments.length; segment++) {
+			long position = (long) segment * PAGES_PER_SEGMENT * PAGE_SIZE;
+			long length = Math.min((long) PAGES_PER_SEGMENT * PAGE_SIZE, channel.size() - position);
+
+			segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+			segments[segment].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	 * Writes tree to file as a MappedBPlusTree, replacing any existing file.
+	 *
+	 * @throws IOException if the file cannot be written
+	 *
+	 * @param file the file to write
+	 * @param tree the keys to write
+	 */
+	public static void write(Path file, LongBinarySearchTree tree) throws IOException {
+		write(file, tree.iterator());
+	}
+
+	/**
+	 * Writes the keys returned by sortedKeys to file as a MappedBPlusTree,
+	 * replacing any existing file. The tree is written to a temporary file beside
+	 * file, forced, and then atomically renamed over file, so if the keys are out
+	 * of order or the write fails, an existing file is left intact.
+	 *
+	 * @throws IllegalArgumentException if the keys are not in strictly ascending
+	 *             order
+	 * @throws IOException if the file cannot be written
+	 *
+	 * @param file the file to write
+	 * @param sortedKeys the keys to write, in strictly ascending order
+	 */
+	public static void write(Path file, PrimitiveIterator.OfLong sortedKeys) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try {
+			try(FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				writePages(output, sortedKeys);
+			}
+
+			Durability.replace(temporary, file);
+		} catch(IOException | RuntimeException e) {
+			Files.deleteIfExists(temporary);
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the pages of a MappedBPlusTree holding sortedKeys to output and
+	 * forces them to disk.
+	 */
+	private static void writePages(FileChannel output, PrimitiveIterator.OfLong sortedKeys) throws IOException {
+		ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		long[] firstKeys = new long[16];	// The first key of each page on the level being written.
+		int pageCount = 0;
+		int nextPage = 1;
+		long size = 0;
+		long previous = 0;
+
+		// Write the leaves. An empty set is stored as a single empty leaf.
+		do {
+			int count = 0;
+
+			page.clear();
+			page.position(PAGE_HEADER_SIZE);
+
+			while(count < KEYS_PER_LEAF && sortedKeys.hasNext()) {
+				long key = sortedKeys.nextLong();
+
+				if(size > 0 && key <= previous) {
+					throw new IllegalArgumentException("Keys must be in strictly ascending order.");
+				}
+
+				if(count == 0) {
+					if(pageCount == firstKeys.length) {
+						firstKeys = Arrays.copyOf(firstKeys, pageCount * 2);
+					}
+
+					firstKeys[pageCount] = key;
+				}
+
+				page.putLong(key);
+				previous = key;
+				count++;
+				size++;
+			}
+
+			page.putInt(0, count);
+			writePage(output, page, nextPage++);
+			pageCount++;
+		} while(sortedKeys.hasNext());
+
+		int lastLeafPage = nextPage - 1;
+		int levelStart = 1;
+		int height = 1;
+
+		// Write each internal level until a single page remains.
+		while(pageCount > 1) {
+			int parentCount = 0;
+
+			for(int child = 0; child < pageCount; child += CHILDREN_PER_PAGE) {
+				int children = Math.min(CHILDREN_PER_PAGE, pageCount - child);
+
+				page.clear();
+				page.putInt(children);
+				page.putInt(levelStart + child);
+
+				for(int index = 1; index < children; index++) {
+					page.putLong(firstKeys[child + index]);
+				}
+
+				// Reusing firstKeys is safe since a parent is always written after its first child.
+				firstKeys[parentCount++] = firstKeys[child];
+				writePage(output, page, nextPage++);
+			}
+
+			levelStart += pageCount;
+			pageCount = parentCount;
+			height++;
+		}
+
+		page.clear();
+		page.putInt(MAGIC);
+		page.putInt(VERSION);
+		page.putInt(PAGE_SIZE);
+		page.putInt(height);
+		page.putLong(size);
+		page.putInt(nextPage - 1);
+		page.putInt(1);
+		page.putInt(lastLeafPage);
+		writePage(output, page, 0);
+
+		output.force(true);
+	}
+
+	/**
+	 * Opens the MappedBPlusTree stored in file. Only the header is read; the rest
+	 * of the file is paged in as it is used.
+	 *
+	 * @throws IOException if the file cannot be read or is not a MappedBPlusTree
+	 *
+	 * @param file the file to open
+	 *
+	 * @return the opened MappedBPlusTree
+	 */
+	public static MappedBPlusTree open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			while(header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+				// Keep reading until the header is full or the file ends.
+			}
+
+			if(header.hasRemaining() || header.getInt(0) != MAGIC) {
+				throw new IOException("File is not a MappedBPlusTree.");
+			}
+
+			if(header.getInt(4) != VERSION || header.getInt(8) != PAGE_SIZE) {
+				throw new IOException("Unsupported MappedBPlusTree version or page size.");
+			}
+
+			if(channel.size() % PAGE_SIZE != 0 || channel.size() / PAGE_SIZE <= header.getInt(24)) {
+				throw new IOException("MappedBPlusTree file is truncated.");
+			}
+
+			return new MappedBPlusTree(channel, header.getLong(16), header.getInt(12), header.getInt(24), header.getInt(28), header.getInt(32));
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns if key is stored in this MappedBPlusTree.
+	 *
+	 * @throws IllegalStateException if this MappedBPlusTree has been closed
+	 *
+	 * @param key the key to search for
+	 *
+	 * @return true iff key is stored in this MappedBPlusTree
+	 */
+	public boolean has(long key) {
+		int leaf = findLeaf(key);
+		int index = lowerBound(leaf, key);
+
+		return (index < count(leaf) && keyAt(leaf, index) == key);
+	}
+
+	/**
+	 * Returns the minimum key in this MappedBPlusTree.
+	 *
+	 * @throws NoSuchElementException if this MappedBPlusTree is empty
+	 * @throws IllegalStateException if this MappedBPlusTree has been closed
+	 *
+	 * @return the minimum key
+	 */
+	public long getMinimum() {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return keyAt(firstLeafPage, 0);
+	}
+
+	/**
+	 * Returns the maximum key in this MappedBPlusTree.
+	 *
+	 * @throws NoSuchElementException if this MappedBPlusTree is empty
+	 * @throws IllegalStateException if this MappedBPlusTree has been closed
+	 *
+	 * @return the maximum key
+	 */
+	public long getMaximum() {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return keyAt(lastLeafPage, count(lastLeafPage) - 1);
+	}
+
+	/**
+	 * Returns the number of keys stored in this MappedBPlusTree.
+	 *
+	 * @return the number of keys in this MappedBPlusTree
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the height of this MappedBPlusTree; that is, the number of pages read
+	 * by a lookup.
+	 *
+	 * @return the height of this MappedBPlusTree
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns an Iterator over every key in ascending order.
+	 *
+	 * @throws IllegalStateException if this MappedBPlusTree has been closed
+	 *
+	 * @return an ascending Iterator
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new LeafIterator(firstLeafPage, 0, Long.MAX_VALUE, false);
+	}
+
+	/**
+	 * Returns an Iterator over the keys that are greater than or equal to lo and
+	 * less than hi, in ascending order. A single descent finds the first key;
+	 * the rest are read by scanning the following leaves.
+	 *
+	 * @throws IllegalStateException if this MappedBPlusTree has been closed
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (exclusive)
+	 *
+	 * @return an ascending Iterator over [lo, hi)
+	 */
+	public PrimitiveIterator.OfLong range(long lo, long hi) {
+		int leaf = findLeaf(lo);
+
+		return new LeafIterator(leaf, lowerBound(leaf, lo), hi, true);
+	}
+
+	/**
+	 * Closes the file. The mapping is released once it is garbage collected; it
+	 * must not be used after this call.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		segments = null;
+		channel.close();
+	}
+
+	/**
+	 * Returns the leaf page that would contain key.
+	 */
+	private int findLeaf(long key) {
+		int page = rootPage;
+
+		for(int level = 1; level < height; level++) {
+			MappedByteBuffer segment = segment(page);
+			int offset = offset(page);
+			int children = segment.getInt(offset);
+
+			// Find the number of separators less than or equal to key.
+			int low = 0;
+			int high = children - 1;
+
+			while(low < high) {
+				int middle = (low + high) >>> 1;
+
+				if(segment.getLong(offset + PAGE_HEADER_SIZE + middle * Long.BYTES) > key) {
+					high = middle;
+				} else {
+					low = middle + 1;
+				}
+			}
+
+			page = segment.getInt(offset + 4) + low;
+		}
+
+		return page;
+	}
+
+	/**
+	 * Returns the index of the first key in leaf that is greater than or equal to
+	 * key, or the leaf's count if there is none.
+	 */
+	private int lowerBound(int leaf, long key) {
+		int low = 0;
+		int high = count(leaf);
+
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+
+			if(keyAt(leaf, middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Returns the number of keys in leaf.
+	 */
+	private int count(int leaf) {
+		return segment(leaf).getInt(offset(leaf));
+	}
+
+	/**
+	 * Returns the key at index in leaf.
+	 */
+	private long keyAt(int leaf, int index) {
+		return segment(leaf).getLong(offset(leaf) + PAGE_HEADER_SIZE + index * Long.BYTES);
+	}
+
+	/**
+	 * Returns the mapping that contains page.
+	 *
+	 * @throws IllegalStateException if this MappedBPlusTree has been closed
+	 */
+	private MappedByteBuffer segment(int page) {
+		MappedByteBuffer[] mapped = segments;
+
+		if(mapped == null) {
+			throw new IllegalStateException("MappedBPlusTree has been closed.");
+		}
+
+		return mapped[page / PAGES_PER_SEGMENT];
+	}
+
+	/**
+	 * Returns the offset of page within its mapping.
+	 */
+	private static int offset(int page) {
+		return (page % PAGES_PER_SEGMENT) * PAGE_SIZE;
+	}
+
+	/**
+	 * Writes page, which must contain no more than PAGE_SIZE bytes, to the
+	 * specified page of output. The rest of the page is zero filled.
+	 */
+	private static void writePage(FileChannel output, ByteBuffer page, int pageNumber) throws IOException {
+		while(page.position() < PAGE_SIZE) {
+			page.put((byte) 0);
+		}
+
+		page.flip();
+
+		long position = (long) pageNumber * PAGE_SIZE;
+
+		while(page.hasRemaining()) {
+			position += output.write(page, position);
+		}
+	}
+
+	/**
+	 * LeafIterator scans the keys in consecutive leaf pages, optionally stopping at
+	 * an exclusive upper bound.
+	 */
+	private class LeafIterator implements PrimitiveIterator.OfLong {
+		private int leaf;
+		private int index;
+		private final long upperBound;
+		private final boolean bounded;
+
+		LeafIterator(int leaf, int index, long upperBound, boolean bounded) {
+			this.leaf = leaf;
+			this.index = index;
+			this.upperBound = upperBound;
+			this.bounded = bounded;
+
+			skipExhaustedLeaves();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (leaf != 0);
+		}
+
+		@Override
+		public long nextLong() {
+			if(leaf == 0) {
+				throw new NoSuchElementException();
+			}
+
+			long key = keyAt(leaf, index++);
+
+			skipExhaustedLeaves();
+
+			return key;
+		}
+
+		/**
+		 * Moves to the next leaf while the current one is exhausted, and ends the
+		 * iteration (by setting leaf to the header page) at the upper bound.
+		 */
+		private void skipExhaustedLeaves() {
+			while(leaf != 0 && index >= count(leaf)) {
+				leaf = (leaf == lastLeafPage ? 0 : leaf + 1);
+				index = 0;
+			}
+
+			if(leaf != 0 && bounded && keyAt(leaf, index) >= upperBound) {
+				leaf = 0;
+			}
+		}
+	}
+}
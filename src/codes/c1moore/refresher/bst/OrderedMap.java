@@ -0,0 +1,434 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * OrderedMap maps keys to values and keeps its entries sorted by key, like
+ * java.util.TreeMap. It is built on an AVLTree whose nodes are the entries
+ * themselves: each node stores its key and its value inline, so there is no
+ * composite key-value object to allocate and no extra indirection to reach the
+ * value. put(), get(), remove(), and the navigation methods are O(log(n)).
+ *
+ * The entries returned by the navigation methods and iterators are the nodes
+ * themselves rather than copies. Their setValue() writes through to the map.
+ * Once an entry's key is removed, the entry is detached and no longer reflects
+ * the map.
+ *
+ * Range views are lazy, like those of BinarySearchTree: nothing is searched
+ * until iteration starts, and only the entries in range are visited. All
+ * iterators are fail-fast and support remove().
+ *
+ * Keys are ordered by a Comparator, if one is passed to the constructor, or by
+ * their Comparable implementation otherwise. Each key is stored at most once.
+ */
+public class OrderedMap<K, V> implements Iterable<Map.Entry<K, V>> {
+	private final EntryTree<K, V> tree;
+
+	/**
+	 * Creates an empty OrderedMap.
+	 */
+	public OrderedMap() {
+		this(null);
+	}
+
+	/**
+	 * Creates an empty OrderedMap that will use comparator to compare keys.
+	 *
+	 * @param comparator a Comparator that should be used to compare keys
+	 */
+	public OrderedMap(Comparator<K> comparator) {
+		tree = new EntryTree<>(comparator);
+	}
+
+	/**
+	 * Maps key to value, replacing the value key was mapped to, if any.
+	 *
+	 * @param key the key
+	 * @param value the value to map key to
+	 *
+	 * @return the previous value of key, or null if key was not mapped
+	 */
+	public V put(K key, V value) {
+		return tree.put(key, value);
+	}
+
+	/**
+	 * Returns the value key is mapped to.
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return the value of key, or null if key is not mapped
+	 */
+	public V get(K key) {
+		EntryNode<K, V> entry = entry(tree.findNode(key));
+
+		return (entry == null ? null : entry.value);
+	}
+
+	/**
+	 * Returns the entry of key. Unlike get(), this tells a key mapped to null apart
+	 * from a key that is not mapped.
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return the entry of key, or null if key is not mapped
+	 */
+	public Map.Entry<K, V> getEntry(K key) {
+		return entry(tree.findNode(key));
+	}
+
+	/**
+	 * Returns whether key is mapped to a value.
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return true iff key is mapped
+	 */
+	public boolean containsKey(K key) {
+		return (tree.findNode(key) != null);
+	}
+
+	/**
+	 * Removes the mapping of key, if there is one.
+	 *
+	 * @param key the key to remove
+	 *
+	 * @return the value key was mapped to, or null if key was not mapped
+	 */
+	public V remove(K key) {
+		EntryNode<K, V> entry = entry(tree.findNode(key));
+
+		if(entry == null) {
+			return null;
+		}
+
+		tree.removeEntry(entry);
+
+		return entry.value;
+	}
+
+	/**
+	 * Returns the number of keys in this OrderedMap.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return tree.size();
+	}
+
+	/**
+	 * Returns the entry with the least key.
+	 *
+	 * @return the first entry, or null if this OrderedMap is empty
+	 */
+	public Map.Entry<K, V> firstEntry() {
+		return entry(tree.firstNode());
+	}
+
+	/**
+	 * Returns the entry with the greatest key.
+	 *
+	 * @return the last entry, or null if this OrderedMap is empty
+	 */
+	public Map.Entry<K, V> lastEntry() {
+		return entry(tree.lastNode());
+	}
+
+	/**
+	 * Returns the entry with the greatest key less than or equal to key.
+	 *
+	 * @param key the upper bound (inclusive)
+	 *
+	 * @return the floor entry, or null if there is none
+	 */
+	public Map.Entry<K, V> floorEntry(K key) {
+		return entry(tree.floorNode(key));
+	}
+
+	/**
+	 * Returns the entry with the least key greater than or equal to key.
+	 *
+	 * @param key the lower bound (inclusive)
+	 *
+	 * @return the ceiling entry, or null if there is none
+	 */
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return entry(tree.ceilingNode(key));
+	}
+
+	/**
+	 * Returns the entry with the greatest key strictly less than key.
+	 *
+	 * @param key the upper bound (exclusive)
+	 *
+	 * @return the lower entry, or null if there is none
+	 */
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return entry(tree.lowerNode(key));
+	}
+
+	/**
+	 * Returns the entry with the least key strictly greater than key.
+	 *
+	 * @param key the lower bound (exclusive)
+	 *
+	 * @return the higher entry, or null if there is none
+	 */
+	public Map.Entry<K, V> higherEntry(K key) {
+		return entry(tree.higherNode(key));
+	}
+
+	/**
+	 * Returns an Iterator over the entries in ascending order of their keys.
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new EntryIterator(tree.firstNode(), null, false);
+	}
+
+	/**
+	 * Returns a lazy view of the entries whose keys are greater than or equal to
+	 * lo and less than hi, in ascending order.
+	 *
+	 * @param lo the lower bound (inclusive)
+	 * @param hi the upper bound (exclusive)
+	 *
+	 * @return the entries in [lo, hi)
+	 */
+	public Iterable<Map.Entry<K, V>> subMap(K lo, K hi) {
+		return () -> new EntryIterator(tree.ceilingNode(lo), hi, true);
+	}
+
+	/**
+	 * Returns a lazy view of the entries whose keys are less than hi, in
+	 * ascending order.
+	 *
+	 * @param hi the upper bound (exclusive)
+	 *
+	 * @return the entries below hi
+	 */
+	public Iterable<Map.Entry<K, V>> headMap(K hi) {
+		return () -> new EntryIterator(tree.firstNode(), hi, true);
+	}
+
+	/**
+	 * Returns a lazy view of the entries whose keys are greater than or equal to
+	 * lo, in ascending order.
+	 *
+	 * @param lo the lower bound (inclusive)
+	 *
+	 * @return the entries at or above lo
+	 */
+	public Iterable<Map.Entry<K, V>> tailMap(K lo) {
+		return () -> new EntryIterator(tree.ceilingNode(lo), null, false);
+	}
+
+	/**
+	 * Returns node as an EntryNode.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K, V> EntryNode<K, V> entry(BinaryTreeNode<K> node) {
+		return (EntryNode<K, V>) node;
+	}
+
+	/**
+	 * EntryNode is a BinaryTreeNode that also stores the value of its key.
+	 */
+	private static final class EntryNode<K, V> extends BinaryTreeNode<K> implements Map.Entry<K, V> {
+		V value;
+
+		@Override
+		public K getKey() {
+			return item;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V previous = this.value;
+			this.value = value;
+
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof Map.Entry)) {
+				return false;
+			}
+
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+
+			return (Objects.equals(item, entry.getKey()) && Objects.equals(value, entry.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			return (Objects.hashCode(item) ^ Objects.hashCode(value));
+		}
+
+		@Override
+		public String toString() {
+			return item + "=" + value;
+		}
+	}
+
+	/**
+	 * EntryTree is the AVLTree that stores the entries. It creates EntryNodes and
+	 * never stores a key twice.
+	 */
+	private static final class EntryTree<K, V> extends AVLTree<K> {
+		EntryTree(Comparator<K> comparator) {
+			super(comparator);
+		}
+
+		/**
+		 * Maps key to value in a single descent, linking a new entry if key is not
+		 * stored.
+		 *
+		 * @return the previous value of key, or null if key was not stored
+		 */
+		V put(K key, V value) {
+			BinaryTreeNode<K> parentNode = null;
+			BinaryTreeNode<K> currentNode = head;
+			int comparison = 0;
+
+			while(currentNode != null) {
+				comparison = order.compare(key, currentNode.item);
+
+				if(comparison == 0) {
+					return OrderedMap.<K, V>entry(currentNode).setValue(value);
+				}
+
+				parentNode = currentNode;
+				currentNode = (comparison < 0 ? currentNode.leftChild : currentNode.rightChild);
+			}
+
+			EntryNode<K, V> entry = entry(createNode(key));
+			entry.value = value;
+			entry.parent = parentNode;
+
+			if(parentNode == null) {
+				head = entry;
+			} else if(comparison < 0) {
+				parentNode.leftChild = entry;
+			} else {
+				parentNode.rightChild = entry;
+			}
+
+			modificationCount++;
+			retrace(parentNode);
+
+			return null;
+		}
+
+		/**
+		 * Unlinks entry, which must be stored in this EntryTree, and rebalances.
+		 */
+		void removeEntry(EntryNode<K, V> entry) {
+			modificationCount++;
+			retrace(removeNode(entry));
+		}
+
+		@Override
+		protected BinaryTreeNode<K> createNode(K key) {
+			EntryNode<K, V> node = new EntryNode<>();
+			node.item = key;
+			node.height = 1;
+			node.size = 1;
+			node.count = 1;
+
+			return node;
+		}
+	}
+
+	/**
+	 * EntryIterator walks the entries in ascending order, optionally stopping at
+	 * an exclusive upper bound. Entries are relinked, never copied, on removal, so
+	 * the next entry stays valid when the last one is removed.
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		private BinaryTreeNode<K> nextNode;
+		private EntryNode<K, V> lastReturned;
+		private int expectedModificationCount;
+
+		private final K upperBound;
+		private final boolean bounded;
+
+		/**
+		 * Creates a new EntryIterator.
+		 *
+		 * @param first the first entry to return; null if there is none
+		 * @param upperBound the exclusive upper bound; only used if bounded is true
+		 * @param bounded true iff iteration should stop at upperBound
+		 */
+		EntryIterator(BinaryTreeNode<K> first, K upperBound, boolean bounded) {
+			this.upperBound = upperBound;
+			this.bounded = bounded;
+
+			nextNode = first;
+			lastReturned = null;
+			expectedModificationCount = tree.modificationCount;
+
+			if(nextNode != null && isPastBound(nextNode)) {
+				nextNode = null;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextNode != null);
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if(nextNode == null) {
+				throw new NoSuchElementException();
+			}
+
+			if(tree.modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			lastReturned = entry(nextNode);
+			nextNode = tree.nextNode(nextNode);
+
+			if(nextNode != null && isPastBound(nextNode)) {
+				nextNode = null;
+			}
+
+			return lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+
+			if(tree.modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			tree.removeEntry(lastReturned);
+
+			expectedModificationCount = tree.modificationCount;
+			lastReturned = null;
+		}
+
+		private boolean isPastBound(BinaryTreeNode<K> node) {
+			return (bounded && tree.order.compare(node.item, upperBound) >= 0);
+		}
+	}
+}
@@ -0,0 +1,642 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import codes.c1moore.refresher.common.Comparison;
+
+/**
+ * PersistentSearchTree is an ordered set whose nodes are never modified once
+ * they are created. An update copies only the path from the root to the
+ * affected node (O(log(n)) new nodes, since the tree is kept AVL balanced) and
+ * shares every other node with the previous version. The new root is then
+ * published through an atomic reference.
+ *
+ * Because old versions are never changed, snapshot() is O(1): it simply
+ * captures the current root. A reader can iterate a snapshot for as long as it
+ * likes while writers keep publishing new versions, and it will always see a
+ * single consistent version of the tree. Writers never block each other either;
+ * if another writer publishes first, the update is recomputed against the new
+ * version and published again.
+ *
+ * Sets are combined with union(), intersection(), and difference(), which use
+ * join-based algorithms: the first set's root splits the second set in
+ * O(log(n)), the 2 halves are combined recursively, and the results are joined
+ * back together around the root in O(log(n)). Combining a set of m items with a
+ * set of n >= m items takes O(m log(n / m + 1)) work, and because the 2 halves
+ * are independent (and the nodes immutable), they are combined in parallel on
+ * the common ForkJoinPool, for a span of O(log(m) log(n)).
+ *
+ * Like ConcurrentSearchTree, PersistentSearchTree is a set: inserting an item
+ * that is already stored has no effect. Items are ordered by a Comparator, if
+ * one is specified, or by their Comparable implementation otherwise.
+ */
+public class PersistentSearchTree<T> implements SearchTree<T> {
+	/*
+	 * Set operations on fewer items than this are run sequentially, since forking
+	 * a task costs more than combining small trees.
+	 */
+	private static final int PARALLEL_THRESHOLD = 4096;
+
+	private final AtomicReference<Node<T>> root;
+	private final Comparator<T> order;	// comparator, or the natural order if it is null.
+
+	/**
+	 * Creates an empty PersistentSearchTree.
+	 */
+	public PersistentSearchTree() {
+		this((Comparator<T>) null);
+	}
+
+	/**
+	 * Creates an empty PersistentSearchTree that will use comparator to compare
+	 * items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public PersistentSearchTree(Comparator<T> comparator) {
+		this(null, comparator);
+	}
+
+	/**
+	 * Creates a PersistentSearchTree that starts at the version rooted at root.
+	 *
+	 * @param root the root of the initial version
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	private PersistentSearchTree(Node<T> root, Comparator<T> comparator) {
+		this.root = new AtomicReference<>(root);
+		this.order = Comparison.resolve(comparator);
+	}
+
+	/**
+	 * Inserts item into this PersistentSearchTree, if it is not already stored.
+	 * Snapshots taken before the insertion are not affected.
+	 *
+	 * @param item the item to insert
+	 */
+	public void insert(T item) {
+		Node<T> current;
+		Node<T> updated;
+
+		do {
+			current = root.get();
+			updated = insert(current, item);
+		} while(updated != current && !root.compareAndSet(current, updated));
+	}
+
+	/**
+	 * Returns if item is stored in this PersistentSearchTree.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in this PersistentSearchTree
+	 */
+	public boolean has(T item) {
+		Node<T> node = root.get();
+
+		while(node != null) {
+			int comparison = order.compare(item, node.item);
+
+			if(comparison == 0) {
+				return true;
+			}
+
+			node = (comparison < 0 ? node.left : node.right);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes item from this PersistentSearchTree. Snapshots taken before the
+	 * removal are not affected.
+	 *
+	 * @param item the item to remove
+	 */
+	public void remove(T item) {
+		Node<T> current;
+		Node<T> updated;
+
+		do {
+			current = root.get();
+			updated = remove(current, item);
+		} while(updated != current && !root.compareAndSet(current, updated));
+	}
+
+	/**
+	 * Returns the minimum item in this PersistentSearchTree.
+	 *
+	 * @return the minimum item or null if this PersistentSearchTree is empty
+	 */
+	public T getMinimum() {
+		Node<T> node = root.get();
+
+		if(node == null) {
+			return null;
+		}
+
+		while(node.left != null) {
+			node = node.left;
+		}
+
+		return node.item;
+	}
+
+	/**
+	 * Returns the maximum item in this PersistentSearchTree.
+	 *
+	 * @return the maximum item or null if this PersistentSearchTree is empty
+	 */
+	public T getMaximum() {
+		Node<T> node = root.get();
+
+		if(node == null) {
+			return null;
+		}
+
+		while(node.right != null) {
+			node = node.right;
+		}
+
+		return node.item;
+	}
+
+	/**
+	 * Returns the number of items stored in this PersistentSearchTree.
+	 *
+	 * @return the number of items in this PersistentSearchTree
+	 */
+	public int size() {
+		return size(root.get());
+	}
+
+	/**
+	 * Returns the height of this PersistentSearchTree. An empty tree has a height
+	 * of 0.
+	 *
+	 * @return the height of this PersistentSearchTree
+	 */
+	public int getHeight() {
+		return height(root.get());
+	}
+
+	/**
+	 * Returns a snapshot of the current version of this PersistentSearchTree in
+	 * O(1). The snapshot is itself a PersistentSearchTree; updates to either tree
+	 * are never visible in the other.
+	 *
+	 * @return a snapshot of this PersistentSearchTree
+	 */
+	public PersistentSearchTree<T> snapshot() {
+		return new PersistentSearchTree<>(root.get(), order);
+	}
+
+	/**
+	 * Returns a new PersistentSearchTree containing the items in this tree, other,
+	 * or both. Both trees must order their items the same way; the current
+	 * versions of both are used and neither is changed.
+	 *
+	 * @param other the tree to combine with this one
+	 *
+	 * @return the union of this tree and other
+	 */
+	public PersistentSearchTree<T> union(PersistentSearchTree<T> other) {
+		return combine(Operation.UNION, other);
+	}
+
+	/**
+	 * Returns a new PersistentSearchTree containing the items that are in both
+	 * this tree and other. Both trees must order their items the same way; the
+	 * current versions of both are used and neither is changed.
+	 *
+	 * @param other the tree to combine with this one
+	 *
+	 * @return the intersection of this tree and other
+	 */
+	public PersistentSearchTree<T> intersection(PersistentSearchTree<T> other) {
+		return combine(Operation.INTERSECTION, other);
+	}
+
+	/**
+	 * Returns a new PersistentSearchTree containing the items in this tree that
+	 * are not in other. Both trees must order their items the same way; the
+	 * current versions of both are used and neither is changed.
+	 *
+	 * @param other the tree whose items should be excluded
+	 *
+	 * @return the difference of this tree and other
+	 */
+	public PersistentSearchTree<T> difference(PersistentSearchTree<T> other) {
+		return combine(Operation.DIFFERENCE, other);
+	}
+
+	/**
+	 * Returns an Iterator over the items in ascending order. The Iterator walks the
+	 * version that was current when it was created and is unaffected by later
+	 * updates.
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new NodeIterator<>(root.get());
+	}
+
+	/**
+	 * Returns a copy of the subtree rooted at node with item inserted.
+	 *
+	 * @param node the root of the subtree
+	 * @param item the item to insert
+	 *
+	 * @return the root of the new subtree, or node if item was already stored
+	 */
+	private Node<T> insert(Node<T> node, T item) {
+		if(node == null) {
+			return new Node<>(item, null, null);
+		}
+
+		int comparison = order.compare(item, node.item);
+
+		if(comparison == 0) {
+			return node;
+		}
+
+		if(comparison < 0) {
+			Node<T> left = insert(node.left, item);
+
+			return (left == node.left ? node : balance(node.item, left, node.right));
+		}
+
+		Node<T> right = insert(node.right, item);
+
+		return (right == node.right ? node : balance(node.item, node.left, right));
+	}
+
+	/**
+	 * Returns a copy of the subtree rooted at node with item removed.
+	 *
+	 * @param node the root of the subtree
+	 * @param item the item to remove
+	 *
+	 * @return the root of the new subtree, or node if item was not stored
+	 */
+	private Node<T> remove(Node<T> node, T item) {
+		if(node == null) {
+			return null;
+		}
+
+		int comparison = order.compare(item, node.item);
+
+		if(comparison < 0) {
+			Node<T> left = remove(node.left, item);
+
+			return (left == node.left ? node : balance(node.item, left, node.right));
+		}
+
+		if(comparison > 0) {
+			Node<T> right = remove(node.right, item);
+
+			return (right == node.right ? node : balance(node.item, node.left, right));
+		}
+
+		if(node.left == null) {
+			return node.right;
+		}
+
+		if(node.right == null) {
+			return node.left;
+		}
+
+		Node<T> successor = node.right;
+		while(successor.left != null) {
+			successor = successor.left;
+		}
+
+		return balance(successor.item, node.left, removeMinimum(node.right));
+	}
+
+	/**
+	 * Returns a copy of the subtree rooted at node without its minimum item.
+	 *
+	 * @param node the root of a non-empty subtree
+	 *
+	 * @return the root of the new subtree
+	 */
+	private Node<T> removeMinimum(Node<T> node) {
+		if(node.left == null) {
+			return node.right;
+		}
+
+		return balance(node.item, removeMinimum(node.left), node.right);
+	}
+
+	/**
+	 * Combines the current versions of this tree and other on the common
+	 * ForkJoinPool.
+	 */
+	private PersistentSearchTree<T> combine(Operation operation, PersistentSearchTree<T> other) {
+		Node<T> combined = ForkJoinPool.commonPool().invoke(new SetOperation(operation, root.get(), other.root.get()));
+
+		return new PersistentSearchTree<>(combined, order);
+	}
+
+	/**
+	 * Combines the subtrees rooted at lhs and rhs. lhs's root splits rhs, the
+	 * halves are combined (in parallel if they are large), and the results are
+	 * joined around lhs's root, if it belongs in the result.
+	 *
+	 * @param operation the set operation to perform
+	 * @param lhs the left-hand operand
+	 * @param rhs the right-hand operand
+	 *
+	 * @return the root of the combined subtree
+	 */
+	private Node<T> combine(Operation operation, Node<T> lhs, Node<T> rhs) {
+		if(lhs == null) {
+			return (operation == Operation.UNION ? rhs : null);
+		}
+
+		if(rhs == null) {
+			return (operation == Operation.INTERSECTION ? null : lhs);
+		}
+
+		Split<T> split = split(rhs, lhs.item);
+		Node<T> left;
+		Node<T> right;
+
+		if(size(lhs) + size(rhs) > PARALLEL_THRESHOLD) {
+			SetOperation leftTask = new SetOperation(operation, lhs.left, split.left);
+			leftTask.fork();
+
+			right = combine(operation, lhs.right, split.right);
+			left = leftTask.join();
+		} else {
+			left = combine(operation, lhs.left, split.left);
+			right = combine(operation, lhs.right, split.right);
+		}
+
+		boolean keepRoot = (operation == Operation.UNION || split.found == (operation == Operation.INTERSECTION));
+
+		return (keepRoot ? join(left, lhs.item, right) : join(left, right));
+	}
+
+	/**
+	 * Splits the subtree rooted at node into the items less than item and the
+	 * items greater than item.
+	 *
+	 * @param node the root of the subtree
+	 * @param item the item to split around
+	 *
+	 * @return the 2 halves, and whether item was found
+	 */
+	private Split<T> split(Node<T> node, T item) {
+		if(node == null) {
+			return new Split<>(null, false, null);
+		}
+
+		int comparison = order.compare(item, node.item);
+
+		if(comparison == 0) {
+			return new Split<>(node.left, true, node.right);
+		}
+
+		if(comparison < 0) {
+			Split<T> split = split(node.left, item);
+
+			return new Split<>(split.left, split.found, join(split.right, node.item, node.right));
+		}
+
+		Split<T> split = split(node.right, item);
+
+		return new Split<>(join(node.left, node.item, split.left), split.found, split.right);
+	}
+
+	/**
+	 * Joins left, item, and right into a balanced tree, where every item in left
+	 * is less than item and every item in right is greater than item. The shorter
+	 * tree is attached along the spine of the taller one, so the cost is
+	 * O(difference in heights + 1).
+	 *
+	 * @param left the subtree of lesser items
+	 * @param item the item between the subtrees
+	 * @param right the subtree of greater items
+	 *
+	 * @return the root of the joined tree
+	 */
+	static <T> Node<T> join(Node<T> left, T item, Node<T> right) {
+		if(height(left) > height(right) + 1) {
+			return balance(left.item, left.left, join(left.right, item, right));
+		}
+
+		if(height(right) > height(left) + 1) {
+			return balance(right.item, join(left, item, right.left), right.right);
+		}
+
+		return new Node<>(item, left, right);
+	}
+
+	/**
+	 * Joins left and right into a balanced tree, where every item in left is less
+	 * than every item in right.
+	 *
+	 * @param left the subtree of lesser items
+	 * @param right the subtree of greater items
+	 *
+	 * @return the root of the joined tree
+	 */
+	static <T> Node<T> join(Node<T> left, Node<T> right) {
+		if(left == null) {
+			return right;
+		}
+
+		if(right == null) {
+			return left;
+		}
+
+		Node<T> maximum = left;
+		while(maximum.right != null) {
+			maximum = maximum.right;
+		}
+
+		return join(removeMaximum(left), maximum.item, right);
+	}
+
+	/**
+	 * Returns a copy of the subtree rooted at node without its maximum item.
+	 *
+	 * @param node the root of a non-empty subtree
+	 *
+	 * @return the root of the new subtree
+	 */
+	private static <T> Node<T> removeMaximum(Node<T> node) {
+		if(node.right == null) {
+			return node.left;
+		}
+
+		return balance(node.item, node.left, removeMaximum(node.right));
+	}
+
+	/**
+	 * Creates a node storing item with the specified subtrees, rotating if their
+	 * heights differ by more than 1. The subtrees' heights may differ by at most
+	 * 2.
+	 *
+	 * @param item the item for the new node
+	 * @param left the left subtree
+	 * @param right the right subtree
+	 *
+	 * @return the root of the new, balanced subtree
+	 */
+	static <T> Node<T> balance(T item, Node<T> left, Node<T> right) {
+		int leftHeight = height(left);
+		int rightHeight = height(right);
+
+		if(leftHeight > rightHeight + 1) {
+			if(height(left.left) >= height(left.right)) {
+				return new Node<>(left.item, left.left, new Node<>(item, left.right, right));
+			}
+
+			Node<T> pivot = left.right;
+
+			return new Node<>(pivot.item, new Node<>(left.item, left.left, pivot.left), new Node<>(item, pivot.right, right));
+		}
+
+		if(rightHeight > leftHeight + 1) {
+			if(height(right.right) >= height(right.left)) {
+				return new Node<>(right.item, new Node<>(item, left, right.left), right.right);
+			}
+
+			Node<T> pivot = right.left;
+
+			return new Node<>(pivot.item, new Node<>(item, left, pivot.left), new Node<>(right.item, pivot.right, right.right));
+		}
+
+		return new Node<>(item, left, right);
+	}
+
+	/**
+	 * Returns the height of the subtree rooted at node.
+	 */
+	static int height(Node<?> node) {
+		return (node == null ? 0 : node.height);
+	}
+
+	/**
+	 * Returns the number of items in the subtree rooted at node.
+	 */
+	static int size(Node<?> node) {
+		return (node == null ? 0 : node.size);
+	}
+
+	/**
+	 * Node is an immutable tree node. Its height and size are computed once, when
+	 * it is created.
+	 */
+	static final class Node<T> {
+		final T item;
+		final Node<T> left;
+		final Node<T> right;
+
+		final int height;	// The height of the subtree rooted at this node.
+		final int size;		// The number of items in the subtree rooted at this node.
+
+		Node(T item, Node<T> left, Node<T> right) {
+			this.item = item;
+			this.left = left;
+			this.right = right;
+
+			height = 1 + Math.max(PersistentSearchTree.height(left), PersistentSearchTree.height(right));
+			size = 1 + PersistentSearchTree.size(left) + PersistentSearchTree.size(right);
+		}
+	}
+
+	/**
+	 * Operation identifies the set operation performed by a SetOperation.
+	 */
+	private enum Operation {
+		UNION,
+		INTERSECTION,
+		DIFFERENCE
+	}
+
+	/**
+	 * Split holds the result of splitting a subtree around an item.
+	 */
+	private static final class Split<T> {
+		final Node<T> left;
+		final boolean found;
+		final Node<T> right;
+
+		Split(Node<T> left, boolean found, Node<T> right) {
+			this.left = left;
+			this.found = found;
+			this.right = right;
+		}
+	}
+
+	/**
+	 * SetOperation combines 2 subtrees as a ForkJoin task.
+	 */
+	private class SetOperation extends RecursiveTask<Node<T>> {
+		private static final long serialVersionUID = 1L;
+
+		private final Operation operation;
+		private final Node<T> lhs;
+		private final Node<T> rhs;
+
+		SetOperation(Operation operation, Node<T> lhs, Node<T> rhs) {
+			this.operation = operation;
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+
+		@Override
+		protected Node<T> compute() {
+			return combine(operation, lhs, rhs);
+		}
+	}
+
+	/**
+	 * NodeIterator performs an in-order walk over an immutable version of the tree
+	 * with an explicit stack, since nodes do not reference their parents.
+	 */
+	private static class NodeIterator<T> implements Iterator<T> {
+		private final Deque<Node<T>> stack = new ArrayDeque<>();
+
+		NodeIterator(Node<T> root) {
+			pushLeftSpine(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		@Override
+		public T next() {
+			if(stack.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+
+			Node<T> node = stack.pop();
+
+			pushLeftSpine(node.right);
+
+			return node.item;
+		}
+
+		private void pushLeftSpine(Node<T> node) {
+			while(node != null) {
+				stack.push(node);
+				node = node.left;
+			}
+		}
+	}
+}
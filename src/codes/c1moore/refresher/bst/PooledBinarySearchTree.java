@@ -0,0 +1,406 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import codes.c1moore.refresher.common.Comparison;
+
+/**
+ * PooledBinarySearchTree is an unbalanced binary search tree, like
+ * BinarySearchTree, that does not allocate an object per node. Instead, nodes
+ * are slots in a pool of parallel arrays: the item in slot i is items[i], and
+ * its children and parent are the slots stored in left[i], right[i], and
+ * parent[i]. A node therefore costs one reference and three ints, with no
+ * object header and no per-node garbage for the collector to trace.
+ *
+ * Removed slots are threaded onto a free list (through the left array) and
+ * reused by later insertions, so a tree with a stable size does not grow its
+ * pool. When the pool is full, every array is grown by half at once.
+ *
+ * PooledBinarySearchTree keeps the ordering rules of BinarySearchTree: items
+ * are not balanced, and duplicate items are stored, with equal items inserted
+ * to the left. Items are ordered by a Comparator, if one is specified, or by
+ * their Comparable implementation otherwise.
+ */
+public class PooledBinarySearchTree<T> implements SearchTree<T> {
+	/**
+	 * The number of slots allocated unless a capacity is passed to the
+	 * constructor.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private static final int NIL = -1;	// The index used for a missing child or parent.
+
+	private final Comparator<T> order;	// comparator, or the natural order if it is null.
+
+	private Object[] items;
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+
+	private int root;
+	private int freeHead;		// The first slot on the free list, or NIL.
+	private int nextUnused;		// The first slot that has never been used.
+	private int size;
+	private int modificationCount;
+
+	/**
+	 * Creates an empty PooledBinarySearchTree.
+	 */
+	public PooledBinarySearchTree() {
+		this(DEFAULT_CAPACITY, null);
+	}
+
+	/**
+	 * Creates an empty PooledBinarySearchTree that will use comparator to compare
+	 * items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public PooledBinarySearchTree(Comparator<T> comparator) {
+		this(DEFAULT_CAPACITY, comparator);
+	}
+
+	/**
+	 * Creates an empty PooledBinarySearchTree with room for capacity items before
+	 * the pool must grow.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 *
+	 * @param capacity the initial number of slots in the pool
+	 */
+	public PooledBinarySearchTree(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Creates an empty PooledBinarySearchTree with room for capacity items before
+	 * the pool must grow, that will use comparator to compare items.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 *
+	 * @param capacity the initial number of slots in the pool
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public PooledBinarySearchTree(int capacity, Comparator<T> comparator) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1.");
+		}
+
+		this.order = Comparison.resolve(comparator);
+
+		items = new Object[capacity];
+		left = new int[capacity];
+		right = new int[capacity];
+		parent = new int[capacity];
+
+		root = NIL;
+		freeHead = NIL;
+		nextUnused = 0;
+		size = 0;
+	}
+
+	/**
+	 * Inserts item into this PooledBinarySearchTree.
+	 *
+	 * @param item the item to insert
+	 */
+	@Override
+	public void insert(T item) {
+		int parentSlot = NIL;
+		int currentSlot = root;
+		boolean goLeft = false;
+
+		// Find the parent before allocating, so a failed comparison does not leak a slot.
+		while(currentSlot != NIL) {
+			parentSlot = currentSlot;
+
+			goLeft = (order.compare(item, item(currentSlot)) <= 0);
+			currentSlot = (goLeft ? left[currentSlot] : right[currentSlot]);
+		}
+
+		int slot = allocate(item);
+
+		if(parentSlot == NIL) {
+			root = slot;
+		} else {
+			parent[slot] = parentSlot;
+
+			if(goLeft) {
+				left[parentSlot] = slot;
+			} else {
+				right[parentSlot] = slot;
+			}
+		}
+
+		size++;
+		modificationCount++;
+	}
+
+	/**
+	 * Returns if item is stored in this PooledBinarySearchTree.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in this PooledBinarySearchTree
+	 */
+	@Override
+	public boolean has(T item) {
+		return (findSlot(item) != NIL);
+	}
+
+	/**
+	 * Removes a single copy of item from this PooledBinarySearchTree, if it is
+	 * stored. The freed slot is reused by a later insertion.
+	 *
+	 * @param item the item to remove
+	 */
+	@Override
+	public void remove(T item) {
+		int slot = findSlot(item);
+
+		if(slot == NIL) {
+			return;
+		}
+
+		if(left[slot] != NIL && right[slot] != NIL) {
+			// Move the successor's item into this slot and unlink the successor instead.
+			int successor = right[slot];
+
+			while(left[successor] != NIL) {
+				successor = left[successor];
+			}
+
+			items[slot] = items[successor];
+			slot = successor;
+		}
+
+		int child = (left[slot] != NIL ? left[slot] : right[slot]);
+		int parentSlot = parent[slot];
+
+		if(child != NIL) {
+			parent[child] = parentSlot;
+		}
+
+		if(parentSlot == NIL) {
+			root = child;
+		} else if(left[parentSlot] == slot) {
+			left[parentSlot] = child;
+		} else {
+			right[parentSlot] = child;
+		}
+
+		release(slot);
+
+		size--;
+		modificationCount++;
+	}
+
+	/**
+	 * Returns the minimum item in this PooledBinarySearchTree.
+	 *
+	 * @return the minimum item or null if this PooledBinarySearchTree is empty
+	 */
+	@Override
+	public T getMinimum() {
+		return (root == NIL ? null : item(firstSlot(root)));
+	}
+
+	/**
+	 * Returns the maximum item in this PooledBinarySearchTree.
+	 *
+	 * @return the maximum item or null if this PooledBinarySearchTree is empty
+	 */
+	@Override
+	public T getMaximum() {
+		if(root == NIL) {
+			return null;
+		}
+
+		int slot = root;
+
+		while(right[slot] != NIL) {
+			slot = right[slot];
+		}
+
+		return item(slot);
+	}
+
+	/**
+	 * Returns the number of items stored in this PooledBinarySearchTree.
+	 *
+	 * @return the number of items in this PooledBinarySearchTree
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of slots in the pool; that is, the number of items that
+	 * can be stored before the pool must grow.
+	 *
+	 * @return the capacity of the pool
+	 */
+	public int getCapacity() {
+		return items.length;
+	}
+
+	/**
+	 * Returns an Iterator over the items in ascending order. The Iterator follows
+	 * the parent indices, so no stack is needed.
+	 *
+	 * @return an ascending Iterator
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new SlotIterator();
+	}
+
+	/**
+	 * Returns a slot storing item, taking it from the free list if possible and
+	 * growing the pool if it is full.
+	 *
+	 * @param item the item to store
+	 *
+	 * @return the slot's index
+	 */
+	private int allocate(T item) {
+		int slot;
+
+		if(freeHead != NIL) {
+			slot = freeHead;
+			freeHead = left[slot];
+		} else {
+			if(nextUnused == items.length) {
+				grow();
+			}
+
+			slot = nextUnused++;
+		}
+
+		items[slot] = item;
+		left[slot] = NIL;
+		right[slot] = NIL;
+		parent[slot] = NIL;
+
+		return slot;
+	}
+
+	/**
+	 * Pushes slot onto the free list. The item reference is cleared so it can be
+	 * collected.
+	 *
+	 * @param slot the slot to free
+	 */
+	private void release(int slot) {
+		items[slot] = null;
+		left[slot] = freeHead;
+		freeHead = slot;
+	}
+
+	/**
+	 * Grows every array in the pool by half.
+	 */
+	private void grow() {
+		int capacity = items.length + Math.max(1, items.length >> 1);
+
+		items = Arrays.copyOf(items, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+	}
+
+	/**
+	 * Returns the slot storing item.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return the slot storing item, or NIL if item is not stored
+	 */
+	private int findSlot(T item) {
+		int slot = root;
+		int comparison;
+
+		while(slot != NIL && (comparison = order.compare(item, item(slot))) != 0) {
+			slot = (comparison < 0 ? left[slot] : right[slot]);
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Returns the leftmost slot in the subtree rooted at slot.
+	 */
+	private int firstSlot(int slot) {
+		while(left[slot] != NIL) {
+			slot = left[slot];
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Returns the slot that follows slot in sorted order, or NIL if there is none.
+	 */
+	private int nextSlot(int slot) {
+		if(right[slot] != NIL) {
+			return firstSlot(right[slot]);
+		}
+
+		int parentSlot = parent[slot];
+
+		while(parentSlot != NIL && right[parentSlot] == slot) {
+			slot = parentSlot;
+			parentSlot = parent[slot];
+		}
+
+		return parentSlot;
+	}
+
+	/**
+	 * Returns the item stored in slot.
+	 */
+	@SuppressWarnings("unchecked")
+	private T item(int slot) {
+		return (T) items[slot];
+	}
+
+	/**
+	 * SlotIterator walks the slots in sorted order. It fails fast if the tree is
+	 * modified other than through the iterator.
+	 */
+	private class SlotIterator implements Iterator<T> {
+		private int next;
+		private final int expectedModificationCount;
+
+		SlotIterator() {
+			next = (root == NIL ? NIL : firstSlot(root));
+			expectedModificationCount = modificationCount;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (next != NIL);
+		}
+
+		@Override
+		public T next() {
+			if(next == NIL) {
+				throw new NoSuchElementException();
+			}
+
+			if(modificationCount != expectedModificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			int slot = next;
+			next = nextSlot(slot);
+
+			return item(slot);
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ScapegoatTree is a BinarySearchTree that protects itself from pathological
+ * insertion orders without storing any balance information beyond the heights
+ * and sizes every node already caches. Inserts and removes work exactly like
+ * in BinarySearchTree until the tree gets too deep:
+ *
+ * - If an insert places a node deeper than log(n) in base 1/alpha, the lowest
+ *   ancestor of that node whose subtree is too tall for its size (the
+ *   scapegoat) is found and its subtree is rebuilt into a perfectly balanced
+ *   one. The root always qualifies, so a scapegoat always exists.
+ * - If removes shrink the tree below alpha times its largest size since the
+ *   last full rebuild, the whole tree is rebuilt.
+ *
+ * Rebuilding a subtree of k nodes takes O(k), but rebuilds are rare enough that
+ * inserts and removes are O(log(n)) amortized, and the height stays O(log(n)).
+ * Lookups never restructure the tree. Lower values of alpha keep the tree
+ * shallower at the cost of more rebuilds.
+ *
+ * The number of rebuilds is reported by getRebuildCount(), and the shape of the
+ * tree by getHeight(), getAverageDepth(), and getDepthHistogram(). If
+ * duplicates are counted (see {@link #setCountingDuplicates(boolean)}), n
+ * counts every copy, so the depth bound is looser than the number of nodes
+ * alone would allow.
+ */
+public class ScapegoatTree<T> extends BinarySearchTree<T> {
+	public static final double DEFAULT_BALANCE_FACTOR = 0.7;
+
+	private double balanceFactor;	// alpha; no subtree may be deeper than log(size) in base 1/alpha.
+	private int maxSize;	// The largest size since the whole tree was last rebuilt.
+	private int rebuildCount;
+
+	/**
+	 * Creates an empty ScapegoatTree.
+	 */
+	public ScapegoatTree() {
+		super();
+
+		balanceFactor = DEFAULT_BALANCE_FACTOR;
+	}
+
+	/**
+	 * Creates an empty ScapegoatTree that will use comparator to compare items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public ScapegoatTree(Comparator<T> comparator) {
+		super(comparator);
+
+		balanceFactor = DEFAULT_BALANCE_FACTOR;
+	}
+
+	/**
+	 * Creates a ScapegoatTree initialized with data.
+	 *
+	 * @param data the items to insert in the ScapegoatTree
+	 */
+	public ScapegoatTree(T[] data) {
+		this();
+
+		load(Arrays.asList(data), false);
+	}
+
+	/**
+	 * Creates a ScapegoatTree initialized with data. Comparator will be used for
+	 * all comparison related to the new ScapegoatTree.
+	 *
+	 * @param data the items to insert in the ScapegoatTree
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public ScapegoatTree(T[] data, Comparator<T> comparator) {
+		this(comparator);
+
+		load(Arrays.asList(data), false);
+	}
+
+	/**
+	 * Creates a ScapegoatTree initialized with data.
+	 *
+	 * @param data the items to insert in the ScapegoatTree
+	 */
+	public ScapegoatTree(List<T> data) {
+		this();
+
+		load(data, false);
+	}
+
+	/**
+	 * Creates a ScapegoatTree initialized with data. Comparator will be used for
+	 * all comparison related to the new ScapegoatTree.
+	 *
+	 * @param data the items to insert in the ScapegoatTree
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public ScapegoatTree(List<T> data, Comparator<T> comparator) {
+		this(comparator);
+
+		load(data, false);
+	}
+
+	/**
+	 * Sets alpha, the balance factor of this ScapegoatTree. The new value applies
+	 * from the next insert or remove; the tree is not rebuilt immediately.
+	 *
+	 * @throws IllegalArgumentException if alpha is not in the range (0.5, 1)
+	 *
+	 * @param alpha the new balance factor
+	 */
+	public void setBalanceFactor(double alpha) {
+		if(!(alpha > 0.5 && alpha < 1)) {
+			throw new IllegalArgumentException("Balance factor must be in the range (0.5, 1).");
+		}
+
+		balanceFactor = alpha;
+	}
+
+	/**
+	 * Returns alpha, the balance factor of this ScapegoatTree.
+	 *
+	 * @return the balance factor
+	 */
+	public double getBalanceFactor() {
+		return balanceFactor;
+	}
+
+	/**
+	 * Returns the number of subtrees (including the whole tree) that have been
+	 * rebuilt since this ScapegoatTree was created.
+	 *
+	 * @return the number of rebuilds
+	 */
+	public int getRebuildCount() {
+		return rebuildCount;
+	}
+
+	/**
+	 * Inserts item into this ScapegoatTree, rebuilding the scapegoat's subtree if
+	 * the new node is too deep.
+	 *
+	 * @param item the item to insert
+	 */
+	@Override
+	public void insert(T item) {
+		BinaryTreeNode<T> node = insertNode(item);
+
+		modificationCount++;
+		retrace(node.parent);
+
+		maxSize = Math.max(maxSize, size());
+
+		if(depth(node) > depthBound(size())) {
+			rebuild(findScapegoat(node));
+		}
+	}
+
+	/**
+	 * Rebuilds the whole tree after a removal, whether it was made by remove() or
+	 * through an iterator, if the tree has shrunk too much since it was last
+	 * rebuilt.
+	 *
+	 * @param node the deepest node whose subtree changed; may be null
+	 */
+	@Override
+	protected void afterRemove(BinaryTreeNode<T> node) {
+		if(size() < balanceFactor * maxSize) {
+			if(head != null) {
+				rebuild(head);
+			}
+
+			maxSize = size();
+		}
+	}
+
+	/**
+	 * Returns the largest depth allowed in a subtree storing size items.
+	 *
+	 * @param size the number of items in the subtree
+	 *
+	 * @return log(size) in base 1/alpha, rounded down
+	 */
+	private int depthBound(int size) {
+		return (int) Math.floor(Math.log(size) / Math.log(1 / balanceFactor));
+	}
+
+	/**
+	 * Returns the depth of node, where the root has a depth of 0.
+	 *
+	 * @param node a node in this ScapegoatTree
+	 *
+	 * @return the number of edges between node and the root
+	 */
+	private static int depth(BinaryTreeNode<?> node) {
+		int depth = 0;
+
+		while(node.parent != null) {
+			node = node.parent;
+			depth++;
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Returns the lowest proper ancestor of node whose subtree is deeper than
+	 * its size allows. The ancestors' heights must already be up to date.
+	 *
+	 * @param node a node that is deeper than the whole tree allows
+	 *
+	 * @return the root of the subtree to rebuild
+	 */
+	private BinaryTreeNode<T> findScapegoat(BinaryTreeNode<T> node) {
+		do {
+			node = node.parent;
+		} while(node.parent != null && node.height - 1 <= depthBound(node.size));
+
+		return node;
+	}
+
+	/**
+	 * Relinks the nodes in the subtree rooted at root into a perfectly balanced
+	 * subtree and updates its ancestors. The nodes themselves are reused, so
+	 * anything a subclass stores in them is kept.
+	 *
+	 * @param root the root of the subtree to rebuild
+	 */
+	private void rebuild(BinaryTreeNode<T> root) {
+		BinaryTreeNode<T> parent = root.parent;
+		BinaryTreeNode<T> last = root;
+		BinaryTreeNode<T> node = root;
+		List<BinaryTreeNode<T>> nodes = new ArrayList<>();
+
+		while(last.rightChild != null) {
+			last = last.rightChild;
+		}
+
+		while(node.leftChild != null) {
+			node = node.leftChild;
+		}
+
+		// Collect every node before any links change, since nextNode() follows them.
+		while(true) {
+			nodes.add(node);
+
+			if(node == last) {
+				break;
+			}
+
+			node = nextNode(node);
+		}
+
+		replaceChild(parent, root, link(nodes, 0, nodes.size(), parent));
+		retrace(parent);
+
+		rebuildCount++;
+	}
+
+	/**
+	 * Links the sorted nodes in [start, end) into a perfectly balanced subtree by
+	 * making the middle node the root and recursing on each half.
+	 *
+	 * @param nodes the nodes in sorted order
+	 * @param start the index of the first node (inclusive)
+	 * @param end the index of the last node (exclusive)
+	 * @param parent the parent of the new subtree
+	 *
+	 * @return the root of the new subtree, or null if the range is empty
+	 */
+	private BinaryTreeNode<T> link(List<BinaryTreeNode<T>> nodes, int start, int end, BinaryTreeNode<T> parent) {
+		if(start >= end) {
+			return null;
+		}
+
+		int middle = (start + end) >>> 1;
+
+		BinaryTreeNode<T> node = nodes.get(middle);
+		node.parent = parent;
+		node.leftChild = link(nodes, start, middle, node);
+		node.rightChild = link(nodes, middle + 1, end, node);
+
+		update(node);
+
+		return node;
+	}
+}
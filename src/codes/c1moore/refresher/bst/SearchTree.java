@@ -0,0 +1,59 @@
+package codes.c1moore.refresher.bst;
+
+/**
+ * SearchTree defines the contract shared by the ordered-set engines in this
+ * package, so that code can be written against SearchTree and the engine can
+ * be swapped based on the workload (e.g. BinarySearchTree for small or random
+ * data, AVLTree for adversarial insertion orders, or BPlusTree for very large
+ * sets).
+ *
+ * Iteration is always in ascending order. Whether duplicate items are retained
+ * is up to the implementation: BinarySearchTree and its subclasses store every
+ * copy, while set-based engines ignore an insertion of an item that is already
+ * stored.
+ */
+public interface SearchTree<T> extends Iterable<T> {
+	/**
+	 * Inserts item into the SearchTree.
+	 *
+	 * @param item the item to insert
+	 */
+	void insert(T item);
+
+	/**
+	 * Returns if item is stored in the SearchTree.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in the SearchTree
+	 */
+	boolean has(T item);
+
+	/**
+	 * Removes a single copy of item from the SearchTree, if it is stored.
+	 *
+	 * @param item the item to remove
+	 */
+	void remove(T item);
+
+	/**
+	 * Returns the minimum item in the SearchTree.
+	 *
+	 * @return the minimum item or null if the SearchTree is empty
+	 */
+	T getMinimum();
+
+	/**
+	 * Returns the maximum item in the SearchTree.
+	 *
+	 * @return the maximum item or null if the SearchTree is empty
+	 */
+	T getMaximum();
+
+	/**
+	 * Returns the number of items stored in the SearchTree.
+	 *
+	 * @return the number of items in the SearchTree
+	 */
+	int size();
+}
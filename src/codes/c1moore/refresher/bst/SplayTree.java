@@ -0,0 +1,188 @@
+package codes.c1moore.refresher.bst;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * SplayTree is a self-adjusting BinarySearchTree. Every insert(), has(), and
+ * remove() finishes by splaying: the node that was accessed is rotated all the
+ * way up to the root, in pairs of rotations that also roughly halve the depth
+ * of every node along the way.
+ *
+ * No balance information is kept, and a single operation may still take O(n),
+ * but any sequence of operations is O(log(n)) amortized per operation.
+ * Moreover, recently accessed items stay near the root, so an item that was
+ * accessed k distinct items ago is found in O(log(k)) amortized (the working
+ * set bound). This suits skewed workloads where a few hot items receive most
+ * of the lookups.
+ *
+ * Because lookups restructure the tree, SplayTree is not safe for concurrent
+ * readers. Rotations never change the order of the items, so iterators are not
+ * invalidated by has().
+ *
+ * SplayTree orders items exactly like BinarySearchTree: a Comparator passed to
+ * the constructor is used if one is specified; otherwise all items must
+ * implement Comparable.
+ */
+public class SplayTree<T> extends BinarySearchTree<T> {
+	/**
+	 * Creates an empty SplayTree.
+	 */
+	public SplayTree() {
+		super();
+	}
+
+	/**
+	 * Creates an empty SplayTree that will use comparator to compare items.
+	 *
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public SplayTree(Comparator<T> comparator) {
+		super(comparator);
+	}
+
+	/**
+	 * Creates a SplayTree initialized with data.
+	 *
+	 * @param data the items to insert in the SplayTree
+	 */
+	public SplayTree(T[] data) {
+		super(data);
+	}
+
+	/**
+	 * Creates a SplayTree initialized with data. Comparator will be used for all
+	 * comparison related to the new SplayTree.
+	 *
+	 * @param data the items to insert in the SplayTree
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public SplayTree(T[] data, Comparator<T> comparator) {
+		super(data, comparator);
+	}
+
+	/**
+	 * Creates a SplayTree initialized with data.
+	 *
+	 * @param data the items to insert in the SplayTree
+	 */
+	public SplayTree(List<T> data) {
+		super(data);
+	}
+
+	/**
+	 * Creates a SplayTree initialized with data. Comparator will be used for all
+	 * comparison related to the new SplayTree.
+	 *
+	 * @param data the items to insert in the SplayTree
+	 * @param comparator a Comparator that should be used to compare items
+	 */
+	public SplayTree(List<T> data, Comparator<T> comparator) {
+		super(data, comparator);
+	}
+
+	/**
+	 * Inserts item into this SplayTree and splays the node storing it to the root.
+	 *
+	 * @param item the item to insert
+	 */
+	@Override
+	public void insert(T item) {
+		BinaryTreeNode<T> node = insertNode(item);
+
+		modificationCount++;
+
+		// Every ancestor of the new node is rotated, and so updated, on the way up.
+		splay(node);
+	}
+
+	/**
+	 * Returns if item is stored in this SplayTree. The node storing item, or the
+	 * last node visited if item is not stored, is splayed to the root. Nothing is
+	 * splayed if a membership filter rejects item.
+	 *
+	 * @param item the item to search for
+	 *
+	 * @return true iff item is stored in this SplayTree
+	 */
+	@Override
+	public boolean has(T item) {
+		if(!passesFilter(item)) {
+			return false;
+		}
+
+		BinaryTreeNode<T> currentNode = head;
+		BinaryTreeNode<T> lastNode = null;
+
+		while(currentNode != null) {
+			lastNode = currentNode;
+
+			int comparison = order.compare(item, currentNode.item);
+
+			if(comparison == 0) {
+				break;
+			}
+
+			currentNode = (comparison < 0 ? currentNode.leftChild : currentNode.rightChild);
+		}
+
+		if(lastNode != null) {
+			splay(lastNode);
+		}
+
+		return recordLookup(currentNode != null);
+	}
+
+	/**
+	 * Splays the parent of the removed node to the root after a removal, whether
+	 * it was made by remove() or through an iterator. If duplicates are counted
+	 * and the node stored more than 1 copy, that node is splayed instead.
+	 *
+	 * @param node the deepest node whose subtree changed; may be null
+	 */
+	@Override
+	protected void afterRemove(BinaryTreeNode<T> node) {
+		if(node != null) {
+			splay(node);
+		}
+	}
+
+	/**
+	 * Rotates node up to the root. Each rotation updates the 2 nodes it moves, and
+	 * every ancestor of node is moved, so the whole path ends up updated.
+	 *
+	 * @param node the node to splay
+	 */
+	private void splay(BinaryTreeNode<T> node) {
+		while(node.parent != null) {
+			BinaryTreeNode<T> parent = node.parent;
+			BinaryTreeNode<T> grandparent = parent.parent;
+
+			if(grandparent == null) {
+				// Zig: node is a child of the root.
+				rotateUp(node);
+			} else if((grandparent.leftChild == parent) == (parent.leftChild == node)) {
+				// Zig-zig: rotate the parent first so the path is folded in half.
+				rotateUp(parent);
+				rotateUp(node);
+			} else {
+				// Zig-zag.
+				rotateUp(node);
+				rotateUp(node);
+			}
+		}
+	}
+
+	/**
+	 * Rotates node into its parent's position.
+	 *
+	 * @param node a node that has a parent
+	 */
+	private void rotateUp(BinaryTreeNode<T> node) {
+		if(node.parent.leftChild == node) {
+			rotateRight(node.parent);
+		} else {
+			rotateLeft(node.parent);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package codes.c1moore.refresher.common;
+
+/**
+ * Codec converts items to and from the bytes a structure stores on disk, such
+ * as the log and checkpoints of a DurableSearchTree or the runs of an LSMTree.
+ * Decoding the bytes of an encoded item must return an equal item.
+ */
+public interface Codec<T> {
+	/**
+	 * Returns the bytes that represent item.
+	 *
+	 * @param item the item to encode
+	 *
+	 * @return item's bytes
+	 */
+	byte[] encode(T item);
+
+	/**
+	 * Returns the item represented by bytes.
+	 *
+	 * @param bytes bytes returned by encode()
+	 *
+	 * @return the decoded item
+	 */
+	T decode(byte[] bytes);
+}
@@ -1,5 +1,7 @@
 package codes.c1moore.refresher.common;
 
+import java.util.Comparator;
+
 /**
  * Comparison is an enumeration of the different relative equalities (or
  * inequalities) possible when comparing 2 values. Comparison hides the
@@ -41,4 +43,23 @@ public enum Comparison {
 
 		return Comparison.EQUAL;
 	}
+
+	/**
+	 * Returns comparator, or the natural order if comparator is null. The natural
+	 * order casts each left-hand operand to Comparable, which throws a
+	 * ClassCastException if the items cannot be compared. Resolving the ordering
+	 * once lets a structure make each comparison with a single call.
+	 *
+	 * @param comparator the Comparator to use, or null to use the natural order
+	 *
+	 * @return a Comparator that is never null
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Comparator<T> resolve(Comparator<T> comparator) {
+		if(comparator != null) {
+			return comparator;
+		}
+
+		return (lhs, rhs) -> ((Comparable<T>) lhs).compareTo(rhs);
+	}
 }
\ No newline at end of file
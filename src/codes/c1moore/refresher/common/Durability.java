@@ -0,0 +1,60 @@
+package codes.c1moore.refresher.common;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Durability holds the file operations shared by the structures that store
+ * their data on disk. Forcing a file to disk does not force the directory
+ * entry that names it, so a file that is created or renamed is only certain
+ * to survive a crash once its directory has been forced as well.
+ */
+public final class Durability {
+	private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+	private Durability() {
+	}
+
+	/**
+	 * Atomically renames source over target and forces their directory, so that
+	 * after a crash target holds either its old contents or all of source's. The
+	 * contents of source must already have been forced.
+	 *
+	 * @throws IOException if the file cannot be renamed or the directory cannot be
+	 *             forced
+	 *
+	 * @param source the file that holds the new contents
+	 * @param target the file to replace, in the same directory as source
+	 */
+	public static void replace(Path source, Path target) throws IOException {
+		Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory(target.toAbsolutePath().getParent());
+	}
+
+	/**
+	 * Forces the entries of directory to disk, so that the files created in,
+	 * renamed into, or deleted from it so far survive a crash.
+	 *
+	 * This is best-effort on Windows, which cannot open a directory as a file:
+	 * the failure is ignored there, and the rename relies on the file system's
+	 * own ordering of metadata updates instead.
+	 *
+	 * @throws IOException if the directory cannot be forced on a platform that
+	 *             supports forcing directories
+	 *
+	 * @param directory the directory to force
+	 */
+	public static void forceDirectory(Path directory) throws IOException {
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch(IOException e) {
+			if(!WINDOWS) {
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package codes.c1moore.refresher.filter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.ToIntFunction;
+
+/**
+ * BloomFilter is a probabilistic set that answers whether an item might have
+ * been added. It never returns a false negative, but may return a false
+ * positive for an item that was never added. Items cannot be removed; use
+ * CuckooFilter if they must be.
+ *
+ * Each item sets k bits of a bit array, chosen by double hashing a single
+ * 64-bit mix of the item's hash, and a lookup checks that all k bits are set.
+ * The array size and k are chosen from the expected number of items and the
+ * target false-positive rate, so that the target holds until that many items
+ * have been added. add() and mightContain() are O(k).
+ *
+ * A BloomFilter is never modified by a lookup, so once it is fully built it may
+ * be read from several threads. Its bits can be written to and read back from
+ * a stream, which lets a filter be stored alongside the data it describes. The
+ * hash function must then return the same value for an item in every run of
+ * the program, which Object.hashCode() does not guarantee.
+ */
+public class BloomFilter<T> {
+	private static final int MAXIMUM_HASHES = 30;
+
+	private final ToIntFunction<? super T> hash;
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * Creates an empty BloomFilter sized to hold capacity items with a
+	 * false-positive rate of at most falsePositiveRate.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1 or
+	 *             falsePositiveRate is not in the range (0, 1)
+	 *
+	 * @param capacity the number of items the filter should be able to hold
+	 * @param falsePositiveRate the target probability of a false positive
+	 * @param hash the function that identifies an item
+	 */
+	public BloomFilter(int capacity, double falsePositiveRate, ToIntFunction<? super T> hash) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1.");
+		}
+
+		if(!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False-positive rate must be between 0 and 1.");
+		}
+
+		// The optimal size is -n ln(p) / ln(2)^2 bits, using (m / n) ln(2) hashes.
+		double optimalBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		long words = Math.max(1, (long) Math.ceil(optimalBits / Long.SIZE));
+
+		this.hash = hash;
+		this.bits = new long[(int) words];
+		this.bitCount = words * Long.SIZE;
+		this.hashCount = (int) Math.max(1, Math.min(MAXIMUM_HASHES, Math.round((double) bitCount / capacity * Math.log(2))));
+	}
+
+	/**
+	 * Creates a BloomFilter from bits read by readFrom().
+	 */
+	private BloomFilter(long[] bits, int hashCount, ToIntFunction<? super T> hash) {
+		this.hash = hash;
+		this.bits = bits;
+		this.bitCount = (long) bits.length * Long.SIZE;
+		this.hashCount = hashCount;
+	}
+
+	/**
+	 * Reads a BloomFilter written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @throws IOException if the filter cannot be read
+	 *
+	 * @param input the stream to read from
+	 * @param hash the function the filter was built with
+	 *
+	 * @return the filter that was written
+	 */
+	public static <T> BloomFilter<T> readFrom(DataInput input, ToIntFunction<? super T> hash) throws IOException {
+		int hashCount = input.readInt();
+		int words = input.readInt();
+
+		if(hashCount < 1 || hashCount > MAXIMUM_HASHES || words < 1) {
+			throw new IOException("Invalid Bloom filter.");
+		}
+
+		long[] bits = new long[words];
+
+		for(int word = 0; word < words; word++) {
+			bits[word] = input.readLong();
+		}
+
+		return new BloomFilter<>(bits, hashCount, hash);
+	}
+
+	/**
+	 * Writes this BloomFilter to output so that it can be read by
+	 * {@link #readFrom(DataInput, ToIntFunction)}.
+	 *
+	 * @throws IOException if the filter cannot be written
+	 *
+	 * @param output the stream to write to
+	 */
+	public void writeTo(DataOutput output) throws IOException {
+		output.writeInt(hashCount);
+		output.writeInt(bits.length);
+
+		for(long word: bits) {
+			output.writeLong(word);
+		}
+	}
+
+	/**
+	 * Adds item to this BloomFilter.
+	 *
+	 * @param item the item to add
+	 */
+	public void add(T item) {
+		long hashCode = mix(hash.applyAsInt(item));
+		long first = hashCode >>> 32;
+		long second = hashCode & 0xffffffffL;
+
+		for(int index = 0; index < hashCount; index++) {
+			long bit = (first + index * second) % bitCount;
+
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * Returns whether item might have been added to this BloomFilter.
+	 *
+	 * @param item the item to look up
+	 *
+	 * @return false if item was definitely not added, or true if it might have been
+	 */
+	public boolean mightContain(T item) {
+		long hashCode = mix(hash.applyAsInt(item));
+		long first = hashCode >>> 32;
+		long second = hashCode & 0xffffffffL;
+
+		for(int index = 0; index < hashCount; index++) {
+			long bit = (first + index * second) % bitCount;
+
+			if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of bits used by this BloomFilter.
+	 *
+	 * @return the size of the bit array
+	 */
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	/**
+	 * Returns the number of bits each item sets.
+	 *
+	 * @return the number of hash functions
+	 */
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	/**
+	 * Returns the number of bytes used by the bit array.
+	 *
+	 * @return the memory used by the bits, in bytes
+	 */
+	public long getMemoryUsage() {
+		return (long) bits.length * Long.BYTES;
+	}
+
+	/**
+	 * Returns the expected false-positive rate given the fraction of bits that are
+	 * set: the probability that all k bits of an item that was never added are set.
+	 *
+	 * @return the expected probability of a false positive
+	 */
+	public double getExpectedFalsePositiveRate() {
+		long set = 0;
+
+		for(long word: bits) {
+			set += Long.bitCount(word);
+		}
+
+		return Math.pow((double) set / bitCount, hashCount);
+	}
+
+	/**
+	 * Spreads the bits of hashCode over a long (the finalizer of MurmurHash3), so
+	 * that similar hash codes set unrelated bits.
+	 */
+	private static long mix(int hashCode) {
+		long mixed = hashCode;
+
+		mixed ^= mixed >>> 33;
+		mixed *= 0xff51afd7ed558ccdL;
+		mixed ^= mixed >>> 33;
+		mixed *= 0xc4ceb9fe1a85ec53L;
+		mixed ^= mixed >>> 33;
+
+		return mixed;
+	}
+}
@@ -0,0 +1,319 @@
+package codes.c1moore.refresher.filter;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * CuckooFilter is a probabilistic set that answers whether an item might have
+ * been added. It never returns a false negative, but may return a false
+ * positive for an item that was never added. Unlike a Bloom filter, items can
+ * also be removed.
+ *
+ * Each item is reduced to a 16-bit fingerprint that is stored in one of 2
+ * candidate buckets of 4 slots each. The second bucket is computed from the
+ * first and the fingerprint alone, so a stored fingerprint can be moved
+ * between its buckets without knowing the original item. If both buckets are
+ * full, a random fingerprint is evicted and moved to its other bucket, and so
+ * on (cuckoo hashing). A lookup reads at most 2 buckets, so add(),
+ * mightContain(), and remove() are O(1) (add() amortized).
+ *
+ * Items are identified only by the hash function passed to the constructor, so
+ * items with equal hashes are indistinguishable. A false positive occurs when
+ * another item shares a bucket and fingerprint, which for a filter at load
+ * factor l happens with probability of about 8l / 65535.
+ *
+ * Only items that were added may be removed; removing anything else may remove
+ * the fingerprint of a different item and cause a false negative. The same
+ * item may be added more than once, in which case it must be removed as many
+ * times, but at most 8 copies of a fingerprint fit in its 2 buckets.
+ */
+public class CuckooFilter<T> {
+	/**
+	 * The number of fingerprints stored in each bucket.
+	 */
+	public static final int BUCKET_SIZE = 4;
+
+	private static final int MAXIMUM_KICKS = 500;
+	private static final double MAXIMUM_LOAD = 0.95;	// The load factor a new filter is sized to stay under.
+
+	private final ToIntFunction<? super T> hash;
+	private final short[] fingerprints;	// BUCKET_SIZE slots per bucket; 0 marks an empty slot.
+	private final int bucketMask;
+	private int size;
+
+	private short victim;	// A fingerprint that could not be placed, or 0 if there is none.
+	private int victimBucket;
+	private int randomState;
+
+	/**
+	 * Creates an empty CuckooFilter with room for at least capacity items.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 *
+	 * @param capacity the number of items the filter should be able to hold
+	 * @param hash the function that identifies an item
+	 */
+	public CuckooFilter(int capacity, ToIntFunction<? super T> hash) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1.");
+		}
+
+		int buckets = Integer.highestOneBit((int) Math.ceil(capacity / (BUCKET_SIZE * MAXIMUM_LOAD)) * 2 - 1);
+
+		this.hash = hash;
+		this.fingerprints = new short[buckets * BUCKET_SIZE];
+		this.bucketMask = buckets - 1;
+
+		size = 0;
+		victim = 0;
+		randomState = 0x9e3779b9;
+	}
+
+	/**
+	 * Adds item to this CuckooFilter.
+	 *
+	 * @param item the item to add
+	 *
+	 * @return true if item was added, or false if the filter is too full
+	 */
+	public boolean add(T item) {
+		if(victim != 0) {
+			return false;
+		}
+
+		long hashCode = mix(hash.applyAsInt(item));
+		short fingerprint = fingerprint(hashCode);
+		int bucket = (int) hashCode & bucketMask;
+
+		if(place(bucket, fingerprint) || place(alternate(bucket, fingerprint), fingerprint)) {
+			size++;
+			return true;
+		}
+
+		// Evict fingerprints until one fits, starting from either bucket.
+		if((nextRandom() & 1) == 0) {
+			bucket = alternate(bucket, fingerprint);
+		}
+
+		for(int kick = 0; kick < MAXIMUM_KICKS; kick++) {
+			int slot = bucket * BUCKET_SIZE + (nextRandom() & (BUCKET_SIZE - 1));
+			short evicted = fingerprints[slot];
+
+			fingerprints[slot] = fingerprint;
+			fingerprint = evicted;
+			bucket = alternate(bucket, fingerprint);
+
+			if(place(bucket, fingerprint)) {
+				size++;
+				return true;
+			}
+		}
+
+		// Keep the last evicted fingerprint aside so nothing that was added is lost.
+		victim = fingerprint;
+		victimBucket = bucket;
+		size++;
+
+		return true;
+	}
+
+	/**
+	 * Returns whether item might have been added to this CuckooFilter.
+	 *
+	 * @param item the item to look up
+	 *
+	 * @return false if item was definitely not added, or true if it might have been
+	 */
+	public boolean mightContain(T item) {
+		long hashCode = mix(hash.applyAsInt(item));
+		short fingerprint = fingerprint(hashCode);
+		int bucket = (int) hashCode & bucketMask;
+		int alternate = alternate(bucket, fingerprint);
+
+		if(contains(bucket, fingerprint) || contains(alternate, fingerprint)) {
+			return true;
+		}
+
+		return (victim == fingerprint && (victimBucket == bucket || victimBucket == alternate));
+	}
+
+	/**
+	 * Removes a single copy of item from this CuckooFilter. item must have been
+	 * added.
+	 *
+	 * @param item the item to remove
+	 *
+	 * @return true iff a fingerprint of item was found and removed
+	 */
+	public boolean remove(T item) {
+		long hashCode = mix(hash.applyAsInt(item));
+		short fingerprint = fingerprint(hashCode);
+		int bucket = (int) hashCode & bucketMask;
+		int alternate = alternate(bucket, fingerprint);
+
+		if(victim == fingerprint && (victimBucket == bucket || victimBucket == alternate)) {
+			victim = 0;
+			size--;
+
+			return true;
+		}
+
+		if(!erase(bucket, fingerprint) && !erase(alternate, fingerprint)) {
+			return false;
+		}
+
+		size--;
+
+		// A slot was freed, so the victim may fit now.
+		if(victim != 0 && (place(victimBucket, victim) || place(alternate(victimBucket, victim), victim))) {
+			victim = 0;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of fingerprints stored in this CuckooFilter.
+	 *
+	 * @return the number of items added and not removed
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of fingerprint slots in this CuckooFilter.
+	 *
+	 * @return the number of slots
+	 */
+	public int getCapacity() {
+		return fingerprints.length;
+	}
+
+	/**
+	 * Returns the fraction of slots that are in use.
+	 *
+	 * @return the load factor, in the range [0, 1]
+	 */
+	public double getLoadFactor() {
+		return (double) size / fingerprints.length;
+	}
+
+	/**
+	 * Returns the number of bytes used by the fingerprint table.
+	 *
+	 * @return the memory used by the fingerprints, in bytes
+	 */
+	public long getMemoryUsage() {
+		return (long) fingerprints.length * Short.BYTES;
+	}
+
+	/**
+	 * Returns the expected false-positive rate at the current load factor: the
+	 * probability that one of the fingerprints in the 2 buckets of an item that
+	 * was never added matches its own.
+	 *
+	 * @return the expected probability of a false positive
+	 */
+	public double getExpectedFalsePositiveRate() {
+		double occupied = 2 * BUCKET_SIZE * getLoadFactor();
+
+		return 1 - Math.pow(1 - 1.0 / 0xffff, occupied);
+	}
+
+	/**
+	 * Stores fingerprint in an empty slot of bucket, if there is one.
+	 *
+	 * @return true iff fingerprint was stored
+	 */
+	private boolean place(int bucket, short fingerprint) {
+		int start = bucket * BUCKET_SIZE;
+
+		for(int slot = start; slot < start + BUCKET_SIZE; slot++) {
+			if(fingerprints[slot] == 0) {
+				fingerprints[slot] = fingerprint;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns true iff bucket stores fingerprint.
+	 */
+	private boolean contains(int bucket, short fingerprint) {
+		int start = bucket * BUCKET_SIZE;
+
+		for(int slot = start; slot < start + BUCKET_SIZE; slot++) {
+			if(fingerprints[slot] == fingerprint) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Clears a single slot of bucket that stores fingerprint, if there is one.
+	 *
+	 * @return true iff a slot was cleared
+	 */
+	private boolean erase(int bucket, short fingerprint) {
+		int start = bucket * BUCKET_SIZE;
+
+		for(int slot = start; slot < start + BUCKET_SIZE; slot++) {
+			if(fingerprints[slot] == fingerprint) {
+				fingerprints[slot] = 0;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the other candidate bucket of fingerprint. Applying this twice
+	 * returns the original bucket.
+	 */
+	private int alternate(int bucket, short fingerprint) {
+		return (bucket ^ ((fingerprint * 0x5bd1e995) >>> 7)) & bucketMask;
+	}
+
+	/**
+	 * Returns the non-zero 16-bit fingerprint of a mixed hash code. The
+	 * fingerprint is taken from the high bits, which do not choose the bucket.
+	 */
+	private static short fingerprint(long hashCode) {
+		int fingerprint = (int) (hashCode >>> 48);
+
+		return (short) (fingerprint == 0 ? 1 : fingerprint);
+	}
+
+	/**
+	 * Spreads the bits of hashCode over a long (the finalizer of MurmurHash3), so
+	 * that similar hash codes choose unrelated buckets and fingerprints.
+	 */
+	private static long mix(int hashCode) {
+		long mixed = hashCode;
+
+		mixed ^= mixed >>> 33;
+		mixed *= 0xff51afd7ed558ccdL;
+		mixed ^= mixed >>> 33;
+		mixed *= 0xc4ceb9fe1a85ec53L;
+		mixed ^= mixed >>> 33;
+
+		return mixed;
+	}
+
+	/**
+	 * Returns the next value of a xorshift generator, used to pick the slot to
+	 * evict.
+	 */
+	private int nextRandom() {
+		randomState ^= randomState << 13;
+		randomState ^= randomState >>> 17;
+		randomState ^= randomState << 5;
+
+		return randomState;
+	}
+}
@@ -1,5 +1,8 @@
 package codes.c1moore.refresher.heap;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Heap defines an interface for all Heaps; min, max, or otherwise; as well as
  * some useful methods common to all Heaps.
@@ -14,8 +17,50 @@ package codes.c1moore.refresher.heap;
  * elements inserted into the Heap. This would add another layer of abstraction
  * to the Heap, as it would no longer have to worry about how comparisons were
  * made, it would leave that up to the elements.
+ *
+ * Arbitrary elements can be removed from a Heap lazily. Instead of searching
+ * for the element and restoring the heap property, the element is marked with
+ * a tombstone and skipped once it reaches the root. When the fraction of
+ * tombstoned entries exceeds the compaction threshold, the Heap implementation
+ * should drop all tombstoned entries and re-heapify, so removals cost O(1)
+ * amortized. Tombstones are matched using equals() and hashCode(), so elements
+ * must implement both consistently with their ordering.
  */
 public abstract class Heap<T> {
+	/**
+	 * The fraction of tombstoned entries at which a Heap is compacted, unless
+	 * {@link #setCompactionThreshold(double)} is called.
+	 */
+	public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+	private Map<T, Integer> liveCounts;	// How many live copies of each element are stored?
+	private Map<T, Integer> tombstones;	// How many copies of each element have been removed but not discarded?
+	private int tombstoneCount;			// The total number of tombstoned entries.
+	private double compactionThreshold;
+
+	/**
+	 * Creates a new Heap without any tombstones.
+	 */
+	protected Heap() {
+		liveCounts = new HashMap<>();
+		tombstones = new HashMap<>();
+		tombstoneCount = 0;
+		compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+	}
+
+	/**
+	 * Creates a new Heap with the same tombstones and compaction threshold as
+	 * original. The Heap implementation is responsible for copying the elements.
+	 *
+	 * @param original the Heap whose bookkeeping should be copied
+	 */
+	protected Heap(Heap<T> original) {
+		liveCounts = new HashMap<>(original.liveCounts);
+		tombstones = new HashMap<>(original.tombstones);
+		tombstoneCount = original.tombstoneCount;
+		compactionThreshold = original.compactionThreshold;
+	}
+
 	/**
 	 * Inserts element into its appropriate position within the Heap.
 	 *
@@ -44,6 +89,135 @@ public abstract class Heap<T> {
 	 */
 	public abstract boolean isEmpty();
 
+	/**
+	 * Removes a single copy of element from the Heap. The element is only
+	 * tombstoned; it is physically discarded when it reaches the root or when the
+	 * Heap is compacted.
+	 *
+	 * @param element the element to remove
+	 *
+	 * @return true iff a copy of element was stored in the Heap
+	 */
+	public abstract boolean remove(T element);
+
+	/**
+	 * Sets the fraction of tombstoned entries at which the Heap is compacted.
+	 * Lower values use less memory, higher values compact less often.
+	 *
+	 * @throws IllegalArgumentException if fraction is not in the range (0, 1]
+	 *
+	 * @param fraction the fraction of tombstoned entries that triggers compaction
+	 */
+	public void setCompactionThreshold(double fraction) {
+		if(!(fraction > 0 && fraction <= 1)) {
+			throw new IllegalArgumentException("Compaction threshold must be in the range (0, 1].");
+		}
+
+		compactionThreshold = fraction;
+	}
+
+	/**
+	 * Records that element has been added to the Heap.
+	 *
+	 * @param element the inserted element
+	 */
+	protected void recordInsertion(T element) {
+		liveCounts.merge(element, 1, Integer::sum);
+	}
+
+	/**
+	 * Records that a live copy of element has been popped from the Heap.
+	 *
+	 * @param element the popped element
+	 */
+	protected void recordPop(T element) {
+		decrement(liveCounts, element);
+	}
+
+	/**
+	 * Tombstones a single live copy of element.
+	 *
+	 * @param element the element to tombstone
+	 *
+	 * @return true iff a live copy of element existed
+	 */
+	protected boolean recordRemoval(T element) {
+		if(!decrement(liveCounts, element)) {
+			return false;
+		}
+
+		tombstones.merge(element, 1, Integer::sum);
+		tombstoneCount++;
+
+		return true;
+	}
+
+	/**
+	 * Consumes a tombstone for element, if one exists. This should be called
+	 * whenever an entry is about to be surfaced or kept; if it returns true, the
+	 * entry is dead and should be discarded instead.
+	 *
+	 * @param element the element stored in the entry
+	 *
+	 * @return true iff the entry was tombstoned
+	 */
+	protected boolean consumeTombstone(T element) {
+		if(tombstoneCount == 0 || !decrement(tombstones, element)) {
+			return false;
+		}
+
+		tombstoneCount--;
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of entries that have been tombstoned but not yet
+	 * discarded.
+	 *
+	 * @return the number of tombstoned entries
+	 */
+	protected int getTombstoneCount() {
+		return tombstoneCount;
+	}
+
+	/**
+	 * Returns whether a Heap with entryCount entries (live and tombstoned) should
+	 * be compacted.
+	 *
+	 * @param entryCount the number of entries in the backing storage
+	 *
+	 * @return true iff the tombstoned fraction exceeds the compaction threshold
+	 */
+	protected boolean shouldCompact(int entryCount) {
+		return (tombstoneCount > 0 && tombstoneCount >= entryCount * compactionThreshold);
+	}
+
+	/**
+	 * Decrements the count stored for element in counts, removing the mapping
+	 * when it reaches 0.
+	 *
+	 * @param counts the counts to update
+	 * @param element the element whose count should be decremented
+	 *
+	 * @return true iff element had a positive count
+	 */
+	private boolean decrement(Map<T, Integer> counts, T element) {
+		Integer count = counts.get(element);
+
+		if(count == null) {
+			return false;
+		}
+
+		if(count == 1) {
+			counts.remove(element);
+		} else {
+			counts.put(element, count - 1);
+		}
+
+		return true;
+	}
+
 	/**
 	 * Returns the index of the specified node's parent. If the specified node is
 	 * the root of the Heap (i.e. index is 0), 0 is returned.
@@ -34,6 +34,8 @@ public class MaxHeap<T> extends Heap<T> {
 	 * @param original another MaxHeap from which this MaxHeap should be generated
 	 */
 	public MaxHeap(MaxHeap<T> original) {
+		super(original);
+
 		heap = new ArrayList<>(original.heapSize);
 
 		heap.ensureCapacity(original.heapSize);
@@ -133,7 +135,9 @@ public class MaxHeap<T> extends Heap<T> {
 		heap.add(element);
 		heapSize++;
 
-		for(int parentIndex = getParentIndex(heapSize); isGreaterThan(element, heap.get(parentIndex)); parentIndex = getParentIndex(parentIndex)) {
+		recordInsertion(element);
+
+		for(int parentIndex = getParentIndex(elementIndex); isGreaterThan(element, heap.get(parentIndex)); parentIndex = getParentIndex(parentIndex)) {
 			heap.set(elementIndex, heap.get(parentIndex));
 			heap.set(parentIndex, element);
 
@@ -145,6 +149,8 @@ public class MaxHeap<T> extends Heap<T> {
 	 * @inheritDoc
 	 */
 	public T peek() {
+		discardTombstonedRoots();
+
 		if(heapSize == 0) {
 			return null;
 		}
@@ -156,19 +162,101 @@ public class MaxHeap<T> extends Heap<T> {
 	 * @inheritDoc
 	 */
 	public T pop() {
+		discardTombstonedRoots();
+
 		if(heapSize == 0) {
 			return null;
 		}
 
-		T maxValue = heap.get(0);
+		T maxValue = removeRoot();
+
+		recordPop(maxValue);
+
+		return maxValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isEmpty() {
+		return (heapSize == getTombstoneCount());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean remove(T element) {
+		if(!recordRemoval(element)) {
+			return false;
+		}
+
+		if(shouldCompact(heapSize)) {
+			compact();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Pops tombstoned entries off the root until the root is live or the MaxHeap
+	 * is empty.
+	 */
+	private void discardTombstonedRoots() {
+		while(heapSize > 0 && consumeTombstone(heap.get(0))) {
+			removeRoot();
+		}
+	}
+
+	/**
+	 * Removes the root entry, restoring the heap property, and returns it.
+	 *
+	 * @return the entry that was stored at the root
+	 */
+	private T removeRoot() {
+		T root = heap.get(0);
 		heapSize--;
 
-		T value = heap.get(heapSize);
+		T value = heap.remove(heapSize);
+
+		if(heapSize > 0) {
+			heap.set(0, value);
+			siftDown(0);
+		}
+
+		return root;
+	}
+
+	/**
+	 * Discards every tombstoned entry and rebuilds the heap from the survivors
+	 * bottom-up in O(n).
+	 */
+	private void compact() {
+		int liveIndex = 0;
 
-		heap.set(0, value);
-		heap.remove(heapSize);
+		for(int index = 0; index < heapSize; index++) {
+			T element = heap.get(index);
+
+			if(!consumeTombstone(element)) {
+				heap.set(liveIndex++, element);
+			}
+		}
+
+		heap.subList(liveIndex, heapSize).clear();
+		heapSize = liveIndex;
+
+		for(int index = getParentIndex(heapSize - 1); index >= 0; index--) {
+			siftDown(index);
+		}
+	}
 
-		int index = 0;
+	/**
+	 * Moves the entry at index down until neither of its children is greater than
+	 * it.
+	 *
+	 * @param index the index of the entry to move
+	 */
+	private void siftDown(int index) {
+		T value = heap.get(index);
 
 		while(true) {
 			int leftChildIndex = getLeftChildIndex(index);
@@ -178,44 +266,23 @@ public class MaxHeap<T> extends Heap<T> {
 				break;
 			}
 
-			T leftChild = heap.get(leftChildIndex);
-
-			if(rightChildIndex >= heapSize) {
-				if(isGreaterThan(leftChild, value)) {
-					heap.set(leftChildIndex, value);
-					heap.set(index, leftChild);
-				}
+			int greaterChildIndex = leftChildIndex;
 
-				break;
+			if(rightChildIndex < heapSize && isGreaterThan(heap.get(rightChildIndex), heap.get(leftChildIndex))) {
+				greaterChildIndex = rightChildIndex;
 			}
 
-			T rightChild = heap.get(rightChildIndex);
+			T greaterChild = heap.get(greaterChildIndex);
 
-			if(isGreaterThan(value, leftChild) && isGreaterThan(value, rightChild)) {
+			if(!isGreaterThan(greaterChild, value)) {
 				break;
 			}
 
-			if(isGreaterThan(leftChild, rightChild)) {
-				heap.set(leftChildIndex, value);
-				heap.set(index, leftChild);
-
-				index = leftChildIndex;
-			} else {
-				heap.set(rightChildIndex, value);
-				heap.set(index, rightChild);
-
-				index = rightChildIndex;
-			}
+			heap.set(index, greaterChild);
+			index = greaterChildIndex;
 		}
 
-		return maxValue;
-	}
-
-	/**
-	 * @inheritDoc
-	 */
-	public boolean isEmpty() {
-		return heap.isEmpty();
+		heap.set(index, value);
 	}
 
 	/**
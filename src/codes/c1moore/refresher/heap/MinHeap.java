@@ -29,6 +29,8 @@ public class MinHeap<T extends Comparable<T>> extends Heap<T> {
 	 * @param original another MinHeap from which this MinHeap should be generated
 	 */
 	public MinHeap(MinHeap<T> original) {
+		super(original);
+
 		heap = new ArrayList<>(original.heapSize);
 
 		heap.ensureCapacity(original.heapSize);
@@ -79,7 +81,9 @@ public class MinHeap<T extends Comparable<T>> extends Heap<T> {
 		heap.add(element);
 		heapSize++;
 
-		for(int parentIndex = getParentIndex(heapSize); element.compareTo(heap.get(parentIndex)) < 0; parentIndex = getParentIndex(parentIndex)) {
+		recordInsertion(element);
+
+		for(int parentIndex = getParentIndex(elementIndex); element.compareTo(heap.get(parentIndex)) < 0; parentIndex = getParentIndex(parentIndex)) {
 			T parent = heap.get(parentIndex);
 
 			heap.set(parentIndex, element);
@@ -93,6 +97,8 @@ public class MinHeap<T extends Comparable<T>> extends Heap<T> {
 	 * @inheritDoc
 	 */
 	public T peek() {
+		discardTombstonedRoots();
+
 		if(heapSize == 0) {
 			return null;
 		}
@@ -104,19 +110,100 @@ public class MinHeap<T extends Comparable<T>> extends Heap<T> {
 	 * @inheritDoc
 	 */
 	public T pop() {
+		discardTombstonedRoots();
+
 		if(heapSize == 0) {
 			return null;
 		}
 
-		T minValue = heap.get(0);
+		T minValue = removeRoot();
+
+		recordPop(minValue);
+
+		return minValue;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isEmpty() {
+		return (heapSize == getTombstoneCount());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean remove(T element) {
+		if(!recordRemoval(element)) {
+			return false;
+		}
+
+		if(shouldCompact(heapSize)) {
+			compact();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Pops tombstoned entries off the root until the root is live or the MinHeap
+	 * is empty.
+	 */
+	private void discardTombstonedRoots() {
+		while(heapSize > 0 && consumeTombstone(heap.get(0))) {
+			removeRoot();
+		}
+	}
+
+	/**
+	 * Removes the root entry, restoring the heap property, and returns it.
+	 *
+	 * @return the entry that was stored at the root
+	 */
+	private T removeRoot() {
+		T root = heap.get(0);
 		heapSize--;
 
-		T value = heap.get(heapSize);
+		T value = heap.remove(heapSize);
+
+		if(heapSize > 0) {
+			heap.set(0, value);
+			siftDown(0);
+		}
+
+		return root;
+	}
+
+	/**
+	 * Discards every tombstoned entry and rebuilds the heap from the survivors
+	 * bottom-up in O(n).
+	 */
+	private void compact() {
+		int liveIndex = 0;
 
-		heap.set(0, value);
-		heap.remove(heapSize);
+		for(int index = 0; index < heapSize; index++) {
+			T element = heap.get(index);
+
+			if(!consumeTombstone(element)) {
+				heap.set(liveIndex++, element);
+			}
+		}
+
+		heap.subList(liveIndex, heapSize).clear();
+		heapSize = liveIndex;
+
+		for(int index = getParentIndex(heapSize - 1); index >= 0; index--) {
+			siftDown(index);
+		}
+	}
 
-		int index = 0;
+	/**
+	 * Moves the entry at index down until neither of its children is less than it.
+	 *
+	 * @param index the index of the entry to move
+	 */
+	private void siftDown(int index) {
+		T value = heap.get(index);
 
 		while(true) {
 			int leftChildIndex = getLeftChildIndex(index);
@@ -126,43 +213,22 @@ public class MinHeap<T extends Comparable<T>> extends Heap<T> {
 				break;
 			}
 
-			T leftChild = heap.get(leftChildIndex);
-
-			if(rightChildIndex >= heapSize) {
-				if(value.compareTo(leftChild) > 0) {
-					heap.set(leftChildIndex, value);
-					heap.set(index, leftChild);
-				}
+			int smallerChildIndex = leftChildIndex;
 
-				break;
+			if(rightChildIndex < heapSize && heap.get(rightChildIndex).compareTo(heap.get(leftChildIndex)) < 0) {
+				smallerChildIndex = rightChildIndex;
 			}
 
-			T rightChild = heap.get(rightChildIndex);
+			T smallerChild = heap.get(smallerChildIndex);
 
-			if(value.compareTo(leftChild) < 0 && value.compareTo(rightChild) < 0) {
+			if(value.compareTo(smallerChild) <= 0) {
 				break;
 			}
 
-			if(leftChild.compareTo(rightChild) < 0) {
-				heap.set(leftChildIndex, value);
-				heap.set(index, leftChild);
-
-				index = leftChildIndex;
-			} else {
-				heap.set(rightChildIndex, value);
-				heap.set(index, rightChild);
-
-				index = rightChildIndex;
-			}
+			heap.set(index, smallerChild);
+			index = smallerChildIndex;
 		}
 
-		return minValue;
-	}
-
-	/**
-	 * @inheritDoc
-	 */
-	public boolean isEmpty() {
-		return (heapSize == 0);
+		heap.set(index, value);
 	}
 }
\ No newline at end of file
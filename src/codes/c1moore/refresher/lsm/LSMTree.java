@@ -0,0 +1,914 @@
+package codes.c1moore.refresher.lsm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import codes.c1moore.refresher.bst.OrderedMap;
+import codes.c1moore.refresher.common.Codec;
+import codes.c1moore.refresher.common.Comparison;
+import codes.c1moore.refresher.common.Durability;
+
+/**
+ * LSMTree is a log-structured merge tree: a key-value store for write-heavy
+ * workloads whose data does not fit in memory. Updates never modify data on
+ * disk in place. Instead, put() and remove() only update an in-memory
+ * OrderedMap (the memtable), which is an AVL tree. Once the memtable holds a
+ * configurable number of keys, it is written to disk in sorted order as an
+ * immutable run file and a new, empty memtable takes its place. A removal is
+ * recorded as a tombstone, so that it hides the older values of its key.
+ *
+ * Runs are organized in levels. Flushed runs go to level 0, where their key
+ * ranges overlap. Every deeper level holds a single run, and each level may
+ * hold LEVEL_FANOUT times as many keys as the one above it. When level 0 holds
+ * too many runs, or a deeper level holds too many keys, a background thread
+ * merges the level into the next one, keeping only the newest value of each
+ * key and dropping tombstones once nothing older remains below them. Merging
+ * reads and writes runs sequentially, so the cost of keeping the data sorted
+ * is paid in large, sequential I/O rather than random writes.
+ *
+ * get() checks the memtable, then the runs from newest to oldest, and returns
+ * the first value it finds. Each run keeps a fence index (the first key of
+ * every block of the file) and a Bloom filter of its keys in memory, so a run
+ * that does not hold the key is usually skipped without any I/O, and a run
+ * that does costs a single block read.
+ *
+ * A manifest file lists the runs of each level. It is replaced atomically,
+ * and its directory forced, after every flush and merge and before any merged
+ * run is deleted, so a crash never leaves the store pointing at a partial or
+ * deleted run. The memtable is not logged, though: updates made since the
+ * last flush are lost on a crash unless flush() or close() is called.
+ *
+ * An LSMTree may be shared between threads. Lookups run concurrently with each
+ * other and with merges; updates and flushes are serialized. Keys are ordered
+ * by a Comparator, if one is passed to open(), or by their Comparable
+ * implementation otherwise. Values cannot be null.
+ */
+public class LSMTree<K, V> implements Closeable {
+	/**
+	 * The number of keys in the memtable that triggers a flush, unless
+	 * {@link #setMemtableLimit(int)} is called.
+	 */
+	public static final int DEFAULT_MEMTABLE_LIMIT = 4096;
+
+	/**
+	 * The number of runs in level 0 that triggers a merge into level 1, unless
+	 * {@link #setLevel0Limit(int)} is called.
+	 */
+	public static final int DEFAULT_LEVEL0_LIMIT = 4;
+
+	/**
+	 * How many times more keys each level below level 1 may hold than the level
+	 * above it.
+	 */
+	public static final int LEVEL_FANOUT = 10;
+
+	private static final String MANIFEST_FILE = "manifest";
+	private static final String TEMPORARY_MANIFEST_FILE = "manifest.tmp";
+	private static final String RUN_PREFIX = "run-";
+	private static final String RUN_SUFFIX = ".sst";
+
+	private static final int MANIFEST_MAGIC = 0x4c534d4d;	// "LSMM"
+
+	private final Path directory;
+	private final Comparator<K> comparator;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+
+	private final ReentrantReadWriteLock lock;
+	private OrderedMap<K, V> memtable;			// A null value is a tombstone.
+	private List<List<SortedRun<K>>> levels;	// Replaced, never modified. Level 0 is newest first.
+	private long nextRunNumber;
+	private boolean closed;
+
+	private int memtableLimit;
+	private int level0Limit;
+
+	private final ExecutorService compactor;
+	private final AtomicBoolean compactionScheduled;
+	private final Object compactionLock;		// Held for the whole of a merge.
+	private final AtomicReference<IOException> compactionFailure;	// Not yet reported.
+	private int compactionCount;
+
+	/**
+	 * Creates an LSMTree after recovery has opened the runs.
+	 */
+	private LSMTree(Path directory, Comparator<K> comparator, Codec<K> keyCodec, Codec<V> valueCodec, List<List<SortedRun<K>>> levels, long nextRunNumber) {
+		this.directory = directory;
+		this.comparator = comparator;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.levels = levels;
+		this.nextRunNumber = nextRunNumber;
+
+		lock = new ReentrantReadWriteLock();
+		memtable = new OrderedMap<>(comparator);
+		closed = false;
+
+		memtableLimit = DEFAULT_MEMTABLE_LIMIT;
+		level0Limit = DEFAULT_LEVEL0_LIMIT;
+
+		compactor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "lsm-compaction");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+		compactionScheduled = new AtomicBoolean(false);
+		compactionLock = new Object();
+		compactionFailure = new AtomicReference<>();
+		compactionCount = 0;
+	}
+
+	/**
+	 * Opens the LSMTree stored in directory, creating the directory if needed.
+	 * Keys are ordered by their Comparable implementation.
+	 *
+	 * @throws IOException if the directory cannot be read or written
+	 *
+	 * @param directory the directory holding the manifest and runs
+	 * @param keyCodec the Codec used to store keys
+	 * @param valueCodec the Codec used to store values
+	 *
+	 * @return the opened LSMTree
+	 */
+	public static <K, V> LSMTree<K, V> open(Path directory, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+		return open(directory, null, keyCodec, valueCodec);
+	}
+
+	/**
+	 * Opens the LSMTree stored in directory, creating the directory if needed.
+	 * The same comparator must be used every time the directory is opened.
+	 *
+	 * @throws IOException if the directory cannot be read or written
+	 *
+	 * @param directory the directory holding the manifest and runs
+	 * @param comparator the Comparator used to order keys, or null to use their
+	 *            Comparable implementation
+	 * @param keyCodec the Codec used to store keys
+	 * @param valueCodec the Codec used to store values
+	 *
+	 * @return the opened LSMTree
+	 */
+	public static <K, V> LSMTree<K, V> open(Path directory, Comparator<K> comparator, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+		Comparator<K> resolved = Comparison.resolve(comparator);
+
+		Files.createDirectories(directory);
+		Files.deleteIfExists(directory.resolve(TEMPORARY_MANIFEST_FILE));
+
+		List<List<SortedRun<K>>> levels = new ArrayList<>();
+		Set<Long> live = new HashSet<>();
+		long nextRunNumber = 1;
+		Path manifest = directory.resolve(MANIFEST_FILE);
+
+		try {
+			if(Files.exists(manifest)) {
+				try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest)))) {
+					if(input.readInt() != MANIFEST_MAGIC) {
+						throw new IOException("File is not a manifest: " + manifest);
+					}
+
+					nextRunNumber = input.readLong();
+
+					int levelCount = input.readInt();
+
+					for(int level = 0; level < levelCount; level++) {
+						int runCount = input.readInt();
+						List<SortedRun<K>> runs = new ArrayList<>(runCount);
+
+						levels.add(runs);
+
+						for(int run = 0; run < runCount; run++) {
+							long number = input.readLong();
+
+							runs.add(SortedRun.open(number, runFile(directory, number), resolved, keyCodec));
+							live.add(number);
+						}
+					}
+				}
+			}
+
+			// Delete the runs of flushes and merges that were interrupted before the manifest was replaced.
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, RUN_PREFIX + "*" + RUN_SUFFIX)) {
+				for(Path file: files) {
+					String name = file.getFileName().toString();
+					String number = name.substring(RUN_PREFIX.length(), name.length() - RUN_SUFFIX.length());
+
+					if(!live.contains(Long.parseLong(number))) {
+						Files.delete(file);
+					}
+				}
+			}
+		} catch(IOException | RuntimeException e) {
+			for(List<SortedRun<K>> runs: levels) {
+				for(SortedRun<K> run: runs) {
+					run.close();
+				}
+			}
+
+			throw e;
+		}
+
+		LSMTree<K, V> tree = new LSMTree<>(directory, resolved, keyCodec, valueCodec, levels, nextRunNumber);
+		tree.scheduleCompaction();
+
+		return tree;
+	}
+
+	/**
+	 * Sets the number of keys the memtable may hold before it is flushed to a new
+	 * run. Larger memtables use more memory but create fewer runs to merge.
+	 *
+	 * @throws IllegalArgumentException if limit is less than 1
+	 *
+	 * @param limit the number of keys that triggers a flush
+	 */
+	public void setMemtableLimit(int limit) {
+		if(limit < 1) {
+			throw new IllegalArgumentException("Memtable limit must be at least 1.");
+		}
+
+		lock.writeLock().lock();
+
+		try {
+			memtableLimit = limit;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Sets the number of runs level 0 may hold before they are merged into level
+	 * 1. Higher values merge less often, but lookups check more runs.
+	 *
+	 * @throws IllegalArgumentException if limit is less than 1
+	 *
+	 * @param limit the number of runs that triggers a merge
+	 */
+	public void setLevel0Limit(int limit) {
+		if(limit < 1) {
+			throw new IllegalArgumentException("Level 0 limit must be at least 1.");
+		}
+
+		lock.writeLock().lock();
+
+		try {
+			level0Limit = limit;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Maps key to value, replacing any value key was mapped to.
+	 *
+	 * @throws IllegalArgumentException if value is null
+	 * @throws IllegalStateException if this LSMTree is closed
+	 * @throws UncheckedIOException if the memtable cannot be flushed
+	 *
+	 * @param key the key
+	 * @param value the value to map key to
+	 */
+	public void put(K key, V value) {
+		if(value == null) {
+			throw new IllegalArgumentException("Value cannot be null.");
+		}
+
+		write(key, value);
+	}
+
+	/**
+	 * Removes the mapping of key, if there is one. A tombstone is recorded even
+	 * if key is not mapped, since finding out would require a lookup.
+	 *
+	 * @throws IllegalStateException if this LSMTree is closed
+	 * @throws UncheckedIOException if the memtable cannot be flushed
+	 *
+	 * @param key the key to remove
+	 */
+	public void remove(K key) {
+		write(key, null);
+	}
+
+	/**
+	 * Returns the value key is mapped to.
+	 *
+	 * @throws IllegalStateException if this LSMTree is closed
+	 * @throws UncheckedIOException if a run cannot be read
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return the value of key, or null if key is not mapped
+	 */
+	public V get(K key) {
+		lock.readLock().lock();
+
+		try {
+			checkOpen();
+
+			Map.Entry<K, V> entry = memtable.getEntry(key);
+
+			if(entry != null) {
+				return entry.getValue();
+			}
+
+			byte[] keyBytes = keyCodec.encode(key);
+
+			for(List<SortedRun<K>> runs: levels) {
+				for(SortedRun<K> run: runs) {
+					byte[] value = run.find(key, keyBytes);
+
+					if(value != null) {
+						return (value == SortedRun.TOMBSTONE ? null : valueCodec.decode(value));
+					}
+				}
+			}
+
+			return null;
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns whether key is mapped to a value.
+	 *
+	 * @throws IllegalStateException if this LSMTree is closed
+	 * @throws UncheckedIOException if a run cannot be read
+	 *
+	 * @param key the key to look up
+	 *
+	 * @return true iff key is mapped
+	 */
+	public boolean containsKey(K key) {
+		return (get(key) != null);
+	}
+
+	/**
+	 * Writes the memtable to a new run, so that every earlier update survives a
+	 * crash. If a background merge has failed since the last report, the failure
+	 * is thrown once the flush has finished; the flush itself still succeeded.
+	 *
+	 * @throws IllegalStateException if this LSMTree is closed
+	 * @throws IOException if the run cannot be written, or if a background merge
+	 *             has failed since the last report
+	 */
+	public void flush() throws IOException {
+		lock.writeLock().lock();
+
+		try {
+			checkOpen();
+			flushMemtable();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		checkCompaction();
+	}
+
+	/**
+	 * Merges levels in the calling thread until none holds too many runs or keys,
+	 * first waiting for any background merge to finish.
+	 *
+	 * @throws IllegalStateException if this LSMTree is closed
+	 * @throws IOException if a run cannot be read or written, or if a background
+	 *             merge has failed since the last report
+	 */
+	public void compact() throws IOException {
+		lock.readLock().lock();
+
+		try {
+			checkOpen();
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		checkCompaction();
+		compactLevels();
+	}
+
+	/**
+	 * Returns the number of levels, including any that are empty.
+	 *
+	 * @return the number of levels
+	 */
+	public int getLevelCount() {
+		lock.readLock().lock();
+
+		try {
+			return levels.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of runs in every level. This is the most runs a lookup
+	 * that misses the memtable may have to check.
+	 *
+	 * @return the number of runs on disk
+	 */
+	public int getRunCount() {
+		lock.readLock().lock();
+
+		try {
+			int count = 0;
+
+			for(List<SortedRun<K>> runs: levels) {
+				count += runs.size();
+			}
+
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of merges performed since this LSMTree was opened.
+	 *
+	 * @return the number of merges
+	 */
+	public int getCompactionCount() {
+		lock.readLock().lock();
+
+		try {
+			return compactionCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Flushes the memtable, waits for any background merge to finish, and closes
+	 * every run.
+	 *
+	 * @throws IOException if the memtable cannot be flushed, if a run cannot be
+	 *             closed, or if a background merge has failed since the last
+	 *             report
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+
+		lock.writeLock().lock();
+
+		try {
+			if(closed) {
+				return;
+			}
+
+			// Stop merges from starting another pass; one that is running finishes.
+			closed = true;
+
+			flushMemtable();
+		} catch(IOException e) {
+			failure = e;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		compactor.shutdown();
+
+		try {
+			compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			failure = new InterruptedIOException("Interrupted while waiting for compaction.");
+		}
+
+		lock.writeLock().lock();
+
+		try {
+			for(List<SortedRun<K>> runs: levels) {
+				for(SortedRun<K> run: runs) {
+					run.close();
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		if(failure != null) {
+			throw failure;
+		}
+
+		checkCompaction();
+	}
+
+	/**
+	 * Records an update in the memtable, flushing it if it is full.
+	 *
+	 * @param value the new value of key, or null to record a tombstone
+	 */
+	private void write(K key, V value) {
+		lock.writeLock().lock();
+
+		try {
+			checkOpen();
+
+			memtable.put(key, value);
+
+			if(memtable.size() >= memtableLimit) {
+				flushMemtable();
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes the memtable to a new run at the front of level 0 and replaces it
+	 * with an empty one. The write lock must be held.
+	 */
+	private void flushMemtable() throws IOException {
+		if(memtable.size() == 0) {
+			return;
+		}
+
+		long number = nextRunNumber++;
+		Path file = runFile(directory, number);
+
+		try(SortedRun.Writer writer = new SortedRun.Writer(file, memtable.size())) {
+			for(Map.Entry<K, V> entry: memtable) {
+				V value = entry.getValue();
+
+				writer.add(keyCodec.encode(entry.getKey()), (value == null ? SortedRun.TOMBSTONE : valueCodec.encode(value)));
+			}
+
+			writer.finish();
+		}
+
+		SortedRun<K> run = SortedRun.open(number, file, comparator, keyCodec);
+		List<List<SortedRun<K>>> updated = copyLevels();
+
+		if(updated.isEmpty()) {
+			updated.add(new ArrayList<>());
+		}
+
+		updated.get(0).add(0, run);
+
+		try {
+			writeManifest(updated);
+		} catch(IOException e) {
+			run.close();
+
+			throw e;
+		}
+
+		levels = updated;
+		memtable = new OrderedMap<>(comparator);
+
+		scheduleCompaction();
+	}
+
+	/**
+	 * Starts a background merge if a level is over its limit and no merge is
+	 * already scheduled. A read or write lock must be held.
+	 */
+	private void scheduleCompaction() {
+		if(overflowingLevel() >= 0 && compactionScheduled.compareAndSet(false, true)) {
+			compactor.execute(this::compactInBackground);
+		}
+	}
+
+	/**
+	 * Runs on the compaction thread. A failure is recorded and reported once, by
+	 * the next call to flush(), compact(), or close(). The merge is not retried
+	 * straight away; the next flush schedules it again.
+	 */
+	private void compactInBackground() {
+		boolean failed = false;
+
+		try {
+			compactLevels();
+		} catch(IOException e) {
+			compactionFailure.set(e);
+			failed = true;
+		} catch(RuntimeException e) {
+			compactionFailure.set(new IOException(e));
+			failed = true;
+		} finally {
+			compactionScheduled.set(false);
+		}
+
+		// A flush may have finished after the last check but before the flag was cleared.
+		lock.readLock().lock();
+
+		try {
+			if(!closed && !failed) {
+				scheduleCompaction();
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Merges the first level that is over its limit into the next level until no
+	 * level is over its limit. The merge itself runs without holding the lock, so
+	 * lookups and updates continue while it runs.
+	 */
+	private void compactLevels() throws IOException {
+		synchronized(compactionLock) {
+			while(true) {
+				List<SortedRun<K>> inputs;
+				int level;
+				boolean deepest;
+				long number;
+
+				lock.writeLock().lock();
+
+				try {
+					level = overflowingLevel();
+
+					if(closed || level < 0) {
+						return;
+					}
+
+					// The runs are listed newest first: level's runs, then the run of the level below.
+					inputs = new ArrayList<>(levels.get(level));
+					deepest = true;
+
+					if(level + 1 < levels.size()) {
+						inputs.addAll(levels.get(level + 1));
+					}
+
+					for(int below = level + 2; below < levels.size(); below++) {
+						deepest &= levels.get(below).isEmpty();
+					}
+
+					number = nextRunNumber++;
+				} finally {
+					lock.writeLock().unlock();
+				}
+
+				SortedRun<K> output = merge(inputs, number, deepest);
+
+				lock.writeLock().lock();
+
+				try {
+					List<List<SortedRun<K>>> updated = copyLevels();
+
+					updated.get(level).removeAll(inputs);
+
+					if(level + 1 == updated.size()) {
+						updated.add(new ArrayList<>());
+					}
+
+					updated.get(level + 1).clear();
+
+					if(output != null) {
+						updated.get(level + 1).add(output);
+					}
+
+					try {
+						writeManifest(updated);
+					} catch(IOException e) {
+						if(output != null) {
+							output.close();
+						}
+
+						throw e;
+					}
+
+					levels = updated;
+					compactionCount++;
+
+					// No lookup can be reading the inputs while the write lock is held.
+					for(SortedRun<K> run: inputs) {
+						run.close();
+						Files.deleteIfExists(run.file);
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Merges inputs into a new run, keeping only the newest record of each key.
+	 *
+	 * @param inputs the runs to merge, newest first
+	 * @param number the number that names the new run
+	 * @param dropTombstones true iff no run older than inputs exists, so
+	 *            tombstones no longer hide anything
+	 *
+	 * @return the new run, or null if no records remain
+	 */
+	private SortedRun<K> merge(List<SortedRun<K>> inputs, long number, boolean dropTombstones) throws IOException {
+		// Equal keys come out newest first, so the first record of each key wins.
+		PriorityQueue<Cursor<K>> queue = new PriorityQueue<>((lhs, rhs) -> {
+			int comparison = comparator.compare(lhs.record.key, rhs.record.key);
+
+			return (comparison != 0 ? comparison : Integer.compare(lhs.age, rhs.age));
+		});
+
+		List<SortedRun.Reader<K>> readers = new ArrayList<>(inputs.size());
+		Path file = runFile(directory, number);
+		int capacity = 0;
+		int count;
+
+		try {
+			for(int age = 0; age < inputs.size(); age++) {
+				SortedRun.Reader<K> reader = inputs.get(age).reader();
+				readers.add(reader);
+
+				SortedRun.Record<K> record = reader.next();
+
+				if(record != null) {
+					queue.add(new Cursor<>(reader, record, age));
+				}
+
+				capacity += inputs.get(age).count;
+			}
+
+			try(SortedRun.Writer writer = new SortedRun.Writer(file, capacity)) {
+				K previous = null;
+				boolean first = true;
+
+				while(!queue.isEmpty()) {
+					Cursor<K> cursor = queue.poll();
+					SortedRun.Record<K> record = cursor.record;
+
+					if(first || comparator.compare(previous, record.key) != 0) {
+						if(!dropTombstones || record.value != SortedRun.TOMBSTONE) {
+							writer.add(record.keyBytes, record.value);
+						}
+
+						previous = record.key;
+						first = false;
+					}
+
+					cursor.record = cursor.reader.next();
+
+					if(cursor.record != null) {
+						queue.add(cursor);
+					}
+				}
+
+				count = writer.finish();
+			}
+		} catch(IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+
+			throw e;
+		} finally {
+			for(SortedRun.Reader<K> reader: readers) {
+				reader.close();
+			}
+		}
+
+		if(count == 0) {
+			Files.delete(file);
+
+			return null;
+		}
+
+		return SortedRun.open(number, file, comparator, keyCodec);
+	}
+
+	/**
+	 * Returns the first level over its limit, or -1 if there is none.
+	 */
+	private int overflowingLevel() {
+		long capacity = (long) memtableLimit * level0Limit;
+
+		if(!levels.isEmpty() && levels.get(0).size() >= level0Limit) {
+			return 0;
+		}
+
+		for(int level = 1; level < levels.size(); level++) {
+			long count = 0;
+
+			for(SortedRun<K> run: levels.get(level)) {
+				count += run.count;
+			}
+
+			if(count > capacity) {
+				return level;
+			}
+
+			capacity *= LEVEL_FANOUT;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns a copy of levels that may be modified.
+	 */
+	private List<List<SortedRun<K>>> copyLevels() {
+		List<List<SortedRun<K>>> copy = new ArrayList<>(levels.size() + 1);
+
+		for(List<SortedRun<K>> runs: levels) {
+			copy.add(new ArrayList<>(runs));
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Atomically replaces the manifest with one listing the runs of levels and
+	 * forces the directory, so the new manifest survives a crash once this
+	 * returns.
+	 */
+	private void writeManifest(List<List<SortedRun<K>>> levels) throws IOException {
+		Path temporary = directory.resolve(TEMPORARY_MANIFEST_FILE);
+
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+			output.writeInt(MANIFEST_MAGIC);
+			output.writeLong(nextRunNumber);
+			output.writeInt(levels.size());
+
+			for(List<SortedRun<K>> runs: levels) {
+				output.writeInt(runs.size());
+
+				for(SortedRun<K> run: runs) {
+					output.writeLong(run.number);
+				}
+			}
+
+			output.flush();
+			channel.force(true);
+		}
+
+		// Forcing the directory also makes the new run's entry durable before any input is deleted.
+		Durability.replace(temporary, directory.resolve(MANIFEST_FILE));
+	}
+
+	/**
+	 * Throws an IllegalStateException if this LSMTree is closed.
+	 */
+	private void checkOpen() {
+		if(closed) {
+			throw new IllegalStateException("LSMTree is closed.");
+		}
+	}
+
+	/**
+	 * Throws the failure of a background merge, if there was one that has not
+	 * been reported yet, and clears it.
+	 */
+	private void checkCompaction() throws IOException {
+		IOException failure = compactionFailure.getAndSet(null);
+
+		if(failure != null) {
+			throw new IOException("Background compaction failed.", failure);
+		}
+	}
+
+	/**
+	 * Returns the file that stores the run numbered number.
+	 */
+	private static Path runFile(Path directory, long number) {
+		return directory.resolve(RUN_PREFIX + number + RUN_SUFFIX);
+	}
+
+	/**
+	 * Cursor is the position of a merge within one of its input runs.
+	 */
+	private static final class Cursor<K> {
+		final SortedRun.Reader<K> reader;
+		final int age;	// The index of the run among the inputs; lower is newer.
+		SortedRun.Record<K> record;
+
+		Cursor(SortedRun.Reader<K> reader, SortedRun.Record<K> record, int age) {
+			this.reader = reader;
+			this.record = record;
+			this.age = age;
+		}
+	}
+}
@@ -0,0 +1,415 @@
+package codes.c1moore.refresher.lsm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import codes.c1moore.refresher.common.Codec;
+import codes.c1moore.refresher.filter.BloomFilter;
+
+/**
+ * SortedRun is an immutable file of records sorted by key, written once by a
+ * Writer and then opened for lookups. The file is laid out as follows (all
+ * values big-endian):
+ *
+ * <pre>
+ * data blocks           records in ascending order of key: key length, key,
+ *                       value length (-1 for a tombstone), value; a new block
+ *                       starts once the current one holds BLOCK_SIZE bytes
+ * fence index           block count, then for each block its offset and first
+ *                       key; then the offset of the end of the data
+ * Bloom filter          the encoded keys of every record
+ * trailer               offset of the fence index, record count, magic
+ * </pre>
+ *
+ * Opening a run reads only the fence index and the Bloom filter, which are kept
+ * in memory. A lookup that passes the filter binary searches the fence keys for
+ * the single block that could hold the key and reads just that block, so it
+ * costs at most one read from the file.
+ */
+final class SortedRun<K> implements Closeable {
+	/**
+	 * The value of a record that marks its key as removed. Compared by identity.
+	 */
+	static final byte[] TOMBSTONE = new byte[0];
+
+	/**
+	 * The number of bytes of records after which a new block is started.
+	 */
+	static final int BLOCK_SIZE = 4096;
+
+	/**
+	 * The false-positive rate each run's Bloom filter is sized for.
+	 */
+	static final double FALSE_POSITIVE_RATE = 0.01;
+
+	private static final int MAGIC = 0x4c534d52;	// "LSMR"
+	private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+	final long number;
+	final Path file;
+	final int count;
+
+	private final FileChannel channel;
+	private final Comparator<K> comparator;
+	private final Codec<K> keyCodec;
+	private final List<K> fences;	// The first key of each block.
+	private final long[] offsets;	// The offset of each block, then the end of the data.
+	private final BloomFilter<byte[]> filter;
+
+	/**
+	 * Creates a SortedRun after its index has been read.
+	 */
+	private SortedRun(long number, Path file, int count, FileChannel channel, Comparator<K> comparator, Codec<K> keyCodec, List<K> fences, long[] offsets, BloomFilter<byte[]> filter) {
+		this.number = number;
+		this.file = file;
+		this.count = count;
+		this.channel = channel;
+		this.comparator = comparator;
+		this.keyCodec = keyCodec;
+		this.fences = fences;
+		this.offsets = offsets;
+		this.filter = filter;
+	}
+
+	/**
+	 * Opens the run written to file.
+	 *
+	 * @throws IOException if the file cannot be read or is not a run
+	 *
+	 * @param number the number that names the run
+	 * @param file the file the run was written to
+	 * @param comparator the Comparator that orders the keys
+	 * @param keyCodec the Codec the keys were encoded with
+	 *
+	 * @return the opened run
+	 */
+	static <K> SortedRun<K> open(long number, Path file, Comparator<K> comparator, Codec<K> keyCodec) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try {
+			long size = channel.size();
+
+			if(size < TRAILER_SIZE) {
+				throw new IOException("File is not a sorted run: " + file);
+			}
+
+			ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+			long indexOffset = trailer.getLong();
+			int count = trailer.getInt();
+
+			if(trailer.getInt() != MAGIC || indexOffset < 0 || indexOffset > size - TRAILER_SIZE) {
+				throw new IOException("File is not a sorted run: " + file);
+			}
+
+			ByteBuffer footer = read(channel, indexOffset, (int) (size - TRAILER_SIZE - indexOffset));
+			DataInputStream input = new DataInputStream(new ByteArrayInputStream(footer.array()));
+
+			int blocks = input.readInt();
+			List<K> fences = new ArrayList<>(blocks);
+			long[] offsets = new long[blocks + 1];
+
+			for(int block = 0; block < blocks; block++) {
+				offsets[block] = input.readLong();
+
+				byte[] key = new byte[input.readInt()];
+				input.readFully(key);
+
+				fences.add(keyCodec.decode(key));
+			}
+
+			offsets[blocks] = input.readLong();
+
+			BloomFilter<byte[]> filter = BloomFilter.readFrom(input, Arrays::hashCode);
+
+			return new SortedRun<>(number, file, count, channel, comparator, keyCodec, fences, offsets, filter);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Looks up key in this SortedRun.
+	 *
+	 * @throws IOException if the run cannot be read
+	 *
+	 * @param key the key to look up
+	 * @param keyBytes the encoded key, which is what the Bloom filter stores
+	 *
+	 * @return the value stored for key, TOMBSTONE if key is marked as removed, or
+	 *         null if this run does not mention key
+	 */
+	byte[] find(K key, byte[] keyBytes) throws IOException {
+		if(count == 0 || !filter.mightContain(keyBytes)) {
+			return null;
+		}
+
+		// Find the last block whose first key is at or below key.
+		int low = 0;
+		int high = fences.size() - 1;
+		int block = -1;
+
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+
+			if(comparator.compare(fences.get(middle), key) <= 0) {
+				block = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		if(block < 0) {
+			return null;
+		}
+
+		ByteBuffer data = read(channel, offsets[block], (int) (offsets[block + 1] - offsets[block]));
+
+		while(data.hasRemaining()) {
+			byte[] recordKey = new byte[data.getInt()];
+			data.get(recordKey);
+
+			int valueLength = data.getInt();
+			int comparison = comparator.compare(keyCodec.decode(recordKey), key);
+
+			if(comparison == 0) {
+				if(valueLength < 0) {
+					return TOMBSTONE;
+				}
+
+				byte[] value = new byte[valueLength];
+				data.get(value);
+
+				return value;
+			} else if(comparison > 0) {
+				return null;
+			}
+
+			data.position(data.position() + Math.max(0, valueLength));
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns a Reader over the records of this SortedRun in ascending order.
+	 *
+	 * @throws IOException if the run cannot be read
+	 *
+	 * @return a new Reader, which must be closed
+	 */
+	Reader<K> reader() throws IOException {
+		return new Reader<>(file, offsets[offsets.length - 1], keyCodec);
+	}
+
+	/**
+	 * Closes the file. The run must not be used afterward.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads length bytes of channel, starting at position, without moving the
+	 * channel's position, so several threads may read at once.
+	 */
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * Record is a single key and its value, as read from or written to a run.
+	 */
+	static final class Record<K> {
+		final K key;
+		final byte[] keyBytes;
+		final byte[] value;	// TOMBSTONE if the key is marked as removed.
+
+		Record(K key, byte[] keyBytes, byte[] value) {
+			this.key = key;
+			this.keyBytes = keyBytes;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Reader returns the records of a run in ascending order through its own
+	 * stream, so reading does not interfere with lookups.
+	 */
+	static final class Reader<K> implements Closeable {
+		private final DataInputStream input;
+		private final long end;
+		private final Codec<K> keyCodec;
+		private long position;
+
+		private Reader(Path file, long end, Codec<K> keyCodec) throws IOException {
+			this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+			this.end = end;
+			this.keyCodec = keyCodec;
+
+			position = 0;
+		}
+
+		/**
+		 * Returns the next record, or null once every record has been read.
+		 */
+		Record<K> next() throws IOException {
+			if(position >= end) {
+				return null;
+			}
+
+			byte[] key = new byte[input.readInt()];
+			input.readFully(key);
+
+			int valueLength = input.readInt();
+			byte[] value = TOMBSTONE;
+
+			if(valueLength >= 0) {
+				value = new byte[valueLength];
+				input.readFully(value);
+			}
+
+			position += Integer.BYTES + key.length + Integer.BYTES + Math.max(0, valueLength);
+
+			return new Record<>(keyCodec.decode(key), key, value);
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+	}
+
+	/**
+	 * Writer writes a new run. Records must be added in strictly ascending order
+	 * of key, and finish() must be called before the run is opened.
+	 */
+	static final class Writer implements Closeable {
+		private final FileChannel channel;
+		private final DataOutputStream output;
+		private final BloomFilter<byte[]> filter;
+
+		private final List<byte[]> fences;
+		private long[] offsets;
+
+		private long position;
+		private long blockStart;
+		private int count;
+
+		/**
+		 * Creates a Writer that writes to file, replacing any existing file.
+		 *
+		 * @param file the file to write
+		 * @param capacity the maximum number of records that will be added, used to
+		 *            size the Bloom filter
+		 */
+		Writer(Path file, int capacity) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			filter = new BloomFilter<>(Math.max(1, capacity), FALSE_POSITIVE_RATE, Arrays::hashCode);
+
+			fences = new ArrayList<>();
+			offsets = new long[16];
+
+			position = 0;
+			blockStart = -BLOCK_SIZE;
+			count = 0;
+		}
+
+		/**
+		 * Appends a record.
+		 *
+		 * @param key the encoded key
+		 * @param value the encoded value, or TOMBSTONE
+		 */
+		void add(byte[] key, byte[] value) throws IOException {
+			if(position - blockStart >= BLOCK_SIZE) {
+				if(fences.size() == offsets.length) {
+					offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				}
+
+				offsets[fences.size()] = position;
+				fences.add(key);
+				blockStart = position;
+			}
+
+			output.writeInt(key.length);
+			output.write(key);
+
+			if(value == TOMBSTONE) {
+				output.writeInt(-1);
+			} else {
+				output.writeInt(value.length);
+				output.write(value);
+			}
+
+			position += Integer.BYTES + key.length + Integer.BYTES + (value == TOMBSTONE ? 0 : value.length);
+			filter.add(key);
+			count++;
+		}
+
+		/**
+		 * Writes the fence index, Bloom filter, and trailer and forces the file to
+		 * disk.
+		 *
+		 * @return the number of records written
+		 */
+		int finish() throws IOException {
+			long indexOffset = position;
+
+			output.writeInt(fences.size());
+
+			for(int block = 0; block < fences.size(); block++) {
+				output.writeLong(offsets[block]);
+				output.writeInt(fences.get(block).length);
+				output.write(fences.get(block));
+			}
+
+			output.writeLong(position);
+			filter.writeTo(output);
+
+			output.writeLong(indexOffset);
+			output.writeInt(count);
+			output.writeInt(MAGIC);
+
+			output.flush();
+			channel.force(true);
+
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.AVLTree;
+
+@DisplayName("AVLTree")
+class AVLTreeTest {
+	boolean comparatorCalled;
+	Comparator<Integer> comparator;
+
+	/**
+	 * Returns the maximum height of an AVL tree with size nodes.
+	 */
+	private int maximumHeight(int size) {
+		return (int) Math.floor(1.44 * (Math.log(size + 2) / Math.log(2)));
+	}
+
+	@BeforeEach
+	void beforeEach() {
+		comparatorCalled = false;
+
+		comparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				comparatorCalled = true;
+
+				return rhs - lhs;
+			}
+		};
+	}
+
+	@Test
+	@DisplayName("should be able to create an AVLTree")
+	void create() {
+		new AVLTree<Integer>();
+	}
+
+	@Test
+	@DisplayName("should be able to create an AVLTree with a Comparator")
+	void createWithComparator() {
+		AVLTree<Integer> tree = new AVLTree<>(comparator);
+
+		tree.insert(1);
+		tree.insert(2);
+
+		assertTrue(comparatorCalled);
+		assertEquals(Integer.valueOf(2), tree.getMinimum());
+		assertEquals(Integer.valueOf(1), tree.getMaximum());
+	}
+
+	@Test
+	@DisplayName("should be able to create an AVLTree with an array of existing values")
+	void createWithArray() {
+		Integer numbers[] = {1, 2, 3, 4, 5, 6, 7};
+
+		AVLTree<Integer> tree = new AVLTree<>(numbers);
+
+		for(Integer number: numbers) {
+			assertTrue(tree.has(number));
+		}
+
+		assertEquals(3, tree.getHeight());
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class AVLTreeInstanceTestSuite {
+		AVLTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new AVLTree<>();
+		}
+
+		@Nested
+		@DisplayName("insert(T)")
+		class AVLTreeInsertTestSuite {
+			@Test
+			@DisplayName("should stay balanced when items are inserted in increasing order")
+			void testIncreasingOrder() {
+				final int size = 1000;
+
+				for(int number = 0; number < size; number++) {
+					tree.insert(number);
+				}
+
+				assertTrue(tree.getHeight() <= maximumHeight(size));
+
+				for(int number = 0; number < size; number++) {
+					assertTrue(tree.has(number));
+				}
+			}
+
+			@Test
+			@DisplayName("should stay balanced when items are inserted in decreasing order")
+			void testDecreasingOrder() {
+				final int size = 1000;
+
+				for(int number = size; number > 0; number--) {
+					tree.insert(number);
+				}
+
+				assertTrue(tree.getHeight() <= maximumHeight(size));
+				assertEquals(Integer.valueOf(1), tree.getMinimum());
+				assertEquals(Integer.valueOf(size), tree.getMaximum());
+			}
+
+			@Test
+			@DisplayName("should stay balanced with duplicate items")
+			void testDuplicates() {
+				final int size = 500;
+
+				for(int counter = 0; counter < size; counter++) {
+					tree.insert(7);
+				}
+
+				assertTrue(tree.getHeight() <= maximumHeight(size));
+
+				for(int counter = 0; counter < size; counter++) {
+					assertTrue(tree.has(7));
+
+					tree.remove(7);
+				}
+
+				assertFalse(tree.has(7));
+			}
+		}
+
+		@Nested
+		@DisplayName("remove(T)")
+		class AVLTreeRemoveTestSuite {
+			@Test
+			@DisplayName("should return successfully when the tree is empty")
+			void testEmptyTree() {
+				tree.remove(10);
+
+				assertEquals(0, tree.getHeight());
+			}
+
+			@Test
+			@DisplayName("should stay balanced and keep the remaining items")
+			void testRandomRemovals() {
+				final Random rand = new Random();
+				final List<Integer> numbers = new ArrayList<>();
+
+				for(int counter = 0; counter < 1000; counter++) {
+					int number = rand.nextInt(2000);
+
+					numbers.add(number);
+					tree.insert(number);
+				}
+
+				Collections.shuffle(numbers, rand);
+
+				List<Integer> removed = numbers.subList(0, 700);
+				List<Integer> remaining = new ArrayList<>(numbers.subList(700, numbers.size()));
+
+				for(Integer number: removed) {
+					tree.remove(number);
+				}
+
+				assertTrue(tree.getHeight() <= maximumHeight(remaining.size()));
+
+				Collections.sort(remaining);
+
+				for(Integer number: remaining) {
+					assertEquals(number, tree.getMinimum());
+
+					tree.remove(number);
+				}
+
+				assertEquals(null, tree.getMinimum());
+			}
+
+			@Test
+			@DisplayName("should keep order statistics correct through rotations")
+			void testOrderStatistics() {
+				final List<Integer> numbers = new ArrayList<>();
+
+				for(int number = 0; number < 500; number++) {
+					numbers.add(number);
+					tree.insert(number);
+				}
+
+				for(int number = 0; number < 500; number += 3) {
+					numbers.remove(Integer.valueOf(number));
+					tree.remove(number);
+				}
+
+				assertEquals(numbers.size(), tree.size());
+
+				for(int index = 0; index < numbers.size(); index++) {
+					assertEquals(numbers.get(index), tree.select(index));
+					assertEquals(index, tree.rank(numbers.get(index)));
+				}
+			}
+
+			@Test
+			@DisplayName("should stay balanced when removing through an iterator")
+			void testIteratorRemove() {
+				for(int number = 0; number < 500; number++) {
+					tree.insert(number);
+				}
+
+				Iterator<Integer> iterator = tree.iterator();
+				while(iterator.hasNext()) {
+					if(iterator.next() % 4 != 0) {
+						iterator.remove();
+					}
+				}
+
+				assertEquals(125, tree.size());
+				assertTrue(tree.getHeight() <= maximumHeight(125));
+
+				int expected = 0;
+				for(Integer number: tree) {
+					assertEquals(Integer.valueOf(expected), number);
+
+					expected += 4;
+				}
+			}
+
+			@Test
+			@DisplayName("should stay balanced when inserting through a Cursor")
+			void testCursorInsert() {
+				AVLTree<Integer>.Cursor cursor = tree.cursor();
+				final Random rand = new Random();
+				List<Integer> expected = new ArrayList<>();
+
+				for(int number = 0; number < 1000; number++) {
+					int item = (number % 3 == 0 ? rand.nextInt(1000) : number);
+
+					cursor.insert(item);
+					expected.add(item);
+
+					assertEquals(Integer.valueOf(item), cursor.get());
+				}
+
+				Collections.sort(expected);
+
+				assertEquals(1000, tree.size());
+				assertTrue(tree.getHeight() <= maximumHeight(1000));
+				assertIterableEquals(expected, tree);
+			}
+		}
+	}
+}
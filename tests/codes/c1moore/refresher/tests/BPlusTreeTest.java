@@ -0,0 +1,184 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.BPlusTree;
+import codes.c1moore.refresher.bst.SearchTree;
+
+@DisplayName("BPlusTree")
+class BPlusTreeTest {
+	@Test
+	@DisplayName("should be able to create a BPlusTree with a Comparator")
+	void createWithComparator() {
+		BPlusTree<Integer> tree = new BPlusTree<>(3, (lhs, rhs) -> Integer.compare(rhs, lhs));
+
+		for(int item = 0; item < 10; item++) {
+			tree.insert(item);
+		}
+
+		assertIterableEquals(Arrays.asList(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), tree);
+		assertEquals(Integer.valueOf(9), tree.getMinimum());
+		assertEquals(Integer.valueOf(0), tree.getMaximum());
+	}
+
+	@Test
+	@DisplayName("should reject a fanout less than 3")
+	void createWithSmallFanout() {
+		assertThrows(IllegalArgumentException.class, () -> new BPlusTree<Integer>(2));
+	}
+
+	@Test
+	@DisplayName("should be usable through the SearchTree interface")
+	void testSearchTree() {
+		SearchTree<Integer> tree = new BPlusTree<>();
+
+		tree.insert(2);
+		tree.insert(1);
+		tree.insert(2);
+
+		assertEquals(2, tree.size());
+		assertTrue(tree.has(1));
+		assertIterableEquals(Arrays.asList(1, 2), tree);
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class BPlusTreeInstanceTestSuite {
+		BPlusTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new BPlusTree<>(4);
+		}
+
+		@Test
+		@DisplayName("should return null for the minimum and maximum when empty")
+		void testEmptyTree() {
+			assertEquals(null, tree.getMinimum());
+			assertEquals(null, tree.getMaximum());
+			assertEquals(0, tree.size());
+			assertFalse(tree.has(1));
+			assertFalse(tree.iterator().hasNext());
+		}
+
+		@Test
+		@DisplayName("should match a TreeSet under random inserts and removes")
+		void testRandomOperations() {
+			final Random rand = new Random();
+
+			for(int fanout = 3; fanout <= 8; fanout++) {
+				final BPlusTree<Integer> tree = new BPlusTree<>(fanout);
+				final TreeSet<Integer> expected = new TreeSet<>();
+
+				for(int operation = 0; operation < 5000; operation++) {
+					int item = rand.nextInt(500);
+
+					if(rand.nextInt(3) == 0) {
+						tree.remove(item);
+						expected.remove(item);
+					} else {
+						tree.insert(item);
+						expected.add(item);
+					}
+
+					assertEquals(expected.size(), tree.size());
+				}
+
+				assertEquals(expected.first(), tree.getMinimum());
+				assertEquals(expected.last(), tree.getMaximum());
+				assertIterableEquals(expected, tree);
+
+				for(int item = 0; item < 500; item++) {
+					assertEquals(expected.contains(item), tree.has(item));
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("should shrink back to a single leaf when every item is removed")
+		void testRemoveAll() {
+			final List<Integer> items = new ArrayList<>();
+
+			for(int item = 0; item < 1000; item++) {
+				items.add(item);
+			}
+
+			Collections.shuffle(items);
+			for(Integer item: items) {
+				tree.insert(item);
+			}
+
+			assertTrue(tree.getHeight() > 1);
+
+			Collections.shuffle(items);
+			for(Integer item: items) {
+				tree.remove(item);
+			}
+
+			assertEquals(0, tree.size());
+			assertEquals(1, tree.getHeight());
+			assertEquals(null, tree.getMinimum());
+			assertFalse(tree.iterator().hasNext());
+		}
+
+		@Test
+		@DisplayName("should have a height logarithmic in its fanout")
+		void testHeight() {
+			BPlusTree<Integer> wideTree = new BPlusTree<>();
+
+			for(int item = 0; item < 100000; item++) {
+				wideTree.insert(item);
+			}
+
+			// Every node is at least half full, so each level multiplies the capacity by at least 32.
+			assertTrue(wideTree.getHeight() <= 4);
+		}
+
+		@Test
+		@DisplayName("should return the items in [lo, hi) for range()")
+		void testRange() {
+			for(int item = 0; item < 100; item += 2) {
+				tree.insert(item);
+			}
+
+			List<Integer> expected = new ArrayList<>();
+			for(int item = 20; item < 41; item += 2) {
+				expected.add(item);
+			}
+
+			assertIterableEquals(expected, tree.range(19, 41));
+			assertIterableEquals(expected, tree.range(20, 42));
+			assertIterableEquals(Collections.emptyList(), tree.range(21, 22));
+			assertIterableEquals(Collections.emptyList(), tree.range(200, 300));
+			assertIterableEquals(Arrays.asList(94, 96, 98), tree.range(93, 200));
+		}
+
+		@Test
+		@DisplayName("should throw a ConcurrentModificationException if the tree is modified during iteration")
+		void testFailFast() {
+			tree.insert(1);
+			tree.insert(2);
+
+			Iterator<Integer> iterator = tree.iterator();
+			iterator.next();
+
+			tree.insert(3);
+
+			assertThrows(ConcurrentModificationException.class, () -> iterator.next());
+		}
+	}
+}
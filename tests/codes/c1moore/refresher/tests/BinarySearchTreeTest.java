@@ -3,9 +3,15 @@ package codes.c1moore.refresher.tests;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -120,6 +126,313 @@ class BSTTestSuite {
 		}
 	}
 	
+	@Test
+	@DisplayName("should build a balanced tree when created with sorted data")
+	void createWithSortedList() {
+		List<Integer> numbers = new ArrayList<>();
+		
+		for(int number = 0; number < 1023; number++) {
+			numbers.add(number);
+		}
+		
+		BinarySearchTree<Integer> bst = new BinarySearchTree<>(numbers);
+		
+		assertEquals(10, bst.getHeight());
+		assertIterableEquals(numbers, bst);
+	}
+	
+	@Nested
+	@DisplayName("bulkLoad()")
+	class BSTBulkLoadTestSuite {
+		@Test
+		@DisplayName("should build a balanced tree from sorted data")
+		void testSortedData() {
+			List<Integer> numbers = new ArrayList<>();
+			
+			for(int number = 0; number < 1000; number++) {
+				numbers.add(number);
+			}
+			
+			BinarySearchTree<Integer> bst = BinarySearchTree.bulkLoad(numbers);
+			
+			assertEquals(10, bst.getHeight());
+			assertEquals(numbers.size(), bst.size());
+			assertIterableEquals(numbers, bst);
+		}
+		
+		@Test
+		@DisplayName("should sort unsorted data without modifying it")
+		void testUnsortedData() {
+			Integer[] numbers = {9, 3, 7, 1, 5, 3};
+			Integer[] original = numbers.clone();
+			
+			BinarySearchTree<Integer> bst = BinarySearchTree.bulkLoad(numbers);
+			
+			assertArrayEquals(original, numbers);
+			assertEquals(3, bst.getHeight());
+			assertIterableEquals(Arrays.asList(1, 3, 3, 5, 7, 9), bst);
+		}
+		
+		@Test
+		@DisplayName("should use the Comparator")
+		void testComparator() {
+			BinarySearchTree<Integer> bst = BinarySearchTree.bulkLoad(Arrays.asList(1, 2, 3), comparator);
+			
+			assertTrue(comparatorCalled);
+			assertIterableEquals(Arrays.asList(3, 2, 1), bst);
+		}
+		
+		@Test
+		@DisplayName("should create an empty tree from empty data")
+		void testEmptyData() {
+			BinarySearchTree<Integer> bst = BinarySearchTree.bulkLoad(new ArrayList<Integer>());
+			
+			assertEquals(0, bst.size());
+			assertEquals(null, bst.getMinimum());
+		}
+	}
+	
+	@Nested
+	@DisplayName("Key Extractors")
+	class BSTKeyExtractorTestSuite {
+		@Test
+		@DisplayName("should order items by their int key")
+		void testIntKey() {
+			BinarySearchTree<String> bst = BinarySearchTree.byIntKey(String::length);
+			
+			bst.insert("ccc");
+			bst.insert("a");
+			bst.insert("bb");
+			bst.insert("dddd");
+			
+			assertIterableEquals(Arrays.asList("a", "bb", "ccc", "dddd"), bst);
+			assertTrue(bst.has("xx"));
+			assertFalse(bst.has("xxxxx"));
+			assertEquals("bb", bst.floor("zz"));
+			assertEquals("ccc", bst.ceiling("zzz"));
+		}
+		
+		@Test
+		@DisplayName("should order items by their long key, including keys that overflow an int")
+		void testLongKey() {
+			BinarySearchTree<long[]> bst = BinarySearchTree.byLongKey(pair -> pair[0]);
+			final Random rand = new Random();
+			List<Long> keys = new ArrayList<>();
+			
+			for(int item = 0; item < 500; item++) {
+				long key = rand.nextLong();
+				
+				keys.add(key);
+				bst.insert(new long[] {key, item});
+			}
+			
+			Collections.sort(keys);
+			
+			List<Long> stored = new ArrayList<>();
+			
+			for(long[] pair: bst) {
+				stored.add(pair[0]);
+			}
+			
+			assertEquals(keys, stored);
+			assertTrue(bst.has(new long[] {keys.get(250), -1}));
+		}
+		
+		@Test
+		@DisplayName("should throw a ClassCastException for items that are not Comparable")
+		void testNotComparable() {
+			BinarySearchTree<Object> bst = new BinarySearchTree<>();
+			
+			bst.insert(new Object());
+			
+			assertThrows(ClassCastException.class, () -> bst.insert(new Object()));
+		}
+	}
+	
+	@Nested
+	@DisplayName("cursor()")
+	class BSTCursorTestSuite {
+		int comparisons;
+		
+		@BeforeEach
+		void beforeEach() {
+			comparisons = 0;
+		}
+		
+		private BinarySearchTree<Integer> countingTree(int size) {
+			BinarySearchTree<Integer> bst = new BinarySearchTree<>((lhs, rhs) -> {
+				comparisons++;
+				
+				return Integer.compare(lhs, rhs);
+			});
+			
+			bst.insert(size / 2);
+			
+			for(int number = 0; number < size; number++) {
+				if(number != size / 2) {
+					bst.insert((number * 7919) % size);
+				}
+			}
+			
+			return bst;
+		}
+		
+		@Test
+		@DisplayName("should answer has() like the tree for nearby and distant items")
+		void testHas() {
+			final Random rand = new Random();
+			BinarySearchTree<Integer> bst = new BinarySearchTree<>();
+			List<Integer> data = new ArrayList<>();
+			
+			for(int number = 0; number < 500; number++) {
+				int item = rand.nextInt(2000);
+				
+				bst.insert(item);
+				data.add(item);
+			}
+			
+			BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+			int position = 0;
+			
+			for(int query = 0; query < 5000; query++) {
+				position = (query % 10 == 0 ? rand.nextInt(2000) : position + rand.nextInt(7) - 3);
+				
+				assertEquals(data.contains(position), cursor.has(position));
+			}
+		}
+		
+		@Test
+		@DisplayName("should make fewer comparisons than the tree for sequential lookups")
+		void testSequentialComparisons() {
+			BinarySearchTree<Integer> bst = countingTree(4096);
+			BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+			
+			comparisons = 0;
+			for(int number = 0; number < 4096; number++) {
+				assertTrue(bst.has(number));
+			}
+			int fromRoot = comparisons;
+			
+			comparisons = 0;
+			for(int number = 0; number < 4096; number++) {
+				assertTrue(cursor.has(number));
+			}
+			int fromCursor = comparisons;
+			
+			assertTrue(fromCursor * 3 < fromRoot, fromCursor + " vs " + fromRoot);
+		}
+		
+		@Test
+		@DisplayName("should insert items in order, including duplicates")
+		void testInsert() {
+			final Random rand = new Random();
+			BinarySearchTree<Integer> bst = new BinarySearchTree<>();
+			BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+			List<Integer> expected = new ArrayList<>();
+			int position = 1000;
+			
+			for(int number = 0; number < 2000; number++) {
+				position += rand.nextInt(9) - 4;
+				
+				cursor.insert(position);
+				expected.add(position);
+				
+				assertEquals(Integer.valueOf(position), cursor.get());
+			}
+			
+			Collections.sort(expected);
+			
+			assertEquals(expected.size(), bst.size());
+			assertIterableEquals(expected, bst);
+			
+			for(int item: expected) {
+				assertTrue(bst.has(item));
+			}
+		}
+		
+		@Test
+		@DisplayName("should count duplicates and keep the membership filter in multiset mode")
+		void testMultisetInsert() {
+			BinarySearchTree<Integer> bst = new BinarySearchTree<>();
+			bst.setCountingDuplicates(true);
+			bst.setMembershipFilter(Object::hashCode);
+			
+			BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+			
+			for(int number = 0; number < 300; number++) {
+				cursor.insert(number / 3);
+			}
+			
+			assertEquals(300, bst.size());
+			assertEquals(3, bst.count(42));
+			assertTrue(cursor.has(99));
+			assertFalse(cursor.has(100));
+			assertFalse(bst.has(-1));
+		}
+		
+		@Test
+		@DisplayName("should seek to the ceiling and step in both directions")
+		void testSeekAndStep() {
+			BinarySearchTree<Integer> bst = new BinarySearchTree<>(new Integer[] {10, 20, 30, 40, 50});
+			BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+			
+			assertNull(cursor.get());
+			assertNull(cursor.next());
+			
+			assertEquals(Integer.valueOf(30), cursor.seek(25));
+			assertEquals(Integer.valueOf(30), cursor.get());
+			assertEquals(Integer.valueOf(40), cursor.next());
+			assertEquals(Integer.valueOf(50), cursor.next());
+			assertNull(cursor.next());
+			assertEquals(Integer.valueOf(50), cursor.get());
+			assertEquals(Integer.valueOf(40), cursor.previous());
+			
+			assertEquals(Integer.valueOf(10), cursor.seek(5));
+			assertNull(cursor.previous());
+			assertEquals(Integer.valueOf(20), cursor.seek(20));
+			assertEquals(Integer.valueOf(50), cursor.seek(41));
+			assertNull(cursor.seek(51));
+			assertNull(cursor.get());
+		}
+		
+		@Test
+		@DisplayName("should match ceiling() for every item from every position")
+		void testSeekFromEveryPosition() {
+			BinarySearchTree<Integer> bst = countingTree(64);
+			
+			for(int number = 0; number < 64; number++) {
+				bst.remove(number % 3 == 0 ? number : -1);
+			}
+			
+			for(int from = 0; from < 64; from++) {
+				for(int to = -1; to <= 64; to++) {
+					BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+					
+					cursor.seek(from);
+					
+					assertEquals(bst.ceiling(to), cursor.seek(to));
+				}
+			}
+		}
+		
+		@Test
+		@DisplayName("should start from the root after the tree is modified elsewhere")
+		void testStale() {
+			BinarySearchTree<Integer> bst = new BinarySearchTree<>(new Integer[] {10, 20, 30, 40, 50});
+			BinarySearchTree<Integer>.Cursor cursor = bst.cursor();
+			
+			assertTrue(cursor.has(30));
+			
+			bst.remove(30);
+			
+			assertThrows(ConcurrentModificationException.class, () -> cursor.get());
+			assertThrows(ConcurrentModificationException.class, () -> cursor.next());
+			assertFalse(cursor.has(30));
+			assertTrue(cursor.has(40));
+			assertEquals(Integer.valueOf(20), cursor.previous());
+		}
+	}
+	
 	@Nested
 	@DisplayName("Instance Methods")
 	class BSTInstanceTestSuite {
@@ -481,5 +794,657 @@ class BSTTestSuite {
 				}
 			}
 		}
+		
+		@Nested
+		@DisplayName("size()")
+		class BSTInstanceSizeTestSuite {
+			@Test
+			@DisplayName("should return 0 when the tree is empty")
+			void testEmptyTree() {
+				assertEquals(0, bst.size());
+			}
+			
+			@Test
+			@DisplayName("should count inserted and removed items")
+			void testInsertAndRemove() {
+				Integer[] numbers = {10, 5, 15, 8, 6, 9, 5};
+				
+				bst = new BinarySearchTree<>(numbers);
+				
+				assertEquals(numbers.length, bst.size());
+				
+				bst.remove(8);
+				bst.remove(5);
+				bst.remove(150);
+				
+				assertEquals(numbers.length - 2, bst.size());
+			}
+		}
+		
+		@Nested
+		@DisplayName("select(int)")
+		class BSTInstanceSelectTestSuite {
+			@Test
+			@DisplayName("should throw when the index is out of range")
+			void testOutOfRange() {
+				bst.insert(5);
+				
+				assertThrows(IndexOutOfBoundsException.class, () -> {
+					bst.select(1);
+				});
+				
+				assertThrows(IndexOutOfBoundsException.class, () -> {
+					bst.select(-1);
+				});
+			}
+			
+			@Test
+			@DisplayName("should return the items in sorted order")
+			void testSortedOrder() {
+				List<Integer> data = createDataList(100);
+				
+				for(Integer number: data) {
+					bst.insert(number);
+				}
+				
+				bst.remove(data.get(0));
+				data.remove(0);
+				
+				Collections.sort(data);
+				
+				for(int index = 0; index < data.size(); index++) {
+					assertEquals(data.get(index), bst.select(index));
+				}
+			}
+		}
+		
+		@Nested
+		@DisplayName("rank(T)")
+		class BSTInstanceRankTestSuite {
+			@Test
+			@DisplayName("should return 0 when the tree is empty")
+			void testEmptyTree() {
+				assertEquals(0, bst.rank(5));
+			}
+			
+			@Test
+			@DisplayName("should count the items less than the item")
+			void testRank() {
+				Integer[] numbers = {10, 5, 15, 8, 6, 9, 5};
+				
+				bst = new BinarySearchTree<>(numbers);
+				
+				assertEquals(0, bst.rank(5));
+				assertEquals(2, bst.rank(6));
+				assertEquals(3, bst.rank(7));
+				assertEquals(6, bst.rank(15));
+				assertEquals(7, bst.rank(100));
+			}
+		}
+		
+		@Nested
+		@DisplayName("countInRange(T, T)")
+		class BSTInstanceCountInRangeTestSuite {
+			@Test
+			@DisplayName("should count the items in the inclusive range")
+			void testCountInRange() {
+				Integer[] numbers = {10, 5, 15, 8, 6, 9, 5};
+				
+				bst = new BinarySearchTree<>(numbers);
+				
+				assertEquals(4, bst.countInRange(5, 8));
+				assertEquals(0, bst.countInRange(11, 14));
+				assertEquals(7, bst.countInRange(0, 100));
+				assertEquals(1, bst.countInRange(10, 10));
+			}
+			
+			@Test
+			@DisplayName("should return 0 when lo is greater than hi")
+			void testInvertedRange() {
+				bst.insert(5);
+				
+				assertEquals(0, bst.countInRange(10, 0));
+			}
+		}
+		
+		@Nested
+		@DisplayName("iterator()")
+		class BSTInstanceIteratorTestSuite {
+			@Test
+			@DisplayName("should not return anything when the tree is empty")
+			void testEmptyTree() {
+				assertFalse(bst.iterator().hasNext());
+				assertFalse(bst.descendingIterator().hasNext());
+			}
+			
+			@Test
+			@DisplayName("should return the items in ascending order")
+			void testAscendingOrder() {
+				List<Integer> data = createDataList(100);
+				
+				bst = new BinarySearchTree<>(data);
+				
+				Collections.sort(data);
+				
+				assertIterableEquals(data, bst);
+			}
+			
+			@Test
+			@DisplayName("should return the items in descending order")
+			void testDescendingOrder() {
+				List<Integer> data = createDataList(100);
+				List<Integer> items = new ArrayList<>();
+				
+				bst = new BinarySearchTree<>(data);
+				bst.descendingIterator().forEachRemaining(items::add);
+				
+				data.sort(Collections.reverseOrder());
+				
+				assertEquals(data, items);
+			}
+			
+			@Test
+			@DisplayName("should remove the last item returned")
+			void testRemove() {
+				Integer[] numbers = {10, 5, 15, 8, 6, 9, 5};
+				
+				bst = new BinarySearchTree<>(numbers);
+				
+				Iterator<Integer> iterator = bst.iterator();
+				while(iterator.hasNext()) {
+					if(iterator.next() % 2 == 0) {
+						iterator.remove();
+					}
+				}
+				
+				assertIterableEquals(Arrays.asList(5, 5, 9, 15), bst);
+			}
+			
+			@Test
+			@DisplayName("should fail fast if the tree is modified")
+			void testConcurrentModification() {
+				bst.insert(5);
+				bst.insert(7);
+				
+				Iterator<Integer> iterator = bst.iterator();
+				iterator.next();
+				
+				bst.insert(9);
+				
+				assertThrows(ConcurrentModificationException.class, () -> {
+					iterator.next();
+				});
+			}
+		}
+		
+		@Nested
+		@DisplayName("spliterator() and stream()")
+		class BSTInstanceSpliteratorTestSuite {
+			@Test
+			@DisplayName("should report the tree's size and ordering")
+			void testCharacteristics() {
+				bst = new BinarySearchTree<>(createDataList(100));
+				
+				Spliterator<Integer> spliterator = bst.spliterator();
+				
+				assertEquals(100, spliterator.getExactSizeIfKnown());
+				assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.SORTED | Spliterator.SIZED | Spliterator.SUBSIZED));
+				assertFalse(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+				assertEquals(null, spliterator.getComparator());
+				
+				Comparator<Integer> reverse = Collections.reverseOrder();
+				
+				assertEquals(reverse, new BinarySearchTree<Integer>(reverse).spliterator().getComparator());
+			}
+			
+			@Test
+			@DisplayName("should split into exactly sized halves that together cover the tree in order")
+			void testSplit() {
+				for(int item = 0; item < 1000; item++) {
+					bst.insert(item);
+				}
+				
+				Spliterator<Integer> suffix = bst.spliterator();
+				Spliterator<Integer> prefix = suffix.trySplit();
+				
+				assertEquals(500, prefix.estimateSize());
+				assertEquals(500, suffix.estimateSize());
+				
+				List<Integer> items = new ArrayList<>();
+				
+				prefix.tryAdvance(items::add);
+				
+				// A partially consumed Spliterator can still split.
+				Spliterator<Integer> middle = prefix.trySplit();
+				
+				middle.forEachRemaining(items::add);
+				prefix.forEachRemaining(items::add);
+				suffix.forEachRemaining(items::add);
+				
+				for(int item = 0; item < 1000; item++) {
+					assertEquals(Integer.valueOf(item), items.get(item));
+				}
+			}
+			
+			@Test
+			@DisplayName("should stop splitting at a single item")
+			void testSplitSingleItem() {
+				bst.insert(1);
+				
+				assertEquals(null, bst.spliterator().trySplit());
+			}
+			
+			@Test
+			@DisplayName("should produce the same results from sequential and parallel streams")
+			void testParallelStream() {
+				List<Integer> data = createDataList(10000);
+				
+				bst = new BinarySearchTree<>(data);
+				Collections.sort(data);
+				
+				assertEquals(data, bst.stream().collect(Collectors.toList()));
+				assertEquals(data, bst.stream().parallel().collect(Collectors.toList()));
+				assertEquals(data.stream().mapToLong(Integer::longValue).sum(), bst.stream().parallel().mapToLong(Integer::longValue).sum());
+			}
+			
+			@Test
+			@DisplayName("should throw a ConcurrentModificationException if the tree is modified during traversal")
+			void testFailFast() {
+				bst.insert(1);
+				bst.insert(2);
+				
+				Spliterator<Integer> spliterator = bst.spliterator();
+				
+				bst.insert(3);
+				
+				assertThrows(ConcurrentModificationException.class, () -> spliterator.tryAdvance((item) -> {}));
+			}
+		}
+		
+		@Nested
+		@DisplayName("setCountingDuplicates(boolean) and count(T)")
+		class BSTInstanceMultisetTestSuite {
+			@BeforeEach
+			void beforeEach() {
+				bst.setCountingDuplicates(true);
+			}
+			
+			@Test
+			@DisplayName("should only allow the mode to change while the tree is empty")
+			void testChangeMode() {
+				assertTrue(bst.isCountingDuplicates());
+				
+				bst.insert(1);
+				
+				assertThrows(IllegalStateException.class, () -> bst.setCountingDuplicates(false));
+				
+				bst.remove(1);
+				bst.setCountingDuplicates(false);
+				
+				assertFalse(bst.isCountingDuplicates());
+			}
+			
+			@Test
+			@DisplayName("should store copies of an item in a single node")
+			void testCountedDuplicates() {
+				for(int copy = 0; copy < 1000; copy++) {
+					bst.insert(7);
+				}
+				
+				bst.insert(3);
+				bst.insert(9);
+				
+				assertEquals(1002, bst.size());
+				assertEquals(1000, bst.count(7));
+				assertEquals(1, bst.count(3));
+				assertEquals(0, bst.count(8));
+				assertEquals(2, bst.getHeight());
+				
+				bst.remove(7);
+				
+				assertEquals(999, bst.count(7));
+				assertTrue(bst.has(7));
+				assertEquals(Integer.valueOf(7), bst.select(1));
+				assertEquals(Integer.valueOf(7), bst.select(999));
+				assertEquals(Integer.valueOf(9), bst.select(1000));
+				assertEquals(1, bst.rank(7));
+				assertEquals(1000, bst.rank(8));
+			}
+			
+			@Test
+			@DisplayName("should count copies that are stored in separate nodes")
+			void testCountWithoutCounting() {
+				BinarySearchTree<Integer> tree = new BinarySearchTree<>();
+				
+				tree.insert(4);
+				tree.insert(4);
+				tree.insert(2);
+				
+				assertEquals(2, tree.count(4));
+				assertEquals(0, tree.count(3));
+			}
+			
+			@Test
+			@DisplayName("should match a sorted list under random inserts and removes")
+			void testRandomOperations() {
+				final Random rand = new Random();
+				final List<Integer> expected = new ArrayList<>();
+				
+				for(int operation = 0; operation < 5000; operation++) {
+					Integer item = rand.nextInt(50);
+					
+					if(rand.nextInt(3) == 0) {
+						bst.remove(item);
+						expected.remove(item);
+					} else {
+						bst.insert(item);
+						expected.add(item);
+					}
+				}
+				
+				Collections.sort(expected);
+				
+				assertEquals(expected.size(), bst.size());
+				assertIterableEquals(expected, bst);
+				assertEquals(expected, bst.stream().parallel().collect(Collectors.toList()));
+				
+				for(int index = 0; index < expected.size(); index += 7) {
+					assertEquals(expected.get(index), bst.select(index));
+				}
+				
+				for(int item = 0; item < 50; item++) {
+					assertEquals(Collections.frequency(expected, item), bst.count(item));
+				}
+				
+				List<Integer> descending = new ArrayList<>();
+				Iterator<Integer> iterator = bst.descendingIterator();
+				
+				while(iterator.hasNext()) {
+					descending.add(iterator.next());
+				}
+				
+				Collections.reverse(descending);
+				assertEquals(expected, descending);
+			}
+			
+			@Test
+			@DisplayName("should remove a single copy through an iterator")
+			void testIteratorRemove() {
+				bst.insert(1);
+				bst.insert(2);
+				bst.insert(2);
+				bst.insert(2);
+				bst.insert(3);
+				
+				Iterator<Integer> iterator = bst.iterator();
+				
+				assertEquals(Integer.valueOf(1), iterator.next());
+				assertEquals(Integer.valueOf(2), iterator.next());
+				iterator.remove();
+				
+				List<Integer> rest = new ArrayList<>();
+				
+				while(iterator.hasNext()) {
+					rest.add(iterator.next());
+				}
+				
+				assertEquals(Arrays.asList(2, 2, 3), rest);
+				assertEquals(2, bst.count(2));
+				assertIterableEquals(Arrays.asList(2, 2), bst.range(2, 3));
+			}
+		}
+		
+		@Nested
+		@DisplayName("getDepthHistogram() and getAverageDepth()")
+		class BSTInstanceShapeTestSuite {
+			@Test
+			@DisplayName("should report nothing for an empty tree")
+			void testEmpty() {
+				assertEquals(0, bst.getDepthHistogram().length);
+				assertEquals(0.0, bst.getAverageDepth());
+			}
+			
+			@Test
+			@DisplayName("should count the nodes at each depth")
+			void testHistogram() {
+				bst.insert(4);
+				bst.insert(2);
+				bst.insert(6);
+				bst.insert(1);
+				bst.insert(3);
+				bst.insert(7);
+				bst.insert(8);
+				
+				assertArrayEquals(new int[] {1, 2, 3, 1}, bst.getDepthHistogram());
+				assertEquals(11.0 / 7, bst.getAverageDepth(), 1e-9);
+			}
+			
+			@Test
+			@DisplayName("should show a degenerate tree")
+			void testDegenerate() {
+				for(int item = 0; item < 100; item++) {
+					bst.insert(item);
+				}
+				
+				int[] histogram = bst.getDepthHistogram();
+				
+				assertEquals(100, histogram.length);
+				
+				for(int depth = 0; depth < 100; depth++) {
+					assertEquals(1, histogram[depth]);
+				}
+				
+				assertEquals(49.5, bst.getAverageDepth(), 1e-9);
+			}
+		}
+		
+		@Nested
+		@DisplayName("setMembershipFilter(ToIntFunction)")
+		class BSTInstanceFilterTestSuite {
+			@Test
+			@DisplayName("should answer has() exactly while rejecting most misses")
+			void testLookups() {
+				final Random rand = new Random();
+				final List<Integer> expected = new ArrayList<>();
+				
+				bst.setMembershipFilter(Object::hashCode);
+				bst.setCountingDuplicates(rand.nextBoolean());
+				
+				for(int operation = 0; operation < 20000; operation++) {
+					Integer item = rand.nextInt(5000);
+					
+					if(rand.nextInt(3) == 0) {
+						bst.remove(item);
+						expected.remove(item);
+					} else {
+						bst.insert(item);
+						expected.add(item);
+					}
+				}
+				
+				assertTrue(bst.hasMembershipFilter());
+				
+				for(int item = -1000; item < 6000; item++) {
+					assertEquals(expected.contains(item), bst.has(item));
+				}
+				
+				assertTrue(bst.getFilterFalsePositiveRate() < 0.01);
+				assertTrue(bst.getFilterMemoryUsage() > 0);
+			}
+			
+			@Test
+			@DisplayName("should be built from the items already stored and follow iterator removals")
+			void testExistingItems() {
+				for(int item = 0; item < 1000; item++) {
+					bst.insert(item);
+					bst.insert(item);
+				}
+				
+				bst.setMembershipFilter(Object::hashCode);
+				
+				Iterator<Integer> iterator = bst.iterator();
+				
+				while(iterator.hasNext()) {
+					if(iterator.next() % 2 == 0) {
+						iterator.remove();
+					}
+				}
+				
+				for(int item = 0; item < 1000; item++) {
+					assertEquals(item % 2 != 0, bst.has(item));
+				}
+				
+				bst.setMembershipFilter(null);
+				
+				assertFalse(bst.hasMembershipFilter());
+				assertEquals(0, bst.getFilterMemoryUsage());
+				assertEquals(0.0, bst.getFilterFalsePositiveRate());
+			}
+			
+			@Test
+			@DisplayName("should disable itself if the hash function cannot tell items apart")
+			void testDegenerateHash() {
+				bst.setMembershipFilter(item -> 7);
+				
+				for(int item = 0; item < 100; item++) {
+					bst.insert(item);
+				}
+				
+				assertFalse(bst.hasMembershipFilter());
+				
+				for(int item = 0; item < 100; item++) {
+					assertTrue(bst.has(item));
+				}
+			}
+		}
+		
+		@Nested
+		@DisplayName("range(T, T)")
+		class BSTInstanceRangeTestSuite {
+			@BeforeEach
+			void beforeEach() {
+				bst = new BinarySearchTree<>(new Integer[] {10, 5, 15, 8, 6, 9, 5, 20});
+			}
+			
+			@Test
+			@DisplayName("should return the items in [lo, hi)")
+			void testRange() {
+				assertIterableEquals(Arrays.asList(5, 5, 6, 8), bst.range(5, 9));
+				assertIterableEquals(Arrays.asList(9, 10), bst.range(9, 11));
+				assertIterableEquals(Collections.emptyList(), bst.range(11, 15));
+				assertIterableEquals(Collections.emptyList(), bst.range(30, 40));
+			}
+			
+			@Test
+			@DisplayName("should return the items less than hi for headSet(T)")
+			void testHeadSet() {
+				assertIterableEquals(Arrays.asList(5, 5, 6), bst.headSet(8));
+				assertIterableEquals(Collections.emptyList(), bst.headSet(5));
+			}
+			
+			@Test
+			@DisplayName("should return the items at or above lo for tailSet(T)")
+			void testTailSet() {
+				assertIterableEquals(Arrays.asList(10, 15, 20), bst.tailSet(10));
+				assertIterableEquals(Collections.emptyList(), bst.tailSet(21));
+			}
+			
+			@Test
+			@DisplayName("should reflect changes made after the view was created")
+			void testLazyView() {
+				Iterable<Integer> view = bst.range(11, 20);
+				
+				bst.insert(12);
+				
+				assertIterableEquals(Arrays.asList(12, 15), view);
+			}
+		}
+		
+		@Nested
+		@DisplayName("floor(T), ceiling(T), lower(T), and higher(T)")
+		class BSTInstanceNavigationTestSuite {
+			@BeforeEach
+			void beforeEach() {
+				bst = new BinarySearchTree<>(new Integer[] {10, 5, 15, 8, 6, 9, 5, 20});
+			}
+			
+			@Test
+			@DisplayName("should return null when the tree is empty")
+			void testEmptyTree() {
+				bst = new BinarySearchTree<>();
+				
+				assertEquals(null, bst.floor(5));
+				assertEquals(null, bst.ceiling(5));
+				assertEquals(null, bst.lower(5));
+				assertEquals(null, bst.higher(5));
+			}
+			
+			@Test
+			@DisplayName("should find the nearest item at or below the item for floor(T)")
+			void testFloor() {
+				assertEquals(Integer.valueOf(10), bst.floor(10));
+				assertEquals(Integer.valueOf(10), bst.floor(14));
+				assertEquals(Integer.valueOf(20), bst.floor(100));
+				assertEquals(null, bst.floor(4));
+			}
+			
+			@Test
+			@DisplayName("should find the nearest item at or above the item for ceiling(T)")
+			void testCeiling() {
+				assertEquals(Integer.valueOf(10), bst.ceiling(10));
+				assertEquals(Integer.valueOf(15), bst.ceiling(11));
+				assertEquals(Integer.valueOf(5), bst.ceiling(-100));
+				assertEquals(null, bst.ceiling(21));
+			}
+			
+			@Test
+			@DisplayName("should find the nearest item below the item for lower(T)")
+			void testLower() {
+				assertEquals(Integer.valueOf(9), bst.lower(10));
+				assertEquals(Integer.valueOf(5), bst.lower(6));
+				assertEquals(null, bst.lower(5));
+			}
+			
+			@Test
+			@DisplayName("should find the nearest item above the item for higher(T)")
+			void testHigher() {
+				assertEquals(Integer.valueOf(15), bst.higher(10));
+				assertEquals(Integer.valueOf(6), bst.higher(5));
+				assertEquals(null, bst.higher(20));
+			}
+		}
+		
+		@Nested
+		@DisplayName("successor(T) and predecessor(T)")
+		class BSTInstanceSuccessorTestSuite {
+			@BeforeEach
+			void beforeEach() {
+				bst = new BinarySearchTree<>(new Integer[] {10, 5, 15, 8, 6, 9, 5, 20});
+			}
+			
+			@Test
+			@DisplayName("should return the next item for successor(T)")
+			void testSuccessor() {
+				assertEquals(Integer.valueOf(6), bst.successor(5));
+				assertEquals(Integer.valueOf(10), bst.successor(9));
+				assertEquals(Integer.valueOf(15), bst.successor(10));
+				assertEquals(null, bst.successor(20));
+			}
+			
+			@Test
+			@DisplayName("should return the previous item for predecessor(T)")
+			void testPredecessor() {
+				assertEquals(Integer.valueOf(5), bst.predecessor(6));
+				assertEquals(Integer.valueOf(9), bst.predecessor(10));
+				assertEquals(null, bst.predecessor(5));
+			}
+			
+			@Test
+			@DisplayName("should return null if the item is not stored")
+			void testMissingItem() {
+				assertEquals(null, bst.successor(7));
+				assertEquals(null, bst.predecessor(7));
+			}
+		}
 	}
 }
@@ -0,0 +1,84 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import codes.c1moore.refresher.filter.BloomFilter;
+
+@DisplayName("BloomFilter")
+class BloomFilterTest {
+	@Test
+	@DisplayName("should reject invalid sizes")
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter<Integer>(0, 0.01, Object::hashCode));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter<Integer>(10, 0, Object::hashCode));
+		assertThrows(IllegalArgumentException.class, () -> new BloomFilter<Integer>(10, 1, Object::hashCode));
+	}
+
+	@Test
+	@DisplayName("should never return a false negative")
+	void testNoFalseNegatives() {
+		BloomFilter<Integer> filter = new BloomFilter<>(10000, 0.01, Object::hashCode);
+
+		for(int item = 0; item < 10000; item++) {
+			filter.add(item * 7);
+		}
+
+		for(int item = 0; item < 10000; item++) {
+			assertTrue(filter.mightContain(item * 7));
+		}
+	}
+
+	@Test
+	@DisplayName("should keep the false-positive rate near the target at capacity")
+	void testFalsePositiveRate() {
+		BloomFilter<Integer> filter = new BloomFilter<>(10000, 0.01, Object::hashCode);
+
+		for(int item = 0; item < 10000; item++) {
+			filter.add(item);
+		}
+
+		int falsePositives = 0;
+
+		for(int item = 10000; item < 110000; item++) {
+			if(filter.mightContain(item)) {
+				falsePositives++;
+			}
+		}
+
+		assertTrue(falsePositives < 2000, "false positives: " + falsePositives);
+		assertTrue(filter.getExpectedFalsePositiveRate() < 0.02);
+		assertEquals(7, filter.getHashCount());
+		assertEquals(filter.getBitCount() / 8, filter.getMemoryUsage());
+	}
+
+	@Test
+	@DisplayName("should read back the filter that was written")
+	void testWriteAndRead() throws IOException {
+		BloomFilter<Integer> filter = new BloomFilter<>(100, 0.05, Object::hashCode);
+
+		for(int item = 0; item < 100; item++) {
+			filter.add(item);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		filter.writeTo(new DataOutputStream(bytes));
+
+		BloomFilter<Integer> copy = BloomFilter.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), Object::hashCode);
+
+		assertEquals(filter.getBitCount(), copy.getBitCount());
+		assertEquals(filter.getHashCount(), copy.getHashCount());
+
+		for(int item = 0; item < 1000; item++) {
+			assertEquals(filter.mightContain(item), copy.mightContain(item));
+		}
+	}
+}
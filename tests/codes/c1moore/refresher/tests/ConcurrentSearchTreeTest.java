@@ -0,0 +1,438 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.ConcurrentSearchTree;
+
+@DisplayName("ConcurrentSearchTree")
+class ConcurrentSearchTreeTest {
+	/**
+	 * Runs each task on its own thread, starting them all at once, and rethrows the
+	 * first failure.
+	 */
+	private void runConcurrently(List<Runnable> tasks) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+		final List<Thread> threads = new ArrayList<>();
+
+		for(Runnable task: tasks) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					task.run();
+				} catch(Throwable t) {
+					failures.add(t);
+				}
+			});
+
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+
+		for(Thread thread: threads) {
+			thread.join();
+		}
+
+		if(!failures.isEmpty()) {
+			throw new AssertionError(failures.get(0));
+		}
+	}
+
+	/**
+	 * Operation is a single call on one key, with the logical times at which it
+	 * was invoked and returned.
+	 */
+	static final class Operation {
+		static final int INSERT = 0;
+		static final int REMOVE = 1;
+		static final int HAS = 2;
+
+		final int kind;
+		final boolean result;
+		final long start;
+		final long end;
+
+		Operation(int kind, boolean result, long start, long end) {
+			this.kind = kind;
+			this.result = result;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns whether a key would be stored after this Operation is applied to
+		 * a set in which the key is stored iff present, or null if the Operation
+		 * could not have returned its result from that state.
+		 */
+		Boolean apply(boolean present) {
+			switch(kind) {
+				case INSERT:
+					return (result != present ? Boolean.TRUE : null);
+				case REMOVE:
+					return (result == present ? Boolean.FALSE : null);
+				default:
+					return (result == present ? Boolean.valueOf(present) : null);
+			}
+		}
+	}
+
+	/**
+	 * Event is the call or the return of an Operation in a history, linked in
+	 * order of time.
+	 */
+	static final class Event {
+		final Operation operation;
+		final int id;
+		Event match;	// The return of a call, or null for a return.
+		Event previous;
+		Event next;
+
+		Event(Operation operation, int id) {
+			this.operation = operation;
+			this.id = id;
+		}
+
+		void lift() {
+			previous.next = next;
+			if(next != null) {
+				next.previous = previous;
+			}
+
+			match.previous.next = match.next;
+			if(match.next != null) {
+				match.next.previous = match.previous;
+			}
+		}
+
+		void unlift() {
+			match.previous.next = match;
+			if(match.next != null) {
+				match.next.previous = match;
+			}
+
+			previous.next = this;
+			if(next != null) {
+				next.previous = this;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the history of a single key is linearizable against a
+	 * sequential set, using the Wing-Gong search with the linearized operations
+	 * and resulting state cached (as described by Lowe) so that each
+	 * configuration is explored only once.
+	 */
+	static boolean isLinearizable(List<Operation> history) {
+		List<Event> events = new ArrayList<>();
+
+		for(int index = 0; index < history.size(); index++) {
+			Event call = new Event(history.get(index), index);
+			call.match = new Event(history.get(index), index);
+
+			events.add(call);
+			events.add(call.match);
+		}
+
+		events.sort(Comparator.comparingLong(event -> (event.match != null ? event.operation.start : event.operation.end)));
+
+		Event head = new Event(null, -1);
+		Event last = head;
+
+		for(Event event: events) {
+			last.next = event;
+			event.previous = last;
+			last = event;
+		}
+
+		Deque<Event> linearized = new ArrayDeque<>();
+		Deque<Boolean> states = new ArrayDeque<>();
+		Set<List<Object>> seen = new HashSet<>();
+		BitSet done = new BitSet(history.size());
+		boolean present = false;
+		Event event = head.next;
+
+		while(head.next != null) {
+			if(event.match != null) {
+				Boolean next = event.operation.apply(present);
+
+				if(next != null) {
+					BitSet candidate = (BitSet) done.clone();
+					candidate.set(event.id);
+
+					if(seen.add(Arrays.asList(candidate, next))) {
+						linearized.push(event);
+						states.push(present);
+
+						done = candidate;
+						present = next;
+						event.lift();
+						event = head.next;
+
+						continue;
+					}
+				}
+
+				event = event.next;
+			} else {
+				// An operation returned before any order could linearize it, so backtrack.
+				if(linearized.isEmpty()) {
+					return false;
+				}
+
+				event = linearized.pop();
+				present = states.pop();
+				done.clear(event.id);
+				event.unlift();
+				event = event.next;
+			}
+		}
+
+		return true;
+	}
+
+	@Test
+	@DisplayName("should be able to create a ConcurrentSearchTree with a Comparator")
+	void createWithComparator() {
+		ConcurrentSearchTree<Integer> tree = new ConcurrentSearchTree<>((lhs, rhs) -> Integer.compare(rhs, lhs));
+
+		tree.insert(1);
+		tree.insert(2);
+		tree.insert(3);
+
+		assertEquals(Integer.valueOf(3), tree.getMinimum());
+		assertEquals(Integer.valueOf(1), tree.getMaximum());
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class ConcurrentSearchTreeInstanceTestSuite {
+		ConcurrentSearchTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new ConcurrentSearchTree<>();
+		}
+
+		@Test
+		@DisplayName("should behave like a set when used by a single thread")
+		void testSequentialOperations() {
+			assertEquals(null, tree.getMinimum());
+			assertEquals(null, tree.getMaximum());
+			assertFalse(tree.has(5));
+
+			assertTrue(tree.insert(5));
+			assertTrue(tree.insert(3));
+			assertTrue(tree.insert(9));
+			assertFalse(tree.insert(5));
+
+			assertTrue(tree.has(3));
+			assertEquals(3, tree.size());
+			assertEquals(Integer.valueOf(3), tree.getMinimum());
+			assertEquals(Integer.valueOf(9), tree.getMaximum());
+			assertIterableEquals(Arrays.asList(3, 5, 9), tree);
+
+			assertTrue(tree.remove(9));
+			assertFalse(tree.remove(9));
+			assertEquals(Integer.valueOf(5), tree.getMaximum());
+
+			assertTrue(tree.remove(3));
+			assertTrue(tree.remove(5));
+			assertEquals(0, tree.size());
+			assertEquals(null, tree.getMaximum());
+			assertIterableEquals(Collections.emptyList(), tree);
+		}
+
+		@Test
+		@DisplayName("should keep every item written by disjoint writers and never hide stable items from readers")
+		void testDisjointWriters() throws InterruptedException {
+			final int writers = 4;
+			final int itemsPerWriter = 5000;
+			final int stableItems = 100;
+			final AtomicBoolean writing = new AtomicBoolean(true);
+			final AtomicInteger finishedWriters = new AtomicInteger();
+			final List<Runnable> tasks = new ArrayList<>();
+
+			// Stable items are never removed, so a reader must always find them.
+			for(int item = 0; item < stableItems; item++) {
+				tree.insert(-1 - item);
+			}
+
+			for(int writer = 0; writer < writers; writer++) {
+				final int offset = writer;
+
+				tasks.add(() -> {
+					List<Integer> items = new ArrayList<>();
+
+					for(int index = 0; index < itemsPerWriter; index++) {
+						items.add(index * writers + offset);
+					}
+
+					Collections.shuffle(items);
+
+					for(Integer item: items) {
+						assertTrue(tree.insert(item));
+					}
+
+					// Remove the odd items again.
+					for(Integer item: items) {
+						if(item % 2 == 1) {
+							assertTrue(tree.remove(item));
+						}
+					}
+
+					if(finishedWriters.incrementAndGet() == writers) {
+						writing.set(false);
+					}
+				});
+			}
+
+			for(int reader = 0; reader < 2; reader++) {
+				tasks.add(() -> {
+					Random rand = new Random();
+
+					while(writing.get()) {
+						assertTrue(tree.has(-1 - rand.nextInt(stableItems)));
+					}
+				});
+			}
+
+			runConcurrently(tasks);
+
+			List<Integer> expected = new ArrayList<>();
+			for(int item = -stableItems; item < writers * itemsPerWriter; item++) {
+				if(item < 0 || item % 2 == 0) {
+					expected.add(item);
+				}
+			}
+
+			assertIterableEquals(expected, tree);
+			assertEquals(stableItems + writers * itemsPerWriter / 2, tree.size());
+		}
+
+		@Test
+		@DisplayName("should agree with the results of contended inserts and removes")
+		void testContendedKeys() throws InterruptedException {
+			final int keys = 64;
+			final int operations = 20000;
+			final AtomicInteger[] balance = new AtomicInteger[keys];
+			final List<Runnable> tasks = new ArrayList<>();
+
+			for(int key = 0; key < keys; key++) {
+				balance[key] = new AtomicInteger();
+			}
+
+			for(int thread = 0; thread < 6; thread++) {
+				tasks.add(() -> {
+					Random rand = new Random();
+
+					for(int operation = 0; operation < operations; operation++) {
+						int key = rand.nextInt(keys);
+
+						if(rand.nextBoolean()) {
+							if(tree.insert(key)) {
+								balance[key].incrementAndGet();
+							}
+						} else if(tree.remove(key)) {
+							balance[key].decrementAndGet();
+						}
+					}
+				});
+			}
+
+			runConcurrently(tasks);
+
+			// Successful inserts and removes of a key must alternate, so their balance is
+			// exactly whether the key ended up in the tree.
+			int size = 0;
+			for(int key = 0; key < keys; key++) {
+				int expected = (tree.has(key) ? 1 : 0);
+
+				assertEquals(expected, balance[key].get());
+
+				size += expected;
+			}
+
+			assertEquals(size, tree.size());
+		}
+
+		@Test
+		@DisplayName("should produce a linearizable history for every key under contention")
+		void testLinearizability() throws InterruptedException {
+			final int keys = 8;
+			final int threads = 4;
+			final int operations = 3000;
+			final AtomicLong clock = new AtomicLong();
+			final List<List<List<Operation>>> histories = new ArrayList<>();
+			final List<Runnable> tasks = new ArrayList<>();
+
+			for(int thread = 0; thread < threads; thread++) {
+				final List<List<Operation>> history = new ArrayList<>();
+
+				for(int key = 0; key < keys; key++) {
+					history.add(new ArrayList<>());
+				}
+
+				histories.add(history);
+				tasks.add(() -> {
+					Random rand = new Random();
+
+					for(int operation = 0; operation < operations; operation++) {
+						int key = rand.nextInt(keys);
+						int kind = rand.nextInt(3);
+
+						// Each operation takes its times from a shared clock, so one that returns
+						// before another starts is ordered before it.
+						long start = clock.getAndIncrement();
+						boolean result;
+
+						if(kind == Operation.INSERT) {
+							result = tree.insert(key);
+						} else if(kind == Operation.REMOVE) {
+							result = tree.remove(key);
+						} else {
+							result = tree.has(key);
+						}
+
+						history.get(key).add(new Operation(kind, result, start, clock.getAndIncrement()));
+					}
+				});
+			}
+
+			runConcurrently(tasks);
+
+			for(int key = 0; key < keys; key++) {
+				List<Operation> history = new ArrayList<>();
+
+				for(List<List<Operation>> thread: histories) {
+					history.addAll(thread.get(key));
+				}
+
+				assertTrue(isLinearizable(history), "History of key " + key + " is not linearizable.");
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.filter.CuckooFilter;
+
+@DisplayName("CuckooFilter")
+class CuckooFilterTest {
+	@Test
+	@DisplayName("should reject capacities less than 1")
+	void testInvalidCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new CuckooFilter<Integer>(0, Object::hashCode));
+	}
+
+	@Test
+	@DisplayName("should size its table to hold the requested capacity")
+	void testCapacity() {
+		CuckooFilter<Integer> filter = new CuckooFilter<>(1000, Object::hashCode);
+
+		assertTrue(filter.getCapacity() >= 1000);
+		assertEquals(filter.getCapacity() * 2L, filter.getMemoryUsage());
+		assertEquals(0.0, filter.getLoadFactor());
+		assertEquals(0.0, filter.getExpectedFalsePositiveRate());
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class CuckooFilterInstanceTestSuite {
+		CuckooFilter<Integer> filter;
+
+		@BeforeEach
+		void beforeEach() {
+			filter = new CuckooFilter<>(10000, Object::hashCode);
+		}
+
+		@Test
+		@DisplayName("should never return a false negative and rarely a false positive")
+		void testMembership() {
+			for(int item = 0; item < 10000; item++) {
+				assertTrue(filter.add(2 * item));
+			}
+
+			assertEquals(10000, filter.size());
+
+			for(int item = 0; item < 10000; item++) {
+				assertTrue(filter.mightContain(2 * item));
+			}
+
+			int falsePositives = 0;
+
+			for(int item = 0; item < 100000; item++) {
+				if(filter.mightContain(2 * item + 1)) {
+					falsePositives++;
+				}
+			}
+
+			assertTrue(filter.getExpectedFalsePositiveRate() < 0.001);
+			assertTrue(falsePositives < 100);
+		}
+
+		@Test
+		@DisplayName("should forget removed items and keep the rest")
+		void testRemove() {
+			final Random rand = new Random();
+			final Set<Integer> added = new HashSet<>();
+
+			for(int item = 0; item < 5000; item++) {
+				int value = rand.nextInt();
+
+				if(added.add(value)) {
+					assertTrue(filter.add(value));
+				}
+			}
+
+			int removed = 0;
+
+			for(Integer item: new HashSet<>(added)) {
+				if(item % 2 == 0) {
+					assertTrue(filter.remove(item));
+					added.remove(item);
+					removed++;
+				}
+			}
+
+			assertEquals(added.size(), filter.size());
+
+			for(Integer item: added) {
+				assertTrue(filter.mightContain(item));
+			}
+
+			assertTrue(removed > 0);
+		}
+
+		@Test
+		@DisplayName("should hold up to 8 copies of an item")
+		void testCopies() {
+			for(int copy = 0; copy < 8; copy++) {
+				assertTrue(filter.add(42));
+			}
+
+			for(int copy = 0; copy < 8; copy++) {
+				assertTrue(filter.mightContain(42));
+				assertTrue(filter.remove(42));
+			}
+
+			assertFalse(filter.mightContain(42));
+			assertFalse(filter.remove(42));
+		}
+	}
+
+	@Test
+	@DisplayName("should refuse items once it is full without losing any")
+	void testFull() {
+		CuckooFilter<Integer> filter = new CuckooFilter<>(8, Object::hashCode);
+		int added = 0;
+
+		while(filter.add(added)) {
+			added++;
+		}
+
+		assertTrue(added >= 8);
+		assertTrue(added <= filter.getCapacity() + 1);
+		assertEquals(added, filter.size());
+
+		for(int item = 0; item < added; item++) {
+			assertTrue(filter.mightContain(item));
+		}
+
+		assertTrue(filter.remove(0));
+		assertEquals(added - 1, filter.size());
+
+		for(int item = 1; item < added; item++) {
+			assertTrue(filter.mightContain(item));
+		}
+	}
+}
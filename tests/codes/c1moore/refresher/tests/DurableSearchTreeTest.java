@@ -0,0 +1,261 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.AVLTree;
+import codes.c1moore.refresher.bst.BinarySearchTree;
+import codes.c1moore.refresher.bst.DurableSearchTree;
+import codes.c1moore.refresher.common.Codec;
+
+@DisplayName("DurableSearchTree")
+class DurableSearchTreeTest {
+	static final Codec<Integer> CODEC = new Codec<Integer>() {
+		@Override
+		public byte[] encode(Integer item) {
+			return ByteBuffer.allocate(Integer.BYTES).putInt(item).array();
+		}
+
+		@Override
+		public Integer decode(byte[] bytes) {
+			return ByteBuffer.wrap(bytes).getInt();
+		}
+	};
+
+	Path directory;
+
+	@BeforeEach
+	void beforeEach() throws IOException {
+		directory = Files.createTempDirectory("durable-search-tree");
+	}
+
+	@AfterEach
+	void afterEach() throws IOException {
+		List<Path> files = new ArrayList<>();
+
+		Files.walk(directory).forEach(files::add);
+		Collections.reverse(files);
+
+		for(Path file: files) {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Opens the DurableSearchTree in directory with a new, empty BinarySearchTree.
+	 */
+	DurableSearchTree<Integer> reopen() throws IOException {
+		return DurableSearchTree.open(directory, new BinarySearchTree<>(), CODEC);
+	}
+
+	@Test
+	@DisplayName("should refuse to wrap a SearchTree that is not empty")
+	void testNonEmptyTree() {
+		BinarySearchTree<Integer> tree = new BinarySearchTree<>();
+		tree.insert(1);
+
+		assertThrows(IllegalArgumentException.class, () -> DurableSearchTree.open(directory, tree, CODEC));
+	}
+
+	@Test
+	@DisplayName("should reject invalid batch sizes and checkpoint intervals")
+	void testInvalidSettings() throws IOException {
+		try(DurableSearchTree<Integer> tree = reopen()) {
+			assertThrows(IllegalArgumentException.class, () -> tree.setBatchSize(0));
+			assertThrows(IllegalArgumentException.class, () -> tree.setCheckpointInterval(-1));
+		}
+	}
+
+	@Test
+	@DisplayName("should leave the tree unchanged when an update cannot be logged")
+	void testUnencodableItem() throws IOException {
+		Codec<Integer> codec = new Codec<Integer>() {
+			@Override
+			public byte[] encode(Integer item) {
+				if(item < 0) {
+					throw new IllegalArgumentException();
+				}
+
+				return CODEC.encode(item);
+			}
+
+			@Override
+			public Integer decode(byte[] bytes) {
+				return CODEC.decode(bytes);
+			}
+		};
+
+		try(DurableSearchTree<Integer> tree = DurableSearchTree.open(directory, new BinarySearchTree<>(), codec)) {
+			tree.insert(1);
+
+			assertThrows(IllegalArgumentException.class, () -> tree.insert(-1));
+			assertFalse(tree.has(-1));
+			assertEquals(1, tree.size());
+		}
+
+		try(DurableSearchTree<Integer> tree = reopen()) {
+			assertIterableEquals(Arrays.asList(1), tree);
+		}
+	}
+
+	@Nested
+	@DisplayName("Recovery")
+	class DurableSearchTreeRecoveryTestSuite {
+		@Test
+		@DisplayName("should recover every update from the log when reopened")
+		void testReplayLog() throws IOException {
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				tree.setBatchSize(7);
+
+				for(int item = 0; item < 100; item++) {
+					tree.insert(item);
+				}
+
+				for(int item = 0; item < 100; item += 3) {
+					tree.remove(item);
+				}
+
+				// Removing an item that is not stored is not logged.
+				tree.remove(1000);
+			}
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				assertEquals(66, tree.size());
+
+				for(int item = 0; item < 100; item++) {
+					assertEquals(item % 3 != 0, tree.has(item));
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("should only lose the updates that were not synced")
+		void testUnsyncedUpdates() throws IOException {
+			DurableSearchTree<Integer> tree = reopen();
+			tree.setBatchSize(10);
+
+			for(int item = 0; item < 25; item++) {
+				tree.insert(item);
+			}
+
+			// Simulate a crash by opening the directory again without closing the tree.
+			try(DurableSearchTree<Integer> recovered = reopen()) {
+				assertEquals(20, recovered.size());
+			}
+
+			tree.close();
+		}
+
+		@Test
+		@DisplayName("should ignore a torn record at the end of the log")
+		void testTornRecord() throws IOException {
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				tree.insert(1);
+				tree.insert(2);
+			}
+
+			Files.write(directory.resolve("wal.log"), new byte[] {0, 0, 0, 0, 0, 0, 0, 3, 1, 0x7f, 0, 0}, StandardOpenOption.APPEND);
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				assertIterableEquals(Arrays.asList(1, 2), tree);
+
+				tree.insert(3);
+			}
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				assertIterableEquals(Arrays.asList(1, 2, 3), tree);
+			}
+		}
+
+		@Test
+		@DisplayName("should load a checkpoint and replay only the updates made after it")
+		void testCheckpoint() throws IOException {
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				tree.insert(5);
+				tree.insert(5);
+				tree.insert(3);
+				tree.checkpoint();
+
+				assertEquals(0, Files.size(directory.resolve("wal.log")));
+
+				tree.remove(5);
+				tree.insert(9);
+			}
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				assertIterableEquals(Arrays.asList(3, 5, 9), tree);
+			}
+		}
+
+		@Test
+		@DisplayName("should not replay records that a checkpoint already includes")
+		void testCrashBeforeLogTruncation() throws IOException {
+			Path log = directory.resolve("wal.log");
+			byte[] oldLog;
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				tree.setBatchSize(1);
+				tree.insert(1);
+				tree.insert(2);
+
+				oldLog = Files.readAllBytes(log);
+
+				tree.checkpoint();
+			}
+
+			// Simulate a crash between renaming the checkpoint and emptying the log.
+			Files.write(log, oldLog);
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				assertIterableEquals(Arrays.asList(1, 2), tree);
+			}
+		}
+
+		@Test
+		@DisplayName("should take checkpoints automatically and recover into any engine")
+		void testAutomaticCheckpoints() throws IOException {
+			final Random rand = new Random();
+			final List<Integer> expected = new ArrayList<>();
+
+			try(DurableSearchTree<Integer> tree = reopen()) {
+				tree.setCheckpointInterval(100);
+
+				for(int operation = 0; operation < 1000; operation++) {
+					Integer item = rand.nextInt(200);
+
+					if(rand.nextInt(3) == 0) {
+						tree.remove(item);
+						expected.remove(item);
+					} else {
+						tree.insert(item);
+						expected.add(item);
+					}
+				}
+			}
+
+			assertTrue(Files.exists(directory.resolve("checkpoint")));
+
+			Collections.sort(expected);
+
+			try(DurableSearchTree<Integer> tree = DurableSearchTree.open(directory, new AVLTree<>(), CODEC)) {
+				assertIterableEquals(expected, tree);
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import codes.c1moore.refresher.bst.FrozenLongSearchTree;
+import codes.c1moore.refresher.bst.LongBinarySearchTree;
+
+@DisplayName("FrozenLongSearchTree")
+class FrozenLongSearchTreeTest {
+	@Test
+	@DisplayName("should throw when there is no answer")
+	void testEmpty() {
+		FrozenLongSearchTree frozen = new LongBinarySearchTree().freeze();
+
+		assertEquals(0, frozen.size());
+		assertFalse(frozen.has(0));
+		assertThrows(NoSuchElementException.class, () -> frozen.ceiling(0));
+		assertThrows(NoSuchElementException.class, () -> frozen.getMinimum());
+		assertThrows(NoSuchElementException.class, () -> frozen.iterator().nextLong());
+	}
+
+	@Test
+	@DisplayName("should match a TreeSet for every size and query")
+	void testEverySize() {
+		for(int size = 1; size <= 70; size++) {
+			LongBinarySearchTree tree = new LongBinarySearchTree();
+			TreeSet<Long> expected = new TreeSet<>();
+
+			for(long key = 0; key < size; key++) {
+				tree.insert(3 * key);
+				expected.add(3 * key);
+			}
+
+			FrozenLongSearchTree frozen = tree.freeze();
+
+			assertEquals(size, frozen.size());
+			assertEquals((long) expected.first(), frozen.getMinimum());
+			assertEquals((long) expected.last(), frozen.getMaximum());
+
+			for(long key = -1; key <= 3 * size; key++) {
+				final long query = key;
+
+				assertEquals(expected.contains(query), frozen.has(query));
+				assertEquals(expected.floor(query), valueOf(() -> frozen.floor(query)));
+				assertEquals(expected.ceiling(query), valueOf(() -> frozen.ceiling(query)));
+				assertEquals(expected.lower(query), valueOf(() -> frozen.lower(query)));
+				assertEquals(expected.higher(query), valueOf(() -> frozen.higher(query)));
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("should handle the extreme keys and iterate in order")
+	void testRandomKeys() {
+		final Random rand = new Random();
+		LongBinarySearchTree tree = new LongBinarySearchTree();
+		TreeSet<Long> expected = new TreeSet<>();
+
+		tree.insert(Long.MIN_VALUE);
+		tree.insert(Long.MAX_VALUE);
+		expected.add(Long.MIN_VALUE);
+		expected.add(Long.MAX_VALUE);
+
+		for(int item = 0; item < 1000; item++) {
+			long key = rand.nextLong();
+
+			tree.insert(key);
+			expected.add(key);
+		}
+
+		FrozenLongSearchTree frozen = tree.freeze();
+		PrimitiveIterator.OfLong iterator = frozen.iterator();
+
+		for(Long key: expected) {
+			assertEquals((long) key, iterator.nextLong());
+			assertTrue(frozen.has(key));
+		}
+
+		assertFalse(iterator.hasNext());
+		assertEquals(Long.MIN_VALUE, frozen.floor(Long.MIN_VALUE));
+		assertEquals(Long.MAX_VALUE, frozen.ceiling(Long.MAX_VALUE));
+	}
+
+	/**
+	 * Returns the result of query, or null if it throws NoSuchElementException.
+	 */
+	static Long valueOf(LongSupplier query) {
+		try {
+			return query.getAsLong();
+		} catch(NoSuchElementException exception) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.BinarySearchTree;
+import codes.c1moore.refresher.bst.FrozenSearchTree;
+
+@DisplayName("FrozenSearchTree")
+class FrozenSearchTreeTest {
+	@Test
+	@DisplayName("should answer nothing when frozen from an empty tree")
+	void testEmpty() {
+		FrozenSearchTree<Integer> frozen = new BinarySearchTree<Integer>().freeze();
+
+		assertEquals(0, frozen.size());
+		assertFalse(frozen.has(1));
+		assertEquals(null, frozen.ceiling(1));
+		assertEquals(null, frozen.floor(1));
+		assertEquals(null, frozen.getMinimum());
+		assertEquals(null, frozen.getMaximum());
+		assertFalse(frozen.iterator().hasNext());
+		assertThrows(NoSuchElementException.class, () -> frozen.iterator().next());
+	}
+
+	@Test
+	@DisplayName("should not change when the source tree changes")
+	void testSnapshot() {
+		BinarySearchTree<Integer> tree = new BinarySearchTree<>(Arrays.asList(3, 1, 2));
+		FrozenSearchTree<Integer> frozen = tree.freeze();
+
+		tree.insert(4);
+		tree.remove(1);
+
+		assertIterableEquals(Arrays.asList(1, 2, 3), frozen);
+		assertTrue(frozen.has(1));
+		assertFalse(frozen.has(4));
+	}
+
+	@Test
+	@DisplayName("should use the source tree's Comparator")
+	void testComparator() {
+		BinarySearchTree<Integer> tree = new BinarySearchTree<>(Collections.reverseOrder());
+
+		for(int item = 0; item < 10; item++) {
+			tree.insert(item);
+		}
+
+		FrozenSearchTree<Integer> frozen = tree.freeze();
+
+		assertEquals(Integer.valueOf(9), frozen.getMinimum());
+		assertEquals(Integer.valueOf(4), frozen.ceiling(4));
+		assertEquals(Integer.valueOf(3), frozen.higher(4));
+		assertEquals(Integer.valueOf(5), frozen.lower(4));
+	}
+
+	@Nested
+	@DisplayName("Searches")
+	class FrozenSearchTreeSearchTestSuite {
+		@Test
+		@DisplayName("should match a TreeSet for every size and query")
+		void testEverySize() {
+			for(int size = 1; size <= 70; size++) {
+				BinarySearchTree<Integer> tree = new BinarySearchTree<>();
+				TreeSet<Integer> expected = new TreeSet<>();
+
+				for(int item = 0; item < size; item++) {
+					tree.insert(2 * item);
+					expected.add(2 * item);
+				}
+
+				FrozenSearchTree<Integer> frozen = tree.freeze();
+
+				assertEquals(size, frozen.size());
+				assertEquals(expected.first(), frozen.getMinimum());
+				assertEquals(expected.last(), frozen.getMaximum());
+				assertIterableEquals(expected, frozen);
+
+				for(int query = -1; query <= 2 * size; query++) {
+					assertEquals(expected.contains(query), frozen.has(query));
+					assertEquals(expected.floor(query), frozen.floor(query));
+					assertEquals(expected.ceiling(query), frozen.ceiling(query));
+					assertEquals(expected.lower(query), frozen.lower(query));
+					assertEquals(expected.higher(query), frozen.higher(query));
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("should keep duplicates in sorted order")
+		void testDuplicates() {
+			final Random rand = new Random();
+			final List<Integer> expected = new ArrayList<>();
+			BinarySearchTree<Integer> tree = new BinarySearchTree<>();
+
+			tree.setCountingDuplicates(rand.nextBoolean());
+
+			for(int item = 0; item < 500; item++) {
+				Integer value = rand.nextInt(50);
+
+				tree.insert(value);
+				expected.add(value);
+			}
+
+			Collections.sort(expected);
+
+			FrozenSearchTree<Integer> frozen = tree.freeze();
+			Iterator<Integer> iterator = frozen.iterator();
+
+			for(Integer item: expected) {
+				assertEquals(item, iterator.next());
+			}
+
+			assertFalse(iterator.hasNext());
+
+			for(int query = 0; query < 50; query++) {
+				assertEquals(expected.contains(query), frozen.has(query));
+			}
+		}
+	}
+}
@@ -86,6 +86,95 @@ abstract class HeapTest {
 			}
 		}
 
+		@Nested
+		@DisplayName("remove(T)")
+		class HeapRemoveSuite {
+			@Test
+			@DisplayName("should return false if the item is not in the Heap")
+			void testMissingItem() {
+				final Integer value = 7;
+
+				heap.insert(value);
+
+				assertFalse(heap.remove(5));
+				assertEquals(value, heap.pop());
+			}
+
+			@Test
+			@DisplayName("should skip the removed item")
+			void testRemoveRoot() {
+				heap.insert(7);
+
+				assertTrue(heap.remove(7));
+				assertTrue(heap.isEmpty());
+				assertEquals(null, heap.peek());
+				assertEquals(null, heap.pop());
+			}
+
+			@Test
+			@DisplayName("should only remove a single copy of a duplicate item")
+			void testRemoveDuplicate() {
+				final Integer value = 7;
+
+				heap.insert(value);
+				heap.insert(value);
+
+				assertTrue(heap.remove(value));
+				assertFalse(heap.isEmpty());
+				assertEquals(value, heap.pop());
+				assertTrue(heap.isEmpty());
+				assertFalse(heap.remove(value));
+			}
+
+			@Test
+			@DisplayName("should not affect items inserted after the removal")
+			void testReinsertion() {
+				final Integer value = 7;
+
+				heap.insert(value);
+				heap.remove(value);
+				heap.insert(value);
+
+				assertEquals(value, heap.pop());
+				assertTrue(heap.isEmpty());
+			}
+
+			@Test
+			@DisplayName("should keep the remaining items when compacting")
+			void testCompaction() {
+				heap.setCompactionThreshold(0.25);
+
+				for(int value = 0; value < 100; value++) {
+					heap.insert(value);
+				}
+
+				for(int value = 0; value < 100; value += 2) {
+					assertTrue(heap.remove(value));
+				}
+
+				int remaining = 0;
+				while(!heap.isEmpty()) {
+					assertTrue(heap.pop() % 2 == 1);
+
+					remaining++;
+				}
+
+				assertEquals(50, remaining);
+			}
+
+			@Test
+			@DisplayName("should reject an invalid compaction threshold")
+			void testInvalidThreshold() {
+				assertThrows(IllegalArgumentException.class, () -> {
+					heap.setCompactionThreshold(0);
+				});
+
+				assertThrows(IllegalArgumentException.class, () -> {
+					heap.setCompactionThreshold(1.5);
+				});
+			}
+		}
+
 		@Nested
 		@DisplayName("isEmpty()")
 		class HeapEmptySuite {
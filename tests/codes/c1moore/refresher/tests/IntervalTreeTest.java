@@ -0,0 +1,125 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.Interval;
+import codes.c1moore.refresher.bst.IntervalTree;
+
+@DisplayName("IntervalTree")
+class IntervalTreeTest {
+	/**
+	 * Collects the intervals returned by an overlap query.
+	 */
+	private List<Interval<Integer>> collect(Iterable<Interval<Integer>> intervals) {
+		List<Interval<Integer>> result = new ArrayList<>();
+
+		for(Interval<Integer> interval: intervals) {
+			result.add(interval);
+		}
+
+		return result;
+	}
+
+	@Test
+	@DisplayName("should be able to create an IntervalTree with a Comparator")
+	void createWithComparator() {
+		IntervalTree<Integer> tree = new IntervalTree<>((lhs, rhs) -> Integer.compare(rhs, lhs));
+
+		tree.insert(10, 1);
+		tree.insert(20, 15);
+
+		assertEquals(new Interval<>(20, 15), tree.getMinimum());
+		assertEquals(Integer.valueOf(1), tree.getMaximumEnd());
+		assertIterableEquals(Arrays.asList(new Interval<>(10, 1)), tree.overlapping(5));
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class IntervalTreeInstanceTestSuite {
+		IntervalTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new IntervalTree<>();
+		}
+
+		@Test
+		@DisplayName("should reject intervals and queries that end before they start")
+		void testInvalidIntervals() {
+			assertThrows(IllegalArgumentException.class, () -> tree.insert(2, 1));
+			assertThrows(IllegalArgumentException.class, () -> tree.overlapping(2, 1));
+		}
+
+		@Test
+		@DisplayName("should return the intervals that contain a point, ordered by start")
+		void testStabbingQuery() {
+			tree.insert(1, 5);
+			tree.insert(3, 3);
+			tree.insert(4, 10);
+			tree.insert(6, 8);
+			tree.insert(3, 3);
+
+			assertEquals(Arrays.asList(new Interval<>(1, 5), new Interval<>(3, 3), new Interval<>(3, 3)), collect(tree.overlapping(3)));
+			assertEquals(Arrays.asList(new Interval<>(1, 5), new Interval<>(4, 10)), collect(tree.overlapping(5)));
+			assertEquals(Collections.emptyList(), collect(tree.overlapping(11)));
+			assertEquals(Collections.emptyList(), collect(tree.overlapping(0)));
+			assertEquals(Integer.valueOf(10), tree.getMaximumEnd());
+
+			tree.remove(4, 10);
+
+			assertEquals(Integer.valueOf(8), tree.getMaximumEnd());
+			assertEquals(Arrays.asList(new Interval<>(6, 8)), collect(tree.overlapping(7)));
+		}
+
+		@Test
+		@DisplayName("should match a brute-force search under random inserts and removes")
+		void testRandomOverlapQueries() {
+			final Random rand = new Random();
+			final List<Interval<Integer>> expected = new ArrayList<>();
+
+			for(int operation = 0; operation < 3000; operation++) {
+				int start = rand.nextInt(1000);
+				Interval<Integer> interval = new Interval<>(start, start + rand.nextInt(50));
+
+				if(rand.nextInt(4) == 0 && !expected.isEmpty()) {
+					interval = expected.get(rand.nextInt(expected.size()));
+
+					tree.remove(interval);
+					expected.remove(interval);
+				} else {
+					tree.insert(interval);
+					expected.add(interval);
+				}
+			}
+
+			expected.sort((lhs, rhs) -> (lhs.getStart().equals(rhs.getStart()) ? lhs.getEnd() - rhs.getEnd() : lhs.getStart() - rhs.getStart()));
+
+			assertIterableEquals(expected, tree);
+
+			for(int query = 0; query < 200; query++) {
+				int lo = rand.nextInt(1100) - 50;
+				int hi = lo + rand.nextInt(20);
+				List<Interval<Integer>> overlapping = new ArrayList<>();
+
+				for(Interval<Integer> interval: expected) {
+					if(interval.getStart() <= hi && interval.getEnd() >= lo) {
+						overlapping.add(interval);
+					}
+				}
+
+				assertEquals(overlapping, collect(tree.overlapping(lo, hi)));
+			}
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import codes.c1moore.refresher.common.Codec;
+import codes.c1moore.refresher.lsm.LSMTree;
+
+@DisplayName("LSMTree")
+class LSMTreeTest {
+	static final Codec<Integer> KEYS = new Codec<Integer>() {
+		@Override
+		public byte[] encode(Integer item) {
+			return ByteBuffer.allocate(Integer.BYTES).putInt(item).array();
+		}
+
+		@Override
+		public Integer decode(byte[] bytes) {
+			return ByteBuffer.wrap(bytes).getInt();
+		}
+	};
+
+	static final Codec<String> VALUES = new Codec<String>() {
+		@Override
+		public byte[] encode(String item) {
+			return item.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String decode(byte[] bytes) {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	Path directory;
+
+	@BeforeEach
+	void beforeEach() throws IOException {
+		directory = Files.createTempDirectory("lsm-tree");
+	}
+
+	@AfterEach
+	void afterEach() throws IOException {
+		List<Path> files = new ArrayList<>();
+
+		Files.walk(directory).forEach(files::add);
+		Collections.reverse(files);
+
+		for(Path file: files) {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	@DisplayName("should map, replace, and remove values in the memtable")
+	void testMemtable() throws IOException {
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			tree.put(1, "one");
+			tree.put(2, "two");
+			tree.put(2, "TWO");
+			tree.remove(1);
+
+			assertNull(tree.get(1));
+			assertEquals("TWO", tree.get(2));
+			assertFalse(tree.containsKey(3));
+			assertEquals(0, tree.getRunCount());
+			assertThrows(IllegalArgumentException.class, () -> tree.put(3, null));
+		}
+	}
+
+	@Test
+	@DisplayName("should let newer runs and tombstones shadow older runs")
+	void testShadowing() throws IOException {
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			tree.setLevel0Limit(100);
+
+			tree.put(1, "old");
+			tree.put(2, "old");
+			tree.put(3, "old");
+			tree.flush();
+
+			tree.put(1, "new");
+			tree.remove(2);
+			tree.flush();
+
+			assertEquals(2, tree.getRunCount());
+			assertEquals("new", tree.get(1));
+			assertNull(tree.get(2));
+			assertEquals("old", tree.get(3));
+			assertNull(tree.get(4));
+
+			// The memtable shadows both runs.
+			tree.put(2, "newest");
+
+			assertEquals("newest", tree.get(2));
+		}
+	}
+
+	@Test
+	@DisplayName("should match a TreeMap across flushes and merges")
+	void testRandomOperations() throws IOException {
+		final Random rand = new Random();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			tree.setMemtableLimit(64);
+			tree.setLevel0Limit(3);
+
+			for(int operation = 0; operation < 20000; operation++) {
+				int key = rand.nextInt(3000);
+
+				if(rand.nextInt(4) == 0) {
+					tree.remove(key);
+					expected.remove(key);
+				} else {
+					tree.put(key, "v" + operation);
+					expected.put(key, "v" + operation);
+				}
+
+				if(operation % 1000 == 0) {
+					assertEquals(expected.get(key), tree.get(key));
+				}
+			}
+
+			tree.compact();
+
+			assertTrue(tree.getCompactionCount() > 0);
+			assertTrue(tree.getLevelCount() > 1);
+
+			for(int key = 0; key < 3000; key++) {
+				assertEquals(expected.get(key), tree.get(key));
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("should bound the number of runs with background merges")
+	void testCompaction() throws IOException {
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			tree.setMemtableLimit(16);
+			tree.setLevel0Limit(2);
+
+			for(int key = 0; key < 2000; key++) {
+				tree.put(key, "v" + key);
+			}
+
+			tree.compact();
+
+			// Level 0 holds fewer than 2 runs and every deeper level holds at most 1.
+			assertTrue(tree.getRunCount() <= tree.getLevelCount());
+
+			for(int key = 0; key < 2000; key++) {
+				assertEquals("v" + key, tree.get(key));
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("should report a failed background merge once and merge again after the next flush")
+	void testCompactionFailure() throws IOException, InterruptedException {
+		final AtomicBoolean failing = new AtomicBoolean(true);
+		Comparator<Integer> comparator = (lhs, rhs) -> {
+			if(failing.get() && Thread.currentThread().getName().equals("lsm-compaction")) {
+				throw new IllegalStateException("Injected failure.");
+			}
+
+			return Integer.compare(lhs, rhs);
+		};
+
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, comparator, KEYS, VALUES)) {
+			tree.setMemtableLimit(4);
+			tree.setLevel0Limit(2);
+
+			for(int key = 0; key < 8; key++) {
+				tree.put(key, "v" + key);
+			}
+
+			IOException failure = null;
+
+			for(int attempt = 0; attempt < 1000 && failure == null; attempt++) {
+				try {
+					tree.flush();
+					Thread.sleep(10);
+				} catch(IOException e) {
+					failure = e;
+				}
+			}
+
+			assertNotNull(failure);
+			assertEquals(0, tree.getCompactionCount());
+
+			// The failure has been reported, so it is not thrown again.
+			tree.flush();
+
+			failing.set(false);
+
+			for(int key = 8; key < 12; key++) {
+				tree.put(key, "v" + key);
+			}
+
+			for(int attempt = 0; attempt < 1000 && tree.getCompactionCount() == 0; attempt++) {
+				Thread.sleep(10);
+			}
+
+			assertTrue(tree.getCompactionCount() > 0);
+
+			for(int key = 0; key < 12; key++) {
+				assertEquals("v" + key, tree.get(key));
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("should recover every flushed update when reopened")
+	void testReopen() throws IOException {
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			tree.setMemtableLimit(32);
+			tree.setLevel0Limit(2);
+
+			for(int key = 0; key < 500; key++) {
+				tree.put(key, "v" + key);
+			}
+
+			for(int key = 0; key < 500; key += 5) {
+				tree.remove(key);
+			}
+		}
+
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			assertTrue(tree.getRunCount() > 0);
+
+			for(int key = 0; key < 500; key++) {
+				assertEquals((key % 5 == 0 ? null : "v" + key), tree.get(key));
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("should delete run files that are not in the manifest")
+	void testOrphanedRuns() throws IOException {
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			tree.put(1, "one");
+		}
+
+		Path orphan = directory.resolve("run-999.sst");
+		Files.write(orphan, new byte[] {1, 2, 3});
+
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES)) {
+			assertFalse(Files.exists(orphan));
+			assertEquals("one", tree.get(1));
+		}
+	}
+
+	@Test
+	@DisplayName("should order keys by the given Comparator")
+	void testComparator() throws IOException {
+		try(LSMTree<Integer, String> tree = LSMTree.open(directory, (lhs, rhs) -> Integer.compare(rhs, lhs), KEYS, VALUES)) {
+			tree.setMemtableLimit(8);
+			tree.setLevel0Limit(2);
+
+			for(int key = 0; key < 200; key++) {
+				tree.put(key, "v" + key);
+			}
+
+			tree.compact();
+
+			for(int key = 0; key < 200; key++) {
+				assertEquals("v" + key, tree.get(key));
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("should reject use after close()")
+	void testClosed() throws IOException {
+		LSMTree<Integer, String> tree = LSMTree.open(directory, KEYS, VALUES);
+		tree.close();
+		tree.close();
+
+		assertThrows(IllegalStateException.class, () -> tree.get(1));
+		assertThrows(IllegalStateException.class, () -> tree.put(1, "one"));
+	}
+}
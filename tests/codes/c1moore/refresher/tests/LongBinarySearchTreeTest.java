@@ -0,0 +1,140 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.LongBinarySearchTree;
+
+@DisplayName("LongBinarySearchTree")
+class LongBinarySearchTreeTest {
+	@Test
+	@DisplayName("should be able to create a LongBinarySearchTree with an array of existing keys")
+	void createWithArray() {
+		LongBinarySearchTree tree = new LongBinarySearchTree(new long[] {5, -3, Long.MAX_VALUE, 5, Long.MIN_VALUE});
+
+		assertEquals(4, tree.size());
+		assertEquals(Long.MIN_VALUE, tree.getMinimum());
+		assertEquals(Long.MAX_VALUE, tree.getMaximum());
+	}
+
+	@Test
+	@DisplayName("should reject a capacity less than 1")
+	void createWithSmallCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new LongBinarySearchTree(0));
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class LongBinarySearchTreeInstanceTestSuite {
+		LongBinarySearchTree tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new LongBinarySearchTree();
+		}
+
+		@Test
+		@DisplayName("should throw a NoSuchElementException for the minimum and maximum when empty")
+		void testEmptyTree() {
+			assertEquals(0, tree.size());
+			assertEquals(0, tree.getHeight());
+			assertFalse(tree.has(0));
+			assertFalse(tree.iterator().hasNext());
+
+			assertThrows(NoSuchElementException.class, () -> tree.getMinimum());
+			assertThrows(NoSuchElementException.class, () -> tree.getMaximum());
+		}
+
+		@Test
+		@DisplayName("should match a TreeSet under random inserts and removes")
+		void testRandomOperations() {
+			final Random rand = new Random();
+			final TreeSet<Long> expected = new TreeSet<>();
+
+			for(int operation = 0; operation < 10000; operation++) {
+				long key = rand.nextInt(2000) - 1000;
+
+				if(rand.nextInt(3) == 0) {
+					tree.remove(key);
+					expected.remove(key);
+				} else {
+					tree.insert(key);
+					expected.add(key);
+				}
+			}
+
+			assertEquals(expected.size(), tree.size());
+			assertEquals(expected.first().longValue(), tree.getMinimum());
+			assertEquals(expected.last().longValue(), tree.getMaximum());
+
+			PrimitiveIterator.OfLong iterator = tree.iterator();
+			for(Long key: expected) {
+				assertEquals(key.longValue(), iterator.nextLong());
+			}
+
+			assertFalse(iterator.hasNext());
+
+			for(long key = -1001; key <= 1000; key++) {
+				assertEquals(expected.contains(key), tree.has(key));
+			}
+		}
+
+		@Test
+		@DisplayName("should stay balanced when keys are inserted in increasing order")
+		void testBalance() {
+			for(long key = 0; key < 1023; key++) {
+				tree.insert(key);
+			}
+
+			assertTrue(tree.getHeight() <= 14);
+
+			for(long key = 0; key < 1023; key += 2) {
+				tree.remove(key);
+			}
+
+			assertTrue(tree.getHeight() <= 13);
+		}
+
+		@Test
+		@DisplayName("should return the floor and ceiling of a key")
+		void testFloorAndCeiling() {
+			for(long key = 10; key <= 50; key += 10) {
+				tree.insert(key);
+			}
+
+			assertEquals(30, tree.floor(30));
+			assertEquals(30, tree.floor(39));
+			assertEquals(50, tree.floor(Long.MAX_VALUE));
+			assertThrows(NoSuchElementException.class, () -> tree.floor(9));
+
+			assertEquals(30, tree.ceiling(30));
+			assertEquals(40, tree.ceiling(31));
+			assertEquals(10, tree.ceiling(Long.MIN_VALUE));
+			assertThrows(NoSuchElementException.class, () -> tree.ceiling(51));
+		}
+
+		@Test
+		@DisplayName("should throw a ConcurrentModificationException if the tree is modified during iteration")
+		void testFailFast() {
+			tree.insert(1);
+			tree.insert(2);
+
+			PrimitiveIterator.OfLong iterator = tree.iterator();
+			iterator.nextLong();
+
+			tree.insert(3);
+
+			assertThrows(ConcurrentModificationException.class, () -> iterator.nextLong());
+		}
+	}
+}
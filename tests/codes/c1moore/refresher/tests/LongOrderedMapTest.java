@@ -0,0 +1,147 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import codes.c1moore.refresher.bst.LongOrderedMap;
+
+@DisplayName("LongOrderedMap")
+class LongOrderedMapTest {
+	@Test
+	@DisplayName("should map, replace, and remove values")
+	void testPutGetRemove() {
+		LongOrderedMap<String> map = new LongOrderedMap<>();
+
+		assertNull(map.put(2, "two"));
+		assertNull(map.put(1, "one"));
+		assertEquals("two", map.put(2, "TWO"));
+
+		assertEquals(2, map.size());
+		assertEquals("one", map.get(1));
+		assertEquals("TWO", map.get(2));
+		assertNull(map.get(3));
+		assertTrue(map.containsKey(1));
+		assertFalse(map.containsKey(3));
+
+		assertEquals("one", map.remove(1));
+		assertNull(map.remove(1));
+		assertEquals(1, map.size());
+		assertNull(map.get(1));
+	}
+
+	@Test
+	@DisplayName("should throw when there is no key to return")
+	void testEmpty() {
+		LongOrderedMap<String> map = new LongOrderedMap<>();
+
+		assertThrows(NoSuchElementException.class, () -> map.firstKey());
+		assertThrows(NoSuchElementException.class, () -> map.lastKey());
+		assertThrows(NoSuchElementException.class, () -> map.floorKey(0));
+		assertNull(map.floorValue(0));
+		assertNull(map.ceilingValue(0));
+	}
+
+	@Test
+	@DisplayName("should keep values with their keys when nodes are removed and the pool grows")
+	void testRandomOperations() {
+		final Random rand = new Random();
+		LongOrderedMap<Long> map = new LongOrderedMap<>(4);
+		TreeMap<Long, Long> expected = new TreeMap<>();
+
+		for(int operation = 0; operation < 5000; operation++) {
+			long key = rand.nextInt(300);
+
+			if(rand.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, (long) operation), map.put(key, (long) operation));
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		for(long key = -1; key <= 300; key++) {
+			Map.Entry<Long, Long> floor = expected.floorEntry(key);
+			Map.Entry<Long, Long> ceiling = expected.ceilingEntry(key);
+
+			assertEquals(expected.get(key), map.get(key));
+			assertEquals((floor == null ? null : floor.getValue()), map.floorValue(key));
+			assertEquals((ceiling == null ? null : ceiling.getValue()), map.ceilingValue(key));
+
+			if(floor != null) {
+				assertEquals((long) floor.getKey(), map.floorKey(key));
+			}
+
+			if(ceiling != null) {
+				assertEquals((long) ceiling.getKey(), map.ceilingKey(key));
+			}
+		}
+
+		List<Long> keys = new ArrayList<>();
+		List<Long> values = new ArrayList<>();
+
+		map.forEach((key, value) -> {
+			keys.add(key);
+			values.add(value);
+		});
+
+		assertEquals(new ArrayList<>(expected.keySet()), keys);
+		assertEquals(new ArrayList<>(expected.values()), values);
+
+		PrimitiveIterator.OfLong iterator = map.keyIterator();
+
+		for(long key : expected.keySet()) {
+			assertEquals(key, iterator.nextLong());
+		}
+
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	@DisplayName("should visit only the entries in range")
+	void testForEachInRange() {
+		LongOrderedMap<String> map = new LongOrderedMap<>();
+		TreeMap<Long, String> expected = new TreeMap<>();
+
+		for(long key = -50; key < 50; key += 3) {
+			map.put(key, "v" + key);
+			expected.put(key, "v" + key);
+		}
+
+		List<String> values = new ArrayList<>();
+
+		map.forEachInRange(-10, 20, (key, value) -> {
+			assertEquals("v" + key, value);
+			values.add(value);
+		});
+
+		assertEquals(new ArrayList<>(expected.subMap(-10L, 20L).values()), values);
+
+		values.clear();
+		map.forEachInRange(5, 5, (key, value) -> values.add(value));
+
+		assertTrue(values.isEmpty());
+	}
+
+	@Test
+	@DisplayName("should fail fast when modified during forEach()")
+	void testConcurrentModification() {
+		LongOrderedMap<String> map = new LongOrderedMap<>();
+
+		map.put(1, "one");
+		map.put(2, "two");
+
+		assertThrows(ConcurrentModificationException.class, () -> map.forEach((key, value) -> map.put(key + 10, value)));
+	}
+}
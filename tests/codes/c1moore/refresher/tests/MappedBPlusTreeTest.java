@@ -0,0 +1,172 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.LongBinarySearchTree;
+import codes.c1moore.refresher.bst.MappedBPlusTree;
+
+@DisplayName("MappedBPlusTree")
+class MappedBPlusTreeTest {
+	Path file;
+
+	@BeforeEach
+	void beforeEach() throws IOException {
+		file = Files.createTempFile("mapped-bplustree", ".idx");
+	}
+
+	@AfterEach
+	void afterEach() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	@DisplayName("should store an empty set")
+	void testEmptySet() throws IOException {
+		MappedBPlusTree.write(file, new LongBinarySearchTree());
+
+		try(MappedBPlusTree tree = MappedBPlusTree.open(file)) {
+			assertEquals(0, tree.size());
+			assertFalse(tree.has(0));
+			assertFalse(tree.iterator().hasNext());
+			assertFalse(tree.range(Long.MIN_VALUE, Long.MAX_VALUE).hasNext());
+			assertThrows(NoSuchElementException.class, () -> tree.getMinimum());
+		}
+	}
+
+	@Test
+	@DisplayName("should reject keys that are not in strictly ascending order")
+	void testUnsortedKeys() {
+		assertThrows(IllegalArgumentException.class, () -> MappedBPlusTree.write(file, LongStream.of(1, 3, 3).iterator()));
+		assertThrows(IllegalArgumentException.class, () -> MappedBPlusTree.write(file, LongStream.of(1, 3, 2).iterator()));
+	}
+
+	@Test
+	@DisplayName("should leave an existing file intact when a write fails")
+	void testFailedRewrite() throws IOException {
+		MappedBPlusTree.write(file, LongStream.of(1, 2, 3).iterator());
+
+		// Enough keys to fill a page before the out-of-order key is reached.
+		PrimitiveIterator.OfLong unsorted = LongStream.concat(LongStream.range(10, 2000), LongStream.of(5)).iterator();
+
+		assertThrows(IllegalArgumentException.class, () -> MappedBPlusTree.write(file, unsorted));
+		assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+
+		try(MappedBPlusTree tree = MappedBPlusTree.open(file)) {
+			assertEquals(3, tree.size());
+			assertTrue(tree.has(2));
+			assertFalse(tree.has(10));
+		}
+	}
+
+	@Test
+	@DisplayName("should refuse to open a file that is not a MappedBPlusTree")
+	void testInvalidFile() throws IOException {
+		Files.write(file, new byte[] {1, 2, 3});
+
+		assertThrows(IOException.class, () -> MappedBPlusTree.open(file));
+	}
+
+	@Test
+	@DisplayName("should throw an IllegalStateException when used after it is closed")
+	void testClosed() throws IOException {
+		MappedBPlusTree.write(file, LongStream.of(1, 2, 3).iterator());
+
+		MappedBPlusTree tree = MappedBPlusTree.open(file);
+		tree.close();
+
+		assertThrows(IllegalStateException.class, () -> tree.has(1));
+	}
+
+	@Nested
+	@DisplayName("with many keys")
+	class MappedBPlusTreeLargeTestSuite {
+		TreeSet<Long> expected;
+		MappedBPlusTree tree;
+
+		@BeforeEach
+		void beforeEach() throws IOException {
+			final Random rand = new Random();
+			final LongBinarySearchTree source = new LongBinarySearchTree();
+
+			expected = new TreeSet<>();
+
+			// Enough keys for a tree with three levels.
+			while(expected.size() < 300000) {
+				long key = rand.nextLong() / 4;
+
+				expected.add(key);
+				source.insert(key);
+			}
+
+			MappedBPlusTree.write(file, source);
+			tree = MappedBPlusTree.open(file);
+		}
+
+		@AfterEach
+		void afterEach() throws IOException {
+			tree.close();
+		}
+
+		@Test
+		@DisplayName("should find every key and no others")
+		void testHas() {
+			assertEquals(expected.size(), tree.size());
+			assertEquals(3, tree.getHeight());
+			assertEquals(expected.first().longValue(), tree.getMinimum());
+			assertEquals(expected.last().longValue(), tree.getMaximum());
+
+			for(Long key: expected) {
+				assertTrue(tree.has(key));
+				assertEquals(expected.contains(key + 1), tree.has(key + 1));
+			}
+		}
+
+		@Test
+		@DisplayName("should iterate over every key in ascending order")
+		void testIterator() {
+			PrimitiveIterator.OfLong iterator = tree.iterator();
+
+			for(Long key: expected) {
+				assertEquals(key.longValue(), iterator.nextLong());
+			}
+
+			assertFalse(iterator.hasNext());
+		}
+
+		@Test
+		@DisplayName("should return the keys in [lo, hi) for range()")
+		void testRange() {
+			final Random rand = new Random();
+
+			for(int query = 0; query < 100; query++) {
+				long lo = rand.nextLong() / 4;
+				long hi = lo + Long.MAX_VALUE / 100;
+
+				PrimitiveIterator.OfLong iterator = tree.range(lo, hi);
+
+				for(Long key: expected.subSet(lo, hi)) {
+					assertEquals(key.longValue(), iterator.nextLong());
+				}
+
+				assertFalse(iterator.hasNext());
+			}
+
+			assertFalse(tree.range(expected.last() + 1, Long.MAX_VALUE).hasNext());
+		}
+	}
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -229,5 +230,43 @@ class MaxHeapTest extends HeapTest {
 				}
 			}
 		}
+
+		@Nested
+		@DisplayName("remove(T)")
+		class MaxHeapRemoveSuite {
+			@Test
+			@DisplayName("should pop the remaining items in decreasing order")
+			void testRemoveRandomItems() {
+				final List<Integer> values = new ArrayList<>();
+				final Random rand = new Random();
+
+				for(int counter = 0; counter < 200; counter++) {
+					int value = rand.nextInt(50);
+
+					values.add(value);
+					heap.insert(value);
+				}
+
+				for(int counter = 0; counter < 150; counter++) {
+					Integer value = values.remove(rand.nextInt(values.size()));
+
+					assertTrue(heap.remove(value));
+				}
+
+				Integer previous = heap.pop();
+				values.remove(previous);
+
+				while(!heap.isEmpty()) {
+					Integer value = heap.pop();
+
+					assertTrue(previous >= value);
+					assertTrue(values.remove(value));
+
+					previous = value;
+				}
+
+				assertTrue(values.isEmpty());
+			}
+		}
 	}
 }
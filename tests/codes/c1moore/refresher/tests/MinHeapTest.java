@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -152,5 +153,43 @@ class MinHeapTest extends HeapTest {
 				}
 			}
 		}
+
+		@Nested
+		@DisplayName("remove(T)")
+		class MinHeapRemoveSuite {
+			@Test
+			@DisplayName("should pop the remaining items in increasing order")
+			void testRemoveRandomItems() {
+				final List<Integer> values = new ArrayList<>();
+				final Random rand = new Random();
+
+				for(int counter = 0; counter < 200; counter++) {
+					int value = rand.nextInt(50);
+
+					values.add(value);
+					heap.insert(value);
+				}
+
+				for(int counter = 0; counter < 150; counter++) {
+					Integer value = values.remove(rand.nextInt(values.size()));
+
+					assertTrue(heap.remove(value));
+				}
+
+				Integer previous = heap.pop();
+				values.remove(previous);
+
+				while(!heap.isEmpty()) {
+					Integer value = heap.pop();
+
+					assertTrue(previous <= value);
+					assertTrue(values.remove(value));
+
+					previous = value;
+				}
+
+				assertTrue(values.isEmpty());
+			}
+		}
 	}
 }
@@ -0,0 +1,193 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import codes.c1moore.refresher.bst.OrderedMap;
+
+@DisplayName("OrderedMap")
+class OrderedMapTest {
+	@Test
+	@DisplayName("should map, replace, and remove values")
+	void testPutGetRemove() {
+		OrderedMap<Integer, String> map = new OrderedMap<>();
+
+		assertNull(map.put(2, "two"));
+		assertNull(map.put(1, "one"));
+		assertEquals("two", map.put(2, "TWO"));
+
+		assertEquals(2, map.size());
+		assertEquals("one", map.get(1));
+		assertEquals("TWO", map.get(2));
+		assertNull(map.get(3));
+		assertTrue(map.containsKey(1));
+		assertFalse(map.containsKey(3));
+
+		assertEquals("one", map.remove(1));
+		assertNull(map.remove(1));
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey(1));
+	}
+
+	@Test
+	@DisplayName("should match a TreeMap under random operations")
+	void testRandomOperations() {
+		final Random rand = new Random();
+		OrderedMap<Integer, Integer> map = new OrderedMap<>();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+		for(int operation = 0; operation < 5000; operation++) {
+			int key = rand.nextInt(200);
+
+			if(rand.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, operation), map.put(key, operation));
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		for(int key = -1; key <= 200; key++) {
+			assertEquals(expected.get(key), map.get(key));
+			assertEquals(expected.floorEntry(key), map.floorEntry(key));
+			assertEquals(expected.ceilingEntry(key), map.ceilingEntry(key));
+			assertEquals(expected.lowerEntry(key), map.lowerEntry(key));
+			assertEquals(expected.higherEntry(key), map.higherEntry(key));
+		}
+
+		assertEquals(new ArrayList<>(expected.entrySet()), collect(map));
+	}
+
+	@Test
+	@DisplayName("should return null navigation entries when empty")
+	void testEmpty() {
+		OrderedMap<Integer, String> map = new OrderedMap<>();
+
+		assertNull(map.firstEntry());
+		assertNull(map.lastEntry());
+		assertNull(map.floorEntry(0));
+		assertNull(map.ceilingEntry(0));
+		assertFalse(map.iterator().hasNext());
+	}
+
+	@Test
+	@DisplayName("should order keys by the given Comparator")
+	void testComparator() {
+		OrderedMap<String, Integer> map = new OrderedMap<>((lhs, rhs) -> rhs.compareTo(lhs));
+
+		map.put("a", 1);
+		map.put("c", 3);
+		map.put("b", 2);
+
+		assertEquals("c", map.firstEntry().getKey());
+		assertEquals("a", map.lastEntry().getKey());
+		assertEquals("b", map.ceilingEntry("bb").getKey());
+	}
+
+	@Test
+	@DisplayName("should return range views that match a TreeMap")
+	void testRangeViews() {
+		OrderedMap<Integer, String> map = new OrderedMap<>();
+		TreeMap<Integer, String> expected = new TreeMap<>();
+
+		for(int key = 0; key < 50; key += 2) {
+			map.put(key, "v" + key);
+			expected.put(key, "v" + key);
+		}
+
+		assertEquals(new ArrayList<>(expected.subMap(7, 21).entrySet()), collect(map.subMap(7, 21)));
+		assertEquals(new ArrayList<>(expected.subMap(8, 20).entrySet()), collect(map.subMap(8, 20)));
+		assertEquals(new ArrayList<>(expected.headMap(11).entrySet()), collect(map.headMap(11)));
+		assertEquals(new ArrayList<>(expected.tailMap(41).entrySet()), collect(map.tailMap(41)));
+		assertTrue(collect(map.subMap(20, 20)).isEmpty());
+		assertTrue(collect(map.tailMap(100)).isEmpty());
+	}
+
+	@Test
+	@DisplayName("should write setValue() through to the map")
+	void testSetValue() {
+		OrderedMap<Integer, String> map = new OrderedMap<>();
+
+		map.put(1, "one");
+		map.put(2, "two");
+
+		for(Map.Entry<Integer, String> entry : map) {
+			entry.setValue(entry.getValue().toUpperCase());
+		}
+
+		assertEquals("ONE", map.get(1));
+		assertEquals("TWO", map.floorEntry(5).getValue());
+	}
+
+	@Test
+	@DisplayName("should remove entries through the iterator")
+	void testIteratorRemove() {
+		OrderedMap<Integer, Integer> map = new OrderedMap<>();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+		for(int key = 0; key < 100; key++) {
+			map.put(key, key);
+			expected.put(key, key);
+		}
+
+		Iterator<Map.Entry<Integer, Integer>> iterator = map.iterator();
+
+		assertThrows(IllegalStateException.class, () -> iterator.remove());
+
+		while(iterator.hasNext()) {
+			int key = iterator.next().getKey();
+
+			if(key % 3 != 0) {
+				iterator.remove();
+				expected.remove(key);
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		assertEquals(new ArrayList<>(expected.entrySet()), collect(map));
+	}
+
+	@Test
+	@DisplayName("should fail fast when modified during iteration")
+	void testConcurrentModification() {
+		OrderedMap<Integer, Integer> map = new OrderedMap<>();
+
+		map.put(1, 1);
+		map.put(2, 2);
+
+		Iterator<Map.Entry<Integer, Integer>> iterator = map.iterator();
+
+		iterator.next();
+		map.put(3, 3);
+
+		assertThrows(ConcurrentModificationException.class, () -> iterator.next());
+
+		// Replacing a value does not change the structure.
+		Iterator<Map.Entry<Integer, Integer>> second = map.iterator();
+
+		second.next();
+		map.put(1, 10);
+		second.next();
+	}
+
+	private static <K, V> List<Map.Entry<K, V>> collect(Iterable<Map.Entry<K, V>> entries) {
+		List<Map.Entry<K, V>> list = new ArrayList<>();
+
+		for(Map.Entry<K, V> entry : entries) {
+			list.add(new java.util.AbstractMap.SimpleEntry<>(entry));
+		}
+
+		return list;
+	}
+}
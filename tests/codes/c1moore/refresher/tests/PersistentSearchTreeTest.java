@@ -0,0 +1,267 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.PersistentSearchTree;
+
+@DisplayName("PersistentSearchTree")
+class PersistentSearchTreeTest {
+	@Test
+	@DisplayName("should be able to create a PersistentSearchTree with a Comparator")
+	void createWithComparator() {
+		PersistentSearchTree<Integer> tree = new PersistentSearchTree<>((lhs, rhs) -> Integer.compare(rhs, lhs));
+
+		tree.insert(1);
+		tree.insert(2);
+		tree.insert(3);
+
+		assertIterableEquals(Arrays.asList(3, 2, 1), tree);
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class PersistentSearchTreeInstanceTestSuite {
+		PersistentSearchTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new PersistentSearchTree<>();
+		}
+
+		@Test
+		@DisplayName("should match a TreeSet under random inserts and removes")
+		void testRandomOperations() {
+			final Random rand = new Random();
+			final TreeSet<Integer> expected = new TreeSet<>();
+
+			for(int operation = 0; operation < 5000; operation++) {
+				int item = rand.nextInt(1000);
+
+				if(rand.nextInt(3) == 0) {
+					tree.remove(item);
+					expected.remove(item);
+				} else {
+					tree.insert(item);
+					expected.add(item);
+				}
+			}
+
+			assertEquals(expected.size(), tree.size());
+			assertEquals(expected.first(), tree.getMinimum());
+			assertEquals(expected.last(), tree.getMaximum());
+			assertIterableEquals(expected, tree);
+
+			for(int item = 0; item < 1000; item++) {
+				assertEquals(expected.contains(item), tree.has(item));
+			}
+		}
+
+		@Test
+		@DisplayName("should stay balanced when items are inserted in increasing order")
+		void testBalance() {
+			for(int item = 0; item < 1023; item++) {
+				tree.insert(item);
+			}
+
+			assertTrue(tree.getHeight() <= 14);
+		}
+
+		@Test
+		@DisplayName("should return null for the minimum and maximum when empty")
+		void testEmptyTree() {
+			assertEquals(null, tree.getMinimum());
+			assertEquals(null, tree.getMaximum());
+			assertEquals(0, tree.size());
+		}
+
+		@Nested
+		@DisplayName("snapshot()")
+		class PersistentSearchTreeSnapshotTestSuite {
+			@Test
+			@DisplayName("should not see updates made after it was taken")
+			void testIsolation() {
+				tree.insert(5);
+				tree.insert(7);
+
+				PersistentSearchTree<Integer> snapshot = tree.snapshot();
+
+				tree.insert(9);
+				tree.remove(5);
+
+				assertIterableEquals(Arrays.asList(5, 7), snapshot);
+				assertIterableEquals(Arrays.asList(7, 9), tree);
+
+				snapshot.insert(1);
+
+				assertFalse(tree.has(1));
+			}
+
+			@Test
+			@DisplayName("should let an iterator finish over an old version while writers publish new ones")
+			void testIteratorIsolation() {
+				for(int item = 0; item < 100; item++) {
+					tree.insert(item);
+				}
+
+				Iterator<Integer> iterator = tree.iterator();
+
+				for(int item = 0; item < 100; item += 2) {
+					tree.remove(item);
+				}
+
+				for(int item = 0; item < 100; item++) {
+					assertEquals(Integer.valueOf(item), iterator.next());
+				}
+
+				assertFalse(iterator.hasNext());
+				assertEquals(50, tree.size());
+			}
+		}
+
+		@Nested
+		@DisplayName("union(), intersection(), and difference()")
+		class PersistentSearchTreeSetOperationTestSuite {
+			/**
+			 * Fills a PersistentSearchTree and a TreeSet with the same count random items.
+			 */
+			private PersistentSearchTree<Integer> randomTree(Random rand, int count, int bound, TreeSet<Integer> items) {
+				PersistentSearchTree<Integer> result = new PersistentSearchTree<>();
+
+				while(items.size() < count) {
+					int item = rand.nextInt(bound);
+
+					items.add(item);
+					result.insert(item);
+				}
+
+				return result;
+			}
+
+			@Test
+			@DisplayName("should combine small sets")
+			void testSmallSets() {
+				for(int item = 0; item < 10; item++) {
+					tree.insert(item);
+				}
+
+				PersistentSearchTree<Integer> other = new PersistentSearchTree<>();
+				for(int item = 5; item < 15; item += 2) {
+					other.insert(item);
+				}
+
+				assertIterableEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 11, 13), tree.union(other));
+				assertIterableEquals(Arrays.asList(5, 7, 9), tree.intersection(other));
+				assertIterableEquals(Arrays.asList(0, 1, 2, 3, 4, 6, 8), tree.difference(other));
+				assertIterableEquals(Arrays.asList(11, 13), other.difference(tree));
+
+				assertEquals(10, tree.size());
+				assertEquals(5, other.size());
+
+				PersistentSearchTree<Integer> empty = new PersistentSearchTree<>();
+
+				assertIterableEquals(tree, tree.union(empty));
+				assertEquals(0, tree.intersection(empty).size());
+				assertIterableEquals(tree, tree.difference(empty));
+				assertEquals(0, empty.difference(tree).size());
+			}
+
+			@Test
+			@DisplayName("should match TreeSet operations on large sets of different sizes, and stay balanced")
+			void testLargeSets() {
+				final Random rand = new Random();
+				final int[][] sizes = {{100000, 100000}, {100000, 100}, {50, 80000}};
+
+				for(int[] size: sizes) {
+					TreeSet<Integer> lhsItems = new TreeSet<>();
+					TreeSet<Integer> rhsItems = new TreeSet<>();
+					PersistentSearchTree<Integer> lhs = randomTree(rand, size[0], 400000, lhsItems);
+					PersistentSearchTree<Integer> rhs = randomTree(rand, size[1], 400000, rhsItems);
+
+					TreeSet<Integer> expected = new TreeSet<>(lhsItems);
+					expected.addAll(rhsItems);
+					PersistentSearchTree<Integer> union = lhs.union(rhs);
+
+					assertIterableEquals(expected, union);
+					assertEquals(expected.size(), union.size());
+					assertTrue(union.getHeight() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+
+					expected = new TreeSet<>(lhsItems);
+					expected.retainAll(rhsItems);
+					assertIterableEquals(expected, lhs.intersection(rhs));
+
+					expected = new TreeSet<>(lhsItems);
+					expected.removeAll(rhsItems);
+					PersistentSearchTree<Integer> difference = lhs.difference(rhs);
+
+					assertIterableEquals(expected, difference);
+					assertTrue(difference.getHeight() <= 1.45 * Math.log(expected.size() + 2) / Math.log(2));
+
+					assertIterableEquals(lhsItems, lhs);
+					assertIterableEquals(rhsItems, rhs);
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("should keep every update published by concurrent writers")
+		void testConcurrentWriters() throws InterruptedException {
+			final int writers = 4;
+			final int itemsPerWriter = 2000;
+			final List<Thread> threads = new ArrayList<>();
+			final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+
+			for(int writer = 0; writer < writers; writer++) {
+				final int offset = writer;
+
+				Thread thread = new Thread(() -> {
+					try {
+						for(int index = 0; index < itemsPerWriter; index++) {
+							tree.insert(index * writers + offset);
+
+							// Every snapshot must be internally consistent.
+							PersistentSearchTree<Integer> snapshot = tree.snapshot();
+							if(index % 500 == 0) {
+								int count = 0;
+								for(@SuppressWarnings("unused") Integer item: snapshot) {
+									count++;
+								}
+
+								assertEquals(snapshot.size(), count);
+							}
+						}
+					} catch(Throwable t) {
+						failures.add(t);
+					}
+				});
+
+				thread.start();
+				threads.add(thread);
+			}
+
+			for(Thread thread: threads) {
+				thread.join();
+			}
+
+			assertTrue(failures.isEmpty());
+			assertEquals(writers * itemsPerWriter, tree.size());
+
+			int expected = 0;
+			for(Integer item: tree) {
+				assertEquals(Integer.valueOf(expected++), item);
+			}
+		}
+	}
+}
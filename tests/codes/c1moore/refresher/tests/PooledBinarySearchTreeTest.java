@@ -0,0 +1,152 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.PooledBinarySearchTree;
+
+@DisplayName("PooledBinarySearchTree")
+class PooledBinarySearchTreeTest {
+	@Test
+	@DisplayName("should be able to create a PooledBinarySearchTree with a Comparator")
+	void createWithComparator() {
+		PooledBinarySearchTree<Integer> tree = new PooledBinarySearchTree<>((lhs, rhs) -> Integer.compare(rhs, lhs));
+
+		tree.insert(1);
+		tree.insert(3);
+		tree.insert(2);
+
+		assertIterableEquals(Arrays.asList(3, 2, 1), tree);
+	}
+
+	@Test
+	@DisplayName("should reject a capacity less than 1")
+	void createWithSmallCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new PooledBinarySearchTree<Integer>(0));
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class PooledBinarySearchTreeInstanceTestSuite {
+		PooledBinarySearchTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new PooledBinarySearchTree<>(4);
+		}
+
+		@Test
+		@DisplayName("should return null for the minimum and maximum when empty")
+		void testEmptyTree() {
+			assertEquals(null, tree.getMinimum());
+			assertEquals(null, tree.getMaximum());
+			assertEquals(0, tree.size());
+			assertFalse(tree.iterator().hasNext());
+		}
+
+		@Test
+		@DisplayName("should match a sorted list under random inserts and removes, keeping duplicates")
+		void testRandomOperations() {
+			final Random rand = new Random();
+			final List<Integer> expected = new ArrayList<>();
+
+			for(int operation = 0; operation < 5000; operation++) {
+				Integer item = rand.nextInt(300);
+
+				if(rand.nextInt(3) == 0) {
+					tree.remove(item);
+					expected.remove(item);
+				} else {
+					tree.insert(item);
+					expected.add(item);
+				}
+			}
+
+			Collections.sort(expected);
+
+			assertEquals(expected.size(), tree.size());
+			assertEquals(expected.get(0), tree.getMinimum());
+			assertEquals(expected.get(expected.size() - 1), tree.getMaximum());
+			assertIterableEquals(expected, tree);
+
+			for(int item = 0; item < 300; item++) {
+				assertEquals(expected.contains(item), tree.has(item));
+			}
+		}
+
+		@Test
+		@DisplayName("should reuse freed slots instead of growing the pool")
+		void testSlotReuse() {
+			for(int item = 0; item < 4; item++) {
+				tree.insert(item);
+			}
+
+			assertEquals(4, tree.getCapacity());
+
+			for(int round = 0; round < 100; round++) {
+				tree.remove(round % 4);
+				tree.insert(round % 4);
+			}
+
+			assertEquals(4, tree.getCapacity());
+			assertIterableEquals(Arrays.asList(0, 1, 2, 3), tree);
+
+			tree.insert(4);
+
+			assertTrue(tree.getCapacity() > 4);
+			assertIterableEquals(Arrays.asList(0, 1, 2, 3, 4), tree);
+		}
+
+		@Test
+		@DisplayName("should not use a slot for an item that cannot be compared")
+		void testFailedInsert() {
+			PooledBinarySearchTree<Integer> tree = new PooledBinarySearchTree<>(4, (lhs, rhs) -> {
+				if(lhs < 0 || rhs < 0) {
+					throw new ClassCastException();
+				}
+
+				return Integer.compare(lhs, rhs);
+			});
+
+			for(int item = 0; item < 3; item++) {
+				tree.insert(item);
+			}
+
+			for(int attempt = 0; attempt < 10; attempt++) {
+				assertThrows(ClassCastException.class, () -> tree.insert(-1));
+			}
+
+			tree.insert(3);
+
+			assertEquals(4, tree.getCapacity());
+			assertEquals(4, tree.size());
+			assertIterableEquals(Arrays.asList(0, 1, 2, 3), tree);
+		}
+
+		@Test
+		@DisplayName("should throw a ConcurrentModificationException if the tree is modified during iteration")
+		void testFailFast() {
+			tree.insert(1);
+			tree.insert(2);
+
+			Iterator<Integer> iterator = tree.iterator();
+			iterator.next();
+
+			tree.remove(2);
+
+			assertThrows(ConcurrentModificationException.class, () -> iterator.next());
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.ScapegoatTree;
+
+@DisplayName("ScapegoatTree")
+class ScapegoatTreeTest {
+	/**
+	 * Returns log(size) in base 1/alpha, the largest depth a ScapegoatTree allows.
+	 */
+	static double depthBound(int size, double alpha) {
+		return Math.log(size) / Math.log(1 / alpha);
+	}
+
+	@Test
+	@DisplayName("should reject balance factors outside of (0.5, 1)")
+	void testInvalidBalanceFactor() {
+		ScapegoatTree<Integer> tree = new ScapegoatTree<>();
+
+		assertEquals(ScapegoatTree.DEFAULT_BALANCE_FACTOR, tree.getBalanceFactor());
+		assertThrows(IllegalArgumentException.class, () -> tree.setBalanceFactor(0.5));
+		assertThrows(IllegalArgumentException.class, () -> tree.setBalanceFactor(1));
+		assertThrows(IllegalArgumentException.class, () -> tree.setBalanceFactor(Double.NaN));
+
+		tree.setBalanceFactor(0.6);
+		assertEquals(0.6, tree.getBalanceFactor());
+	}
+
+	@Test
+	@DisplayName("should stay shallow when it is built from unsorted data")
+	void createWithList() {
+		List<Integer> data = new ArrayList<>();
+
+		for(int item = 0; item < 1000; item++) {
+			data.add(item % 2 == 0 ? item : -item);
+		}
+
+		ScapegoatTree<Integer> tree = new ScapegoatTree<>(data);
+
+		assertEquals(1000, tree.size());
+		assertTrue(tree.getHeight() <= depthBound(1000, ScapegoatTree.DEFAULT_BALANCE_FACTOR) + 1);
+		assertTrue(tree.getRebuildCount() > 0);
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class ScapegoatTreeInstanceTestSuite {
+		ScapegoatTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new ScapegoatTree<>();
+		}
+
+		@Test
+		@DisplayName("should rebuild instead of degenerating when items are inserted in order")
+		void testSequentialInsertion() {
+			for(int item = 0; item < 10000; item++) {
+				tree.insert(item);
+
+				assertTrue(tree.getHeight() <= depthBound(tree.size(), tree.getBalanceFactor()) + 1);
+			}
+
+			assertTrue(tree.getRebuildCount() > 0);
+
+			// A perfectly balanced tree of 10000 nodes has an average depth of about 11.
+			assertTrue(tree.getAverageDepth() < 15);
+
+			for(int index = 0; index < 10000; index += 37) {
+				assertEquals(Integer.valueOf(index), tree.select(index));
+			}
+		}
+
+		@Test
+		@DisplayName("should rebuild the whole tree after most items are removed")
+		void testShrink() {
+			for(int item = 0; item < 1000; item++) {
+				tree.insert(item);
+			}
+
+			int rebuilds = tree.getRebuildCount();
+
+			for(int item = 0; item < 1000; item += 2) {
+				tree.remove(item);
+			}
+
+			assertTrue(tree.getRebuildCount() > rebuilds);
+			assertEquals(500, tree.size());
+			assertEquals(1, tree.getDepthHistogram()[0]);
+			assertTrue(tree.getHeight() <= depthBound(500, tree.getBalanceFactor()) + 1);
+
+			// Removing an item that is not stored must not count as shrinking.
+			rebuilds = tree.getRebuildCount();
+			tree.remove(0);
+			assertEquals(rebuilds, tree.getRebuildCount());
+		}
+
+		@Test
+		@DisplayName("should rebuild the whole tree after most items are removed through an iterator")
+		void testShrinkThroughIterator() {
+			for(int item = 0; item < 1000; item++) {
+				tree.insert(item);
+			}
+
+			int rebuilds = tree.getRebuildCount();
+			Iterator<Integer> iterator = tree.iterator();
+
+			while(iterator.hasNext()) {
+				if(iterator.next() % 10 != 0) {
+					iterator.remove();
+				}
+			}
+
+			assertTrue(tree.getRebuildCount() > rebuilds);
+			assertEquals(100, tree.size());
+			assertTrue(tree.getHeight() <= depthBound(100, tree.getBalanceFactor()) + 1);
+
+			for(int index = 0; index < 100; index++) {
+				assertEquals(Integer.valueOf(index * 10), tree.select(index));
+			}
+		}
+
+		@Test
+		@DisplayName("should match a sorted list under random inserts and removes")
+		void testRandomOperations() {
+			final Random rand = new Random();
+			final List<Integer> expected = new ArrayList<>();
+
+			tree.setBalanceFactor(0.55);
+
+			for(int operation = 0; operation < 5000; operation++) {
+				Integer item = rand.nextInt(300);
+
+				if(rand.nextInt(3) == 0) {
+					tree.remove(item);
+					expected.remove(item);
+				} else {
+					tree.insert(item);
+					expected.add(item);
+				}
+			}
+
+			Collections.sort(expected);
+
+			assertEquals(expected.size(), tree.size());
+			assertIterableEquals(expected, tree);
+
+			for(int index = 0; index < expected.size(); index++) {
+				assertEquals(expected.get(index), tree.select(index));
+			}
+		}
+	}
+}
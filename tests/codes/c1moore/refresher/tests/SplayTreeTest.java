@@ -0,0 +1,224 @@
+package codes.c1moore.refresher.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+
+import codes.c1moore.refresher.bst.SplayTree;
+
+@DisplayName("SplayTree")
+class SplayTreeTest {
+	int comparisons;
+	Comparator<Integer> comparator;
+
+	@BeforeEach
+	void beforeEach() {
+		comparisons = 0;
+
+		comparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				comparisons++;
+
+				return Integer.compare(lhs, rhs);
+			}
+		};
+	}
+
+	@Test
+	@DisplayName("should be able to create a SplayTree with a Comparator")
+	void createWithComparator() {
+		SplayTree<Integer> tree = new SplayTree<>(comparator);
+
+		tree.insert(1);
+		tree.insert(2);
+
+		assertTrue(comparisons > 0);
+		assertEquals(Integer.valueOf(1), tree.getMinimum());
+	}
+
+	@Nested
+	@DisplayName("Instance Methods")
+	class SplayTreeInstanceTestSuite {
+		SplayTree<Integer> tree;
+
+		@BeforeEach
+		void beforeEach() {
+			tree = new SplayTree<>(comparator);
+		}
+
+		@Test
+		@DisplayName("should match a sorted list under random inserts, lookups, and removes")
+		void testRandomOperations() {
+			final Random rand = new Random();
+			final List<Integer> expected = new ArrayList<>();
+
+			for(int operation = 0; operation < 5000; operation++) {
+				Integer item = rand.nextInt(300);
+
+				switch(rand.nextInt(3)) {
+					case 0:
+						tree.remove(item);
+						expected.remove(item);
+						break;
+					case 1:
+						assertEquals(expected.contains(item), tree.has(item));
+						break;
+					default:
+						tree.insert(item);
+						expected.add(item);
+				}
+			}
+
+			Collections.sort(expected);
+
+			assertEquals(expected.size(), tree.size());
+			assertIterableEquals(expected, tree);
+
+			// The cached sizes must survive the rotations.
+			for(int index = 0; index < expected.size(); index++) {
+				assertEquals(expected.get(index), tree.select(index));
+			}
+		}
+
+		@Test
+		@DisplayName("should splay the shared node of a counted duplicate")
+		void testCountedDuplicates() {
+			tree.setCountingDuplicates(true);
+
+			for(int item = 0; item < 100; item++) {
+				tree.insert(item);
+				tree.insert(50);
+			}
+
+			assertEquals(200, tree.size());
+			assertEquals(101, tree.count(50));
+
+			tree.remove(50);
+			tree.insert(10);
+
+			comparisons = 0;
+			assertTrue(tree.has(10));
+			assertEquals(1, comparisons);
+
+			tree.remove(10);
+			tree.remove(10);
+
+			assertFalse(tree.has(10));
+			assertEquals(100, tree.count(50));
+			assertEquals(198, tree.size());
+			assertEquals(Integer.valueOf(50), tree.select(50));
+			assertEquals(Integer.valueOf(51), tree.select(149));
+		}
+
+		@Test
+		@DisplayName("should find an item with a single comparison right after it was accessed")
+		void testAccessedItemIsRoot() {
+			List<Integer> items = new ArrayList<>();
+
+			for(int item = 0; item < 1000; item++) {
+				items.add(item);
+			}
+
+			Collections.shuffle(items);
+			for(Integer item: items) {
+				tree.insert(item);
+			}
+
+			assertTrue(tree.has(500));
+
+			comparisons = 0;
+			assertTrue(tree.has(500));
+			assertEquals(1, comparisons);
+		}
+
+		@Test
+		@DisplayName("should answer lookups of a few hot items with few comparisons")
+		void testSkewedLookups() {
+			final Random rand = new Random();
+			final int size = 10000;
+
+			for(int item = 0; item < size; item++) {
+				tree.insert(item);
+			}
+
+			for(int lookup = 0; lookup < 1000; lookup++) {
+				tree.has(rand.nextInt(size));
+			}
+
+			comparisons = 0;
+
+			for(int lookup = 0; lookup < 10000; lookup++) {
+				assertTrue(tree.has(rand.nextInt(8) * 1000));
+			}
+
+			// A balanced tree would need about log2(10000), or 13, comparisons per lookup.
+			assertTrue(comparisons / 10000.0 < 8);
+		}
+
+		@Test
+		@DisplayName("should insert items in increasing order in linear time")
+		void testSequentialInsertion() {
+			for(int item = 0; item < 10000; item++) {
+				tree.insert(item);
+			}
+
+			// Each new maximum is inserted next to the root and becomes the root.
+			assertTrue(comparisons < 20000);
+			assertEquals(10000, tree.size());
+		}
+
+		@Test
+		@DisplayName("should answer a lookup rejected by the membership filter without comparisons")
+		void testMembershipFilter() {
+			tree.setMembershipFilter(Object::hashCode);
+
+			for(int item = 0; item < 1000; item += 2) {
+				tree.insert(item);
+			}
+
+			int rejected = 0;
+
+			for(int item = 1; item < 1000; item += 2) {
+				comparisons = 0;
+
+				assertFalse(tree.has(item));
+
+				if(comparisons == 0) {
+					rejected++;
+				}
+			}
+
+			assertTrue(rejected > 490);
+			assertTrue(tree.has(500));
+		}
+
+		@Test
+		@DisplayName("should not invalidate iterators on lookups")
+		void testIteratorSurvivesLookups() {
+			for(int item = 0; item < 100; item++) {
+				tree.insert(item);
+			}
+
+			Iterator<Integer> iterator = tree.iterator();
+
+			for(int item = 0; item < 100; item++) {
+				tree.has(99 - item);
+
+				assertEquals(Integer.valueOf(item), iterator.next());
+			}
+
+			assertFalse(iterator.hasNext());
+		}
+	}
+}